@@ -8,7 +8,8 @@ import { SessionEventDto, ContentJourneyDto, JourneyTrackResponseDto } from './d
  *
  * This service handles ONLY I/O operations:
  * - Redis session state management
- * - Kafka emission of raw events
+ * - Kafka emission of raw events, keyed by userId so each user's events land
+ *   on one partition and are profiled by a single consumer in order
  *
  * All CPU-intensive profiling logic (interest scoring, engagement classification,
  * journey analysis) has been moved to the Spring Modulith core (Java).
@@ -40,9 +41,12 @@ export class SessionService {
 
     // Emit raw event to Kafka for Java profiling
     this.kafkaClient.emit('raw-behavioral-events', {
-      ...eventWithTimestamp,
-      topic: 'session_lifecycle',
-      eventType: 'session_start',
+      key: event.userId,
+      value: {
+        ...eventWithTimestamp,
+        topic: 'session_lifecycle',
+        eventType: 'session_start',
+      },
     });
 
     return {
@@ -82,10 +86,13 @@ export class SessionService {
 
     // Emit raw event to Kafka for Java profiling
     this.kafkaClient.emit('raw-behavioral-events', {
-      ...eventWithTimestamp,
-      topic: 'session_lifecycle',
-      eventType: 'session_end',
-      contentCount,
+      key: event.userId,
+      value: {
+        ...eventWithTimestamp,
+        topic: 'session_lifecycle',
+        eventType: 'session_end',
+        contentCount,
+      },
     });
 
     return {
@@ -115,9 +122,12 @@ export class SessionService {
 
     // Emit raw event to Kafka
     this.kafkaClient.emit('raw-behavioral-events', {
-      ...eventWithTimestamp,
-      topic: 'session_lifecycle',
-      eventType: 'session_resume',
+      key: event.userId,
+      value: {
+        ...eventWithTimestamp,
+        topic: 'session_lifecycle',
+        eventType: 'session_resume',
+      },
     });
 
     return {
@@ -157,9 +167,12 @@ export class SessionService {
     // Note: Setting previousContentId to empty string for now - could be enhanced
     // to track the previous content from Redis session state
     this.kafkaClient.emit('raw-behavioral-events', {
-      ...journeyWithTimestamp,
-      topic: 'content_journey',
-      previousContentId: '', // Could be enhanced to track from Redis
+      key: journey.userId,
+      value: {
+        ...journeyWithTimestamp,
+        topic: 'content_journey',
+        previousContentId: '', // Could be enhanced to track from Redis
+      },
     });
 
     const response: JourneyTrackResponseDto = {
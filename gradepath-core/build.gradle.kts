@@ -41,6 +41,9 @@ dependencies {
     // Redis
     implementation("redis.clients:jedis")
 
+    // Local near-cache
+    implementation("com.github.ben-manes.caffeine:caffeine")
+
     // API Documentation
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.7.0")
 
@@ -48,6 +51,9 @@ dependencies {
     implementation("com.fasterxml.jackson.core:jackson-databind")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
 
+    // Compressed bitmaps over content ordinals
+    implementation("org.roaringbitmap:RoaringBitmap:1.3.0")
+
     // Lombok
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
@@ -85,6 +91,10 @@ dependencies {
 
     // AssertJ - Fluent assertions
     testImplementation("org.assertj:assertj-core:3.25.3")
+
+    // JMH - Microbenchmarks under src/test/java/com/gradepath/content/benchmark
+    testImplementation("org.openjdk.jmh:jmh-core:1.37")
+    testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 }
 
 tasks.withType<Test> {
@@ -1,121 +1,84 @@
 package com.gradepath.content.analytics.consumer;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.gradepath.content.analytics.dto.ContentEventDto;
-import com.gradepath.content.analytics.event.ContentCompletedEvent;
-import com.gradepath.content.analytics.event.ContentViewedEvent;
-import com.gradepath.content.analytics.event.UserReactionEvent;
+import com.gradepath.content.analytics.pipeline.IngestPipeline;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.util.UUID;
-
+import java.util.List;
+
+/**
+ * Batch consumer for content-interactions.
+ *
+ * Each poll is handed to the {@link IngestPipeline}, which acknowledges it once
+ * its interactions are stored. When the pipeline's buffers fill up, the
+ * listener container is paused: it keeps polling (and stays in the group) but
+ * fetches nothing until the pipeline has drained. Throughput is tuned with
+ * analytics.ingest.max-poll-records and analytics.ingest.rows-per-statement.
+ * Redelivered records are skipped by the pipeline's dedup filter, and
+ * {@link IngestRebalanceListener} hands partitions over once in-flight batches
+ * are acknowledged. When a batch fails before it is stored the pipeline halts,
+ * and the container is restarted so consumption resumes from the last
+ * committed offset.
+ */
 @Component
 @Slf4j
 public class EventConsumer {
 
-    private final ObjectMapper objectMapper;
-    private final ApplicationEventPublisher eventPublisher;
+    static final String LISTENER_ID = "content-interactions-ingest";
+
+    private final IngestPipeline pipeline;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
 
     @Autowired
-    public EventConsumer(ObjectMapper objectMapper, ApplicationEventPublisher eventPublisher) {
-        this.objectMapper = objectMapper;
-        this.eventPublisher = eventPublisher;
+    public EventConsumer(IngestPipeline pipeline, KafkaListenerEndpointRegistry listenerRegistry) {
+        this.pipeline = pipeline;
+        this.listenerRegistry = listenerRegistry;
+        pipeline.onBackpressure(this::pause, this::resume);
+        pipeline.onHalt(this::restart);
     }
 
     @KafkaListener(
+        id = LISTENER_ID,
         topics = "content-interactions",
-        groupId = "content-analytics-consumer",
-        containerFactory = "kafkaListenerContainerFactory"
+        groupId = IngestPipeline.CONSUMER_GROUP,
+        containerFactory = "batchKafkaListenerContainerFactory"
     )
-    public void consumeContentInteraction(String message) {
-        try {
-            log.debug("Received message from Kafka: {}", message);
-
-            JsonNode json = objectMapper.readTree(message);
-            String eventType = json.has("eventType") ? json.get("eventType").asText() : "";
-
-            ContentEventDto event = objectMapper.treeToValue(json, ContentEventDto.class);
-
-            switch (eventType) {
-                case "content_viewed" -> handleContentViewed(event);
-                case "content_completed" -> handleContentCompleted(event);
-                case "content_reaction" -> handleContentReaction(event);
-                case "assessment_completed" -> handleAssessmentCompleted(event);
-                default -> log.warn("Unknown event type: {}", eventType);
-            }
-        } catch (Exception e) {
-            log.error("Error processing Kafka message: {}", message, e);
-        }
+    public void consumeContentInteractions(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        log.debug("Received {} records from Kafka", records.size());
+        pipeline.submit(records, acknowledgment);
     }
 
-    private void handleContentViewed(ContentEventDto event) {
-        log.info("Processing content_viewed event for user: {}, content: {}",
-            event.getUserId(), event.getContentId());
-
-        try {
-            UUID userId = UUID.fromString(event.getUserId());
-            String contentId = event.getContentId();
-            long timestamp = event.getTimestamp() != null ? event.getTimestamp() : System.currentTimeMillis();
-
-            ContentViewedEvent viewedEvent = new ContentViewedEvent(
-                this, userId, contentId, event.getSessionId(), timestamp
-            );
-            eventPublisher.publishEvent(viewedEvent);
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid UUID in event: {}", event, e);
+    private void pause() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null) {
+            container.pause();
         }
     }
 
-    private void handleContentCompleted(ContentEventDto event) {
-        log.info("Processing content_completed event for user: {}, content: {}, score: {}",
-            event.getUserId(), event.getContentId(), event.getScore());
-
-        try {
-            UUID userId = UUID.fromString(event.getUserId());
-            String contentId = event.getContentId();
-            long timestamp = event.getTimestamp() != null ? event.getTimestamp() : System.currentTimeMillis();
-
-            ContentCompletedEvent completedEvent = new ContentCompletedEvent(
-                this, userId, contentId, event.getSessionId(), timestamp,
-                event.getTimeSpentSeconds(), event.getScore(), event.getPassed()
-            );
-            eventPublisher.publishEvent(completedEvent);
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid UUID in event: {}", event, e);
+    private void restart() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container == null) {
+            pipeline.recover();
+            return;
         }
+        // Stopping commits only what was acknowledged, so the restart begins at the failed batch
+        container.stop(() -> {
+            pipeline.recover();
+            container.start();
+        });
     }
 
-    private void handleContentReaction(ContentEventDto event) {
-        log.info("Processing content_reaction event for user: {}, content: {}",
-            event.getUserId(), event.getContentId());
-
-        try {
-            UUID userId = UUID.fromString(event.getUserId());
-            String contentId = event.getContentId();
-            long timestamp = event.getTimestamp() != null ? event.getTimestamp() : System.currentTimeMillis();
-
-            // Extract reaction type from metadata
-            String reactionType = "liked";
-            if (event.getMetadata() != null && event.getMetadata().containsKey("reaction")) {
-                reactionType = String.valueOf(event.getMetadata().get("reaction"));
-            }
-
-            UserReactionEvent reactionEvent = new UserReactionEvent(
-                this, userId, contentId, event.getSessionId(), timestamp, reactionType
-            );
-            eventPublisher.publishEvent(reactionEvent);
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid UUID in event: {}", event, e);
+    private void resume() {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(LISTENER_ID);
+        if (container != null) {
+            container.resume();
         }
     }
-
-    private void handleAssessmentCompleted(ContentEventDto event) {
-        // Treat assessment completed as content completed
-        handleContentCompleted(event);
-    }
 }
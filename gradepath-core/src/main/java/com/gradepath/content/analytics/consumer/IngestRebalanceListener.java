@@ -0,0 +1,64 @@
+package com.gradepath.content.analytics.consumer;
+
+import com.gradepath.content.analytics.dedup.EventDeduplicator;
+import com.gradepath.content.analytics.pipeline.IngestPipeline;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Rebalance hooks of the interaction ingest consumer.
+ *
+ * Before revoked partitions are committed and handed over, waits for the
+ * pipeline to finish its in-flight batches so their acknowledgments are part of
+ * that commit and their dedup keys are stored; the container commits pending
+ * acknowledgments right after this callback. Assigned partitions get their
+ * dedup window loaded before their first records are polled.
+ */
+@Component
+@Slf4j
+public class IngestRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final IngestPipeline pipeline;
+    private final EventDeduplicator deduplicator;
+    private final long drainTimeoutMs;
+
+    public IngestRebalanceListener(
+            IngestPipeline pipeline,
+            EventDeduplicator deduplicator,
+            @Value("${analytics.dedup.revoke-drain-timeout-ms:10000}") long drainTimeoutMs) {
+        this.pipeline = pipeline;
+        this.deduplicator = deduplicator;
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        try {
+            if (!pipeline.awaitIdle(drainTimeoutMs)) {
+                log.warn("Ingest pipeline still busy after {} ms, revoking {} anyway", drainTimeoutMs, partitions);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deduplicator.revoke(IngestPipeline.CONSUMER_GROUP, partitionIds(partitions));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        deduplicator.assign(IngestPipeline.CONSUMER_GROUP, partitionIds(partitions));
+    }
+
+    static List<Integer> partitionIds(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+}
@@ -0,0 +1,85 @@
+package com.gradepath.content.analytics.dedup;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Event hashes seen on one partition, one Roaring bitmap per hour bucket, so
+ * expiring the oldest hour is dropping a map entry.
+ */
+final class DedupWindow {
+
+    private final NavigableMap<Long, Roaring64Bitmap> buckets = new TreeMap<>();
+
+    /**
+     * Record a hash, returning false if it was already present
+     */
+    synchronized boolean add(long bucket, long hash) {
+        Roaring64Bitmap hashes = buckets.computeIfAbsent(bucket, b -> new Roaring64Bitmap());
+        if (hashes.contains(hash)) {
+            return false;
+        }
+        hashes.addLong(hash);
+        return true;
+    }
+
+    /**
+     * Record every hash of a stored set
+     */
+    synchronized void addAll(long bucket, Roaring64Bitmap hashes) {
+        buckets.computeIfAbsent(bucket, b -> new Roaring64Bitmap()).or(hashes);
+    }
+
+    synchronized void remove(long bucket, long hash) {
+        Roaring64Bitmap hashes = buckets.get(bucket);
+        if (hashes != null) {
+            hashes.removeLong(hash);
+        }
+    }
+
+    synchronized boolean contains(long bucket, long hash) {
+        Roaring64Bitmap hashes = buckets.get(bucket);
+        return hashes != null && hashes.contains(hash);
+    }
+
+    /**
+     * Drop every bucket before the given one
+     */
+    synchronized void evictBefore(long bucket) {
+        buckets.headMap(bucket, false).clear();
+    }
+
+    synchronized long size() {
+        long size = 0;
+        for (Map.Entry<Long, Roaring64Bitmap> entry : buckets.entrySet()) {
+            size += entry.getValue().getLongCardinality();
+        }
+        return size;
+    }
+
+    static byte[] serialize(Roaring64Bitmap hashes) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) hashes.serializedSizeInBytes());
+        try {
+            hashes.serialize(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.array();
+    }
+
+    static Roaring64Bitmap deserialize(byte[] bytes) {
+        Roaring64Bitmap hashes = new Roaring64Bitmap();
+        try {
+            hashes.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt dedup key set", e);
+        }
+        return hashes;
+    }
+}
@@ -0,0 +1,236 @@
+package com.gradepath.content.analytics.dedup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Effectively-once filter for Kafka consumers.
+ *
+ * Every consumed record is identified by its {@link EventKey}. The hashes seen
+ * in the last window-hours live in memory per consumer group and partition, so
+ * checking an event never touches the database. They are backed by
+ * processed_event_key_sets (see V11), which the caller writes in the same
+ * transaction as the event's effects, before acknowledging the offset: one
+ * serialized Roaring bitmap per partition and hour of each stored batch, merged
+ * into a single row per partition and hour once that hour has closed. When a
+ * partition is assigned, its window is reloaded from that table, about one row
+ * per hour rather than one per key; a record that is redelivered after a
+ * rebalance or a crash is therefore recognised by whichever instance picks it up.
+ *
+ * Usage: {@link #claim} before processing, {@link #persist} inside the write
+ * transaction, and {@link #release} if that transaction fails. Events older
+ * than the window are not tracked and always pass.
+ */
+@Component
+@Slf4j
+public class EventDeduplicator {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO processed_event_key_sets (consumer, partition_id, bucket, event_keys) VALUES (?, ?, ?, ?)";
+    private static final String LOAD_SQL =
+        "SELECT bucket, event_keys FROM processed_event_key_sets WHERE consumer = ? AND partition_id = ? AND bucket >= ?";
+    private static final String EXPIRE_SQL = "DELETE FROM processed_event_key_sets WHERE bucket < ?";
+    private static final String FRAGMENTED_SQL =
+        "SELECT consumer, partition_id, bucket FROM processed_event_key_sets WHERE bucket >= ? AND bucket < ? "
+            + "GROUP BY consumer, partition_id, bucket HAVING count(*) > 1";
+    private static final String FRAGMENTS_SQL =
+        "SELECT id, event_keys FROM processed_event_key_sets WHERE consumer = ? AND partition_id = ? AND bucket = ?";
+    private static final String DELETE_SQL = "DELETE FROM processed_event_key_sets WHERE id = ?";
+
+    // Pre-V11 rows, read and expired until the window has passed over them
+    private static final String LEGACY_LOAD_SQL =
+        "SELECT bucket, event_key FROM processed_event_keys WHERE consumer = ? AND partition_id = ? AND bucket >= ?";
+    private static final String LEGACY_EXPIRE_SQL = "DELETE FROM processed_event_keys WHERE bucket < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int windowHours;
+
+    private final Map<Owner, DedupWindow> windows = new ConcurrentHashMap<>();
+
+    public EventDeduplicator(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.dedup.window-hours:48}") int windowHours) {
+        if (windowHours < 1) {
+            throw new IllegalArgumentException("window-hours must be positive: " + windowHours);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.windowHours = windowHours;
+        meterRegistry.gauge("analytics.dedup.keys", windows, EventDeduplicator::trackedKeys);
+    }
+
+    /**
+     * Claim an event for processing: true the first time it is seen within the
+     * window, false for a duplicate
+     */
+    public boolean claim(String consumer, EventKey key) {
+        return claim(consumer, key, System.currentTimeMillis());
+    }
+
+    boolean claim(String consumer, EventKey key, long nowMillis) {
+        if (key.bucket() < oldestBucket(nowMillis)) {
+            meterRegistry.counter("analytics.dedup.untracked", "consumer", consumer).increment();
+            return true;
+        }
+        if (window(consumer, key.partition()).add(key.bucket(), key.hash())) {
+            return true;
+        }
+        meterRegistry.counter("analytics.dedup.duplicates", "consumer", consumer).increment();
+        log.debug("Skipping duplicate event on {} partition {}", consumer, key.partition());
+        return false;
+    }
+
+    /**
+     * Forget a claimed event whose effects were not stored, so a redelivery is processed
+     */
+    public void release(String consumer, EventKey key) {
+        DedupWindow window = windows.get(new Owner(consumer, key.partition()));
+        if (window != null) {
+            window.remove(key.bucket(), key.hash());
+        }
+    }
+
+    public void release(String consumer, Collection<EventKey> keys) {
+        for (EventKey key : keys) {
+            release(consumer, key);
+        }
+    }
+
+    /**
+     * Write claimed keys to processed_event_key_sets, one row per partition
+     * and hour. Joins the caller's transaction, which should be the one
+     * storing the events' effects.
+     */
+    public void persist(String consumer, Collection<EventKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        Map<Integer, Map<Long, Roaring64Bitmap>> sets = new LinkedHashMap<>();
+        for (EventKey key : keys) {
+            sets.computeIfAbsent(key.partition(), partition -> new LinkedHashMap<>())
+                .computeIfAbsent(key.bucket(), bucket -> new Roaring64Bitmap())
+                .addLong(key.hash());
+        }
+        List<Object[]> rows = new ArrayList<>();
+        sets.forEach((partition, buckets) -> buckets.forEach((bucket, hashes) ->
+            rows.add(new Object[] { consumer, partition, bucket, DedupWindow.serialize(hashes) })));
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Load the stored window of newly assigned partitions
+     */
+    public void assign(String consumer, Collection<Integer> partitions) {
+        long oldest = oldestBucket(System.currentTimeMillis());
+        for (int partition : partitions) {
+            DedupWindow window = window(consumer, partition);
+            try {
+                jdbcTemplate.query(LOAD_SQL,
+                    rs -> { window.addAll(rs.getLong("bucket"), DedupWindow.deserialize(rs.getBytes("event_keys"))); },
+                    consumer, partition, oldest);
+                jdbcTemplate.query(LEGACY_LOAD_SQL,
+                    rs -> { window.add(rs.getLong("bucket"), rs.getLong("event_key")); },
+                    consumer, partition, oldest);
+            } catch (DataAccessException e) {
+                // Redeliveries on this partition will not be recognised until it is reassigned
+                log.error("Failed to load dedup window for {} partition {}", consumer, partition, e);
+            }
+        }
+        log.info("Loaded dedup windows for {} partitions {}", consumer, partitions);
+    }
+
+    /**
+     * Drop the windows of revoked partitions; their new owner loads them from the table
+     */
+    public void revoke(String consumer, Collection<Integer> partitions) {
+        for (int partition : partitions) {
+            windows.remove(new Owner(consumer, partition));
+        }
+    }
+
+    /**
+     * Evict buckets that have left the window, in memory and in the table,
+     * and merge the rows of each closed hour
+     */
+    @Scheduled(
+        initialDelayString = "${analytics.dedup.expire-interval-ms:600000}",
+        fixedDelayString = "${analytics.dedup.expire-interval-ms:600000}"
+    )
+    public void expire() {
+        expire(System.currentTimeMillis());
+    }
+
+    void expire(long nowMillis) {
+        long oldest = oldestBucket(nowMillis);
+        for (DedupWindow window : windows.values()) {
+            window.evictBefore(oldest);
+        }
+        try {
+            int deleted = jdbcTemplate.update(EXPIRE_SQL, oldest) + jdbcTemplate.update(LEGACY_EXPIRE_SQL, oldest);
+            log.debug("Expired {} processed event key rows", deleted);
+            compact(oldest, EventKey.bucketOf(nowMillis));
+        } catch (DataAccessException e) {
+            log.error("Failed to expire processed event keys, retrying next run", e);
+        }
+    }
+
+    /**
+     * Merge the rows of each partition and hour in [from, to) into one. The
+     * merged row is inserted before its fragments are deleted, so every key
+     * stays stored throughout; a concurrent run at worst leaves two merged
+     * rows for the next one. Late events keep adding rows to closed hours and
+     * are merged on a later run.
+     */
+    private void compact(long from, long to) {
+        List<Object[]> fragmented = jdbcTemplate.query(FRAGMENTED_SQL,
+            (rs, row) -> new Object[] { rs.getString("consumer"), rs.getInt("partition_id"), rs.getLong("bucket") },
+            from, to);
+        for (Object[] owner : fragmented) {
+            Roaring64Bitmap merged = new Roaring64Bitmap();
+            List<Object[]> ids = new ArrayList<>();
+            jdbcTemplate.query(FRAGMENTS_SQL, rs -> {
+                merged.or(DedupWindow.deserialize(rs.getBytes("event_keys")));
+                ids.add(new Object[] { rs.getLong("id") });
+            }, owner);
+            jdbcTemplate.update(INSERT_SQL, owner[0], owner[1], owner[2], DedupWindow.serialize(merged));
+            jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+        }
+        if (!fragmented.isEmpty()) {
+            log.debug("Merged processed event keys of {} partition hours", fragmented.size());
+        }
+    }
+
+    long oldestBucket(long nowMillis) {
+        return EventKey.bucketOf(nowMillis) - windowHours;
+    }
+
+    private DedupWindow window(String consumer, int partition) {
+        return windows.computeIfAbsent(new Owner(consumer, partition), owner -> new DedupWindow());
+    }
+
+    private static double trackedKeys(Map<Owner, DedupWindow> windows) {
+        long size = 0;
+        for (DedupWindow window : windows.values()) {
+            size += window.size();
+        }
+        return size;
+    }
+
+    private record Owner(String consumer, int partition) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.gradepath.content.analytics.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deterministic identity of a consumed event: a 64-bit hash of the record's key
+ * and payload, filed under the partition it was read from and the hour bucket
+ * of the record timestamp.
+ *
+ * A redelivered record, or a producer retry of the same send, carries the same
+ * key, payload and timestamp, so it maps to the same EventKey without any
+ * lookup. Records without a timestamp get bucket -1, which lies outside every
+ * dedup window.
+ */
+public record EventKey(int partition, long bucket, long hash) {
+
+    static final long BUCKET_MS = TimeUnit.HOURS.toMillis(1);
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    public static EventKey of(ConsumerRecord<String, String> record) {
+        long bucket = record.timestamp() >= 0 ? bucketOf(record.timestamp()) : -1;
+        return new EventKey(record.partition(), bucket, hash(record.key(), record.value()));
+    }
+
+    static long bucketOf(long epochMillis) {
+        return epochMillis / BUCKET_MS;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 units of each part, separated so ("ab", "c") and
+     * ("a", "bc") differ, finished with the murmur3 mixer to spread the bits
+     */
+    static long hash(String... parts) {
+        long h = FNV_OFFSET;
+        for (String part : parts) {
+            if (part == null) {
+                h = (h ^ 0xFFFF) * FNV_PRIME;
+            } else {
+                for (int i = 0; i < part.length(); i++) {
+                    h = (h ^ part.charAt(i)) * FNV_PRIME;
+                }
+            }
+            h = (h ^ 0x1F) * FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
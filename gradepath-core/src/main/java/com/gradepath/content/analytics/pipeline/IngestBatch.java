@@ -0,0 +1,42 @@
+package com.gradepath.content.analytics.pipeline;
+
+import com.gradepath.content.analytics.dedup.EventKey;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.content.model.Content;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+
+/**
+ * One consumer poll on its way through the ingest pipeline. Each stage fills in
+ * the fields the next one needs; a batch is only touched by one stage at a time.
+ */
+final class IngestBatch {
+
+    final List<ConsumerRecord<String, String>> records;
+    final Acknowledgment acknowledgment;
+    final long submittedNanos;
+
+    // Pipeline generation at submit; only batches of the current generation are acknowledged
+    final int generation;
+
+    // Set by persist once the rows are committed
+    volatile boolean stored;
+
+    // Set by parse
+    List<ContentInteraction> interactions = List.of();
+
+    // Set by parse, aligned with interactions; claimed with the deduplicator
+    List<EventKey> keys = List.of();
+
+    // Set by enrich, aligned with interactions; null where the content is not in the catalog
+    List<Content> contents = List.of();
+
+    IngestBatch(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment, int generation) {
+        this.records = records;
+        this.acknowledgment = acknowledgment;
+        this.submittedNanos = System.nanoTime();
+        this.generation = generation;
+    }
+}
@@ -0,0 +1,497 @@
+package com.gradepath.content.analytics.pipeline;
+
+import com.gradepath.content.analytics.dedup.EventDeduplicator;
+import com.gradepath.content.analytics.dedup.EventKey;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.service.EventProcessingService;
+import com.gradepath.content.analytics.service.InteractionBatchWriter;
+import com.gradepath.content.content.model.Content;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process pipeline from content-interactions batches to stored interactions:
+ * parse → enrich → persist → derive.
+ *
+ * Each stage owns a bounded ring buffer of batches and one worker thread, so
+ * batches keep their order and memory is capped at stage-capacity batches per
+ * stage. A stage that falls behind blocks the stage before it; once the parse
+ * buffer is full the listener is asked to pause consumption, and it resumes
+ * when the buffer has drained to half. A batch is acknowledged right after
+ * persist, so offsets never run ahead of stored rows. Persist retries a write
+ * that failed for a transient reason, such as a lost connection or a lock
+ * timeout, with exponential backoff, capped at persist-max-backoff-ms, until it
+ * succeeds; meanwhile the buffers fill and consumption stays paused. A write the
+ * database rejects outright, such as an interaction for a deleted user or
+ * content, is stored again in halves until the offending rows are isolated;
+ * those are skipped and counted in analytics.ingest.failed, and the rest of
+ * the batch is stored and acknowledged.
+ *
+ * A batch that fails in any stage before it is stored is never acknowledged.
+ * The pipeline then halts: batches still in flight are stored but not
+ * acknowledged, new submissions are ignored, and the halt callback restarts
+ * the listener container, which resumes from the last committed offset. The
+ * failed batch and everything after it are delivered again; what was already
+ * stored is dropped by the dedup filter.
+ *
+ * Redelivered records are dropped at parse by the {@link EventDeduplicator};
+ * the keys of a batch are stored in the same transaction as its rows, so a
+ * batch that is redelivered after its rows were committed but before its
+ * offsets were is recognised even on another instance.
+ */
+@Component
+@Slf4j
+public class IngestPipeline {
+
+    public static final String CONSUMER_GROUP = "content-analytics-consumer";
+
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final long IDLE_POLL_MS = 10;
+
+    private final InteractionEventParser parser;
+    private final EventProcessingService eventProcessingService;
+    private final InteractionBatchWriter batchWriter;
+    private final EventDeduplicator deduplicator;
+    private final TransactionOperations transactions;
+    private final int stageCapacity;
+    private final long persistBackoffMs;
+    private final long persistMaxBackoffMs;
+
+    private final PipelineStage<IngestBatch> parse;
+    private final PipelineStage<IngestBatch> enrich;
+    private final PipelineStage<IngestBatch> persist;
+    private final PipelineStage<IngestBatch> derive;
+
+    private boolean paused;
+    private boolean halted;
+    private int generation;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Runnable onSaturated = () -> { };
+    private volatile Runnable onDrained = () -> { };
+    private volatile Runnable onHalted = () -> { };
+
+    private final Timer batchLatency;
+    private final DistributionSummary batchSize;
+    private final Counter rowsWritten;
+    private final Counter rejected;
+    private final Counter failedRows;
+    private final Counter persistRetries;
+    private final Counter pauses;
+    private final Counter halts;
+
+    public IngestPipeline(
+            InteractionEventParser parser,
+            EventProcessingService eventProcessingService,
+            InteractionBatchWriter batchWriter,
+            EventDeduplicator deduplicator,
+            TransactionOperations transactions,
+            MeterRegistry meterRegistry,
+            @Value("${analytics.ingest.stage-capacity:4}") int stageCapacity,
+            @Value("${analytics.ingest.persist-backoff-ms:200}") long persistBackoffMs,
+            @Value("${analytics.ingest.persist-max-backoff-ms:10000}") long persistMaxBackoffMs) {
+        this.parser = parser;
+        this.eventProcessingService = eventProcessingService;
+        this.batchWriter = batchWriter;
+        this.deduplicator = deduplicator;
+        this.transactions = transactions;
+        this.stageCapacity = stageCapacity;
+        this.persistBackoffMs = persistBackoffMs;
+        this.persistMaxBackoffMs = Math.max(persistBackoffMs, persistMaxBackoffMs);
+
+        this.batchLatency = Timer.builder("analytics.ingest.batch.latency")
+            .description("Time from receiving a consumer batch to acknowledging it")
+            .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("analytics.ingest.batch.size")
+            .description("Records per consumer batch")
+            .register(meterRegistry);
+        this.rowsWritten = meterRegistry.counter("analytics.ingest.rows");
+        this.rejected = meterRegistry.counter("analytics.ingest.rejected");
+        this.failedRows = meterRegistry.counter("analytics.ingest.failed");
+        this.persistRetries = meterRegistry.counter("analytics.ingest.persist.retries");
+        this.pauses = meterRegistry.counter("analytics.ingest.pauses");
+        this.halts = meterRegistry.counter("analytics.ingest.halts");
+
+        // Built back to front so each stage knows its successor
+        this.derive = new PipelineStage<>("derive", stageCapacity, this::derive, this::failed, null, meterRegistry);
+        this.persist = new PipelineStage<>("persist", stageCapacity, this::persist, this::failed, derive, meterRegistry);
+        this.enrich = new PipelineStage<>("enrich", stageCapacity, this::enrich, this::failed, persist, meterRegistry);
+        this.parse = new PipelineStage<>("parse", stageCapacity, this::parse, this::failed, enrich, meterRegistry);
+
+        derive.start();
+        persist.start();
+        enrich.start();
+        parse.start();
+    }
+
+    /**
+     * Register the callbacks that pause and resume the feeding listener
+     */
+    public void onBackpressure(Runnable saturated, Runnable drained) {
+        this.onSaturated = saturated;
+        this.onDrained = drained;
+    }
+
+    /**
+     * Register the callback that restarts the feeding listener after a batch
+     * failed unacknowledged. It must stop the listener before calling
+     * {@link #recover()} and starting it again.
+     */
+    public void onHalt(Runnable halted) {
+        this.onHalted = halted;
+    }
+
+    /**
+     * Hand a consumer batch to the pipeline. Waits only if the parse buffer is
+     * already full, which the pause request normally prevents.
+     */
+    public void submit(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        IngestBatch batch;
+        synchronized (this) {
+            if (halted) {
+                // Left unacknowledged; the restarted listener delivers these records again
+                log.debug("Ingest pipeline halted, ignoring {} records", records.size());
+                return;
+            }
+            batch = new IngestBatch(records, acknowledgment, generation);
+        }
+        batchSize.record(records.size());
+        inFlight.incrementAndGet();
+        try {
+            parse.put(batch);
+        } catch (InterruptedException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+
+        if (parse.remainingCapacity() == 0) {
+            pauseIfSaturated();
+        }
+    }
+
+    // Both transitions run under the pipeline's lock so pause and resume requests never cross
+    private synchronized void pauseIfSaturated() {
+        if (!paused && parse.remainingCapacity() == 0) {
+            paused = true;
+            pauses.increment();
+            log.info("Ingest pipeline saturated, pausing consumption");
+            onSaturated.run();
+        }
+    }
+
+    private synchronized void resumeIfDrained() {
+        if (paused && parse.depth() <= stageCapacity / 2) {
+            paused = false;
+            log.info("Ingest pipeline drained, resuming consumption");
+            onDrained.run();
+        }
+    }
+
+    synchronized boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Accept batches again after a halt. Called once the listener has stopped,
+     * so every batch submitted from here on starts at a committed offset.
+     */
+    public synchronized void recover() {
+        if (halted) {
+            halted = false;
+            log.info("Ingest pipeline recovered, accepting batches");
+        }
+    }
+
+    synchronized boolean isHalted() {
+        return halted;
+    }
+
+    // Halts once per failure: batches of the old generation are never acknowledged
+    private void halt(IngestBatch batch) {
+        Runnable callback;
+        synchronized (this) {
+            if (batch.generation != generation) {
+                return;
+            }
+            generation++;
+            halted = true;
+            halts.increment();
+            callback = onHalted;
+        }
+        log.warn("Ingest pipeline halted, restarting consumption from the last committed offset");
+        callback.run();
+    }
+
+    private synchronized void acknowledge(IngestBatch batch) {
+        if (batch.generation == generation) {
+            batch.acknowledgment.acknowledge();
+        }
+    }
+
+    private synchronized boolean isStale(IngestBatch batch) {
+        return batch.generation != generation;
+    }
+
+    /**
+     * Wait until every submitted batch has been acknowledged or dropped. Called
+     * before partitions are revoked, so the acknowledgments and dedup keys of
+     * in-flight batches land before another consumer takes the partitions over.
+     *
+     * @return false if batches were still in flight when the timeout expired
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(IDLE_POLL_MS);
+        }
+        return true;
+    }
+
+    private IngestBatch parse(IngestBatch batch) {
+        resumeIfDrained();
+
+        List<ContentInteraction> interactions = new ArrayList<>(batch.records.size());
+        List<EventKey> keys = new ArrayList<>(batch.records.size());
+        // Attached up front so a failure part way through releases the keys claimed so far
+        batch.interactions = interactions;
+        batch.keys = keys;
+        for (ConsumerRecord<String, String> record : batch.records) {
+            ContentInteraction interaction = parser.parse(record.value());
+            if (interaction == null) {
+                rejected.increment();
+                continue;
+            }
+            EventKey key = EventKey.of(record);
+            if (deduplicator.claim(CONSUMER_GROUP, key)) {
+                interactions.add(interaction);
+                keys.add(key);
+            }
+        }
+        return batch;
+    }
+
+    private IngestBatch enrich(IngestBatch batch) {
+        try {
+            batch.contents = eventProcessingService.resolveContent(batch.interactions);
+        } catch (RuntimeException e) {
+            // Enrichment only feeds derive; the rows are stored either way
+            log.error("Failed to resolve content for {} interactions", batch.interactions.size(), e);
+            batch.contents = Collections.nCopies(batch.interactions.size(), null);
+        }
+        return batch;
+    }
+
+    private IngestBatch persist(IngestBatch batch) {
+        int size = batch.interactions.size();
+        Write result = size > 0 ? write(batch, 0, size) : Write.STORED;
+        if (result == Write.REJECTED) {
+            log.warn("Database rejected a batch of {} interactions, storing it in halves to isolate the bad rows", size);
+            boolean[] stored = new boolean[size];
+            if (isolate(batch, 0, size, stored)) {
+                retainStored(batch, stored);
+            } else {
+                result = Write.ABANDONED;
+                releaseUnstored(batch, stored);
+            }
+        }
+        if (result == Write.ABANDONED) {
+            // Halted or shutting down: the batch will not be acknowledged, so leave it to the redelivery
+            unstored(batch);
+            return null;
+        }
+
+        // A batch of an older generation is stored but not acknowledged; its redelivery is deduplicated
+        batch.stored = true;
+        acknowledge(batch);
+        inFlight.decrementAndGet();
+        batchLatency.record(System.nanoTime() - batch.submittedNanos, TimeUnit.NANOSECONDS);
+        rowsWritten.increment(batch.interactions.size());
+        return batch;
+    }
+
+    private enum Write { STORED, REJECTED, ABANDONED }
+
+    /**
+     * Store rows [from, to) of a batch with their keys in one transaction,
+     * retrying transient failures with backoff
+     *
+     * @return REJECTED if the database refused the rows, ABANDONED if the
+     *         batch went stale or the pipeline is shutting down meanwhile
+     */
+    private Write write(IngestBatch batch, int from, int to) {
+        List<ContentInteraction> rows = batch.interactions.subList(from, to);
+        List<EventKey> keys = batch.keys.subList(from, to);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactions.executeWithoutResult(status -> {
+                    batchWriter.insertAll(rows);
+                    deduplicator.persist(CONSUMER_GROUP, keys);
+                });
+                return Write.STORED;
+            } catch (RuntimeException e) {
+                if (isPermanent(e)) {
+                    log.debug("Database rejected {} interactions", rows.size(), e);
+                    return Write.REJECTED;
+                }
+                persistRetries.increment();
+                if (isStale(batch)) {
+                    return Write.ABANDONED;
+                }
+                long backoff = Math.min(persistBackoffMs << Math.min(attempt - 1, 20), persistMaxBackoffMs);
+                log.warn("Failed to store {} interactions (attempt {}), retrying in {} ms",
+                    rows.size(), attempt, backoff, e);
+                if (!sleep(backoff)) {
+                    return Write.ABANDONED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the halves of rows [from, to), which the database rejected as a
+     * whole, recursing into rejected halves until single bad rows are left
+     * and skipped. Marks the rows stored along the way.
+     *
+     * @return false if the batch was abandoned part way
+     */
+    private boolean isolate(IngestBatch batch, int from, int to, boolean[] stored) {
+        if (to - from == 1) {
+            ContentInteraction rejectedRow = batch.interactions.get(from);
+            log.error("Skipping interaction {} rejected by the database for user: {}, content: {}",
+                rejectedRow.getInteractionType(), rejectedRow.getUserId(), rejectedRow.getContentId());
+            deduplicator.release(CONSUMER_GROUP, batch.keys.get(from));
+            failedRows.increment();
+            return true;
+        }
+        int middle = (from + to) >>> 1;
+        return isolateHalf(batch, from, middle, stored) && isolateHalf(batch, middle, to, stored);
+    }
+
+    private boolean isolateHalf(IngestBatch batch, int from, int to, boolean[] stored) {
+        Write result = write(batch, from, to);
+        if (result == Write.STORED) {
+            Arrays.fill(stored, from, to, true);
+            return true;
+        }
+        return result == Write.REJECTED && isolate(batch, from, to, stored);
+    }
+
+    // Keep only the stored rows, with their keys and contents, for acknowledgment and derive
+    private static void retainStored(IngestBatch batch, boolean[] stored) {
+        List<ContentInteraction> interactions = new ArrayList<>();
+        List<EventKey> keys = new ArrayList<>();
+        List<Content> contents = new ArrayList<>();
+        for (int i = 0; i < stored.length; i++) {
+            if (stored[i]) {
+                interactions.add(batch.interactions.get(i));
+                keys.add(batch.keys.get(i));
+                contents.add(batch.contents.get(i));
+            }
+        }
+        batch.interactions = interactions;
+        batch.keys = keys;
+        batch.contents = contents;
+    }
+
+    // Committed rows keep their claimed keys, so their redelivery is still skipped
+    private static void releaseUnstored(IngestBatch batch, boolean[] stored) {
+        List<EventKey> keys = new ArrayList<>();
+        for (int i = 0; i < stored.length; i++) {
+            if (!stored[i]) {
+                keys.add(batch.keys.get(i));
+            }
+        }
+        batch.keys = keys;
+    }
+
+    /**
+     * Whether the database refused the write itself, e.g. a foreign key or
+     * length violation, which no retry can fix. Connection failures are
+     * non-transient in Spring's hierarchy too, but they pass.
+     */
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException
+            && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    private IngestBatch derive(IngestBatch batch) {
+        for (int i = 0; i < batch.interactions.size(); i++) {
+            ContentInteraction interaction = batch.interactions.get(i);
+            try {
+                eventProcessingService.applySideEffects(interaction, batch.contents.get(i));
+            } catch (RuntimeException e) {
+                log.error("Failed to apply side effects of {} for user: {}, content: {}",
+                    interaction.getInteractionType(), interaction.getUserId(), interaction.getContentId(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Failure callback of every stage. A batch that failed before it was
+     * stored is left for redelivery and halts the pipeline.
+     */
+    private void failed(IngestBatch batch, RuntimeException e) {
+        if (batch.stored) {
+            log.error("Failed to derive from {} stored interactions", batch.interactions.size(), e);
+            return;
+        }
+        log.error("Ingest batch of {} records failed before it was stored, leaving it for redelivery",
+            batch.records.size(), e);
+        unstored(batch);
+        halt(batch);
+    }
+
+    private void unstored(IngestBatch batch) {
+        deduplicator.release(CONSUMER_GROUP, batch.keys);
+        failedRows.increment(batch.records.size());
+        inFlight.decrementAndGet();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Batches still buffered in any stage
+     */
+    int pendingBatches() {
+        return parse.depth() + enrich.depth() + persist.depth() + derive.depth();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Listeners have stopped by now; unacknowledged batches are redelivered
+        parse.stop(STOP_TIMEOUT_MS);
+        enrich.stop(STOP_TIMEOUT_MS);
+        persist.stop(STOP_TIMEOUT_MS);
+        derive.stop(STOP_TIMEOUT_MS);
+    }
+}
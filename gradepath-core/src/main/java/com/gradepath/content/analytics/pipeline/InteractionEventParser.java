@@ -0,0 +1,158 @@
+package com.gradepath.content.analytics.pipeline;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.model.InteractionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps content-interactions messages to interaction rows.
+ *
+ * Messages are decoded in one streaming pass: the fields an interaction needs
+ * are read straight off the token stream, everything else (including metadata
+ * other than the reaction) is skipped without being materialized, and the row
+ * is built once eventType is known.
+ */
+@Component
+@Slf4j
+public class InteractionEventParser {
+
+    private final JsonFactory jsonFactory;
+
+    public InteractionEventParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Map one message to an interaction row, or null if it cannot be stored
+     */
+    public ContentInteraction parse(String message) {
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                log.error("Error processing Kafka message, not a JSON object: {}", message);
+                return null;
+            }
+
+            Fields fields = new Fields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "eventType" -> fields.eventType = parser.getValueAsString();
+                    case "userId" -> fields.userId = parser.getValueAsString();
+                    case "sessionId" -> fields.sessionId = parser.getValueAsString();
+                    case "contentId" -> fields.contentId = parser.getValueAsString();
+                    case "timestamp" -> fields.timestamp = value == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                    case "timeSpentSeconds" -> fields.timeSpentSeconds = intOrNull(parser, value);
+                    case "score" -> fields.score = intOrNull(parser, value);
+                    case "passed" -> fields.passed = value == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+                    case "metadata" -> fields.reaction = readReaction(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return toInteraction(fields);
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid UUID in event: {}", message, e);
+            return null;
+        } catch (Exception e) {
+            log.error("Error processing Kafka message: {}", message, e);
+            return null;
+        }
+    }
+
+    private static ContentInteraction toInteraction(Fields fields) {
+        String eventType = fields.eventType != null ? fields.eventType : "";
+        return switch (eventType) {
+            case "content_viewed" -> build(fields, InteractionType.VIEWED, null);
+            // Treat assessment completed as content completed
+            case "content_completed", "assessment_completed" ->
+                build(fields, InteractionType.COMPLETED, completionMetadata(fields));
+            case "content_reaction" -> build(fields, reactionType(fields.reaction), null);
+            default -> {
+                log.warn("Unknown event type: {}", eventType);
+                yield null;
+            }
+        };
+    }
+
+    private static ContentInteraction build(Fields fields, InteractionType type, Map<String, Object> metadata) {
+        long timestamp = fields.timestamp != null ? fields.timestamp : System.currentTimeMillis();
+        return ContentInteraction.builder()
+            .userId(UUID.fromString(fields.userId))
+            .contentId(fields.contentId)
+            .interactionType(type)
+            .timestamp(Instant.ofEpochMilli(timestamp))
+            .sessionId(fields.sessionId)
+            .metadata(metadata)
+            .build();
+    }
+
+    private static Map<String, Object> completionMetadata(Fields fields) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("timeSpentSeconds", fields.timeSpentSeconds);
+        metadata.put("score", fields.score);
+        metadata.put("passed", fields.passed);
+        return metadata;
+    }
+
+    /**
+     * Map a reaction to an interaction type; defaults to liked
+     */
+    private static InteractionType reactionType(String reaction) {
+        return switch (reaction != null ? reaction.toLowerCase() : "liked") {
+            case "liked" -> InteractionType.LIKED;
+            case "disliked" -> InteractionType.DISLIKED;
+            case "bookmarked" -> InteractionType.BOOKMARKED;
+            case "shared" -> InteractionType.SHARED;
+            default -> InteractionType.VIEWED;
+        };
+    }
+
+    /**
+     * The metadata.reaction value as text, skipping the rest of the metadata object
+     */
+    private static String readReaction(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return null;
+        }
+        String reaction = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("reaction".equals(name) && token.isScalarValue()) {
+                reaction = parser.getText();
+            }
+            parser.skipChildren();
+        }
+        return reaction;
+    }
+
+    private static Integer intOrNull(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : parser.getValueAsInt();
+    }
+
+    // Fields an interaction is built from, in whatever order they arrive
+    private static final class Fields {
+        String eventType;
+        String userId;
+        String sessionId;
+        String contentId;
+        Long timestamp;
+        Integer timeSpentSeconds;
+        Integer score;
+        Boolean passed;
+        String reaction;
+    }
+}
@@ -0,0 +1,111 @@
+package com.gradepath.content.analytics.pipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * One stage of the ingest pipeline: a bounded ring buffer drained by a single
+ * worker thread.
+ *
+ * The worker applies the stage's handler to each item in arrival order and
+ * hands the result to the next stage, blocking while that stage is full, so a
+ * slow stage backs up every stage before it. A handler returns null to stop an
+ * item; an exception stops it too and is handed to the stage's failure
+ * callback, which owns whatever the item still holds (its acknowledgment, its
+ * in-flight count).
+ */
+@Slf4j
+final class PipelineStage<T> {
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final UnaryOperator<T> handler;
+    private final BiConsumer<T, RuntimeException> onFailure;
+    private final PipelineStage<T> next;
+    private final Timer latency;
+    private final Thread worker;
+
+    PipelineStage(String name, int capacity, UnaryOperator<T> handler, BiConsumer<T, RuntimeException> onFailure,
+            PipelineStage<T> next, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.handler = handler;
+        this.onFailure = onFailure;
+        this.next = next;
+        this.latency = Timer.builder("analytics.ingest.stage.latency")
+            .description("Time a pipeline stage spends on one batch")
+            .tag("stage", name)
+            .register(meterRegistry);
+        meterRegistry.gauge("analytics.ingest.queue.depth", Tags.of("stage", name), queue, BlockingQueue::size);
+        this.worker = Thread.ofPlatform().name("ingest-" + name).daemon().unstarted(this::run);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Enqueue an item, waiting while the buffer is full
+     */
+    void put(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    int remainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    /**
+     * Stop the worker; items still buffered are discarded
+     */
+    void stop(long timeoutMs) throws InterruptedException {
+        worker.interrupt();
+        worker.join(timeoutMs);
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                T item = queue.take();
+                T result;
+                long start = System.nanoTime();
+                try {
+                    result = handler.apply(item);
+                } catch (RuntimeException e) {
+                    failed(item, e);
+                    continue;
+                } finally {
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (result != null && next != null) {
+                    next.put(result);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.debug("Ingest stage {} stopped", name);
+    }
+
+    private void failed(T item, RuntimeException e) {
+        try {
+            onFailure.accept(item, e);
+        } catch (RuntimeException callbackFailure) {
+            // Keep the worker alive; the original failure is still logged
+            callbackFailure.addSuppressed(e);
+            log.error("Ingest stage {} failed to handle a failed batch", name, callbackFailure);
+        }
+    }
+}
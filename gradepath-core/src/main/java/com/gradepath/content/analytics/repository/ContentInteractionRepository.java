@@ -48,4 +48,12 @@ public interface ContentInteractionRepository extends JpaRepository<ContentInter
         AND ci.interactionType IN :types
     """)
     List<String> findViewedContentIds(@Param("userId") UUID userId, @Param("types") List<InteractionType> types);
+
+    @Query("""
+        SELECT DISTINCT c.ordinal FROM ContentInteraction ci, Content c
+        WHERE ci.contentId = c.id
+        AND ci.userId = :userId
+        AND ci.interactionType IN :types
+    """)
+    List<Integer> findViewedContentOrdinals(@Param("userId") UUID userId, @Param("types") List<InteractionType> types);
 }
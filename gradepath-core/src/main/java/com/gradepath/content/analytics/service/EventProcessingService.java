@@ -1,126 +1,81 @@
 package com.gradepath.content.analytics.service;
 
-import com.gradepath.content.analytics.event.ContentCompletedEvent;
-import com.gradepath.content.analytics.event.ContentViewedEvent;
-import com.gradepath.content.analytics.event.UserReactionEvent;
 import com.gradepath.content.analytics.model.ContentInteraction;
 import com.gradepath.content.analytics.model.InteractionType;
-import com.gradepath.content.analytics.repository.ContentInteractionRepository;
+import com.gradepath.content.content.model.Content;
 import com.gradepath.content.profile.event.SkillLevelChangedEvent;
-import jakarta.transaction.Transactional;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshotService;
+import com.gradepath.content.recommendation.service.SeenContentService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.event.TransactionPhase;
-import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.List;
 
+/**
+ * Enrich and derive steps of the interaction ingest pipeline: resolves the
+ * catalog entry behind each interaction, and once it is stored, updates seen
+ * content and skill levels.
+ */
 @Service
 @Slf4j
 public class EventProcessingService {
 
-    private final ContentInteractionRepository interactionRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
     private final ApplicationEventPublisher eventPublisher;
+    private final SeenContentService seenContentService;
 
     public EventProcessingService(
-            ContentInteractionRepository interactionRepository,
-            ApplicationEventPublisher eventPublisher) {
-        this.interactionRepository = interactionRepository;
+            CatalogSnapshotService catalogSnapshotService,
+            ApplicationEventPublisher eventPublisher,
+            SeenContentService seenContentService) {
+        this.catalogSnapshotService = catalogSnapshotService;
         this.eventPublisher = eventPublisher;
+        this.seenContentService = seenContentService;
     }
 
-    @Async
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    public void handleContentViewed(ContentViewedEvent event) {
-        log.info("Handling ContentViewedEvent for user: {}, content: {}",
-            event.userId(), event.contentId());
-
-        // Store interaction
-        ContentInteraction interaction = ContentInteraction.builder()
-            .userId(event.userId())
-            .contentId(event.contentId())
-            .interactionType(InteractionType.VIEWED)
-            .timestamp(Instant.ofEpochMilli(event.timestamp()))
-            .sessionId(event.sessionId())
-            .build();
-
-        interactionRepository.save(interaction);
-
-        // Additional processing could be added here (e.g., updating engagement metrics in Redis)
+    /**
+     * Catalog entries for each interaction's content, aligned with the input;
+     * null where the content is not in the current catalog snapshot
+     */
+    public List<Content> resolveContent(List<ContentInteraction> interactions) {
+        CatalogSnapshot catalog = catalogSnapshotService.current();
+        List<Content> contents = new ArrayList<>(interactions.size());
+        for (ContentInteraction interaction : interactions) {
+            contents.add(catalog.findById(interaction.getContentId()));
+        }
+        return contents;
     }
 
-    @Async
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    public void handleContentCompleted(ContentCompletedEvent event) {
-        log.info("Handling ContentCompletedEvent for user: {}, content: {}, score: {}",
-            event.userId(), event.contentId(), event.score());
-
-        // Store interaction with metadata
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("timeSpentSeconds", event.timeSpentSeconds());
-        metadata.put("score", event.score());
-        metadata.put("passed", event.passed());
-
-        ContentInteraction interaction = ContentInteraction.builder()
-            .userId(event.userId())
-            .contentId(event.contentId())
-            .interactionType(InteractionType.COMPLETED)
-            .timestamp(Instant.ofEpochMilli(event.timestamp()))
-            .sessionId(event.sessionId())
-            .metadata(metadata)
-            .build();
-
-        interactionRepository.save(interaction);
+    /**
+     * Seen-content and skill level updates for a stored interaction
+     */
+    public void applySideEffects(ContentInteraction interaction, Content content) {
+        InteractionType type = interaction.getInteractionType();
+        if (SeenContentService.isSeenInteraction(type)) {
+            seenContentService.markSeen(interaction.getUserId(), interaction.getContentId());
+        }
 
         // Trigger skill level update if score is available
-        if (event.score() != null) {
-            // Extract topic from content - for now using a simple placeholder
-            // In a real implementation, you'd fetch the content to get its topic
-            String topic = extractTopicFromContentId(event.contentId());
+        if (type == InteractionType.COMPLETED && interaction.getMetadata() != null
+                && interaction.getMetadata().get("score") instanceof Integer score) {
             eventPublisher.publishEvent(new SkillLevelChangedEvent(
-                this, event.userId(), topic, event.score()
+                this, interaction.getUserId(), primaryTopic(content), score
             ));
         }
     }
 
     /**
-     * Extract topic from content ID - placeholder implementation
-     * In production, this would fetch the content entity to get its actual topics
+     * First topic of the content, or "general" when the content or its topics are unknown
      */
-    private String extractTopicFromContentId(String contentId) {
-        // Simple heuristic: use part of the contentId as topic
-        // In real implementation, query the content table
-        return "general"; // Default fallback
-    }
-
-    @Async
-    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
-    public void handleUserReaction(UserReactionEvent event) {
-        log.info("Handling UserReactionEvent for user: {}, content: {}, reaction: {}",
-            event.userId(), event.contentId(), event.reactionType());
-
-        // Map reaction type to interaction type
-        InteractionType interactionType = switch (event.reactionType().toLowerCase()) {
-            case "liked" -> InteractionType.LIKED;
-            case "disliked" -> InteractionType.DISLIKED;
-            case "bookmarked" -> InteractionType.BOOKMARKED;
-            case "shared" -> InteractionType.SHARED;
-            default -> InteractionType.VIEWED;
-        };
-
-        ContentInteraction interaction = ContentInteraction.builder()
-            .userId(event.userId())
-            .contentId(event.contentId())
-            .interactionType(interactionType)
-            .timestamp(Instant.ofEpochMilli(event.timestamp()))
-            .sessionId(event.sessionId())
-            .build();
-
-        interactionRepository.save(interaction);
+    static String primaryTopic(Content content) {
+        if (content != null && content.getTopics() != null
+                && content.getTopics().get("topics") instanceof List<?> topics
+                && !topics.isEmpty() && topics.get(0) instanceof String topic) {
+            return topic;
+        }
+        return "general";
     }
 }
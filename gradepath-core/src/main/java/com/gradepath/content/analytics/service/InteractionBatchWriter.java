@@ -0,0 +1,114 @@
+package com.gradepath.content.analytics.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Bulk writer for content_interactions.
+ *
+ * A consumer batch is written as multi-row INSERT statements of up to
+ * rows-per-statement rows each, all in one transaction, so a batch is either
+ * stored completely or not at all and can be redelivered safely. Ids and
+ * created_at come from the column defaults.
+ */
+@Service
+@Slf4j
+public class InteractionBatchWriter {
+
+    // Postgres binds at most 32767 parameters per statement
+    static final int MAX_PARAMETERS = 32767;
+    static final int COLUMNS = 6;
+
+    private static final String INSERT_PREFIX =
+        "INSERT INTO content_interactions (user_id, content_id, interaction_type, timestamp, session_id, metadata) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, CAST(? AS jsonb))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int rowsPerStatement;
+    private final String fullStatement;
+
+    public InteractionBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            @Value("${analytics.ingest.rows-per-statement:1000}") int rowsPerStatement) {
+        if (rowsPerStatement < 1) {
+            throw new IllegalArgumentException("rows-per-statement must be positive: " + rowsPerStatement);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.rowsPerStatement = Math.min(rowsPerStatement, MAX_PARAMETERS / COLUMNS);
+        this.fullStatement = insertSql(this.rowsPerStatement);
+    }
+
+    /**
+     * Insert all interactions, returning the number of rows written
+     */
+    @Transactional
+    public int insertAll(List<ContentInteraction> interactions) {
+        int written = 0;
+        for (int from = 0; from < interactions.size(); from += rowsPerStatement) {
+            List<ContentInteraction> chunk =
+                interactions.subList(from, Math.min(from + rowsPerStatement, interactions.size()));
+            String sql = chunk.size() == rowsPerStatement ? fullStatement : insertSql(chunk.size());
+            written += jdbcTemplate.update(sql, ps -> bind(ps, chunk));
+        }
+        log.debug("Inserted {} interactions in {} statements",
+            written, (interactions.size() + rowsPerStatement - 1) / rowsPerStatement);
+        return written;
+    }
+
+    int rowsPerStatement() {
+        return rowsPerStatement;
+    }
+
+    static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    private void bind(PreparedStatement ps, List<ContentInteraction> chunk) throws SQLException {
+        int index = 1;
+        for (ContentInteraction interaction : chunk) {
+            Instant timestamp = interaction.getTimestamp() != null ? interaction.getTimestamp() : Instant.now();
+            ps.setObject(index++, interaction.getUserId());
+            ps.setString(index++, interaction.getContentId());
+            ps.setString(index++, interaction.getInteractionType().name());
+            ps.setTimestamp(index++, Timestamp.from(timestamp));
+            ps.setString(index++, interaction.getSessionId());
+            ps.setString(index++, toJson(interaction));
+        }
+    }
+
+    private String toJson(ContentInteraction interaction) {
+        if (interaction.getMetadata() == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(interaction.getMetadata());
+        } catch (JsonProcessingException e) {
+            log.warn("Dropping unserializable metadata for user {}, content {}",
+                interaction.getUserId(), interaction.getContentId(), e);
+            return null;
+        }
+    }
+}
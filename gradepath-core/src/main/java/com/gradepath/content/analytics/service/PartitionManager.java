@@ -0,0 +1,212 @@
+package com.gradepath.content.analytics.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the monthly range partitions of content_interactions and
+ * recommendation_slates (see V8_1) rolling.
+ *
+ * Upcoming months are created as standalone tables with a matching CHECK
+ * constraint and then attached, so ATTACH skips its validation scan and only
+ * takes SHARE UPDATE EXCLUSIVE on the parent. Partitions entirely older than the
+ * retention window are detached CONCURRENTLY and left in place for archiving, or
+ * dropped when configured. Every DDL statement runs under a short lock_timeout so
+ * maintenance gives up rather than queueing behind long transactions; the next
+ * run retries.
+ */
+@Service
+@Slf4j
+public class PartitionManager {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String PARTITIONS_SQL = """
+        SELECT c.relname AS name,
+               i.inhdetachpending AS detach_pending,
+               (regexp_match(pg_get_expr(c.relpartbound, c.oid), 'TO \\(''([^'']+)''\\)'))[1]::timestamptz AS upper_bound
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = ?::regclass
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final List<PartitionedTable> tables;
+    private final int monthsAhead;
+    private final Duration lockTimeout;
+    private final boolean dropDetached;
+
+    public PartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${analytics.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${analytics.partitions.interactions-retention-months:24}") int interactionsRetentionMonths,
+            @Value("${analytics.partitions.slates-retention-months:3}") int slatesRetentionMonths,
+            @Value("${analytics.partitions.lock-timeout-ms:5000}") long lockTimeoutMs,
+            @Value("${analytics.partitions.drop-detached:false}") boolean dropDetached) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tables = List.of(
+            new PartitionedTable("content_interactions", "timestamp", interactionsRetentionMonths),
+            new PartitionedTable("recommendation_slates", "created_at", slatesRetentionMonths)
+        );
+        this.monthsAhead = monthsAhead;
+        this.lockTimeout = Duration.ofMillis(lockTimeoutMs);
+        this.dropDetached = dropDetached;
+    }
+
+    /**
+     * Create missing upcoming partitions and detach expired ones
+     */
+    @Scheduled(
+        initialDelayString = "${analytics.partitions.initial-delay-ms:60000}",
+        fixedDelayString = "${analytics.partitions.check-interval-ms:3600000}"
+    )
+    public void maintain() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (PartitionedTable table : tables) {
+            try {
+                List<Partition> partitions = partitions(table);
+
+                Instant coveredUntil = null;
+                for (Partition partition : partitions) {
+                    if (partition.upperBound() != null
+                            && (coveredUntil == null || partition.upperBound().isAfter(coveredUntil))) {
+                        coveredUntil = partition.upperBound();
+                    }
+                }
+                for (YearMonth month : monthsToCreate(coveredUntil, current, monthsAhead)) {
+                    createPartition(table, month);
+                }
+
+                Instant cutoff = monthStart(current.minusMonths(table.retentionMonths()));
+                for (Partition partition : expiredPartitions(partitions, cutoff)) {
+                    detachPartition(table, partition);
+                }
+            } catch (DataAccessException e) {
+                log.error("Partition maintenance failed for {}, retrying next run", table.name(), e);
+            }
+        }
+    }
+
+    /**
+     * Months from the first uncovered one through current + monthsAhead;
+     * partition bounds are always UTC month starts
+     */
+    static List<YearMonth> monthsToCreate(Instant coveredUntil, YearMonth current, int monthsAhead) {
+        YearMonth first = current;
+        if (coveredUntil != null) {
+            YearMonth uncovered = YearMonth.from(coveredUntil.atZone(ZoneOffset.UTC));
+            if (uncovered.isAfter(first)) {
+                first = uncovered;
+            }
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = first; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    /**
+     * Partitions whose every row is older than the cutoff, plus any left mid-detach
+     */
+    static List<Partition> expiredPartitions(List<Partition> partitions, Instant cutoff) {
+        List<Partition> expired = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.detachPending()
+                    || (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff))) {
+                expired.add(partition);
+            }
+        }
+        return expired;
+    }
+
+    private List<Partition> partitions(PartitionedTable table) {
+        return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> {
+            Timestamp upperBound = rs.getTimestamp("upper_bound");
+            return new Partition(
+                rs.getString("name"),
+                upperBound != null ? upperBound.toInstant() : null,
+                rs.getBoolean("detach_pending"));
+        }, table.name());
+    }
+
+    private void createPartition(PartitionedTable table, YearMonth month) {
+        String partition = table.name() + "_p" + month.format(SUFFIX);
+        String check = partition + "_bound";
+        Instant from = monthStart(month);
+        Instant to = monthStart(month.plusMonths(1));
+
+        withLockTimeout(statement -> {
+            statement.execute("CREATE TABLE IF NOT EXISTS %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)"
+                .formatted(partition, table.name()));
+            // Lets ATTACH prove the bound from the constraint instead of scanning
+            statement.execute("ALTER TABLE %s DROP CONSTRAINT IF EXISTS %s".formatted(partition, check));
+            statement.execute("ALTER TABLE %s ADD CONSTRAINT %s CHECK (%s >= '%s' AND %s < '%s')"
+                .formatted(partition, check, table.keyColumn(), from, table.keyColumn(), to));
+            statement.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(table.name(), partition, from, to));
+            statement.execute("ALTER TABLE %s DROP CONSTRAINT %s".formatted(partition, check));
+        });
+        log.info("Created partition {} for [{}, {})", partition, from, to);
+    }
+
+    private void detachPartition(PartitionedTable table, Partition partition) {
+        withLockTimeout(statement -> {
+            // CONCURRENTLY cannot run in a transaction block; FINALIZE completes an interrupted detach
+            statement.execute("ALTER TABLE %s DETACH PARTITION %s %s".formatted(
+                table.name(), partition.name(), partition.detachPending() ? "FINALIZE" : "CONCURRENTLY"));
+            if (dropDetached) {
+                statement.execute("DROP TABLE %s".formatted(partition.name()));
+            }
+        });
+        log.info("{} expired partition {} of {}",
+            dropDetached ? "Dropped" : "Detached for archiving", partition.name(), table.name());
+    }
+
+    private void withLockTimeout(SqlWork work) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = " + lockTimeout.toMillis());
+                try {
+                    work.run(statement);
+                } finally {
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            return null;
+        });
+    }
+
+    private static Instant monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+
+    @FunctionalInterface
+    private interface SqlWork {
+        void run(Statement statement) throws SQLException;
+    }
+
+    private record PartitionedTable(String name, String keyColumn, int retentionMonths) {}
+
+    /**
+     * A child partition; upperBound is null for a MAXVALUE bound
+     */
+    record Partition(String name, Instant upperBound, boolean detachPending) {}
+}
@@ -1,6 +1,7 @@
 package com.gradepath.content.content.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Generated;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import java.time.LocalDateTime;
@@ -14,6 +15,10 @@ public class Content {
     @Column(name = "id", updatable = false, nullable = false)
     private String id;
 
+    @Generated
+    @Column(name = "ordinal", insertable = false, updatable = false)
+    private Integer ordinal;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "type", nullable = false)
     private ContentType type;
@@ -81,6 +86,9 @@ public class Content {
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
+    public Integer getOrdinal() { return ordinal; }
+    public void setOrdinal(Integer ordinal) { this.ordinal = ordinal; }
+
     public ContentType getType() { return type; }
     public void setType(ContentType type) { this.type = type; }
 
@@ -3,8 +3,11 @@ package com.gradepath.content.content.repository;
 import com.gradepath.content.content.model.Content;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +21,14 @@ public interface ContentRepository extends JpaRepository<Content, String>, JpaSp
     long countByTypeAndStatus(Content.ContentType type, Content.ContentStatus status);
 
     List<Content> findByStatus(Content.ContentStatus status);
+
+    List<Content> findByUpdatedAtGreaterThanEqual(LocalDateTime since);
+
+    @Query("SELECT c.ordinal FROM Content c WHERE c.id = :id")
+    Optional<Integer> findOrdinalById(@Param("id") String id);
+
+    Optional<Content> findByOrdinal(Integer ordinal);
+
+    @Query("SELECT c.id FROM Content c WHERE c.status = :status")
+    List<String> findIdsByStatus(@Param("status") Content.ContentStatus status);
 }
@@ -1,21 +1,41 @@
 package com.gradepath.content.profiling;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.dedup.EventDeduplicator;
+import com.gradepath.content.analytics.dedup.EventKey;
 import com.gradepath.content.profiling.algorithm.EngagementClassifier;
 import com.gradepath.content.profiling.algorithm.InterestScorer;
 import com.gradepath.content.profiling.algorithm.JourneyAnalyzer;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
 import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Behavioral Profiling Service
@@ -28,20 +48,61 @@ import java.util.Map;
  *
  * Architecture:
  * NestJS (I/O) → Kafka (raw-behavioral-events) → Java Profiling (CPU) → Database
+ *
+ * Consumer threads only dedup and decode; each event is then applied on the
+ * {@link ProfilingWorkers} worker that owns its user, which is the only thread
+ * that reads or writes that user's cached profile. Offsets are acknowledged
+ * from the workers, out of order across users, and the container commits them
+ * once every earlier offset of the partition is acknowledged too.
+ *
+ * Profiles are written behind: an event only updates the cached profile and
+ * marks it dirty. Each worker stores its dirty profiles in one transaction
+ * every flush interval, or sooner for a user with max-events pending events,
+ * together with the {@link EventDeduplicator} keys of those events, and only
+ * then emits their profile-updates. Events are acknowledged once applied in
+ * memory, so a crash loses at most one flush interval of profile changes;
+ * revoked partitions and shutdown flush first, so a rebalance loses nothing.
+ *
+ * Single ownership across instances relies on raw-behavioral-events being
+ * keyed by userId (the gateway's SessionService sets the key), so all events
+ * of a user arrive on one partition and thus one consumer. Known limitations:
+ * records without that key, from producers predating it, can still reach two
+ * instances at once, and each instance's flush then overwrites the other's
+ * (the timestamp-guarded upsert is last-writer-wins); they are counted as
+ * profiling.events.unkeyed. Changing the topic's partition count moves users
+ * between partitions without a handover, which has the same effect until the
+ * old owner's partitions are revoked.
  */
 @Service
 @Slf4j
-public class ProfilingService {
+public class ProfilingService implements ConsumerSeekAware {
+
+    public static final String CONSUMER_GROUP = "behavioral-profiling-consumer";
 
     private final ObjectMapper objectMapper;
+    private final RawBehavioralEventDecoder eventDecoder;
     private final InterestScorer interestScorer;
     private final EngagementClassifier engagementClassifier;
     private final JourneyAnalyzer journeyAnalyzer;
     private final BehavioralProfileService profileService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
-
-    // In-memory profile cache for real-time updates
-    private final Map<String, BehavioralProfile> profileCache = new HashMap<>();
+    private final EventDeduplicator deduplicator;
+    private final TransactionOperations transactions;
+    private final ProfilingWorkers workers;
+    private final int persistAttempts;
+    private final long persistBackoffMs;
+    private final int flushMaxEvents;
+    private final Counter failedEvents;
+    private final Counter rejectedEvents;
+    private final Counter unkeyedEvents;
+    private final Timer flushLatency;
+    private final DistributionSummary coalescing;
+    private final Counter flushedEvents;
+    private final Counter flushedProfiles;
+    private final AtomicInteger dirtyProfiles = new AtomicInteger();
+
+    // In-memory profile cache for real-time updates, one shard per worker
+    private final List<ProfileShard> profileCache;
 
     public ProfilingService(
             ObjectMapper objectMapper,
@@ -49,13 +110,46 @@ public class ProfilingService {
             EngagementClassifier engagementClassifier,
             JourneyAnalyzer journeyAnalyzer,
             BehavioralProfileService profileService,
-            KafkaTemplate<String, Object> kafkaTemplate) {
+            KafkaTemplate<String, Object> kafkaTemplate,
+            EventDeduplicator deduplicator,
+            TransactionOperations transactions,
+            ProfilingWorkers workers,
+            MeterRegistry meterRegistry,
+            @Value("${profiling.persist-attempts:3}") int persistAttempts,
+            @Value("${profiling.persist-backoff-ms:200}") long persistBackoffMs,
+            @Value("${profiling.flush.max-events:50}") int flushMaxEvents) {
         this.objectMapper = objectMapper;
+        this.eventDecoder = new RawBehavioralEventDecoder(objectMapper.getFactory());
         this.interestScorer = interestScorer;
         this.engagementClassifier = engagementClassifier;
         this.journeyAnalyzer = journeyAnalyzer;
         this.profileService = profileService;
         this.kafkaTemplate = kafkaTemplate;
+        this.deduplicator = deduplicator;
+        this.transactions = transactions;
+        this.workers = workers;
+        this.persistAttempts = Math.max(1, persistAttempts);
+        this.persistBackoffMs = persistBackoffMs;
+        this.flushMaxEvents = Math.max(1, flushMaxEvents);
+        this.failedEvents = meterRegistry.counter("profiling.events.failed");
+        this.rejectedEvents = meterRegistry.counter("profiling.events.rejected");
+        this.unkeyedEvents = meterRegistry.counter("profiling.events.unkeyed");
+        this.flushLatency = Timer.builder("profiling.flush.latency")
+            .description("Time to store one worker's dirty profiles")
+            .register(meterRegistry);
+        this.coalescing = DistributionSummary.builder("profiling.flush.coalescing")
+            .description("Events applied per profile row written")
+            .register(meterRegistry);
+        this.flushedEvents = meterRegistry.counter("profiling.flush.events");
+        this.flushedProfiles = meterRegistry.counter("profiling.flush.profiles");
+        meterRegistry.gauge("profiling.dirty.profiles", dirtyProfiles);
+
+        List<ProfileShard> shards = new ArrayList<>(workers.size());
+        for (int i = 0; i < workers.size(); i++) {
+            shards.add(new ProfileShard());
+        }
+        this.profileCache = List.copyOf(shards);
+        workers.onRevoked(this::evictPartitions);
     }
 
     /**
@@ -68,47 +162,365 @@ public class ProfilingService {
      */
     @KafkaListener(
         topics = "raw-behavioral-events",
-        groupId = "behavioral-profiling-consumer",
-        containerFactory = "kafkaListenerContainerFactory"
+        groupId = CONSUMER_GROUP,
+        containerFactory = "profilingKafkaListenerContainerFactory"
     )
-    public void processRawBehavioralEvent(String message) {
+    public void consumeRawBehavioralEvent(ConsumerRecord<String, String> record, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        EventKey key = EventKey.of(record);
+        if (!deduplicator.claim(CONSUMER_GROUP, key)) {
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        RawBehavioralEvent event;
         try {
-            log.debug("Processing raw behavioral event: {}", message);
+            log.debug("Processing raw behavioral event: {}", record.value());
+            event = eventDecoder.decode(record.value());
+        } catch (IOException e) {
+            log.error("Error processing raw behavioral event: {}", record.value(), e);
+            acknowledgment.acknowledge();
+            return;
+        }
+        if (event.userId() == null) {
+            log.error("No userId in raw behavioral event: {}", record.value());
+            acknowledgment.acknowledge();
+            return;
+        }
+        String invalid = invalidReason(event);
+        if (invalid != null) {
+            log.error("Rejecting raw behavioral event with {}: {}", invalid, record.value());
+            rejectedEvents.increment();
+            acknowledgment.acknowledge();
+            return;
+        }
+        if (!event.userId().equals(record.key())) {
+            // Not partitioned by user, so another instance may own this user too
+            unkeyedEvents.increment();
+        }
 
-            JsonNode json = objectMapper.readTree(message);
-            String topic = json.has("topic") ? json.get("topic").asText() : null;
+        workers.execute(event.userId(), () -> apply(event, key, record.partition(), acknowledgment));
+    }
 
-            if (topic == null) {
-                log.warn("No topic in event: {}", message);
-                return;
+    /**
+     * Apply an event on its user's worker and acknowledge it. Only loading a
+     * profile that is not cached is retried, with exponential backoff: the
+     * event has touched nothing yet. Applying it is not retried, since a
+     * retry would count it twice in the global transition statistics; an
+     * event that fails there is skipped, and the user's in-memory state
+     * (session history, topic set) is kept.
+     */
+    private void apply(RawBehavioralEvent event, EventKey key, int partition, Acknowledgment acknowledgment) {
+        String userId = event.userId();
+        ProfileShard shard = shard(userId);
+        if (touchesProfile(event) && !loadProfile(userId, key, acknowledgment)) {
+            return;
+        }
+        shard.partitions.put(userId, partition);
+
+        try {
+            process(event);
+        } catch (RuntimeException e) {
+            log.error("Skipping raw behavioral event for user: {} that failed to apply", userId, e);
+            failedEvents.increment();
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        DirtyProfile dirty = shard.dirty.get(userId);
+        if (dirty != null) {
+            dirty.keys.add(key);
+            if (dirty.events >= flushMaxEvents && dirty.failedFlushes == 0) {
+                flush(shard, List.of(userId));
             }
+        }
+        acknowledgment.acknowledge();
+    }
 
-            switch (topic) {
-                case "content_journey" ->
-                    processJourneyEvent(json);
-                case "session_lifecycle" ->
-                    processSessionEvent(json);
-                default ->
-                    log.warn("Unknown event topic: {}", topic);
+    /**
+     * Cache the user's profile, retrying the database load. Returns false once
+     * the event has been given up on or left for redelivery.
+     */
+    private boolean loadProfile(String userId, EventKey key, Acknowledgment acknowledgment) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                getOrCreateProfile(userId);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= persistAttempts) {
+                    log.error("Giving up on raw behavioral event for user: {} after {} failed profile loads",
+                        userId, attempt, e);
+                    deduplicator.release(CONSUMER_GROUP, key);
+                    failedEvents.increment();
+                    acknowledgment.acknowledge();
+                    return false;
+                }
+                log.warn("Failed to load profile of user: {} (attempt {} of {}), retrying",
+                    userId, attempt, persistAttempts, e);
+                if (!sleep(persistBackoffMs << (attempt - 1))) {
+                    // Shutting down: leave the event unacknowledged for redelivery
+                    deduplicator.release(CONSUMER_GROUP, key);
+                    return false;
+                }
             }
+        }
+    }
 
+    /**
+     * Whether applying the event reads or writes the user's profile
+     */
+    private static boolean touchesProfile(RawBehavioralEvent event) {
+        return switch (event) {
+            case RawBehavioralEvent.ContentJourney journey -> true;
+            case RawBehavioralEvent.SessionLifecycle session -> "session_end".equals(session.eventType());
+            case RawBehavioralEvent.Unhandled unhandled -> false;
+        };
+    }
+
+    /**
+     * Why an event cannot be applied, or null if it can. Checked before the
+     * event reaches a worker, so a malformed event never fails part way.
+     */
+    static String invalidReason(RawBehavioralEvent event) {
+        if (event instanceof RawBehavioralEvent.ContentJourney journey) {
+            if (isBlank(journey.journey().contentId())) {
+                return "no contentId";
+            }
+            if (isBlank(journey.journey().action())) {
+                return "no action";
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Decode and apply one raw behavioral event, logging rather than throwing on failure
+     */
+    public void processRawBehavioralEvent(String message) {
+        try {
+            log.debug("Processing raw behavioral event: {}", message);
+            RawBehavioralEvent event = eventDecoder.decode(message);
+            String invalid = invalidReason(event);
+            if (invalid != null) {
+                log.error("Rejecting raw behavioral event with {}: {}", invalid, message);
+                rejectedEvents.increment();
+                return;
+            }
+            if (event.userId() == null) {
+                process(event);
+            } else {
+                workers.submit(event.userId(), () -> process(event)).join();
+            }
         } catch (Exception e) {
             log.error("Error processing raw behavioral event: {}", message, e);
         }
     }
 
+    private void process(RawBehavioralEvent event) {
+        switch (event) {
+            case RawBehavioralEvent.ContentJourney journey ->
+                processJourneyEvent(journey.journey());
+            case RawBehavioralEvent.SessionLifecycle session ->
+                processSessionEvent(session);
+            case RawBehavioralEvent.Unhandled unhandled when unhandled.topic() == null ->
+                log.warn("No topic in event for user: {}", unhandled.userId());
+            case RawBehavioralEvent.Unhandled unhandled ->
+                log.warn("Unknown event topic: {}", unhandled.topic());
+        }
+    }
+
+    /**
+     * Store every worker's dirty profiles, waiting until all workers are done
+     */
+    @Scheduled(
+        initialDelayString = "${profiling.flush.interval-ms:5000}",
+        fixedDelayString = "${profiling.flush.interval-ms:5000}"
+    )
+    public void flush() {
+        List<CompletableFuture<Void>> flushes = new ArrayList<>(profileCache.size());
+        try {
+            for (int i = 0; i < profileCache.size(); i++) {
+                ProfileShard shard = profileCache.get(i);
+                flushes.add(workers.submit(i, () -> flush(shard, List.copyOf(shard.dirty.keySet()))));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        CompletableFuture.allOf(flushes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Remove decayed interests from every worker's cached profiles. Interests
+     * decay when read, so this only bounds the size of profiles; pruned
+     * topics leave storage with their profile's next update.
+     */
+    @Scheduled(
+        initialDelayString = "${profiling.interest-prune-interval-ms:3600000}",
+        fixedDelayString = "${profiling.interest-prune-interval-ms:3600000}"
+    )
+    public void pruneInterests() {
+        Instant now = Instant.now();
+        List<CompletableFuture<Void>> prunes = new ArrayList<>(profileCache.size());
+        try {
+            for (int i = 0; i < profileCache.size(); i++) {
+                ProfileShard shard = profileCache.get(i);
+                prunes.add(workers.submit(i, () ->
+                    shard.profiles.values().forEach(profile -> interestScorer.pruneInterests(profile, now))));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        CompletableFuture.allOf(prunes.toArray(CompletableFuture[]::new)).join();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        // Listeners have stopped by now; store what they applied before the workers stop
+        flush();
+    }
+
+    /**
+     * Store the dirty profiles of some of a shard's users in one transaction,
+     * with the keys of the events applied to them, then emit their updates.
+     * Runs on the shard's worker. Profiles that fail to store stay dirty for
+     * the next flush; after persist-attempts failures their events are dropped.
+     */
+    private void flush(ProfileShard shard, Collection<String> userIds) {
+        List<DirtyProfile> batch = new ArrayList<>(userIds.size());
+        for (String userId : userIds) {
+            DirtyProfile dirty = shard.dirty.get(userId);
+            if (dirty != null) {
+                batch.add(dirty);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<BehavioralProfile> profiles = new ArrayList<>(batch.size());
+        List<EventKey> keys = new ArrayList<>();
+        int events = 0;
+        for (DirtyProfile dirty : batch) {
+            profiles.add(dirty.profile);
+            keys.addAll(dirty.keys);
+            events += dirty.events;
+        }
+
+        long started = System.nanoTime();
+        try {
+            transactions.executeWithoutResult(status -> {
+                profileService.saveProfiles(profiles);
+                deduplicator.persist(CONSUMER_GROUP, keys);
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to store {} dirty behavioral profiles, retrying next flush", batch.size(), e);
+            for (DirtyProfile dirty : batch) {
+                if (++dirty.failedFlushes >= persistAttempts) {
+                    drop(shard, dirty);
+                }
+            }
+            return;
+        }
+        flushLatency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        flushedEvents.increment(events);
+        flushedProfiles.increment(batch.size());
+        coalescing.record((double) events / batch.size());
+
+        for (DirtyProfile dirty : batch) {
+            shard.dirty.remove(dirty.profile.getUserId());
+            emitProfileUpdate(dirty.profile);
+        }
+        dirtyProfiles.addAndGet(-batch.size());
+    }
+
+    /**
+     * Give up on a profile that could not be stored: its events are lost. Only
+     * the cached profile is dropped, to be reloaded from the database; session
+     * history and topic sets live only in memory and are kept.
+     */
+    private void drop(ProfileShard shard, DirtyProfile dirty) {
+        String userId = dirty.profile.getUserId();
+        log.error("Dropping {} unsaved events for user: {} after {} failed flushes",
+            dirty.events, userId, dirty.failedFlushes);
+        shard.dirty.remove(userId);
+        dirtyProfiles.decrementAndGet();
+        deduplicator.release(CONSUMER_GROUP, dirty.keys);
+        failedEvents.increment(dirty.events);
+        shard.profiles.remove(userId);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        deduplicator.assign(CONSUMER_GROUP, partitionIds(assignments.keySet()));
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        deduplicator.revoke(CONSUMER_GROUP, partitionIds(partitions));
+    }
+
+    private static List<Integer> partitionIds(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+
+    /**
+     * Store and drop the state of a worker's users last seen on revoked
+     * partitions, whose events now go to another consumer. Runs on that worker.
+     */
+    private void evictPartitions(int worker, Collection<Integer> partitions) {
+        ProfileShard shard = profileCache.get(worker);
+        List<String> revoked = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : shard.partitions.entrySet()) {
+            if (partitions.contains(entry.getValue())) {
+                revoked.add(entry.getKey());
+            }
+        }
+
+        // Hand over stored profiles; the new owner loads them from the database
+        flush(shard, revoked);
+        for (String userId : revoked) {
+            DirtyProfile unsaved = shard.dirty.get(userId);
+            if (unsaved != null) {
+                drop(shard, unsaved);
+            }
+            evict(userId);
+        }
+    }
+
+    private void evict(String userId) {
+        ProfileShard shard = shard(userId);
+        shard.profiles.remove(userId);
+        shard.partitions.remove(userId);
+        engagementClassifier.forgetUser(userId);
+        journeyAnalyzer.forgetUser(userId);
+    }
+
+    private ProfileShard shard(String userId) {
+        return profileCache.get(workers.ownerOf(userId));
+    }
+
+    /**
+     * Cached profiles of the worker that owns a user
+     */
+    Map<String, BehavioralProfile> cachedProfiles(String userId) {
+        return shard(userId).profiles;
+    }
+
     /**
      * Process content journey events
      */
-    private void processJourneyEvent(JsonNode event) {
-        String userId = event.get("userId").asText();
+    private void processJourneyEvent(InterestScorer.RawJourneyEvent journeyEvent) {
+        String userId = requireUserId(journeyEvent.userId());
 
         // Get or create profile
         BehavioralProfile profile = getOrCreateProfile(userId);
 
-        // Parse journey event
-        InterestScorer.RawJourneyEvent journeyEvent = parseJourneyEvent(event);
-
         // Update interest scores
         interestScorer.updateInterests(profile, journeyEvent);
 
@@ -119,9 +531,8 @@ public class ProfilingService {
         profile.setTotalContentConsumed(profile.getTotalContentConsumed() + 1);
         profile.setTimestamp(Instant.now());
 
-        // Save and emit
-        saveProfile(profile);
-        emitProfileUpdate(profile);
+        // Stored and emitted by the next flush
+        markDirty(profile);
 
         log.info("Processed journey event for user: {}, content: {}, action: {}",
             userId, journeyEvent.contentId(), journeyEvent.action());
@@ -130,11 +541,10 @@ public class ProfilingService {
     /**
      * Process session lifecycle events
      */
-    private void processSessionEvent(JsonNode event) {
-        String userId = event.get("userId").asText();
-        String eventType = event.has("eventType") ? event.get("eventType").asText() : null;
+    private void processSessionEvent(RawBehavioralEvent.SessionLifecycle event) {
+        String userId = requireUserId(event.userId());
 
-        if (!"session_end".equals(eventType)) {
+        if (!"session_end".equals(event.eventType())) {
             return; // Only process session_end for engagement metrics
         }
 
@@ -142,12 +552,8 @@ public class ProfilingService {
         BehavioralProfile profile = getOrCreateProfile(userId);
 
         // Parse session metrics
-        int durationSeconds = event.has("durationSeconds")
-            ? event.get("durationSeconds").asInt()
-            : 0;
-        int contentCount = event.has("contentCount")
-            ? event.get("contentCount").asInt()
-            : 0;
+        int durationSeconds = event.durationSeconds();
+        int contentCount = event.contentCount();
 
         // Update engagement classification
         EngagementClassifier.SessionMetrics metrics = new EngagementClassifier.SessionMetrics(
@@ -160,9 +566,8 @@ public class ProfilingService {
         profile.setTotalSessions(profile.getTotalSessions() + 1);
         profile.setTimestamp(Instant.now());
 
-        // Save and emit
-        saveProfile(profile);
-        emitProfileUpdate(profile);
+        // Stored and emitted by the next flush
+        markDirty(profile);
 
         log.info("Processed session_end for user: {}, duration: {}s, content: {}",
             userId, durationSeconds, contentCount);
@@ -173,7 +578,8 @@ public class ProfilingService {
      */
     private BehavioralProfile getOrCreateProfile(String userId) {
         // Check cache first
-        BehavioralProfile cached = profileCache.get(userId);
+        Map<String, BehavioralProfile> profiles = cachedProfiles(userId);
+        BehavioralProfile cached = profiles.get(userId);
         if (cached != null) {
             return cached;
         }
@@ -181,7 +587,7 @@ public class ProfilingService {
         // Try to load from database
         BehavioralProfile loaded = profileService.findByUserId(userId).orElse(null);
         if (loaded != null) {
-            profileCache.put(userId, loaded);
+            profiles.put(userId, loaded);
             return loaded;
         }
 
@@ -204,35 +610,22 @@ public class ProfilingService {
             .totalContentConsumed(0)
             .build();
 
-        profileCache.put(userId, newProfile);
+        profiles.put(userId, newProfile);
         return newProfile;
     }
 
     /**
-     * Parse journey event from JSON
-     */
-    private InterestScorer.RawJourneyEvent parseJourneyEvent(JsonNode event) {
-        return new InterestScorer.RawJourneyEvent(
-            getValue(event, "journeyId"),
-            getValue(event, "userId"),
-            getValue(event, "sessionId"),
-            getValue(event, "contentId"),
-            getValue(event, "contentType"),
-            getValue(event, "action"),
-            getIntValue(event, "sequencePosition"),
-            getIntValue(event, "timeInContentSeconds"),
-            getListValue(event, "topicTags"),
-            getValue(event, "difficultyLevel"),
-            getValue(event, "previousContentId"),
-            getLongValue(event, "timestamp")
-        );
-    }
-
-    /**
-     * Save profile to database
+     * Record that a cached profile has changed since it was last stored
      */
-    private void saveProfile(BehavioralProfile profile) {
-        profileService.saveProfile(profile);
+    private void markDirty(BehavioralProfile profile) {
+        ProfileShard shard = shard(profile.getUserId());
+        DirtyProfile dirty = shard.dirty.get(profile.getUserId());
+        if (dirty == null) {
+            dirty = new DirtyProfile(profile);
+            shard.dirty.put(profile.getUserId(), dirty);
+            dirtyProfiles.incrementAndGet();
+        }
+        dirty.events++;
     }
 
     /**
@@ -248,7 +641,8 @@ public class ProfilingService {
                 "timestamp", Instant.now()
             ));
 
-            kafkaTemplate.send("profile-updates", jsonMessage);
+            // Keyed by user so each user's updates stay in order on one partition
+            kafkaTemplate.send("profile-updates", profile.getUserId(), jsonMessage);
             log.debug("Emitted profile update for user: {}", profile.getUserId());
         } catch (Exception e) {
             // Don't fail the entire profiling if Kafka emission fails
@@ -258,32 +652,40 @@ public class ProfilingService {
         }
     }
 
-    // Helper methods for JSON parsing
-    private String getValue(JsonNode node, String field) {
-        return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : null;
+    private static String requireUserId(String userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("No userId in event");
+        }
+        return userId;
     }
 
-    private Integer getIntValue(JsonNode node, String field) {
-        return node.has(field) && !node.get(field).isNull() ? node.get(field).asInt() : null;
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
     }
 
-    private Long getLongValue(JsonNode node, String field) {
-        return node.has(field) && !node.get(field).isNull() ? node.get(field).asLong() : null;
+    // One worker's cached profiles, with the partition each user was last seen on
+    // and the profiles changed since the last flush
+    private static final class ProfileShard {
+        final Map<String, BehavioralProfile> profiles = new HashMap<>();
+        final Map<String, Integer> partitions = new HashMap<>();
+        final Map<String, DirtyProfile> dirty = new LinkedHashMap<>();
     }
 
-    @SuppressWarnings("unchecked")
-    private java.util.List<String> getListValue(JsonNode node, String field) {
-        if (!node.has(field) || node.get(field).isNull()) {
-            return List.of();
-        }
-        var array = node.get(field);
-        if (array.isArray()) {
-            java.util.List<String> result = new java.util.ArrayList<>();
-            for (JsonNode item : array) {
-                result.add(item.asText());
-            }
-            return result;
+    // A cached profile awaiting flush, with the events applied to it since the last one
+    private static final class DirtyProfile {
+        final BehavioralProfile profile;
+        final List<EventKey> keys = new ArrayList<>();
+        int events;
+        int failedFlushes;
+
+        DirtyProfile(BehavioralProfile profile) {
+            this.profile = profile;
         }
-        return List.of();
     }
 }
@@ -0,0 +1,222 @@
+package com.gradepath.content.profiling;
+
+import com.gradepath.content.profiling.algorithm.UserShard;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-threaded owners of per-user profiling state.
+ *
+ * Every user is owned by exactly one worker, chosen by {@link UserShard}, and
+ * all work for that user runs on that worker's thread in arrival order. State
+ * a worker owns (cached profiles, session history, topic sets) is therefore
+ * only ever touched by one thread and needs no locks. Each worker drains a
+ * bounded queue, so a slow worker blocks the consumer threads feeding it.
+ *
+ * Also the rebalance listener of the raw-behavioral-events consumer: before
+ * revoked partitions are committed it waits for the workers to finish queued
+ * work, so acknowledgments of that work are part of the commit, then asks every
+ * worker, on its own thread, to drop the state of users last seen on those
+ * partitions. With the topic keyed by userId that is the only partition a
+ * user's events arrive on, so the new owner of the partition takes the users
+ * over; see {@link ProfilingService} for what happens with unkeyed records.
+ */
+@Component
+@Slf4j
+public class ProfilingWorkers implements ConsumerAwareRebalanceListener {
+
+    private static final long STOP_TIMEOUT_MS = 5000;
+    private static final long IDLE_POLL_MS = 10;
+
+    private final Worker[] workers;
+    private final long drainTimeoutMs;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile RevocationHandler revocationHandler = (worker, partitions) -> { };
+
+    public ProfilingWorkers(
+            MeterRegistry meterRegistry,
+            @Value("${profiling.workers:6}") int workerCount,
+            @Value("${profiling.worker-queue-capacity:1000}") int queueCapacity,
+            @Value("${profiling.revoke-drain-timeout-ms:10000}") long drainTimeoutMs) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("profiling.workers must be positive: " + workerCount);
+        }
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.workers = new Worker[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new Worker(i, queueCapacity);
+            meterRegistry.gauge("profiling.worker.queue.depth", Tags.of("worker", String.valueOf(i)),
+                workers[i].queue, BlockingQueue::size);
+            workers[i].thread.start();
+        }
+    }
+
+    /**
+     * Drops state handed over with revoked partitions; called on each worker's
+     * thread with that worker's index
+     */
+    @FunctionalInterface
+    public interface RevocationHandler {
+        void onRevoked(int worker, Collection<Integer> partitions);
+    }
+
+    public void onRevoked(RevocationHandler revocationHandler) {
+        this.revocationHandler = revocationHandler;
+    }
+
+    public int size() {
+        return workers.length;
+    }
+
+    /**
+     * Index of the worker that owns a user
+     */
+    public int ownerOf(String userId) {
+        return UserShard.of(userId, workers.length);
+    }
+
+    /**
+     * Queue work on the user's owner, waiting while its queue is full
+     */
+    public void execute(String userId, Runnable task) throws InterruptedException {
+        execute(ownerOf(userId), task);
+    }
+
+    /**
+     * Queue work on a given worker, waiting while its queue is full
+     */
+    public void execute(int worker, Runnable task) throws InterruptedException {
+        enqueue(workers[worker], task);
+    }
+
+    /**
+     * Queue work on the user's owner and return its completion
+     */
+    public CompletableFuture<Void> submit(String userId, Runnable task) throws InterruptedException {
+        return submit(ownerOf(userId), task);
+    }
+
+    /**
+     * Queue work on a given worker and return its completion
+     */
+    public CompletableFuture<Void> submit(int worker, Runnable task) throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        execute(worker, () -> {
+            try {
+                task.run();
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Wait until every queued task has run
+     *
+     * @return false if tasks were still pending when the timeout expired
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (pending.get() > 0) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(IDLE_POLL_MS);
+        }
+        return true;
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = partitionIds(partitions);
+        try {
+            if (!awaitIdle(drainTimeoutMs)) {
+                log.warn("Profiling workers still busy after {} ms, revoking {} anyway", drainTimeoutMs, partitions);
+            }
+            for (Worker worker : workers) {
+                enqueue(worker, () -> revocationHandler.onRevoked(worker.index, ids));
+            }
+            awaitIdle(drainTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Worker worker, Runnable task) throws InterruptedException {
+        pending.incrementAndGet();
+        try {
+            worker.queue.put(task);
+        } catch (InterruptedException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private static List<Integer> partitionIds(Collection<TopicPartition> partitions) {
+        return partitions.stream().map(TopicPartition::partition).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Listeners have stopped by now; unacknowledged events are redelivered
+        for (Worker worker : workers) {
+            worker.thread.interrupt();
+        }
+        for (Worker worker : workers) {
+            worker.thread.join(STOP_TIMEOUT_MS);
+        }
+    }
+
+    private final class Worker {
+
+        final int index;
+        final BlockingQueue<Runnable> queue;
+        final Thread thread;
+
+        Worker(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = Thread.ofPlatform().name("profiling-" + index).daemon().unstarted(this::run);
+        }
+
+        private void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    Runnable task = queue.take();
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        log.error("Profiling task failed on worker {}", index, e);
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.debug("Profiling worker {} stopped", index);
+        }
+    }
+}
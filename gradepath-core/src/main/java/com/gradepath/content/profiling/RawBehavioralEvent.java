@@ -0,0 +1,34 @@
+package com.gradepath.content.profiling;
+
+import com.gradepath.content.profiling.algorithm.InterestScorer;
+
+/**
+ * A decoded raw-behavioral-events message, one type per topic the profiler handles
+ */
+public sealed interface RawBehavioralEvent {
+
+    String userId();
+
+    /**
+     * content_journey: the user consumed a piece of content
+     */
+    record ContentJourney(InterestScorer.RawJourneyEvent journey) implements RawBehavioralEvent {
+        @Override
+        public String userId() {
+            return journey.userId();
+        }
+    }
+
+    /**
+     * session_lifecycle: the user started or ended a session
+     */
+    record SessionLifecycle(String userId, String eventType, int durationSeconds, int contentCount)
+            implements RawBehavioralEvent {
+    }
+
+    /**
+     * A message without a topic, or with one the profiler does not handle
+     */
+    record Unhandled(String userId, String topic) implements RawBehavioralEvent {
+    }
+}
@@ -0,0 +1,158 @@
+package com.gradepath.content.profiling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.gradepath.content.profiling.algorithm.InterestScorer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass decoder for raw-behavioral-events messages.
+ *
+ * Reads the fields of every known topic straight off the token stream, skips
+ * anything else without building a tree, and routes on the topic field once the
+ * object is complete, so field order in the message does not matter.
+ */
+public final class RawBehavioralEventDecoder {
+
+    private final JsonFactory jsonFactory;
+
+    public RawBehavioralEventDecoder(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Decode a message
+     *
+     * @throws IOException if the message is not a JSON object
+     */
+    public RawBehavioralEvent decode(String message) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+
+            Fields fields = new Fields();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "topic" -> fields.topic = text(parser, value);
+                    case "userId" -> fields.userId = text(parser, value);
+                    case "journeyId" -> fields.journeyId = text(parser, value);
+                    case "sessionId" -> fields.sessionId = text(parser, value);
+                    case "contentId" -> fields.contentId = text(parser, value);
+                    case "contentType" -> fields.contentType = text(parser, value);
+                    case "action" -> fields.action = text(parser, value);
+                    case "sequencePosition" -> fields.sequencePosition = integer(parser, value);
+                    case "timeInContentSeconds" -> fields.timeInContentSeconds = integer(parser, value);
+                    case "topicTags" -> fields.topicTags = textList(parser, value);
+                    case "difficultyLevel" -> fields.difficultyLevel = text(parser, value);
+                    case "previousContentId" -> fields.previousContentId = text(parser, value);
+                    case "timestamp" -> fields.timestamp = value == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+                    case "eventType" -> fields.eventType = text(parser, value);
+                    case "durationSeconds" -> fields.durationSeconds = integer(parser, value);
+                    case "contentCount" -> fields.contentCount = integer(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return toEvent(fields);
+        }
+    }
+
+    private static RawBehavioralEvent toEvent(Fields fields) {
+        if (fields.topic == null) {
+            return new RawBehavioralEvent.Unhandled(fields.userId, null);
+        }
+        return switch (fields.topic) {
+            case "content_journey" -> new RawBehavioralEvent.ContentJourney(new InterestScorer.RawJourneyEvent(
+                fields.journeyId,
+                fields.userId,
+                fields.sessionId,
+                fields.contentId,
+                fields.contentType,
+                fields.action,
+                fields.sequencePosition,
+                fields.timeInContentSeconds,
+                fields.topicTags,
+                fields.difficultyLevel,
+                fields.previousContentId,
+                fields.timestamp
+            ));
+            case "session_lifecycle" -> new RawBehavioralEvent.SessionLifecycle(
+                fields.userId,
+                fields.eventType,
+                fields.durationSeconds != null ? fields.durationSeconds : 0,
+                fields.contentCount != null ? fields.contentCount : 0
+            );
+            default -> new RawBehavioralEvent.Unhandled(fields.userId, fields.topic);
+        };
+    }
+
+    /**
+     * Scalar as text (numbers and booleans included); null for null, objects and arrays
+     */
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL || !value.isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    private static Integer integer(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!value.isScalarValue()) {
+            parser.skipChildren();
+            return 0;
+        }
+        return parser.getValueAsInt();
+    }
+
+    private static List<String> textList(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return List.of();
+        }
+        List<String> result = new ArrayList<>();
+        JsonToken item;
+        while ((item = parser.nextToken()) != JsonToken.END_ARRAY) {
+            // Null, object and array elements are not tags
+            if (item == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            if (item.isScalarValue()) {
+                result.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return result;
+    }
+
+    // Union of the fields of every handled topic, in whatever order they arrive
+    private static final class Fields {
+        String topic;
+        String userId;
+        String journeyId;
+        String sessionId;
+        String contentId;
+        String contentType;
+        String action;
+        Integer sequencePosition;
+        Integer timeInContentSeconds;
+        List<String> topicTags = List.of();
+        String difficultyLevel;
+        String previousContentId;
+        Long timestamp;
+        String eventType;
+        Integer durationSeconds;
+        Integer contentCount;
+    }
+}
@@ -3,6 +3,8 @@ package com.gradepath.content.profiling.algorithm;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
 import com.gradepath.content.recommendation.profile.BehavioralProfile.EngagementPattern;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -21,23 +23,42 @@ import java.util.Map;
  * - deep_learner: >2 min per content (deep engagement)
  * - explorer: <30 sec per content (browsing mode)
  * - specialist: low topic diversity, focused on specific subjects
+ *
+ * Per-user session history is striped by {@link UserShard} across one map per
+ * profiling worker. A user's stripe is only ever touched by the worker that
+ * owns the user, so the maps need no locking.
  */
 @Component
 @Slf4j
 public class EngagementClassifier {
 
-    // Track recent session metrics per user (LRU cache with max 10 entries per user)
-    private final Map<String, List<SessionMetrics>> recentSessions = new LinkedHashMap<>() {
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<String, List<SessionMetrics>> eldest) {
-            // Keep cache bounded - remove oldest entries when too many users
-            return size() > 1000;
-        }
-    };
-
+    private static final int MAX_TRACKED_USERS = 1000;
     private static final int MAX_SESSIONS_PER_USER = 10;
     private static final int MIN_SESSIONS_FOR_CLASSIFICATION = 3;
 
+    // Track recent session metrics per user, one stripe per profiling worker (max 10 entries per user)
+    private final List<Map<String, List<SessionMetrics>>> recentSessions;
+
+    public EngagementClassifier() {
+        this(1);
+    }
+
+    @Autowired
+    public EngagementClassifier(@Value("${profiling.workers:6}") int stripes) {
+        int usersPerStripe = Math.max(1, MAX_TRACKED_USERS / stripes);
+        List<Map<String, List<SessionMetrics>>> maps = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            maps.add(new LinkedHashMap<>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, List<SessionMetrics>> eldest) {
+                    // Keep cache bounded - remove oldest entries when too many users
+                    return size() > usersPerStripe;
+                }
+            });
+        }
+        this.recentSessions = List.copyOf(maps);
+    }
+
     /**
      * Update engagement based on session end event
      */
@@ -45,7 +66,7 @@ public class EngagementClassifier {
         String userId = profile.getUserId();
 
         // Store session metrics
-        List<SessionMetrics> sessions = recentSessions.computeIfAbsent(
+        List<SessionMetrics> sessions = stripe(userId).computeIfAbsent(
             userId, k -> new ArrayList<>()
         );
         sessions.add(metrics);
@@ -152,7 +173,18 @@ public class EngagementClassifier {
      * Get stored session metrics for a user
      */
     public List<SessionMetrics> getUserSessions(String userId) {
-        return Collections.unmodifiableList(recentSessions.getOrDefault(userId, List.of()));
+        return Collections.unmodifiableList(stripe(userId).getOrDefault(userId, List.of()));
+    }
+
+    /**
+     * Drop a user's session history, when their profile moves to another owner
+     */
+    public void forgetUser(String userId) {
+        stripe(userId).remove(userId);
+    }
+
+    private Map<String, List<SessionMetrics>> stripe(String userId) {
+        return recentSessions.get(UserShard.of(userId, recentSessions.size()));
     }
 
     /**
@@ -5,7 +5,6 @@ import com.gradepath.content.recommendation.profile.BehavioralProfile.InterestSc
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +19,11 @@ import java.util.Map;
  * - Time weight: normalizes time spent, max 1.5x multiplier
  * - Decay: 7-day half-life for old scores
  * - EMA: Exponential moving average with alpha=0.3 for score updates
+ *
+ * Decay is lazy: a score is stored with the time it was last updated and
+ * decayed only when read ({@link InterestScore#scoreAt}) or updated, so an
+ * event costs one update per topic it carries however many topics the user
+ * has. Interests decayed below the threshold are removed by {@link #pruneInterests}.
  */
 @Component
 @Slf4j
@@ -31,14 +35,12 @@ public class InterestScorer {
     private static final double MULTIPLIER_REVISITED = 3.0;
     private static final double MULTIPLIER_ABANDONED = 0.5;
 
-    // Decay function: half-life of 7 days
-    private static final double HALF_LIFE_DAYS = 7.0;
-
     // EMA alpha for score updates
     private static final double EMA_ALPHA = 0.3;
 
     // Minimum score threshold
     private static final double MIN_SCORE_THRESHOLD = 1.0;
+    private static final double LOG_MIN_SCORE_THRESHOLD = Math.log(MIN_SCORE_THRESHOLD);
 
     // Base value for each interaction
     private static final double BASE_VALUE = 10.0;
@@ -56,6 +58,7 @@ public class InterestScorer {
         var timeInContentSeconds = event.timeInContentSeconds() != null
             ? event.timeInContentSeconds()
             : 0;
+        Instant now = Instant.now();
 
         // Update interest for each topic tag
         for (String topic : topicTags) {
@@ -65,13 +68,21 @@ public class InterestScorer {
 
             double score = BASE_VALUE * actionMultiplier * timeWeight * recencyDecay;
 
-            updateTopicScore(profile, topic, score);
+            updateTopicScore(profile, topic, score, now);
         }
+    }
 
-        // Apply decay to all interests
-        if (profile.getInterests() != null) {
-            applyDecay(profile.getInterests());
+    /**
+     * Remove interests that have decayed below the threshold
+     *
+     * @return whether any interest was removed
+     */
+    public boolean pruneInterests(BehavioralProfile profile, Instant now) {
+        Map<String, InterestScore> interests = profile.getInterests();
+        if (interests == null || interests.isEmpty()) {
+            return false;
         }
+        return interests.values().removeIf(interest -> interest.logScoreAt(now) < LOG_MIN_SCORE_THRESHOLD);
     }
 
     /**
@@ -89,8 +100,9 @@ public class InterestScorer {
 
     /**
      * Update a single topic score using exponential moving average
+     * The existing score is decayed to now first, and the result is stored as of now
      */
-    private void updateTopicScore(BehavioralProfile profile, String topic, double addedScore) {
+    private void updateTopicScore(BehavioralProfile profile, String topic, double addedScore, Instant now) {
         Map<String, InterestScore> interests = profile.getInterests();
         if (interests == null) {
             interests = new HashMap<>();
@@ -98,41 +110,25 @@ public class InterestScorer {
         }
 
         InterestScore existing = interests.get(topic);
+        double newScore = existing != null
+            ? existing.scoreAt(now) * (1 - EMA_ALPHA) + addedScore * EMA_ALPHA
+            : addedScore;
 
-        if (existing != null) {
-            // Combine with existing score using exponential moving average
-            double newScore = existing.getScore() * (1 - EMA_ALPHA) + addedScore * EMA_ALPHA;
+        if (newScore < MIN_SCORE_THRESHOLD) {
+            interests.remove(topic);
+        } else if (existing != null) {
             existing.setScore(newScore);
-            existing.setLastUpdated(Instant.now());
+            existing.setLastUpdated(now);
         } else {
             InterestScore newInterest = InterestScore.builder()
                 .topic(topic)
-                .score(addedScore)
-                .lastUpdated(Instant.now())
+                .score(newScore)
+                .lastUpdated(now)
                 .build();
             interests.put(topic, newInterest);
         }
     }
 
-    /**
-     * Apply time-based decay to all interest scores
-     * Uses 7-day half-life: score = score * 0.5^(days/7)
-     */
-    private void applyDecay(Map<String, InterestScore> interests) {
-        Instant now = Instant.now();
-
-        // Apply decay
-        interests.values().forEach(interest -> {
-            long daysSinceUpdate = Duration.between(interest.getLastUpdated(), now).toDays();
-            double decayFactor = Math.pow(0.5, daysSinceUpdate / HALF_LIFE_DAYS);
-            double newScore = interest.getScore() * decayFactor;
-            interest.setScore(newScore);
-        });
-
-        // Remove interests that have decayed below threshold
-        interests.entrySet().removeIf(entry -> entry.getValue().getScore() < MIN_SCORE_THRESHOLD);
-    }
-
     /**
      * Record for raw journey events from NestJS
      */
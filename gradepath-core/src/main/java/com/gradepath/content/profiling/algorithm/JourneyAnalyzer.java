@@ -1,12 +1,15 @@
 package com.gradepath.content.profiling.algorithm;
 
+import com.gradepath.content.recommendation.algorithm.NextInPathPredictor;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
 import com.gradepath.content.recommendation.profile.BehavioralProfile.ContentTransition;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -19,21 +22,55 @@ import java.util.stream.Collectors;
  * - Identifies common paths
  * - Tracks topic diversity per user
  * - Predicts next likely content
+ * - Feeds each user's recent path to the {@link NextInPathPredictor}
+ *
+ * Transitions are shared by all users and counted in a bounded
+ * {@link TransitionStore}, which keeps a running total per source content and
+ * survives restarts when file-backed. A {@link TransitionLeaderboard} of the
+ * most frequent ones is rebuilt from the store on startup, so common paths
+ * cost the same per event however large the transition graph grows. Per-user
+ * topic sets are striped by {@link UserShard}, one plain map per profiling
+ * worker, since only a user's owning worker reads or writes them.
  */
 @Component
 @Slf4j
 public class JourneyAnalyzer {
 
     // Track transitions for Markov chain: fromContent -> (toContent -> frequency)
-    private final Map<String, Map<String, Integer>> transitions = new ConcurrentHashMap<>();
+    private final TransitionStore transitions;
+
+    // Variable-order model of content and topic paths, for next-in-path candidates
+    private final NextInPathPredictor pathPredictor;
+
+    // Most frequent transitions across all content
+    private final TransitionLeaderboard commonPaths = new TransitionLeaderboard(MAX_COMMON_PATHS);
 
-    // Track unique topics per user for diversity calculation
-    private final Map<String, Set<String>> userTopics = new ConcurrentHashMap<>();
+    // Track unique topics per user for diversity calculation, one stripe per profiling worker
+    private final List<Map<String, Set<String>>> userTopics;
 
     private static final int MIN_FREQUENCY_THRESHOLD = 2;
     private static final int MAX_COMMON_PATHS = 20;
     private static final int TOP_NEXT_PREDICTIONS = 3;
 
+    public JourneyAnalyzer() {
+        this(1, TransitionStore.inMemory(), NextInPathPredictor.inMemory());
+    }
+
+    @Autowired
+    public JourneyAnalyzer(
+            @Value("${profiling.workers:6}") int stripes,
+            TransitionStore transitions,
+            NextInPathPredictor pathPredictor) {
+        List<Map<String, Set<String>>> maps = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            maps.add(new HashMap<>());
+        }
+        this.userTopics = List.copyOf(maps);
+        this.transitions = transitions;
+        this.pathPredictor = pathPredictor;
+        rankTransitions();
+    }
+
     /**
      * Analyze a journey event and update profile
      */
@@ -48,11 +85,10 @@ public class JourneyAnalyzer {
         }
 
         // Track topic diversity
-        userTopics.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet())
-                  .addAll(topicTags);
+        Set<String> userTopicSet = stripe(userId).computeIfAbsent(userId, k -> new HashSet<>());
+        userTopicSet.addAll(topicTags);
 
         // Update unique topic ratio in engagement
-        Set<String> userTopicSet = userTopics.get(userId);
         if (profile.getTotalContentConsumed() > 0) {
             double uniqueTopicRatio = (double) userTopicSet.size() /
                                      Math.max(profile.getTotalContentConsumed(), 1);
@@ -68,44 +104,77 @@ public class JourneyAnalyzer {
             trackTransition(previousContentId, contentId);
             updateCommonPaths(profile);
         }
+
+        if (contentId != null) {
+            extendPath(profile, previousContentId, contentId, topicTags.isEmpty() ? null : topicTags.get(0));
+        }
+    }
+
+    /**
+     * Append a step to the user's recent path and topics, learning from it.
+     * A step that does not follow the last one starts a new path.
+     */
+    private void extendPath(BehavioralProfile profile, String previousContentId, String contentId, String topic) {
+        List<String> path = profile.getRecentPath() != null ? profile.getRecentPath() : List.of();
+        List<String> topics = profile.getRecentTopics() != null ? profile.getRecentTopics() : List.of();
+        boolean continues = previousContentId != null && !path.isEmpty()
+            && previousContentId.equals(path.get(path.size() - 1));
+        if (!continues) {
+            path = previousContentId != null && !previousContentId.isEmpty() ? List.of(previousContentId) : List.of();
+            topics = List.of();
+        }
+
+        pathPredictor.observeContent(path, contentId);
+        profile.setRecentPath(append(path, contentId));
+
+        if (topic != null && (topics.isEmpty() || !topic.equals(topics.get(topics.size() - 1)))) {
+            if (!topics.isEmpty()) {
+                pathPredictor.observeTopic(topics, topic);
+            }
+            profile.setRecentTopics(append(topics, topic));
+        } else {
+            profile.setRecentTopics(topics);
+        }
+    }
+
+    // The last maxOrder steps of a path after one more
+    private List<String> append(List<String> path, String step) {
+        int keep = Math.min(path.size(), pathPredictor.maxOrder() - 1);
+        List<String> extended = new ArrayList<>(keep + 1);
+        extended.addAll(path.subList(path.size() - keep, path.size()));
+        extended.add(step);
+        return extended;
     }
 
     /**
      * Track a content transition for Markov chain analysis
      */
     private void trackTransition(String from, String to) {
-        transitions.computeIfAbsent(from, k -> new ConcurrentHashMap<>())
-                  .merge(to, 1, Integer::sum);
+        int frequency = transitions.increment(from, to);
+        if (frequency > 0) {
+            commonPaths.offer(from, to, frequency);
+        }
     }
 
     /**
-     * Update common paths in profile based on transition frequencies
+     * Update common paths in profile from the most frequent transitions
      */
     private void updateCommonPaths(BehavioralProfile profile) {
-        List<ContentTransition> result = new ArrayList<>();
-
-        transitions.forEach((fromContent, toMap) -> {
-            int totalFrom = toMap.values().stream().mapToInt(Integer::intValue).sum();
-
-            toMap.forEach((toContent, frequency) -> {
-                if (frequency >= MIN_FREQUENCY_THRESHOLD) {
-                    result.add(ContentTransition.builder()
-                        .fromContent(fromContent)
-                        .toContent(toContent)
-                        .frequency(frequency)
-                        .probability((double) frequency / totalFrom)
-                        .build());
-                }
-            });
-        });
-
-        // Sort by frequency and keep top paths
-        List<ContentTransition> sorted = result.stream()
-            .sorted((a, b) -> Integer.compare(b.getFrequency(), a.getFrequency()))
-            .limit(MAX_COMMON_PATHS)
-            .collect(Collectors.toList());
+        List<ContentTransition> result = new ArrayList<>(MAX_COMMON_PATHS);
+
+        for (TransitionLeaderboard.Entry path : commonPaths.top()) {
+            if (path.frequency() >= MIN_FREQUENCY_THRESHOLD) {
+                int totalFrom = Math.max(transitions.total(path.from()), path.frequency());
+                result.add(ContentTransition.builder()
+                    .fromContent(path.from())
+                    .toContent(path.to())
+                    .frequency(path.frequency())
+                    .probability((double) path.frequency() / totalFrom)
+                    .build());
+            }
+        }
 
-        profile.setCommonPaths(sorted);
+        profile.setCommonPaths(result);
     }
 
     /**
@@ -116,8 +185,8 @@ public class JourneyAnalyzer {
             return List.of();
         }
 
-        Map<String, Integer> fromMap = transitions.get(currentContent);
-        if (fromMap == null || fromMap.isEmpty()) {
+        Map<String, Integer> fromMap = transitions.row(currentContent);
+        if (fromMap.isEmpty()) {
             return List.of();
         }
 
@@ -130,17 +199,47 @@ public class JourneyAnalyzer {
     }
 
     /**
-     * Get the transition matrix (for debugging/analysis)
+     * Get a copy of the transition matrix (for debugging/analysis)
      */
     public Map<String, Map<String, Integer>> getTransitionMatrix() {
-        return Collections.unmodifiableMap(transitions);
+        Map<String, Map<String, Integer>> matrix = new HashMap<>();
+        transitions.forEach((from, to, frequency) ->
+            matrix.computeIfAbsent(from, k -> new HashMap<>()).put(to, frequency));
+        matrix.replaceAll((from, row) -> Collections.unmodifiableMap(row));
+        return Collections.unmodifiableMap(matrix);
+    }
+
+    /**
+     * Age transition counts, on profiling.transitions.decay-cron when set
+     */
+    @Scheduled(cron = "${profiling.transitions.decay-cron:-}")
+    public void decayTransitions() {
+        transitions.decay();
+        rankTransitions();
+    }
+
+    // Rebuild the leaderboard from stored counts
+    private void rankTransitions() {
+        commonPaths.clear();
+        transitions.forEach(commonPaths::offer);
     }
 
     /**
      * Get topics tracked for a user
      */
     public Set<String> getUserTopics(String userId) {
-        return Collections.unmodifiableSet(userTopics.getOrDefault(userId, Set.of()));
+        return Collections.unmodifiableSet(stripe(userId).getOrDefault(userId, Set.of()));
+    }
+
+    /**
+     * Drop a user's topic set, when their profile moves to another owner
+     */
+    public void forgetUser(String userId) {
+        stripe(userId).remove(userId);
+    }
+
+    private Map<String, Set<String>> stripe(String userId) {
+        return userTopics.get(UserShard.of(userId, userTopics.size()));
     }
 
     /**
@@ -148,12 +247,13 @@ public class JourneyAnalyzer {
      */
     public void clearTransitions() {
         transitions.clear();
+        commonPaths.clear();
     }
 
     /**
      * Clear user topics (useful for testing)
      */
     public void clearUserTopics() {
-        userTopics.clear();
+        userTopics.forEach(Map::clear);
     }
 }
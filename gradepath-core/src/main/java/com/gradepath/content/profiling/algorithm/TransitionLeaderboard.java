@@ -0,0 +1,79 @@
+package com.gradepath.content.profiling.algorithm;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The most frequent content transitions, maintained as their counts grow.
+ *
+ * Counts only ever grow by one, so a transition off the board is never more
+ * frequent than the least frequent one on it: once its count passes that
+ * minimum it takes the minimum's place, and the board stays exact. Each
+ * update is O(log capacity), however many transitions exist.
+ */
+final class TransitionLeaderboard {
+
+    // Most frequent first; ties in a stable order
+    private static final Comparator<Entry> RANK = Comparator.comparingInt(Entry::frequency).reversed()
+        .thenComparing(Entry::from)
+        .thenComparing(Entry::to);
+
+    private final int capacity;
+    private final Map<Transition, Entry> entries = new HashMap<>();
+    private final TreeSet<Entry> ranked = new TreeSet<>(RANK);
+
+    TransitionLeaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Record a transition's current count. Counts reported out of order by
+     * concurrent callers never lower a transition's rank.
+     */
+    synchronized void offer(String from, String to, int frequency) {
+        Transition transition = new Transition(from, to);
+        Entry current = entries.get(transition);
+        if (current != null) {
+            if (frequency > current.frequency()) {
+                ranked.remove(current);
+                add(transition, frequency);
+            }
+            return;
+        }
+        if (entries.size() >= capacity) {
+            Entry last = ranked.last();
+            if (frequency <= last.frequency()) {
+                return;
+            }
+            ranked.pollLast();
+            entries.remove(new Transition(last.from(), last.to()));
+        }
+        add(transition, frequency);
+    }
+
+    /**
+     * Transitions on the board, most frequent first
+     */
+    synchronized List<Entry> top() {
+        return new ArrayList<>(ranked);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        ranked.clear();
+    }
+
+    private void add(Transition transition, int frequency) {
+        Entry entry = new Entry(transition.from(), transition.to(), frequency);
+        entries.put(transition, entry);
+        ranked.add(entry);
+    }
+
+    private record Transition(String from, String to) {}
+
+    record Entry(String from, String to, int frequency) {}
+}
@@ -0,0 +1,585 @@
+package com.gradepath.content.profiling.algorithm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded store of content transition counts for the Markov journey model.
+ *
+ * Content ids are dictionary-encoded to ints. Each transition is a 16-byte
+ * slot of an open-addressing table (from, to, count, next transition from the
+ * same content), and each content has the head of that chain and a running
+ * total, so a row is read without scanning the table. The table is fixed in
+ * size: transitions beyond its load limit, or content beyond max-contents, are
+ * dropped and counted in profiling.transitions.dropped until {@link #decay}
+ * frees room. Decay rebuilds the table and re-ids only the content its
+ * surviving transitions reference, so it frees dictionary entries as well as
+ * slots; a dropped counter that keeps rising between decays means the bounds
+ * or the decay schedule are too tight.
+ *
+ * With profiling.transitions.dir set the table and dictionary are
+ * memory-mapped files, usable again as soon as they are mapped after a
+ * restart; without it they are held in heap buffers. Writes reach the files
+ * through the page cache and are forced to disk every sync interval and on
+ * shutdown. Counts are statistics: a crash mid-update may lose that update,
+ * and after an OS crash that left the files out of step the store is rebuilt
+ * from its valid transitions on startup, losing those the dictionary no
+ * longer covers.
+ * Decay writes the rebuilt store to .tmp files and renames them over the old
+ * ones, both stamped with a generation, so a crash mid-decay leaves either
+ * the previous store or the decayed one, never a mix.
+ */
+@Component
+@Slf4j
+public class TransitionStore {
+
+    static final int DEFAULT_CAPACITY = 1 << 20;
+    static final int DEFAULT_MAX_CONTENTS = 1 << 17;
+
+    private static final int MAGIC = 0x4A545331; // "JTS1"
+    private static final int HEADER_BYTES = 16;
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_ID_BYTES = 512;
+    private static final int DICTIONARY_BYTES_PER_CONTENT = 64;
+
+    // Slot fields; from and next are stored plus one so that zero means none
+    private static final int FROM = 0;
+    private static final int TO = 4;
+    private static final int COUNT = 8;
+    private static final int NEXT = 12;
+
+    private final int capacity;
+    private final int maxSize;
+    private final int maxContents;
+    private final int headsOffset;
+    private final int totalsOffset;
+    private final int slotsOffset;
+    private final Path tableFile;
+    private final Path dictionaryFile;
+    private final Counter dropped;
+
+    // Replaced by decay; header: magic, capacity or count, max contents or end, generation
+    private ByteBuffer table;
+    private ByteBuffer dictionary;
+
+    // Decoded dictionary; bounded by max-contents
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> contents = new ArrayList<>();
+    private int size;
+
+    @Autowired
+    public TransitionStore(
+            @Value("${profiling.transitions.dir:}") String dir,
+            @Value("${profiling.transitions.capacity:1048576}") int capacity,
+            @Value("${profiling.transitions.max-contents:131072}") int maxContents,
+            MeterRegistry meterRegistry) {
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        if ((long) this.capacity * SLOT_BYTES > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Transition capacity too large: " + capacity);
+        }
+        this.maxSize = this.capacity / 4 * 3;
+        this.maxContents = maxContents;
+        this.headsOffset = HEADER_BYTES;
+        this.totalsOffset = headsOffset + maxContents * 4;
+        this.slotsOffset = totalsOffset + maxContents * 4;
+        int tableBytes = slotsOffset + this.capacity * SLOT_BYTES;
+        int dictionaryBytes = HEADER_BYTES + maxContents * DICTIONARY_BYTES_PER_CONTENT;
+
+        if (dir == null || dir.isBlank()) {
+            this.tableFile = null;
+            this.dictionaryFile = null;
+            this.table = ByteBuffer.allocate(tableBytes);
+            this.dictionary = ByteBuffer.allocate(dictionaryBytes);
+            initialize(0);
+        } else {
+            Path directory = Path.of(dir);
+            this.tableFile = directory.resolve("transitions.dat");
+            this.dictionaryFile = directory.resolve("contents.dat");
+            try {
+                Files.createDirectories(directory);
+                recover();
+                if (!compatible()) {
+                    // Different geometry or no files yet: counts rebuild from traffic
+                    Files.deleteIfExists(tableFile);
+                    Files.deleteIfExists(dictionaryFile);
+                }
+                this.table = map(tableFile, tableBytes);
+                this.dictionary = map(dictionaryFile, dictionaryBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot map transition store in " + directory, e);
+            }
+            if (table.getInt(0) == MAGIC) {
+                load();
+                log.info("Loaded {} content transitions over {} contents from {}", size, contents.size(), directory);
+            } else {
+                initialize(0);
+            }
+        }
+
+        this.dropped = meterRegistry.counter("profiling.transitions.dropped");
+        meterRegistry.gauge("profiling.transitions.size", this, TransitionStore::size);
+    }
+
+    /**
+     * A heap-backed store with default bounds
+     */
+    public static TransitionStore inMemory() {
+        return new TransitionStore(null, DEFAULT_CAPACITY, DEFAULT_MAX_CONTENTS, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Count one transition
+     *
+     * @return the transition's new count, or 0 if the store is full
+     */
+    public synchronized int increment(String from, String to) {
+        int fromId = idOf(from);
+        int toId = fromId >= 0 ? idOf(to) : -1;
+        if (toId < 0) {
+            dropped.increment();
+            return 0;
+        }
+
+        int slot = find(fromId, toId);
+        int count;
+        if (slot >= 0) {
+            count = saturatedIncrement(table.getInt(slotsOffset + slot * SLOT_BYTES + COUNT));
+            table.putInt(slotsOffset + slot * SLOT_BYTES + COUNT, count);
+        } else if (size < maxSize) {
+            insert(-slot - 1, fromId, toId, 1);
+            count = 1;
+        } else {
+            dropped.increment();
+            return 0;
+        }
+        int total = totalsOffset + fromId * 4;
+        table.putInt(total, saturatedIncrement(table.getInt(total)));
+        return count;
+    }
+
+    /**
+     * Transitions counted out of a content
+     */
+    public synchronized int total(String from) {
+        Integer fromId = ids.get(from);
+        return fromId != null ? table.getInt(totalsOffset + fromId * 4) : 0;
+    }
+
+    /**
+     * Counts of the transitions out of a content, by target content
+     */
+    public synchronized Map<String, Integer> row(String from) {
+        Integer fromId = ids.get(from);
+        if (fromId == null) {
+            return Map.of();
+        }
+        Map<String, Integer> row = new LinkedHashMap<>();
+        for (int next = table.getInt(headsOffset + fromId * 4); next != 0; ) {
+            int slot = slotsOffset + (next - 1) * SLOT_BYTES;
+            row.put(contents.get(table.getInt(slot + TO)), table.getInt(slot + COUNT));
+            next = table.getInt(slot + NEXT);
+        }
+        return row;
+    }
+
+    /**
+     * Visit every counted transition
+     */
+    public synchronized void forEach(TransitionVisitor visitor) {
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotsOffset + slot * SLOT_BYTES;
+            int from = table.getInt(offset + FROM);
+            if (from != 0) {
+                visitor.visit(contents.get(from - 1), contents.get(table.getInt(offset + TO)), table.getInt(offset + COUNT));
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Halve every count, dropping transitions that reach zero, so old paths
+     * fade and their slots and content ids are freed for new ones.
+     * The decayed store is built in fresh buffers and swapped in whole.
+     */
+    public synchronized void decay() {
+        int kept = rebuild(2);
+        if (kept >= 0) {
+            log.info("Decayed content transitions, {} of them over {} contents remain", kept, contents.size());
+        }
+    }
+
+    /**
+     * Rebuild the store in fresh buffers from its transitions with counts
+     * divided by divisor, dropping those that reach zero or reference content
+     * outside the dictionary, and re-id the content still referenced
+     *
+     * @return the transitions kept, or -1 if the new files cannot be mapped
+     */
+    private int rebuild(int divisor) {
+        int[] froms = new int[size];
+        int[] tos = new int[size];
+        int[] counts = new int[size];
+        boolean[] referenced = new boolean[contents.size()];
+        int kept = 0;
+        for (int slot = 0; slot < capacity && kept < size && kept < maxSize; slot++) {
+            int offset = slotsOffset + slot * SLOT_BYTES;
+            int from = table.getInt(offset + FROM);
+            int to = table.getInt(offset + TO);
+            int count = table.getInt(offset + COUNT) / divisor;
+            if (from > 0 && from <= referenced.length && to >= 0 && to < referenced.length && count > 0) {
+                froms[kept] = from - 1;
+                tos[kept] = to;
+                counts[kept] = count;
+                referenced[froms[kept]] = true;
+                referenced[tos[kept]] = true;
+                kept++;
+            }
+        }
+
+        ByteBuffer nextTable;
+        ByteBuffer nextDictionary;
+        if (tableFile == null) {
+            nextTable = ByteBuffer.allocate(table.capacity());
+            nextDictionary = ByteBuffer.allocate(dictionary.capacity());
+        } else {
+            try {
+                Files.deleteIfExists(pending(tableFile));
+                Files.deleteIfExists(pending(dictionaryFile));
+                nextTable = map(pending(tableFile), table.capacity());
+                nextDictionary = map(pending(dictionaryFile), dictionary.capacity());
+            } catch (IOException e) {
+                log.error("Cannot rebuild transition store in {}", tableFile.getParent(), e);
+                return -1;
+            }
+        }
+
+        // Re-id the content still referenced, in its old order
+        List<String> previous = new ArrayList<>(contents);
+        int generation = table.getInt(12) + 1;
+        table = nextTable;
+        dictionary = nextDictionary;
+        initialize(generation);
+        int[] remap = new int[referenced.length];
+        for (int id = 0; id < referenced.length; id++) {
+            remap[id] = referenced[id] ? idOf(previous.get(id)) : -1;
+        }
+        for (int i = 0; i < kept; i++) {
+            int from = remap[froms[i]];
+            int to = remap[tos[i]];
+            int slot = find(from, to);
+            if (slot >= 0) {
+                // A torn table may hold a transition twice
+                int count = slotsOffset + slot * SLOT_BYTES + COUNT;
+                table.putInt(count, table.getInt(count) + counts[i]);
+            } else {
+                insert(-slot - 1, from, to, counts[i]);
+            }
+            int total = totalsOffset + from * 4;
+            table.putInt(total, table.getInt(total) + counts[i]);
+        }
+
+        if (tableFile != null) {
+            publish();
+        }
+        return kept;
+    }
+
+    /**
+     * Remove every transition and content
+     */
+    public synchronized void clear() {
+        int generation = table.getInt(12);
+        zero(table, 0, table.capacity());
+        zero(dictionary, 0, HEADER_BYTES);
+        initialize(generation);
+    }
+
+    @Scheduled(
+        initialDelayString = "${profiling.transitions.sync-interval-ms:60000}",
+        fixedDelayString = "${profiling.transitions.sync-interval-ms:60000}"
+    )
+    public synchronized void sync() {
+        if (table instanceof MappedByteBuffer mapped) {
+            mapped.force();
+            ((MappedByteBuffer) dictionary).force();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sync();
+    }
+
+    /**
+     * Slot of a transition, or -(free slot + 1) for its insertion point
+     */
+    private int find(int fromId, int toId) {
+        int mask = capacity - 1;
+        for (int slot = hash(fromId, toId) & mask; ; slot = (slot + 1) & mask) {
+            int offset = slotsOffset + slot * SLOT_BYTES;
+            int from = table.getInt(offset + FROM);
+            if (from == 0) {
+                return -slot - 1;
+            }
+            if (from == fromId + 1 && table.getInt(offset + TO) == toId) {
+                return slot;
+            }
+        }
+    }
+
+    // Fill a free slot and link it at the head of its row
+    private void insert(int slot, int fromId, int toId, int count) {
+        int offset = slotsOffset + slot * SLOT_BYTES;
+        int head = headsOffset + fromId * 4;
+        table.putInt(offset + TO, toId);
+        table.putInt(offset + COUNT, count);
+        table.putInt(offset + NEXT, table.getInt(head));
+        table.putInt(offset + FROM, fromId + 1);
+        table.putInt(head, slot + 1);
+        size++;
+    }
+
+    /**
+     * Dictionary id of a content, assigned on first sight, or -1 if the
+     * dictionary is full or the id too long
+     */
+    private int idOf(String content) {
+        Integer id = ids.get(content);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        int end = dictionary.getInt(8);
+        if (contents.size() >= maxContents || bytes.length > MAX_ID_BYTES
+                || end + 2 + bytes.length > dictionary.capacity()) {
+            return -1;
+        }
+        dictionary.putShort(end, (short) bytes.length);
+        dictionary.put(end + 2, bytes);
+        // Entry first, then the header that makes it visible
+        dictionary.putInt(8, end + 2 + bytes.length);
+        dictionary.putInt(4, contents.size() + 1);
+
+        int newId = contents.size();
+        ids.put(content, newId);
+        contents.add(content);
+        return newId;
+    }
+
+    // Write the headers of zeroed buffers
+    private void initialize(int generation) {
+        table.putInt(4, capacity);
+        table.putInt(8, maxContents);
+        table.putInt(12, generation);
+        table.putInt(0, MAGIC);
+        dictionary.putInt(8, HEADER_BYTES);
+        dictionary.putInt(12, generation);
+        dictionary.putInt(0, MAGIC);
+        ids.clear();
+        contents.clear();
+        size = 0;
+    }
+
+    /**
+     * Decode the dictionary and count live slots of mapped files. The files
+     * reach the disk page by page, so after an OS crash the table may be ahead
+     * of the dictionary or its chains torn; such a store is rebuilt from the
+     * transitions that are still valid, and an unreadable dictionary starts
+     * the store empty.
+     */
+    private void load() {
+        if (!decodeDictionary()) {
+            log.warn("Transition store dictionary in {} is corrupt, starting empty", tableFile.getParent());
+            clear();
+            return;
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            if (table.getInt(slotsOffset + slot * SLOT_BYTES + FROM) != 0) {
+                size++;
+            }
+        }
+        if (!consistent()) {
+            log.warn("Transition store in {} is inconsistent after a crash, rebuilding it", tableFile.getParent());
+            if (rebuild(1) < 0) {
+                clear();
+            }
+        }
+    }
+
+    private boolean decodeDictionary() {
+        int count = dictionary.getInt(4);
+        if (count < 0 || count > maxContents) {
+            return false;
+        }
+        int offset = HEADER_BYTES;
+        byte[] bytes = new byte[MAX_ID_BYTES];
+        for (int id = 0; id < count; id++) {
+            int length = offset + 2 <= dictionary.capacity() ? dictionary.getShort(offset) : -1;
+            if (length < 0 || length > MAX_ID_BYTES || offset + 2 + length > dictionary.capacity()) {
+                ids.clear();
+                contents.clear();
+                return false;
+            }
+            dictionary.get(offset + 2, bytes, 0, length);
+            String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            ids.put(content, id);
+            contents.add(content);
+            offset += 2 + length;
+        }
+        // Drop an entry written past the last counted one
+        dictionary.putInt(8, offset);
+        return true;
+    }
+
+    // Every slot references known content and is linked exactly once from its row's chain
+    private boolean consistent() {
+        int count = contents.size();
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotsOffset + slot * SLOT_BYTES;
+            int from = table.getInt(offset + FROM);
+            if (from != 0 && (from < 0 || from > count
+                    || table.getInt(offset + TO) < 0 || table.getInt(offset + TO) >= count)) {
+                return false;
+            }
+        }
+        int linked = 0;
+        for (int id = 0; id < maxContents; id++) {
+            int next = table.getInt(headsOffset + id * 4);
+            if (id >= count && (next != 0 || table.getInt(totalsOffset + id * 4) != 0)) {
+                return false;
+            }
+            for (; next != 0; linked++) {
+                if (next < 0 || next > capacity || linked >= size) {
+                    return false;
+                }
+                int offset = slotsOffset + (next - 1) * SLOT_BYTES;
+                if (table.getInt(offset + FROM) != id + 1) {
+                    return false;
+                }
+                next = table.getInt(offset + NEXT);
+            }
+        }
+        return linked == size;
+    }
+
+    /**
+     * Move the decayed files over the current ones: the dictionary first, so
+     * that a crash between the renames leaves a pending table of the same
+     * generation as the dictionary for {@link #recover} to finish
+     */
+    private void publish() {
+        ((MappedByteBuffer) table).force();
+        ((MappedByteBuffer) dictionary).force();
+        try {
+            Files.move(pending(dictionaryFile), dictionaryFile,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(pending(tableFile), tableFile,
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Runs on the pending files until restart, which reloads the last published store
+            log.error("Cannot publish decayed transition store in {}", tableFile.getParent(), e);
+        }
+    }
+
+    // Finish a decay interrupted between its renames, and drop any half-built files
+    private void recover() throws IOException {
+        Path pendingTable = pending(tableFile);
+        Path pendingDictionary = pending(dictionaryFile);
+        if (Files.exists(pendingTable) && !Files.exists(pendingDictionary) && Files.exists(dictionaryFile)) {
+            ByteBuffer pendingHeader = header(pendingTable);
+            if (pendingHeader.getInt(0) == MAGIC && pendingHeader.getInt(12) == header(dictionaryFile).getInt(12)) {
+                Files.move(pendingTable, tableFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                log.info("Finished publishing decayed transition store in {}", tableFile.getParent());
+            }
+        }
+        Files.deleteIfExists(pendingTable);
+        Files.deleteIfExists(pendingDictionary);
+    }
+
+    private boolean compatible() throws IOException {
+        if (!Files.exists(tableFile) || !Files.exists(dictionaryFile)) {
+            return false;
+        }
+        ByteBuffer tableHeader = header(tableFile);
+        ByteBuffer dictionaryHeader = header(dictionaryFile);
+        boolean matches = tableHeader.getInt(0) == MAGIC && tableHeader.getInt(4) == capacity
+            && tableHeader.getInt(8) == maxContents
+            && dictionaryHeader.getInt(0) == MAGIC && dictionaryHeader.getInt(12) == tableHeader.getInt(12);
+        if (!matches) {
+            log.warn("Transition store in {} has another layout, starting empty", tableFile.getParent());
+        }
+        return matches;
+    }
+
+    private static ByteBuffer header(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(header, 0);
+        }
+        return header;
+    }
+
+    private static Path pending(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private static MappedByteBuffer map(Path file, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private static void zero(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            buffer.putLong(i, 0L);
+        }
+        for (; i < to; i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    private static int hash(int fromId, int toId) {
+        long h = ((long) fromId << 32) | (toId & 0xFFFFFFFFL);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static int saturatedIncrement(int count) {
+        return count == Integer.MAX_VALUE ? count : count + 1;
+    }
+
+    @FunctionalInterface
+    public interface TransitionVisitor {
+        void visit(String from, String to, int count);
+    }
+}
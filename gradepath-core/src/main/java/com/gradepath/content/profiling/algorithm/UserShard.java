@@ -0,0 +1,22 @@
+package com.gradepath.content.profiling.algorithm;
+
+import org.apache.kafka.common.utils.Utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps a user to the profiling worker that owns their state.
+ *
+ * Uses the same murmur2 hash as Kafka's default partitioner, so for a topic
+ * keyed by userId with as many partitions as there are workers, the owner of a
+ * user is the index of the partition their events are written to.
+ */
+public final class UserShard {
+
+    private UserShard() {
+    }
+
+    public static int of(String userId, int shards) {
+        return Utils.toPositive(Utils.murmur2(userId.getBytes(StandardCharsets.UTF_8))) % shards;
+    }
+}
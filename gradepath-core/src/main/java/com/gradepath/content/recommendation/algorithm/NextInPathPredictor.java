@@ -0,0 +1,91 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Next-in-path candidates from the journeys users take through content.
+ *
+ * Two {@link PathTrie} models are fed from every journey event the profiler
+ * applies: one over content sequences, one over the topics they move through.
+ * Given a user's recent path they return the likely next items and next
+ * topics in a few trie lookups, so retrieval can put them in the candidate
+ * pool without scoring the catalog for them. Learned in memory from the events
+ * this instance profiles, and shared by all users.
+ */
+@Component
+public class NextInPathPredictor {
+
+    private final int maxOrder;
+    private final PathTrie contentPaths;
+    private final PathTrie topicPaths;
+
+    @Autowired
+    public NextInPathPredictor(
+            @Value("${recommendation.path.max-order:3}") int maxOrder,
+            @Value("${recommendation.path.max-nodes:1048576}") int maxNodes,
+            @Value("${recommendation.path.min-support:2}") int minSupport,
+            MeterRegistry meterRegistry) {
+        this.maxOrder = maxOrder;
+        this.contentPaths = new PathTrie(maxOrder, maxNodes, minSupport);
+        this.topicPaths = new PathTrie(maxOrder, maxNodes, minSupport);
+        meterRegistry.gauge("recommendation.path.nodes", this, NextInPathPredictor::nodeCount);
+    }
+
+    /**
+     * A predictor with default bounds
+     */
+    public static NextInPathPredictor inMemory() {
+        return new NextInPathPredictor(3, 1 << 20, 2, new SimpleMeterRegistry());
+    }
+
+    /**
+     * Longest history, in steps, that predictions look at
+     */
+    public int maxOrder() {
+        return maxOrder;
+    }
+
+    /**
+     * Record one step of a journey
+     *
+     * @param recentPath content before this step, oldest first
+     * @param content content of this step
+     */
+    public synchronized void observeContent(List<String> recentPath, String content) {
+        contentPaths.observe(recentPath, content);
+    }
+
+    /**
+     * Record a move to another topic
+     *
+     * @param recentTopics topics before this move, oldest first
+     * @param topic topic moved to
+     */
+    public synchronized void observeTopic(List<String> recentTopics, String topic) {
+        topicPaths.observe(recentTopics, topic);
+    }
+
+    /**
+     * Content most likely to come next after a path, oldest first
+     */
+    public synchronized List<PathTrie.Prediction> nextContent(List<String> recentPath, int limit) {
+        return contentPaths.predict(recentPath, limit);
+    }
+
+    /**
+     * Topics most likely to come next after a sequence of topics, oldest first
+     */
+    public synchronized List<PathTrie.Prediction> nextTopics(List<String> recentTopics, int limit) {
+        return topicPaths.predict(recentTopics, limit);
+    }
+
+    private synchronized int nodeCount() {
+        return contentPaths.nodeCount() + topicPaths.nodeCount();
+    }
+}
@@ -0,0 +1,228 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Variable-order Markov model over symbol sequences, kept as a count trie.
+ *
+ * Every context of up to maxOrder symbols seen in a sequence is a path from the
+ * root, and its children count what followed it. Prediction ranks the children
+ * of the longest recent context followed at least minSupport times, then backs
+ * off to shorter contexts to fill the rest.
+ *
+ * Nodes are parallel int arrays and child edges one open-addressing table keyed
+ * by (parent, symbol), so lookups allocate nothing. The trie stops adding nodes
+ * at maxNodes and from then on only counts n-grams it already has.
+ * Not thread-safe.
+ */
+public final class PathTrie {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    private static final int INITIAL_NODES = 1024;
+
+    private final int maxOrder;
+    private final int maxNodes;
+    private final int minSupport;
+
+    // Interned symbols
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    // Per node: symbol on the edge into it, n-gram count, first child, next sibling
+    private int[] symbol;
+    private int[] count;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int nodes;
+
+    // Child edges: (parent << 32 | symbol) -> node, -1 for an empty slot
+    private long[] edgeKeys;
+    private int[] edgeNodes;
+
+    public PathTrie(int maxOrder, int maxNodes, int minSupport) {
+        if (maxOrder < 1) {
+            throw new IllegalArgumentException("maxOrder must be at least 1: " + maxOrder);
+        }
+        this.maxOrder = maxOrder;
+        this.maxNodes = Math.max(1, maxNodes);
+        this.minSupport = Math.max(1, minSupport);
+        int initial = Math.min(INITIAL_NODES, this.maxNodes);
+        symbol = new int[initial];
+        count = new int[initial];
+        firstChild = new int[initial];
+        nextSibling = new int[initial];
+        edgeKeys = new long[tableSize(initial)];
+        edgeNodes = new int[edgeKeys.length];
+        Arrays.fill(edgeKeys, NONE);
+        firstChild[ROOT] = NONE;
+        nextSibling[ROOT] = NONE;
+        nodes = 1;
+    }
+
+    /**
+     * Count next as following each suffix of history, up to maxOrder symbols
+     *
+     * @param history preceding symbols, oldest first
+     */
+    public void observe(List<String> history, String next) {
+        int nextSymbol = symbolId(next, nodes < maxNodes);
+        if (nextSymbol == NONE) {
+            return;
+        }
+        int orders = Math.min(maxOrder, history.size());
+        for (int order = 0; order <= orders; order++) {
+            int context = context(history, order, nodes < maxNodes);
+            if (context == NONE) {
+                // Longer contexts contain this one, so they are missing too
+                break;
+            }
+            int node = child(context, nextSymbol, true);
+            if (node != NONE && count[node] < Integer.MAX_VALUE) {
+                count[node]++;
+            }
+        }
+    }
+
+    /**
+     * Most likely symbols to follow history, longest supported context first.
+     * Order 0, plain popularity, is never used.
+     *
+     * @param history preceding symbols, oldest first
+     */
+    public List<Prediction> predict(List<String> history, int limit) {
+        List<Prediction> predictions = new ArrayList<>(limit);
+        for (int order = Math.min(maxOrder, history.size()); order >= 1 && predictions.size() < limit; order--) {
+            int context = context(history, order, false);
+            if (context == NONE) {
+                continue;
+            }
+
+            long total = 0;
+            TopKSelector top = new TopKSelector(limit);
+            for (int node = firstChild[context]; node != NONE; node = nextSibling[node]) {
+                total += count[node];
+                top.offer(node, count[node]);
+            }
+            if (total < minSupport) {
+                continue;
+            }
+            for (int node : top.drainDescending()) {
+                if (predictions.size() == limit) {
+                    break;
+                }
+                String predicted = symbols.get(symbol[node]);
+                if (predictions.stream().noneMatch(p -> p.symbol().equals(predicted))) {
+                    predictions.add(new Prediction(predicted, (double) count[node] / total, order));
+                }
+            }
+        }
+        return predictions;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Node of the last order symbols of history, or NONE if never seen and not created
+     */
+    private int context(List<String> history, int order, boolean create) {
+        int node = ROOT;
+        for (int i = history.size() - order; i < history.size() && node != NONE; i++) {
+            int id = symbolId(history.get(i), create);
+            node = id != NONE ? child(node, id, create) : NONE;
+        }
+        return node;
+    }
+
+    private int symbolId(String value, boolean create) {
+        Integer id = symbolIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (!create) {
+            return NONE;
+        }
+        id = symbols.size();
+        symbolIds.put(value, id);
+        symbols.add(value);
+        return id;
+    }
+
+    private int child(int parent, int childSymbol, boolean create) {
+        long key = ((long) parent << 32) | childSymbol;
+        int mask = edgeKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (edgeKeys[slot] != NONE) {
+            if (edgeKeys[slot] == key) {
+                return edgeNodes[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create || nodes >= maxNodes) {
+            return NONE;
+        }
+
+        if (nodes == symbol.length) {
+            grow();
+            return child(parent, childSymbol, true);
+        }
+        int node = nodes++;
+        symbol[node] = childSymbol;
+        count[node] = 0;
+        firstChild[node] = NONE;
+        nextSibling[node] = firstChild[parent];
+        firstChild[parent] = node;
+        edgeKeys[slot] = key;
+        edgeNodes[slot] = node;
+        return node;
+    }
+
+    // Double the node arrays and rehash the edges
+    private void grow() {
+        int capacity = Math.min(symbol.length * 2, maxNodes);
+        symbol = Arrays.copyOf(symbol, capacity);
+        count = Arrays.copyOf(count, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+
+        long[] oldKeys = edgeKeys;
+        int[] oldNodes = edgeNodes;
+        edgeKeys = new long[tableSize(capacity)];
+        edgeNodes = new int[edgeKeys.length];
+        Arrays.fill(edgeKeys, NONE);
+        int mask = edgeKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NONE) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (edgeKeys[slot] != NONE) {
+                    slot = (slot + 1) & mask;
+                }
+                edgeKeys[slot] = oldKeys[i];
+                edgeNodes[slot] = oldNodes[i];
+            }
+        }
+    }
+
+    // Power of two at least twice the node capacity, so edges stay under half load
+    private static int tableSize(int nodeCapacity) {
+        return Integer.highestOneBit(Math.max(1, nodeCapacity) * 2 - 1) << 1;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * A likely next symbol, with its probability after the context it was predicted from
+     */
+    public record Prediction(String symbol, double probability, int order) {}
+}
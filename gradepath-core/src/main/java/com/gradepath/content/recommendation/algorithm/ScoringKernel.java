@@ -0,0 +1,161 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Primitive scoring kernel for recommendation candidates.
+ *
+ * Each feature is a double[] column indexed by candidate position, so scoring a
+ * request allocates nothing per candidate. Columns are reused per thread and are
+ * only valid until the next {@link #acquire} on the same thread. A thread keeps
+ * columns for at most {@link #MAX_RETAINED_CAPACITY} candidates; a larger
+ * request gets a kernel of its own, left to the garbage collector after use.
+ *
+ * Terms are combined in the same order as the original BigDecimal formulas:
+ * affinity   = 0.4 topic + 0.2 type + 0.2 difficulty + 0.1 recency + 0.1 length
+ * hybrid     = 0.7 affinity + 0.3 collaborative
+ * behavioral = clamp(0.4 hybrid + 0.3 interest + 0.2 session + strategy boost, 0, 1)
+ */
+public final class ScoringKernel {
+
+    // Content affinity weights
+    public static final double TOPIC_WEIGHT = 0.4;
+    public static final double TYPE_WEIGHT = 0.2;
+    public static final double DIFFICULTY_WEIGHT = 0.2;
+    public static final double RECENCY_WEIGHT = 0.1;
+    public static final double LENGTH_WEIGHT = 0.1;
+
+    // Hybrid weights
+    public static final double CONTENT_BASED_WEIGHT = 0.7;
+    public static final double COLLABORATIVE_WEIGHT = 0.3;
+
+    // Behavioral weights; the strategy boost is added unweighted
+    public static final double BASE_WEIGHT = 0.4;
+    public static final double INTEREST_WEIGHT = 0.3;
+    public static final double SESSION_WEIGHT = 0.2;
+
+    /** Scale of scores persisted and returned by the API */
+    public static final int SCORE_SCALE = 4;
+
+    private static final int INITIAL_CAPACITY = 256;
+    // Ten columns of 8-byte doubles: 320 KiB per thread at most
+    static final int MAX_RETAINED_CAPACITY = 4096;
+    private static final ThreadLocal<ScoringKernel> LOCAL =
+        ThreadLocal.withInitial(() -> new ScoringKernel(INITIAL_CAPACITY));
+
+    private double[] topic;
+    private double[] type;
+    private double[] difficulty;
+    private double[] recency;
+    private double[] length;
+    private double[] collaborative;
+    private double[] interest;
+    private double[] session;
+    private double[] strategyBoost;
+    private double[] hybrid;
+
+    private ScoringKernel(int capacity) {
+        allocate(capacity);
+    }
+
+    /**
+     * Get this thread's kernel with columns for at least n candidates
+     */
+    public static ScoringKernel acquire(int n) {
+        if (n > MAX_RETAINED_CAPACITY) {
+            return new ScoringKernel(n);
+        }
+        ScoringKernel kernel = LOCAL.get();
+        if (kernel.hybrid.length < n) {
+            kernel.allocate(Math.min(Math.max(n, kernel.hybrid.length * 2), MAX_RETAINED_CAPACITY));
+        }
+        return kernel;
+    }
+
+    /**
+     * Hybrid (content-based + collaborative) score for the first n candidates into out
+     */
+    public void hybridScores(int n, double[] out) {
+        for (int i = 0; i < n; i++) {
+            double affinity = 0.0;
+            affinity += topic[i] * TOPIC_WEIGHT;
+            affinity += type[i] * TYPE_WEIGHT;
+            affinity += difficulty[i] * DIFFICULTY_WEIGHT;
+            affinity += recency[i] * RECENCY_WEIGHT;
+            affinity += length[i] * LENGTH_WEIGHT;
+
+            out[i] = affinity * CONTENT_BASED_WEIGHT + collaborative[i] * COLLABORATIVE_WEIGHT;
+        }
+    }
+
+    /**
+     * Final behavioral score for the first n candidates into out, clamped to [0, 1]
+     */
+    public void behavioralScores(int n, double[] out) {
+        hybridScores(n, hybrid);
+        for (int i = 0; i < n; i++) {
+            double score = hybrid[i] * BASE_WEIGHT
+                + interest[i] * INTEREST_WEIGHT
+                + session[i] * SESSION_WEIGHT
+                + strategyBoost[i];
+            out[i] = Math.min(1.0, Math.max(0.0, score));
+        }
+    }
+
+    /**
+     * Convert a kernel score to the API representation
+     */
+    public static BigDecimal toDecimal(double score) {
+        return BigDecimal.valueOf(score).setScale(SCORE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public double[] topic() {
+        return topic;
+    }
+
+    public double[] type() {
+        return type;
+    }
+
+    public double[] difficulty() {
+        return difficulty;
+    }
+
+    public double[] recency() {
+        return recency;
+    }
+
+    public double[] length() {
+        return length;
+    }
+
+    public double[] collaborative() {
+        return collaborative;
+    }
+
+    public double[] interest() {
+        return interest;
+    }
+
+    public double[] session() {
+        return session;
+    }
+
+    public double[] strategyBoost() {
+        return strategyBoost;
+    }
+
+    private void allocate(int capacity) {
+        topic = new double[capacity];
+        type = new double[capacity];
+        difficulty = new double[capacity];
+        recency = new double[capacity];
+        length = new double[capacity];
+        collaborative = new double[capacity];
+        interest = new double[capacity];
+        session = new double[capacity];
+        strategyBoost = new double[capacity];
+        hybrid = new double[capacity];
+    }
+}
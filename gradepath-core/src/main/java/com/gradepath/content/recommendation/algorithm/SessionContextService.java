@@ -23,16 +23,22 @@ public class SessionContextService {
      * Returns 0.0 to 1.0 based on how well content fits current session
      */
     public double calculateSessionScore(Content content, Optional<BehavioralProfile> profile) {
+        return prepare(profile).score(content.getEstimatedDurationMinutes());
+    }
+
+    /**
+     * Resolve the content-independent parts of the session score once per request
+     */
+    public SessionContext prepare(Optional<BehavioralProfile> profile) {
         LocalDateTime now = LocalDateTime.now();
         int currentHour = now.getHour();
         DayOfWeek currentDay = now.getDayOfWeek();
 
-        double timeScore = calculateTimeScore(currentHour, currentDay, profile);
-        double energyScore = calculateEnergyScore(currentHour, content.getEstimatedDurationMinutes());
-        double patternScore = calculatePatternScore(currentHour, currentDay, profile);
-
-        // Weighted combination
-        return (timeScore * 0.4) + (energyScore * 0.3) + (patternScore * 0.3);
+        return new SessionContext(
+            calculateTimeScore(currentHour, currentDay, profile),
+            calculatePatternScore(currentHour, currentDay, profile),
+            currentHour
+        );
     }
 
     /**
@@ -68,7 +74,7 @@ public class SessionContextService {
      * Energy scoring - shorter content when energy is low (late night)
      * Longer content when energy is high (morning/afternoon)
      */
-    private double calculateEnergyScore(int hour, Integer contentDurationMinutes) {
+    private static double calculateEnergyScore(int hour, Integer contentDurationMinutes) {
         if (contentDurationMinutes == null) return 0.8;
 
         // Energy level based on time of day
@@ -86,7 +92,7 @@ public class SessionContextService {
     /**
      * Get user energy level (0.0 to 1.0) based on time of day
      */
-    private double getEnergyLevel(int hour) {
+    private static double getEnergyLevel(int hour) {
         if (hour >= 6 && hour < 12) return 0.9; // Morning - high energy
         if (hour >= 12 && hour < 18) return 0.8; // Afternoon - good energy
         if (hour >= 18 && hour < 22) return 0.6; // Evening - moderate energy
@@ -120,4 +126,17 @@ public class SessionContextService {
         if (hour >= 18 && hour < 22) return "Perfect for evening learning";
         return "Quick content for late night";
     }
+
+    /**
+     * Session score inputs for the current request; only the energy term depends on content
+     */
+    public record SessionContext(double timeScore, double patternScore, int hour) {
+
+        public double score(Integer contentDurationMinutes) {
+            double energyScore = calculateEnergyScore(hour, contentDurationMinutes);
+
+            // Weighted combination
+            return (timeScore * 0.4) + (energyScore * 0.3) + (patternScore * 0.3);
+        }
+    }
 }
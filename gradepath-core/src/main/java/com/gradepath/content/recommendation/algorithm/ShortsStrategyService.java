@@ -1,6 +1,8 @@
 package com.gradepath.content.recommendation.algorithm;
 
 import com.gradepath.content.content.model.Content;
+import com.gradepath.content.recommendation.catalog.AttributeIndex;
+import com.gradepath.content.recommendation.catalog.CatalogFilter;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -16,9 +18,6 @@ import java.util.Optional;
 @Slf4j
 public class ShortsStrategyService {
 
-    private static final int SHORTS_THRESHOLD_SECONDS = 90; // 1.5 minutes
-    private static final int SHORTS_MIN_SECONDS = 20;
-
     /**
      * Determine content type strategy based on user behavior
      */
@@ -71,15 +70,7 @@ public class ShortsStrategyService {
      * Check if content is a short
      */
     public boolean isShort(Content content) {
-        Integer durationMinutes = content.getEstimatedDurationMinutes();
-        if (durationMinutes != null) {
-            int durationSeconds = durationMinutes * 60;
-            return durationSeconds >= SHORTS_MIN_SECONDS && durationSeconds <= SHORTS_THRESHOLD_SECONDS;
-        }
-
-        // QUIZ and EXERCISE are typically short content types
-        return content.getType() == Content.ContentType.QUIZ ||
-               content.getType() == Content.ContentType.EXERCISE;
+        return AttributeIndex.isShort(content);
     }
 
     /**
@@ -91,6 +82,16 @@ public class ShortsStrategyService {
             .toList();
     }
 
+    /**
+     * Narrow a catalog filter to content allowed by the strategy
+     */
+    public CatalogFilter filterByStrategy(CatalogFilter filter, ContentStrategy strategy) {
+        return switch (strategy) {
+            case SHORTS_ONLY, DISCOVERY_SHORTS -> filter.shortsOnly();
+            case DEEP_DIVE, TOPIC_FOCUSED, BALANCED -> filter; // All content types allowed
+        };
+    }
+
     /**
      * Check if content matches the strategy
      */
@@ -0,0 +1,116 @@
+package com.gradepath.content.recommendation.algorithm;
+
+/**
+ * Bounded top-K selection over candidate positions.
+ *
+ * Keeps the k best (priority, position) pairs seen so far in a primitive
+ * min-heap, so selecting from n candidates costs O(n log k) time and O(k)
+ * memory instead of sorting all n. Ties on priority go to the lower position,
+ * which matches a stable descending sort of the original list.
+ */
+public final class TopKSelector {
+
+    private final int[] positions;
+    private final double[] priorities;
+    private int size;
+
+    public TopKSelector(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non-negative: " + k);
+        }
+        this.positions = new int[k];
+        this.priorities = new double[k];
+    }
+
+    /**
+     * Offer a candidate; it is kept only if it ranks among the best k so far
+     */
+    public void offer(int position, double priority) {
+        if (size < positions.length) {
+            positions[size] = position;
+            priorities[size] = priority;
+            siftUp(size++);
+        } else if (size > 0 && worse(positions[0], priorities[0], position, priority)) {
+            positions[0] = position;
+            priorities[0] = priority;
+            siftDown(0);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == positions.length;
+    }
+
+    /**
+     * Lowest priority still kept; only meaningful once {@link #isFull()}
+     */
+    public double threshold() {
+        return size > 0 ? priorities[0] : Double.NEGATIVE_INFINITY;
+    }
+
+    /**
+     * Remove all kept candidates, best first
+     */
+    public int[] drainDescending() {
+        int[] result = new int[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = positions[0];
+            size--;
+            positions[0] = positions[size];
+            priorities[0] = priorities[size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    /**
+     * Whether (p1, a) ranks below (p2, b)
+     */
+    private static boolean worse(int p1, double a, int p2, double b) {
+        int cmp = Double.compare(a, b);
+        return cmp < 0 || (cmp == 0 && p1 > p2);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!worse(positions[i], priorities[i], positions[parent], priorities[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size) {
+                return;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && worse(positions[right], priorities[right], positions[left], priorities[left])) {
+                worst = right;
+            }
+            if (!worse(positions[worst], priorities[worst], positions[i], priorities[i])) {
+                return;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int p = positions[i];
+        positions[i] = positions[j];
+        positions[j] = p;
+        double d = priorities[i];
+        priorities[i] = priorities[j];
+        priorities[j] = d;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import com.gradepath.content.recommendation.catalog.TopicIndex;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Top-N candidate retrieval over a {@link TopicIndex} using WAND.
+ *
+ * The query is a set of weighted topics. An item scores the sum of the weights of
+ * the query topics it carries, divided by its own topic count, mirroring how topic
+ * affinity averages over an item's topics. Each posting list gets an upper bound
+ * (weight / fewest topics of any item in the list); items whose summed bounds
+ * cannot beat the current N-th best score are skipped without being scored.
+ */
+public final class WandTopicRetriever {
+
+    private WandTopicRetriever() {
+    }
+
+    /**
+     * Best n ordinals for the query, best first
+     *
+     * @param topicIds interned query topics; ids outside the index are ignored
+     * @param weights  positive weight per query topic
+     * @param exclude  ordinals to leave out, e.g. content the user has seen
+     */
+    public static int[] topN(TopicIndex index, int[] topicIds, double[] weights, int n, IntPredicate exclude) {
+        if (n == 0) {
+            return new int[0];
+        }
+        Cursor[] cursors = new Cursor[topicIds.length];
+        int active = 0;
+        for (int i = 0; i < topicIds.length; i++) {
+            int topic = topicIds[i];
+            if (topic < 0 || topic >= index.topicCount() || weights[i] <= 0.0) {
+                continue;
+            }
+            int[] postings = index.postings(topic);
+            if (postings.length > 0) {
+                cursors[active++] = new Cursor(postings, weights[i], weights[i] / index.minTopicCount(topic));
+            }
+        }
+
+        TopKSelector top = new TopKSelector(n);
+
+        while (active > 0) {
+            sortByDoc(cursors, active);
+
+            // Pivot: first cursor at which the accumulated bounds could beat the threshold
+            double threshold = top.isFull() ? top.threshold() : Double.NEGATIVE_INFINITY;
+            double bound = 0.0;
+            int pivot = -1;
+            for (int i = 0; i < active; i++) {
+                bound += cursors[i].upperBound;
+                if (bound > threshold) {
+                    pivot = i;
+                    break;
+                }
+            }
+            if (pivot < 0) {
+                break;
+            }
+
+            int pivotDoc = cursors[pivot].doc();
+            if (cursors[0].doc() == pivotDoc) {
+                // Every cursor up to the pivot sits on the same item: score it fully
+                if (!exclude.test(pivotDoc)) {
+                    double sum = 0.0;
+                    for (int i = 0; i < active && cursors[i].doc() == pivotDoc; i++) {
+                        sum += cursors[i].weight;
+                    }
+                    top.offer(pivotDoc, sum / index.topicsOf(pivotDoc).length);
+                }
+                for (int i = 0; i < active && cursors[i].doc() == pivotDoc; i++) {
+                    cursors[i].advance();
+                }
+            } else {
+                // Items before the pivot cannot qualify; skip the lagging cursors forward
+                for (int i = 0; i < pivot; i++) {
+                    cursors[i].skipTo(pivotDoc);
+                }
+            }
+
+            active = compact(cursors, active);
+        }
+
+        return top.drainDescending();
+    }
+
+    private static void sortByDoc(Cursor[] cursors, int active) {
+        // Query sizes are small; insertion sort on nearly sorted cursors is cheapest
+        for (int i = 1; i < active; i++) {
+            Cursor cursor = cursors[i];
+            int j = i - 1;
+            while (j >= 0 && cursors[j].doc() > cursor.doc()) {
+                cursors[j + 1] = cursors[j];
+                j--;
+            }
+            cursors[j + 1] = cursor;
+        }
+    }
+
+    private static int compact(Cursor[] cursors, int active) {
+        int kept = 0;
+        for (int i = 0; i < active; i++) {
+            if (!cursors[i].exhausted()) {
+                cursors[kept++] = cursors[i];
+            }
+        }
+        return kept;
+    }
+
+    private static final class Cursor {
+        private final int[] postings;
+        private final double weight;
+        private final double upperBound;
+        private int position;
+
+        private Cursor(int[] postings, double weight, double upperBound) {
+            this.postings = postings;
+            this.weight = weight;
+            this.upperBound = upperBound;
+        }
+
+        int doc() {
+            return postings[position];
+        }
+
+        boolean exhausted() {
+            return position >= postings.length;
+        }
+
+        void advance() {
+            position++;
+        }
+
+        /**
+         * Move to the first posting at or after target (galloping search)
+         */
+        void skipTo(int target) {
+            int step = 1;
+            int low = position;
+            int high = position;
+            while (high < postings.length && postings[high] < target) {
+                low = high + 1;
+                high = position + step;
+                step <<= 1;
+            }
+            high = Math.min(high, postings.length);
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (postings[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            position = low;
+        }
+    }
+}
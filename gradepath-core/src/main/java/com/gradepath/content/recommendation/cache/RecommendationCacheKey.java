@@ -0,0 +1,10 @@
+package com.gradepath.content.recommendation.cache;
+
+import java.util.UUID;
+
+/**
+ * Cache key for a recommendation list: the user plus the request shape.
+ * Every shape of one user is invalidated together.
+ */
+public record RecommendationCacheKey(UUID userId, int limit) {
+}
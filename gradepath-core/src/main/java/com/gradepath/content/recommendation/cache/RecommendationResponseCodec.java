@@ -0,0 +1,129 @@
+package com.gradepath.content.recommendation.cache;
+
+import com.gradepath.content.recommendation.service.RecommendationService.RecommendationResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of a recommendation list for the Redis tier.
+ *
+ * Layout: version byte, item count, then per item the item and slate ids as two
+ * longs each, the score as unscaled long + scale, and the strings/ints with a presence flag.
+ */
+public final class RecommendationResponseCodec {
+
+    private static final byte VERSION = 3;
+
+    private RecommendationResponseCodec() {
+    }
+
+    public static byte[] encode(List<RecommendationResponse> responses) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + responses.size() * 160);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeInt(responses.size());
+            for (RecommendationResponse response : responses) {
+                writeUuid(out, response.id());
+                writeUuid(out, response.slateId());
+                writeInteger(out, response.position());
+                writeString(out, response.contentId());
+                writeString(out, response.title());
+                writeString(out, response.contentType());
+                writeInteger(out, response.difficultyLevel());
+                writeDecimal(out, response.score());
+                writeString(out, response.reason());
+                writeString(out, response.algorithm());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode recommendations", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a list written by {@link #encode}; returns null for an unknown version
+     */
+    public static List<RecommendationResponse> decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            if (in.readByte() != VERSION) {
+                return null;
+            }
+            int count = in.readInt();
+            List<RecommendationResponse> responses = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                responses.add(new RecommendationResponse(
+                    readUuid(in),
+                    readUuid(in),
+                    readInteger(in),
+                    readString(in),
+                    readString(in),
+                    readString(in),
+                    readInteger(in),
+                    readDecimal(in),
+                    readString(in),
+                    readString(in)
+                ));
+            }
+            return List.copyOf(responses);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt cached recommendations", e);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.getMostSignificantBits());
+            out.writeLong(value.getLeastSignificantBits());
+        }
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        // Scores are scale-4 values in [0, 1], so the unscaled value always fits a long
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.unscaledValue().longValueExact());
+            out.writeByte(value.scale());
+        }
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        return in.readBoolean() ? new BigDecimal(BigInteger.valueOf(in.readLong()), in.readByte()) : null;
+    }
+}
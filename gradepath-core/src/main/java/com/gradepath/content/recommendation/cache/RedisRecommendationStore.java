@@ -0,0 +1,72 @@
+package com.gradepath.content.recommendation.cache;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Redis tier of the recommendation cache.
+ *
+ * One hash per user (recs:{userId}) with a field per request shape, so a
+ * single DEL drops every shape of a user. Values are {@link RecommendationResponseCodec}
+ * bytes. Invalidations are also published so other instances can drop their
+ * near-cache entries.
+ */
+public class RedisRecommendationStore {
+
+    public static final String INVALIDATION_CHANNEL = "recommendations:invalidate";
+
+    private static final String KEY_PREFIX = "recs:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public RedisRecommendationStore(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    public byte[] get(RecommendationCacheKey key) {
+        return redisTemplate.execute((RedisCallback<byte[]>) connection ->
+            connection.hashCommands().hGet(userKey(key.userId()), field(key)));
+    }
+
+    public void put(RecommendationCacheKey key, byte[] value) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            byte[] userKey = userKey(key.userId());
+            connection.hashCommands().hSet(userKey, field(key), value);
+            // TTL covers the whole hash; shapes written later extend it
+            connection.keyCommands().pExpire(userKey, ttl.toMillis());
+            return null;
+        });
+    }
+
+    /**
+     * Drop every cached shape for a user and tell the other instances
+     */
+    public void evict(UUID userId) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.keyCommands().del(userKey(userId));
+            publish(connection, userId);
+            return null;
+        });
+    }
+
+    private static void publish(RedisConnection connection, UUID userId) {
+        connection.publish(
+            INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+            userId.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] userKey(UUID userId) {
+        return (KEY_PREFIX + userId).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] field(RecommendationCacheKey key) {
+        return Integer.toString(key.limit()).getBytes(StandardCharsets.UTF_8);
+    }
+}
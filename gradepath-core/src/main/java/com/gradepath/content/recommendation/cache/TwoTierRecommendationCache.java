@@ -0,0 +1,154 @@
+package com.gradepath.content.recommendation.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gradepath.content.recommendation.service.RecommendationService.RecommendationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * "recommendations" cache: a bounded local Caffeine near-cache in front of Redis.
+ *
+ * Reads hit the local tier first, then Redis, populating the local tier on the
+ * way back. Locally, entries are grouped per user (limit -> list) so evicting a
+ * user drops every request shape in O(1). Evictions delete the Redis hash and are
+ * broadcast over pub/sub; {@link #invalidateLocal(UUID)} applies them on every
+ * instance. Redis failures degrade to a miss rather than failing the request.
+ */
+@Slf4j
+public class TwoTierRecommendationCache extends AbstractValueAdaptingCache {
+
+    public static final String NAME = "recommendations";
+
+    private final Cache<UUID, Map<Integer, List<RecommendationResponse>>> local;
+    private final RedisRecommendationStore remote;
+
+    public TwoTierRecommendationCache(RedisRecommendationStore remote, long maxLocalUsers, Duration localTtl) {
+        super(false);
+        this.remote = remote;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(maxLocalUsers)
+            .expireAfterWrite(localTtl)
+            .build();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        RecommendationCacheKey cacheKey = toKey(key);
+
+        Map<Integer, List<RecommendationResponse>> shapes = local.getIfPresent(cacheKey.userId());
+        if (shapes != null && shapes.containsKey(cacheKey.limit())) {
+            return shapes.get(cacheKey.limit());
+        }
+
+        byte[] encoded;
+        try {
+            encoded = remote.get(cacheKey);
+        } catch (RuntimeException e) {
+            log.warn("Redis lookup failed for {}, treating as miss", cacheKey, e);
+            return null;
+        }
+        if (encoded == null) {
+            return null;
+        }
+
+        List<RecommendationResponse> value = RecommendationResponseCodec.decode(encoded);
+        if (value != null) {
+            putLocal(cacheKey, value);
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        RecommendationCacheKey cacheKey = toKey(key);
+        List<RecommendationResponse> responses = List.copyOf((List<RecommendationResponse>) value);
+
+        putLocal(cacheKey, responses);
+        try {
+            remote.put(cacheKey, RecommendationResponseCodec.encode(responses));
+        } catch (RuntimeException e) {
+            log.warn("Redis write failed for {}, keeping local entry only", cacheKey, e);
+        }
+    }
+
+    /**
+     * Evict every request shape of the user; accepts a user id or a full cache key
+     */
+    @Override
+    public void evict(Object key) {
+        UUID userId = key instanceof UUID id ? id : toKey(key).userId();
+        invalidateLocal(userId);
+        try {
+            remote.evict(userId);
+        } catch (RuntimeException e) {
+            log.warn("Redis eviction failed for user {}; entries expire with the TTL", userId, e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        // Only the local tier: a global Redis clear would need a key scan
+        local.invalidateAll();
+    }
+
+    /**
+     * Drop a user's near-cache entries on this instance
+     */
+    public void invalidateLocal(UUID userId) {
+        local.invalidate(userId);
+    }
+
+    private void putLocal(RecommendationCacheKey key, List<RecommendationResponse> value) {
+        local.asMap().compute(key.userId(), (userId, shapes) -> {
+            Map<Integer, List<RecommendationResponse>> next = shapes != null ? new HashMap<>(shapes) : new HashMap<>();
+            next.put(key.limit(), value);
+            return Map.copyOf(next);
+        });
+    }
+
+    private static RecommendationCacheKey toKey(Object key) {
+        if (key instanceof RecommendationCacheKey cacheKey) {
+            return cacheKey;
+        }
+        throw new IllegalArgumentException("Unsupported recommendations cache key: " + key);
+    }
+}
@@ -0,0 +1,162 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Roaring bitmaps over content ordinals for the attributes strategies filter on:
+ * content type, difficulty level, duration bucket and short-form flag.
+ *
+ * Built once per snapshot version, so a strategy filter is a handful of bitmap
+ * intersections instead of a predicate over every candidate. Bitmaps handed out
+ * by this class are shared and must not be modified; {@link CatalogFilter}
+ * always works on copies.
+ */
+public final class AttributeIndex {
+
+    public static final int MIN_DIFFICULTY = 1;
+    public static final int MAX_DIFFICULTY = 5;
+
+    private static final int SHORTS_THRESHOLD_SECONDS = 90; // 1.5 minutes
+    private static final int SHORTS_MIN_SECONDS = 20;
+
+    private final RoaringBitmap published;
+    private final RoaringBitmap[] byType;
+    private final RoaringBitmap[] byDifficulty;
+    private final RoaringBitmap[] byDuration;
+    private final RoaringBitmap shorts;
+
+    private AttributeIndex(
+            RoaringBitmap published,
+            RoaringBitmap[] byType,
+            RoaringBitmap[] byDifficulty,
+            RoaringBitmap[] byDuration,
+            RoaringBitmap shorts) {
+        this.published = published;
+        this.byType = byType;
+        this.byDifficulty = byDifficulty;
+        this.byDuration = byDuration;
+        this.shorts = shorts;
+    }
+
+    /**
+     * Build the bitmaps for every published item in a snapshot
+     */
+    static AttributeIndex build(CatalogSnapshot snapshot) {
+        RoaringBitmap published = new RoaringBitmap();
+        RoaringBitmap[] byType = emptyBitmaps(Content.ContentType.values().length);
+        RoaringBitmap[] byDifficulty = emptyBitmaps(MAX_DIFFICULTY + 1);
+        RoaringBitmap[] byDuration = emptyBitmaps(DurationBucket.values().length);
+        RoaringBitmap shorts = new RoaringBitmap();
+
+        // Ordinals ascend, so every add is an append
+        for (int ordinal = 0; ordinal < snapshot.capacity(); ordinal++) {
+            Content content = snapshot.get(ordinal);
+            if (content == null) {
+                continue;
+            }
+
+            published.add(ordinal);
+            if (content.getType() != null) {
+                byType[content.getType().ordinal()].add(ordinal);
+            }
+            Integer difficulty = content.getDifficultyLevel();
+            if (difficulty != null && difficulty >= MIN_DIFFICULTY && difficulty <= MAX_DIFFICULTY) {
+                byDifficulty[difficulty].add(ordinal);
+            }
+            byDuration[DurationBucket.of(content.getEstimatedDurationMinutes()).ordinal()].add(ordinal);
+            if (isShort(content)) {
+                shorts.add(ordinal);
+            }
+        }
+
+        for (RoaringBitmap[] group : new RoaringBitmap[][] {byType, byDifficulty, byDuration}) {
+            for (RoaringBitmap bitmap : group) {
+                bitmap.runOptimize();
+            }
+        }
+        published.runOptimize();
+        shorts.runOptimize();
+
+        return new AttributeIndex(published, byType, byDifficulty, byDuration, shorts);
+    }
+
+    /**
+     * Check if content is a short: 20-90 seconds long, or a QUIZ/EXERCISE when the
+     * duration is unknown since those are typically short content types
+     */
+    public static boolean isShort(Content content) {
+        Integer durationMinutes = content.getEstimatedDurationMinutes();
+        if (durationMinutes != null) {
+            int durationSeconds = durationMinutes * 60;
+            return durationSeconds >= SHORTS_MIN_SECONDS && durationSeconds <= SHORTS_THRESHOLD_SECONDS;
+        }
+
+        return content.getType() == Content.ContentType.QUIZ ||
+               content.getType() == Content.ContentType.EXERCISE;
+    }
+
+    /**
+     * Start a filter over all published content
+     */
+    public CatalogFilter filter() {
+        return new CatalogFilter(this);
+    }
+
+    public RoaringBitmap published() {
+        return published;
+    }
+
+    public RoaringBitmap type(Content.ContentType type) {
+        return byType[type.ordinal()];
+    }
+
+    /**
+     * Items at a difficulty level; empty outside 1-5
+     */
+    public RoaringBitmap difficulty(int level) {
+        return level >= MIN_DIFFICULTY && level <= MAX_DIFFICULTY
+            ? byDifficulty[level]
+            : byDifficulty[0];
+    }
+
+    public RoaringBitmap duration(DurationBucket bucket) {
+        return byDuration[bucket.ordinal()];
+    }
+
+    public RoaringBitmap shorts() {
+        return shorts;
+    }
+
+    private static RoaringBitmap[] emptyBitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    /**
+     * Coarse estimated-duration ranges
+     */
+    public enum DurationBucket {
+        UNKNOWN,
+        UNDER_5_MIN,
+        UNDER_15_MIN,
+        UNDER_30_MIN,
+        LONG;
+
+        public static DurationBucket of(Integer minutes) {
+            if (minutes == null) {
+                return UNKNOWN;
+            } else if (minutes < 5) {
+                return UNDER_5_MIN;
+            } else if (minutes < 15) {
+                return UNDER_15_MIN;
+            } else if (minutes < 30) {
+                return UNDER_30_MIN;
+            }
+            return LONG;
+        }
+    }
+}
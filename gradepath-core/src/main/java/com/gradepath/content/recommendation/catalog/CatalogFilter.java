@@ -0,0 +1,111 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Composable filter over an {@link AttributeIndex}.
+ *
+ * Each condition intersects the running result with the matching attribute
+ * bitmaps; conditions on the same attribute are ORed inside one call. Starts from
+ * all published content and never modifies the index's own bitmaps.
+ *
+ * <pre>
+ * RoaringBitmap eligible = catalog.attributes().filter()
+ *     .shortsOnly()
+ *     .difficultyBetween(3, 5)
+ *     .excluding(seen)
+ *     .toBitmap();
+ * </pre>
+ */
+public final class CatalogFilter {
+
+    private final AttributeIndex index;
+    private RoaringBitmap result;
+
+    CatalogFilter(AttributeIndex index) {
+        this.index = index;
+        this.result = index.published().clone();
+    }
+
+    /**
+     * Keep content of any of the given types
+     */
+    public CatalogFilter types(Set<Content.ContentType> types) {
+        RoaringBitmap union = new RoaringBitmap();
+        for (Content.ContentType type : types) {
+            union.or(index.type(type));
+        }
+        result.and(union);
+        return this;
+    }
+
+    public CatalogFilter types(Content.ContentType first, Content.ContentType... rest) {
+        return types(EnumSet.of(first, rest));
+    }
+
+    /**
+     * Keep content with a difficulty level in [min, max]; levels are clamped to 1-5
+     */
+    public CatalogFilter difficultyBetween(int min, int max) {
+        RoaringBitmap union = new RoaringBitmap();
+        for (int level = Math.max(min, AttributeIndex.MIN_DIFFICULTY);
+                level <= Math.min(max, AttributeIndex.MAX_DIFFICULTY); level++) {
+            union.or(index.difficulty(level));
+        }
+        result.and(union);
+        return this;
+    }
+
+    /**
+     * Keep content in any of the given duration buckets
+     */
+    public CatalogFilter durations(Set<AttributeIndex.DurationBucket> buckets) {
+        RoaringBitmap union = new RoaringBitmap();
+        for (AttributeIndex.DurationBucket bucket : buckets) {
+            union.or(index.duration(bucket));
+        }
+        result.and(union);
+        return this;
+    }
+
+    public CatalogFilter shortsOnly() {
+        result.and(index.shorts());
+        return this;
+    }
+
+    public CatalogFilter longFormOnly() {
+        result.andNot(index.shorts());
+        return this;
+    }
+
+    /**
+     * Keep only ordinals also in the given set, e.g. a user's unseen content
+     */
+    public CatalogFilter within(RoaringBitmap ordinals) {
+        result.and(ordinals);
+        return this;
+    }
+
+    /**
+     * Drop ordinals in the given set, e.g. a user's seen content
+     */
+    public CatalogFilter excluding(RoaringBitmap ordinals) {
+        result.andNot(ordinals);
+        return this;
+    }
+
+    /**
+     * Matching ordinals; the caller owns the returned bitmap
+     */
+    public RoaringBitmap toBitmap() {
+        return result;
+    }
+
+    public int count() {
+        return result.getCardinality();
+    }
+}
@@ -0,0 +1,225 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the published content catalog.
+ *
+ * Content is addressed by its dense database ordinal, so per-request structures
+ * (scores, bitmaps, indexes) can be plain arrays instead of String-keyed maps.
+ * A new version is produced copy-on-write by {@link #apply}; readers holding an
+ * older version keep a consistent view until they drop it.
+ *
+ * The Content instances are shared between versions and requests and must be
+ * treated as read-only.
+ */
+public final class CatalogSnapshot {
+
+    private static final CatalogSnapshot EMPTY =
+        new CatalogSnapshot(0, null, new Content[0], Map.of(), 0);
+
+    private final long version;
+    private final LocalDateTime watermark;
+    private final Content[] byOrdinal;
+    private final Map<String, Integer> ordinalsById;
+    private final int size;
+
+    // Derived from the immutable fields; built at most a few times under a race, never torn
+    private volatile TopicIndex topicIndex;
+    private volatile AttributeIndex attributeIndex;
+
+    private CatalogSnapshot(
+            long version,
+            LocalDateTime watermark,
+            Content[] byOrdinal,
+            Map<String, Integer> ordinalsById,
+            int size) {
+        this.version = version;
+        this.watermark = watermark;
+        this.byOrdinal = byOrdinal;
+        this.ordinalsById = ordinalsById;
+        this.size = size;
+    }
+
+    public static CatalogSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Build a snapshot from a full load of published content
+     */
+    public static CatalogSnapshot of(long version, Collection<Content> published, LocalDateTime watermark) {
+        return EMPTY.apply(version, published, List.of(), watermark);
+    }
+
+    /**
+     * Produce the next version by upserting changed content and dropping removed ids.
+     * Changed content that is no longer published is removed as well.
+     */
+    public CatalogSnapshot apply(
+            long newVersion,
+            Collection<Content> changed,
+            Collection<String> removedIds,
+            LocalDateTime newWatermark) {
+
+        int capacity = byOrdinal.length;
+        for (Content content : changed) {
+            if (content.getOrdinal() != null) {
+                capacity = Math.max(capacity, content.getOrdinal() + 1);
+            }
+        }
+
+        Content[] next = new Content[capacity];
+        System.arraycopy(byOrdinal, 0, next, 0, byOrdinal.length);
+        Map<String, Integer> ids = new HashMap<>(ordinalsById);
+        int count = size;
+
+        for (String id : removedIds) {
+            Integer ordinal = ids.remove(id);
+            if (ordinal != null) {
+                next[ordinal] = null;
+                count--;
+            }
+        }
+
+        for (Content content : changed) {
+            Integer previous = ids.remove(content.getId());
+            if (previous != null) {
+                next[previous] = null;
+                count--;
+            }
+
+            if (content.getOrdinal() == null
+                    || content.getStatus() != Content.ContentStatus.PUBLISHED) {
+                continue;
+            }
+
+            next[content.getOrdinal()] = content;
+            ids.put(content.getId(), content.getOrdinal());
+            count++;
+        }
+
+        return new CatalogSnapshot(
+            newVersion,
+            newWatermark != null ? newWatermark : watermark,
+            next,
+            Collections.unmodifiableMap(ids),
+            count);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Highest updated_at seen so far; the next incremental refresh starts here
+     */
+    public LocalDateTime watermark() {
+        return watermark;
+    }
+
+    /**
+     * Number of published items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Exclusive upper bound of ordinals in this snapshot
+     */
+    public int capacity() {
+        return byOrdinal.length;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Content at the given ordinal, or null if it is not published
+     */
+    public Content get(int ordinal) {
+        return ordinal >= 0 && ordinal < byOrdinal.length ? byOrdinal[ordinal] : null;
+    }
+
+    /**
+     * Ordinal of a published content id, or -1 if unknown
+     */
+    public int ordinalOf(String contentId) {
+        Integer ordinal = contentId != null ? ordinalsById.get(contentId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public Content findById(String contentId) {
+        return get(ordinalOf(contentId));
+    }
+
+    public boolean contains(String contentId) {
+        return ordinalOf(contentId) >= 0;
+    }
+
+    /**
+     * Inverted topic index over this version, built on first use
+     */
+    public TopicIndex topics() {
+        TopicIndex index = topicIndex;
+        if (index == null) {
+            index = TopicIndex.build(this);
+            topicIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Attribute bitmaps over this version, built on first use
+     */
+    public AttributeIndex attributes() {
+        AttributeIndex index = attributeIndex;
+        if (index == null) {
+            index = AttributeIndex.build(this);
+            attributeIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Published content at the given ordinals, in ordinal order
+     */
+    public List<Content> resolve(RoaringBitmap ordinals) {
+        List<Content> result = new ArrayList<>(ordinals.getCardinality());
+        ordinals.forEach((int ordinal) -> {
+            Content content = get(ordinal);
+            if (content != null) {
+                result.add(content);
+            }
+        });
+        return result;
+    }
+
+    public Collection<String> ids() {
+        return ordinalsById.keySet();
+    }
+
+    /**
+     * All published content in ordinal order
+     */
+    public List<Content> published() {
+        List<Content> result = new ArrayList<>(size);
+        for (Content content : byOrdinal) {
+            if (content != null) {
+                result.add(content);
+            }
+        }
+        return result;
+    }
+}
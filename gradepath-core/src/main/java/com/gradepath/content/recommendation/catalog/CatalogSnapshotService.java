@@ -0,0 +1,156 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import com.gradepath.content.content.repository.ContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Holds the current published-catalog snapshot for candidate generation.
+ *
+ * Readers call {@link #current()} and get an immutable snapshot without locking.
+ * A scheduled refresh loads only rows whose updated_at moved past the watermark
+ * and publishes a new version with a single volatile write. A slower reconcile
+ * pass compares published ids to catch hard deletes, which never bump updated_at.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+
+    // Re-read a small window before the watermark so rows committed late are not missed
+    private static final Duration WATERMARK_OVERLAP = Duration.ofSeconds(5);
+    private static final LocalDateTime NO_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ContentRepository contentRepository;
+    private final Object refreshLock = new Object();
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty();
+    private volatile boolean loaded = false;
+
+    public CatalogSnapshotService(ContentRepository contentRepository) {
+        this.contentRepository = contentRepository;
+    }
+
+    /**
+     * Get the current snapshot, loading the full catalog on first use
+     */
+    public CatalogSnapshot current() {
+        if (!loaded) {
+            synchronized (refreshLock) {
+                if (!loaded) {
+                    loadFull();
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Apply content changed since the last watermark
+     */
+    @Scheduled(
+        initialDelayString = "${recommendation.catalog.refresh-interval-ms:5000}",
+        fixedDelayString = "${recommendation.catalog.refresh-interval-ms:5000}"
+    )
+    public void refresh() {
+        synchronized (refreshLock) {
+            if (!loaded) {
+                loadFull();
+                return;
+            }
+
+            CatalogSnapshot base = snapshot;
+            LocalDateTime since = base.watermark() != null
+                ? base.watermark().minus(WATERMARK_OVERLAP)
+                : NO_WATERMARK;
+
+            List<Content> changed = contentRepository.findByUpdatedAtGreaterThanEqual(since).stream()
+                .filter(content -> isNewer(base, content))
+                .toList();
+
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            publish(base.apply(base.version() + 1, changed, List.of(), maxUpdatedAt(changed, base.watermark())));
+            log.debug("Catalog snapshot refreshed to version {} ({} changed, {} published)",
+                snapshot.version(), changed.size(), snapshot.size());
+        }
+    }
+
+    /**
+     * Drop content that was deleted or unpublished without an updated_at bump
+     */
+    @Scheduled(
+        initialDelayString = "${recommendation.catalog.reconcile-interval-ms:300000}",
+        fixedDelayString = "${recommendation.catalog.reconcile-interval-ms:300000}"
+    )
+    public void reconcile() {
+        synchronized (refreshLock) {
+            if (!loaded) {
+                return;
+            }
+
+            CatalogSnapshot base = snapshot;
+            Set<String> publishedIds = new HashSet<>(
+                contentRepository.findIdsByStatus(Content.ContentStatus.PUBLISHED));
+
+            List<String> removed = base.ids().stream()
+                .filter(id -> !publishedIds.contains(id))
+                .toList();
+
+            if (removed.isEmpty()) {
+                return;
+            }
+
+            publish(base.apply(base.version() + 1, List.of(), removed, base.watermark()));
+            log.info("Catalog reconcile removed {} items, snapshot version {}", removed.size(), snapshot.version());
+        }
+    }
+
+    private void loadFull() {
+        List<Content> published = contentRepository.findByStatus(Content.ContentStatus.PUBLISHED);
+        publish(CatalogSnapshot.of(snapshot.version() + 1, published, maxUpdatedAt(published, null)));
+        loaded = true;
+        log.info("Loaded catalog snapshot version {} with {} published items",
+            snapshot.version(), snapshot.size());
+    }
+
+    private void publish(CatalogSnapshot next) {
+        // Build derived indexes before readers can see the new version
+        next.topics();
+        next.attributes();
+        snapshot = next;
+    }
+
+    /**
+     * Skip rows from the overlap window that the snapshot already holds unchanged
+     */
+    private boolean isNewer(CatalogSnapshot base, Content content) {
+        Content existing = base.findById(content.getId());
+        if (existing == null) {
+            return content.getStatus() == Content.ContentStatus.PUBLISHED;
+        }
+        return !Objects.equals(existing.getUpdatedAt(), content.getUpdatedAt())
+            || existing.getStatus() != content.getStatus();
+    }
+
+    private LocalDateTime maxUpdatedAt(List<Content> contents, LocalDateTime floor) {
+        LocalDateTime max = floor;
+        for (Content content : contents) {
+            LocalDateTime updatedAt = content.getUpdatedAt();
+            if (updatedAt != null && (max == null || updatedAt.isAfter(max))) {
+                max = updatedAt;
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,193 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from topic to the ordinals of published content tagged with it.
+ *
+ * Topics are interned to dense ids once per snapshot version, and each item's
+ * topics are pre-extracted from the JSONB map so scoring never re-parses them.
+ * Posting lists are sorted ascending, which is what WAND-style retrieval needs
+ * to skip through them.
+ */
+public final class TopicIndex {
+
+    private static final int[] NO_TOPICS = new int[0];
+
+    private final CatalogSnapshot snapshot;
+    private final Map<String, Integer> topicIds;
+    private final String[] topicNames;
+    private final int[][] postings;
+    private final int[] minTopicCount;
+    private final int[][] topicsByOrdinal;
+
+    private TopicIndex(
+            CatalogSnapshot snapshot,
+            Map<String, Integer> topicIds,
+            String[] topicNames,
+            int[][] postings,
+            int[] minTopicCount,
+            int[][] topicsByOrdinal) {
+        this.snapshot = snapshot;
+        this.topicIds = topicIds;
+        this.topicNames = topicNames;
+        this.postings = postings;
+        this.minTopicCount = minTopicCount;
+        this.topicsByOrdinal = topicsByOrdinal;
+    }
+
+    /**
+     * Build the index for every published item in a snapshot
+     */
+    static TopicIndex build(CatalogSnapshot snapshot) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        int[][] byOrdinal = new int[snapshot.capacity()][];
+        int[] postingSizes = new int[16];
+
+        for (int ordinal = 0; ordinal < snapshot.capacity(); ordinal++) {
+            Content content = snapshot.get(ordinal);
+            if (content == null) {
+                continue;
+            }
+
+            List<String> topics = extractTopics(content);
+            int[] interned = new int[topics.size()];
+            int count = 0;
+            for (String topic : topics) {
+                Integer id = ids.get(topic);
+                if (id == null) {
+                    id = names.size();
+                    ids.put(topic, id);
+                    names.add(topic);
+                    if (id == postingSizes.length) {
+                        postingSizes = Arrays.copyOf(postingSizes, id * 2);
+                    }
+                }
+                // Duplicate tags on one item would double-count it in retrieval
+                if (!containsTopic(interned, count, id)) {
+                    interned[count++] = id;
+                    postingSizes[id]++;
+                }
+            }
+            byOrdinal[ordinal] = count == interned.length ? interned : Arrays.copyOf(interned, count);
+        }
+
+        int topicCount = names.size();
+        int[][] postings = new int[topicCount][];
+        int[] minTopicCount = new int[topicCount];
+        for (int topic = 0; topic < topicCount; topic++) {
+            postings[topic] = new int[postingSizes[topic]];
+            minTopicCount[topic] = Integer.MAX_VALUE;
+        }
+
+        // Ordinals are visited in ascending order, so every posting list comes out sorted
+        int[] fill = new int[topicCount];
+        for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+            int[] topics = byOrdinal[ordinal];
+            if (topics == null) {
+                continue;
+            }
+            for (int topic : topics) {
+                postings[topic][fill[topic]++] = ordinal;
+                minTopicCount[topic] = Math.min(minTopicCount[topic], topics.length);
+            }
+        }
+
+        return new TopicIndex(
+            snapshot,
+            Map.copyOf(ids),
+            names.toArray(String[]::new),
+            postings,
+            minTopicCount,
+            byOrdinal);
+    }
+
+    /**
+     * Number of distinct topics; topic ids are 0 until this bound
+     */
+    public int topicCount() {
+        return topicNames.length;
+    }
+
+    /**
+     * Interned id of a topic, or -1 if no published item has it
+     */
+    public int topicId(String topic) {
+        Integer id = topic != null ? topicIds.get(topic) : null;
+        return id != null ? id : -1;
+    }
+
+    public String topicName(int topicId) {
+        return topicNames[topicId];
+    }
+
+    /**
+     * Ordinals tagged with the topic, ascending. The array must not be modified.
+     */
+    public int[] postings(int topicId) {
+        return postings[topicId];
+    }
+
+    /**
+     * Fewest topics carried by any item in the topic's posting list
+     */
+    public int minTopicCount(int topicId) {
+        return minTopicCount[topicId];
+    }
+
+    /**
+     * Interned topics of the item at an ordinal. The array must not be modified.
+     */
+    public int[] topicsOf(int ordinal) {
+        int[] topics = ordinal >= 0 && ordinal < topicsByOrdinal.length ? topicsByOrdinal[ordinal] : null;
+        return topics != null ? topics : NO_TOPICS;
+    }
+
+    /**
+     * Interned topics of a content item. Items that are not part of this snapshot
+     * are extracted on the fly, with -1 for topics the index has never seen.
+     */
+    public int[] topicsOf(Content content) {
+        Integer ordinal = content.getOrdinal();
+        if (ordinal != null && snapshot.get(ordinal) == content) {
+            return topicsOf(ordinal);
+        }
+
+        List<String> topics = extractTopics(content);
+        int[] interned = new int[topics.size()];
+        for (int i = 0; i < interned.length; i++) {
+            interned[i] = topicId(topics.get(i));
+        }
+        return interned;
+    }
+
+    // Topic tags of an item; null or non-string tags in the stored JSON are skipped
+    private static List<String> extractTopics(Content content) {
+        if (content.getTopics() == null || !(content.getTopics().get("topics") instanceof List<?> topics)) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(topics.size());
+        for (Object topic : topics) {
+            if (topic instanceof String name) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private static boolean containsTopic(int[] topics, int count, int topic) {
+        for (int i = 0; i < count; i++) {
+            if (topics[i] == topic) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
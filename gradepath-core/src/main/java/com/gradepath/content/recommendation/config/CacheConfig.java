@@ -0,0 +1,68 @@
+package com.gradepath.content.recommendation.config;
+
+import com.gradepath.content.recommendation.cache.RedisRecommendationStore;
+import com.gradepath.content.recommendation.cache.TwoTierRecommendationCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.CompositeCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Caching for the recommendation module.
+ *
+ * "recommendations" is served by the two-tier near-cache; other cache names fall
+ * through to a no-op cache, which keeps their behaviour unchanged.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public TwoTierRecommendationCache recommendationCache(
+            StringRedisTemplate redisTemplate,
+            @Value("${spring.cache.redis.time-to-live:60000}") long redisTtlMs,
+            @Value("${recommendation.cache.local-max-users:10000}") long localMaxUsers,
+            @Value("${recommendation.cache.local-ttl-ms:5000}") long localTtlMs) {
+        RedisRecommendationStore store = new RedisRecommendationStore(redisTemplate, Duration.ofMillis(redisTtlMs));
+        return new TwoTierRecommendationCache(store, localMaxUsers, Duration.ofMillis(localTtlMs));
+    }
+
+    @Bean
+    public CacheManager cacheManager(TwoTierRecommendationCache recommendationCache) {
+        SimpleCacheManager recommendations = new SimpleCacheManager();
+        recommendations.setCaches(List.of(recommendationCache));
+        recommendations.initializeCaches();
+
+        CompositeCacheManager cacheManager = new CompositeCacheManager(recommendations);
+        cacheManager.setFallbackToNoOpCache(true);
+        return cacheManager;
+    }
+
+    /**
+     * Drop near-cache entries when any instance evicts a user
+     */
+    @Bean
+    public RedisMessageListenerContainer recommendationInvalidationListener(
+            RedisConnectionFactory connectionFactory,
+            TwoTierRecommendationCache recommendationCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            (message, pattern) -> recommendationCache.invalidateLocal(
+                UUID.fromString(new String(message.getBody(), StandardCharsets.UTF_8))),
+            new ChannelTopic(RedisRecommendationStore.INVALIDATION_CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,17 @@
+package com.gradepath.content.recommendation.event;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+public class FeedRefillRequestedEvent extends ApplicationEvent {
+
+    private final UUID userId;
+
+    public FeedRefillRequestedEvent(Object source, UUID userId) {
+        super(source);
+        this.userId = userId;
+    }
+
+    public UUID userId() { return userId; }
+}
@@ -0,0 +1,111 @@
+package com.gradepath.content.recommendation.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One generated recommendation list: content ordinals in rank order with
+ * aligned scores. Items are addressed as (slate id, position).
+ */
+@Entity
+@Table(name = "recommendation_slates")
+public class RecommendationSlate {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "content_ordinals", nullable = false, columnDefinition = "integer[]")
+    private int[] contentOrdinals;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "scores", nullable = false, columnDefinition = "real[]")
+    private float[] scores;
+
+    @Column(name = "algorithm", length = 100)
+    private String algorithm;
+
+    @Column(name = "reason", columnDefinition = "TEXT")
+    private String reason;
+
+    @Column(name = "shown_count", nullable = false)
+    private int shownCount;
+
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "clicked_ordinals", nullable = false, columnDefinition = "integer[]")
+    private int[] clickedOrdinals;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    // Constructors
+    public RecommendationSlate() {}
+
+    public RecommendationSlate(
+            UUID id,
+            UUID userId,
+            int[] contentOrdinals,
+            float[] scores,
+            String algorithm,
+            String reason,
+            Instant createdAt) {
+        this.id = id;
+        this.userId = userId;
+        this.contentOrdinals = contentOrdinals;
+        this.scores = scores;
+        this.algorithm = algorithm;
+        this.reason = reason;
+        this.clickedOrdinals = new int[0];
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Number of items in the slate
+     */
+    public int size() {
+        return contentOrdinals.length;
+    }
+
+    /**
+     * Position of the first item not yet served, or -1 once all were
+     */
+    public int nextUnshownPosition() {
+        return shownCount < contentOrdinals.length ? shownCount : -1;
+    }
+
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public int[] getContentOrdinals() { return contentOrdinals; }
+    public void setContentOrdinals(int[] contentOrdinals) { this.contentOrdinals = contentOrdinals; }
+
+    public float[] getScores() { return scores; }
+    public void setScores(float[] scores) { this.scores = scores; }
+
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    public String getReason() { return reason; }
+    public void setReason(String reason) { this.reason = reason; }
+
+    public int getShownCount() { return shownCount; }
+    public void setShownCount(int shownCount) { this.shownCount = shownCount; }
+
+    public int[] getClickedOrdinals() { return clickedOrdinals; }
+    public void setClickedOrdinals(int[] clickedOrdinals) { this.clickedOrdinals = clickedOrdinals; }
+
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
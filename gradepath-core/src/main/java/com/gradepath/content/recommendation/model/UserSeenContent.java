@@ -0,0 +1,40 @@
+package com.gradepath.content.recommendation.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "user_seen_content")
+public class UserSeenContent {
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "seen_bitmap", nullable = false)
+    private byte[] seenBitmap;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    // Constructors
+    public UserSeenContent() {}
+
+    public UserSeenContent(UUID userId, byte[] seenBitmap, Instant updatedAt) {
+        this.userId = userId;
+        this.seenBitmap = seenBitmap;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters and Setters
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public byte[] getSeenBitmap() { return seenBitmap; }
+    public void setSeenBitmap(byte[] seenBitmap) { this.seenBitmap = seenBitmap; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.List;
@@ -36,6 +37,14 @@ public class BehavioralProfile {
     @Builder.Default
     private List<ContentTransition> commonPaths = List.of();
 
+    // Current journey, oldest first, for next-in-path prediction
+    @Builder.Default
+    private List<String> recentPath = List.of();
+
+    // Topics the current journey moved through, oldest first, without repeats in a row
+    @Builder.Default
+    private List<String> recentTopics = List.of();
+
     private int totalSessions;
     private int totalContentConsumed;
 
@@ -44,9 +53,35 @@ public class BehavioralProfile {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class InterestScore {
+
+        // Interest halves every 7 days without new interactions
+        public static final Duration HALF_LIFE = Duration.ofDays(7);
+        private static final double DECAY_PER_MILLI = Math.log(2) / HALF_LIFE.toMillis();
+
         private String topic;
-        private double score;
+        private double score; // score as of lastUpdated; decays from there when read
         private Instant lastUpdated;
+
+        /**
+         * Score decayed to the given time: score * 0.5^(age / 7 days)
+         */
+        public double scoreAt(Instant now) {
+            return score * Math.exp(-DECAY_PER_MILLI * ageMillis(now));
+        }
+
+        /**
+         * Natural log of the score decayed to the given time. Decay is a
+         * subtraction in the log domain, so interests can be ranked or compared
+         * with a threshold without exponentiating each one.
+         */
+        public double logScoreAt(Instant now) {
+            return Math.log(score) - DECAY_PER_MILLI * ageMillis(now);
+        }
+
+        // A score without lastUpdated is taken as current
+        private long ageMillis(Instant now) {
+            return lastUpdated != null ? Math.max(0L, now.toEpochMilli() - lastUpdated.toEpochMilli()) : 0L;
+        }
     }
 
     @Data
@@ -0,0 +1,107 @@
+package com.gradepath.content.recommendation.profile;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Background compaction of behavioral profile storage (see V10).
+ *
+ * Drains the legacy append-only behavioral_profiles log into
+ * behavioral_profiles_current a batch of users at a time: each batch deletes the
+ * users' legacy rows and upserts the newest of them in one statement, so rows
+ * appended concurrently by old instances are either moved by this batch or left
+ * for the next run. A legacy row never overwrites a newer current profile. Each
+ * batch is its own short transaction, so profiles stay readable throughout. Also
+ * expires sampled history past its retention.
+ */
+@Component
+@Slf4j
+public class BehavioralProfileCompactor {
+
+    private static final String USERS_SQL = "SELECT user_id FROM behavioral_profiles GROUP BY user_id LIMIT ?";
+    private static final String MOVE_SQL = """
+        WITH moved AS (
+            DELETE FROM behavioral_profiles WHERE user_id = ANY(?)
+            RETURNING user_id, profile_data, timestamp
+        )
+        INSERT INTO behavioral_profiles_current AS p (user_id, version, profile_data, timestamp, updated_at)
+        SELECT DISTINCT ON (user_id) user_id, 1, profile_data, timestamp, CURRENT_TIMESTAMP
+        FROM moved
+        ORDER BY user_id, timestamp DESC
+        ON CONFLICT (user_id) DO UPDATE
+        SET version = p.version + 1,
+            profile_data = EXCLUDED.profile_data,
+            timestamp = EXCLUDED.timestamp,
+            updated_at = EXCLUDED.updated_at
+        WHERE p.timestamp < EXCLUDED.timestamp
+        """;
+    private static final String EXPIRE_HISTORY_SQL = "DELETE FROM behavioral_profile_history WHERE timestamp < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactions;
+    private final BehavioralProfileService profileService;
+    private final int batchSize;
+    private final Duration historyRetention;
+
+    public BehavioralProfileCompactor(
+            JdbcTemplate jdbcTemplate,
+            TransactionOperations transactions,
+            BehavioralProfileService profileService,
+            @Value("${recommendation.profiles.compaction-batch-size:500}") int batchSize,
+            @Value("${recommendation.profiles.history-retention-days:30}") int historyRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactions = transactions;
+        this.profileService = profileService;
+        this.batchSize = Math.max(1, batchSize);
+        this.historyRetention = Duration.ofDays(historyRetentionDays);
+    }
+
+    @Scheduled(
+        initialDelayString = "${recommendation.profiles.compaction-interval-ms:60000}",
+        fixedDelayString = "${recommendation.profiles.compaction-interval-ms:60000}"
+    )
+    public void compact() {
+        try {
+            int users = drainLegacy();
+            if (users > 0) {
+                log.info("Compacted legacy behavioral profiles of {} users", users);
+            }
+            int expired = jdbcTemplate.update(EXPIRE_HISTORY_SQL, Timestamp.from(Instant.now().minus(historyRetention)));
+            log.debug("Expired {} behavioral profile history versions", expired);
+        } catch (DataAccessException e) {
+            log.error("Behavioral profile compaction failed, retrying next run", e);
+        }
+    }
+
+    /**
+     * Move legacy rows batch by batch until none are left
+     *
+     * @return the number of users moved
+     */
+    int drainLegacy() {
+        int moved = 0;
+        while (true) {
+            List<String> users = jdbcTemplate.queryForList(USERS_SQL, String.class, batchSize);
+            if (users.isEmpty()) {
+                profileService.legacyDrained();
+                return moved;
+            }
+            transactions.executeWithoutResult(status -> jdbcTemplate.update(MOVE_SQL, ps ->
+                ps.setArray(1, ps.getConnection().createArrayOf("varchar", users.toArray()))));
+            moved += users.size();
+            if (users.size() < batchSize) {
+                return moved;
+            }
+        }
+    }
+}
@@ -1,30 +1,33 @@
 package com.gradepath.content.recommendation.profile;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-
 /**
  * Consumes behavioral profile updates from NestJS backend
  * Listens on 'profile-updates' Kafka topic
+ *
+ * Each message is a full profile snapshot, so a redelivery just stores the same
+ * snapshot again and needs no dedup. The offset is acknowledged once the profile
+ * is saved; a failed save is left to the container to retry. The snapshot then
+ * refreshes this instance's cache of decoded profiles.
  */
 @Component
 @Slf4j
 public class BehavioralProfileConsumer {
 
-    private final ObjectMapper objectMapper;
+    private final ProfileUpdateDecoder decoder;
     private final BehavioralProfileService profileService;
 
     @Autowired
     public BehavioralProfileConsumer(
             ObjectMapper objectMapper,
             BehavioralProfileService profileService) {
-        this.objectMapper = objectMapper;
+        this.decoder = new ProfileUpdateDecoder(objectMapper);
         this.profileService = profileService;
     }
 
@@ -33,35 +36,38 @@ public class BehavioralProfileConsumer {
         groupId = "behavioral-profile-consumer",
         containerFactory = "kafkaListenerContainerFactory"
     )
-    public void consumeProfileUpdate(String message) {
-        try {
-            log.debug("Received profile update from Kafka: {}", message);
-
-            JsonNode json = objectMapper.readTree(message);
-            JsonNode profileNode = json.get("profile");
-
-            if (profileNode == null) {
-                log.warn("No profile data in message: {}", message);
-                return;
-            }
+    public void consumeProfileUpdate(String message, Acknowledgment acknowledgment) {
+        log.debug("Received profile update from Kafka: {}", message);
 
-            BehavioralProfile profile = objectMapper.treeToValue(profileNode, BehavioralProfile.class);
-
-            // Set userId from the message if not in profile
-            if (profile.getUserId() == null && json.has("userId")) {
-                profile.setUserId(json.get("userId").asText());
-            }
+        ProfileUpdateDecoder.ProfileUpdate update;
+        try {
+            update = decoder.decode(message);
+        } catch (Exception e) {
+            log.error("Error processing profile update from Kafka: {}", message, e);
+            acknowledgment.acknowledge();
+            return;
+        }
 
-            // Set timestamp from message if not in profile
-            if (profile.getTimestamp() == null && json.has("timestamp")) {
-                profile.setTimestamp(objectMapper.treeToValue(json.get("timestamp"), Instant.class));
-            }
+        BehavioralProfile profile = update.profile();
+        if (profile == null) {
+            log.warn("No profile data in message: {}", message);
+            acknowledgment.acknowledge();
+            return;
+        }
 
-            profileService.saveProfile(profile);
-            log.info("Processed behavioral profile update for user: {}", profile.getUserId());
+        // Set userId from the message if not in profile
+        if (profile.getUserId() == null && update.userId() != null) {
+            profile.setUserId(update.userId());
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing profile update from Kafka: {}", message, e);
+        // Set timestamp from message if not in profile
+        if (profile.getTimestamp() == null && update.timestamp() != null) {
+            profile.setTimestamp(update.timestamp());
         }
+
+        profileService.saveProfile(profile);
+        profileService.refresh(profile);
+        acknowledgment.acknowledge();
+        log.info("Processed behavioral profile update for user: {}", profile.getUserId());
     }
 }
@@ -11,13 +11,11 @@ import org.hibernate.type.SqlTypes;
 import java.time.Instant;
 
 /**
- * JPA Entity for storing behavioral profiles in database
+ * JPA Entity for the current behavioral profile of a user.
+ * Read-only from JPA; rows are written by BehavioralProfileService's upsert.
  */
 @Entity
-@Table(name = "behavioral_profiles", indexes = {
-    @Index(name = "idx_user_id", columnList = "user_id"),
-    @Index(name = "idx_timestamp", columnList = "timestamp")
-})
+@Table(name = "behavioral_profiles_current")
 @Data
 @Builder
 @NoArgsConstructor
@@ -25,12 +23,12 @@ import java.time.Instant;
 public class BehavioralProfileEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
-
     @Column(name = "user_id", nullable = false)
     private String userId;
 
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "profile_data", columnDefinition = "JSONB", nullable = false)
     private String profileData; // JSON serialized BehavioralProfile
@@ -38,11 +36,6 @@ public class BehavioralProfileEntity {
     @Column(name = "timestamp", nullable = false)
     private Instant timestamp;
 
-    @Column(name = "created_at", nullable = false, updatable = false)
-    private Instant createdAt;
-
-    @PrePersist
-    protected void onCreate() {
-        createdAt = Instant.now();
-    }
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
 }
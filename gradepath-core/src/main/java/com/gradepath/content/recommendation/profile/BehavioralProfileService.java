@@ -2,54 +2,154 @@ package com.gradepath.content.recommendation.profile;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
+/**
+ * Storage of behavioral profiles: one current row per user in
+ * behavioral_profiles_current (see V10), read by primary key.
+ *
+ * Every write is an upsert that bumps the row's version, unless the stored
+ * profile is newer, so a late write from a previous owner of the user cannot
+ * overwrite a fresher profile. A rewrite of the stored version, same timestamp
+ * and same data, is skipped rather than bumping the version again. A configurable fraction of writes also copies the
+ * new version into behavioral_profile_history. Until BehavioralProfileCompactor
+ * has drained the legacy behavioral_profiles log, users without a current row
+ * fall back to their latest legacy row.
+ *
+ * Reads for recommendations go through a bounded cache of decoded profiles.
+ * Entries are versioned by profile timestamp: {@link #refresh} from a
+ * profile-updates message only replaces an older entry, and a write through
+ * this service drops the entry once its transaction commits. Other instances
+ * do not see those invalidations, so entries also expire after cache-ttl-ms.
+ */
 @Service
 @Slf4j
 public class BehavioralProfileService {
 
+    public static final String CACHE_NAME = "behavioral-profiles";
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO behavioral_profiles_current AS p (user_id, version, profile_data, timestamp, updated_at)
+        VALUES (?, 1, ?::jsonb, ?, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id) DO UPDATE
+        SET version = p.version + 1,
+            profile_data = EXCLUDED.profile_data,
+            timestamp = EXCLUDED.timestamp,
+            updated_at = EXCLUDED.updated_at
+        WHERE p.timestamp < EXCLUDED.timestamp
+            OR (p.timestamp = EXCLUDED.timestamp AND p.profile_data IS DISTINCT FROM EXCLUDED.profile_data)
+        """;
+    private static final String HISTORY_SQL = """
+        INSERT INTO behavioral_profile_history (user_id, version, profile_data, timestamp)
+        SELECT user_id, version, profile_data, timestamp FROM behavioral_profiles_current WHERE user_id = ?
+        ON CONFLICT DO NOTHING
+        """;
+    private static final String LEGACY_SQL =
+        "SELECT profile_data FROM behavioral_profiles WHERE user_id = ? ORDER BY timestamp DESC LIMIT 1";
+    private static final String CLEANUP_SQL = """
+        DELETE FROM behavioral_profile_history
+        WHERE user_id = ?
+        AND version NOT IN (
+            SELECT version FROM behavioral_profile_history WHERE user_id = ? ORDER BY version DESC LIMIT ?
+        )
+        """;
+
     private final BehavioralProfileRepository repository;
+    private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final double historySampleRate;
+    private final Cache<String, CachedProfile> cache;
+
+    private volatile boolean legacyDrained;
 
     public BehavioralProfileService(
             BehavioralProfileRepository repository,
-            ObjectMapper objectMapper) {
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${recommendation.profiles.history-sample-rate:0.0}") double historySampleRate,
+            @Value("${recommendation.profiles.cache-max-users:50000}") long cacheMaxUsers,
+            @Value("${recommendation.profiles.cache-ttl-ms:60000}") long cacheTtlMs) {
         this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
         this.objectMapper = objectMapper;
+        this.historySampleRate = historySampleRate;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxUsers)
+            .expireAfterWrite(Duration.ofMillis(cacheTtlMs))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
     }
 
     /**
-     * Store or update behavioral profile
+     * Store or update behavioral profile. A profile that cannot be serialized
+     * is logged and skipped; database failures propagate.
      */
     @Transactional
     public void saveProfile(BehavioralProfile profile) {
-        try {
-            String profileJson = objectMapper.writeValueAsString(profile);
-
-            BehavioralProfileEntity entity = BehavioralProfileEntity.builder()
-                .userId(profile.getUserId())
-                .profileData(profileJson)
-                .timestamp(profile.getTimestamp() != null ? profile.getTimestamp() : Instant.now())
-                .build();
-
-            repository.save(entity);
-            log.info("Saved behavioral profile for user: {}", profile.getUserId());
-        } catch (Exception e) {
-            log.error("Error serializing behavioral profile for user: {}", profile.getUserId(), e);
+        saveProfiles(List.of(profile));
+    }
+
+    /**
+     * Store a batch of profiles in one transaction. Profiles that cannot be
+     * serialized are logged and skipped; database failures propagate.
+     */
+    @Transactional
+    public void saveProfiles(Collection<BehavioralProfile> profiles) {
+        List<Object[]> rows = new ArrayList<>(profiles.size());
+        List<Object[]> sampled = new ArrayList<>();
+        for (BehavioralProfile profile : profiles) {
+            String profileJson;
+            try {
+                profileJson = objectMapper.writeValueAsString(profile);
+            } catch (JsonProcessingException e) {
+                log.error("Error serializing behavioral profile for user: {}", profile.getUserId(), e);
+                continue;
+            }
+            Instant timestamp = profile.getTimestamp() != null ? profile.getTimestamp() : Instant.now();
+            rows.add(new Object[] { profile.getUserId(), profileJson, Timestamp.from(timestamp) });
+            if (historySampleRate > 0 && ThreadLocalRandom.current().nextDouble() < historySampleRate) {
+                sampled.add(new Object[] { profile.getUserId() });
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
         }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        if (!sampled.isEmpty()) {
+            jdbcTemplate.batchUpdate(HISTORY_SQL, sampled);
+        }
+        invalidateAfterCommit(rows);
+        log.debug("Saved {} behavioral profiles, {} not newer than the stored ones", rows.size(), stale(updated));
     }
 
     /**
-     * Get latest behavioral profile for user
+     * Get latest behavioral profile for user, through the cache. The returned
+     * profile is shared with other readers and must not be modified.
      */
     public Optional<BehavioralProfile> getProfile(String userId) {
-        return repository.findFirstByUserIdOrderByTimestampDesc(userId)
-            .map(this::deserializeProfile);
+        return cache.get(userId, id -> new CachedProfile(load(id).orElse(null))).profile();
     }
 
     /**
@@ -60,27 +160,101 @@ public class BehavioralProfileService {
     }
 
     /**
-     * Alias for getProfile - used by ProfilingService
+     * Load a user's profile from the database, bypassing the cache; the caller
+     * owns the returned copy. Used by ProfilingService, which updates it.
      */
     public Optional<BehavioralProfile> findByUserId(String userId) {
-        return getProfile(userId);
+        return load(userId);
+    }
+
+    /**
+     * Replace a cached profile with a newer snapshot, e.g. from profile-updates.
+     * The snapshot is cached as is and must not be modified afterwards.
+     */
+    public void refresh(BehavioralProfile profile) {
+        if (profile.getUserId() == null) {
+            return;
+        }
+        cache.asMap().compute(profile.getUserId(), (userId, cached) ->
+            cached == null || cached.isOlderThan(profile) ? new CachedProfile(profile) : cached);
+    }
+
+    private Optional<BehavioralProfile> load(String userId) {
+        Optional<BehavioralProfileEntity> current = repository.findById(userId);
+        if (current.isPresent()) {
+            return current.map(entity -> deserializeProfile(entity.getUserId(), entity.getProfileData()));
+        }
+        if (legacyDrained) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(LEGACY_SQL, (rs, rowNum) -> rs.getString("profile_data"), userId).stream()
+            .findFirst()
+            .map(profileData -> deserializeProfile(userId, profileData));
+    }
+
+    // Drop written users once readers can see the new rows, so a read in between cannot cache the old one
+    private void invalidateAfterCommit(List<Object[]> rows) {
+        List<String> userIds = rows.stream().map(row -> (String) row[0]).toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll(userIds);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll(userIds);
+            }
+        });
     }
 
-    private BehavioralProfile deserializeProfile(BehavioralProfileEntity entity) {
+    private BehavioralProfile deserializeProfile(String userId, String profileData) {
         try {
-            return objectMapper.readValue(entity.getProfileData(), BehavioralProfile.class);
+            return objectMapper.readValue(profileData, BehavioralProfile.class);
         } catch (JsonProcessingException e) {
-            log.error("Error deserializing behavioral profile for user: {}", entity.getUserId(), e);
+            log.error("Error deserializing behavioral profile for user: {}", userId, e);
             return null;
         }
     }
 
     /**
-     * Clean up old profiles (keep only latest N per user)
+     * Stop falling back to the legacy log; called once it has been drained
+     */
+    void legacyDrained() {
+        if (!legacyDrained) {
+            log.info("Legacy behavioral_profiles drained, reading current profiles only");
+            legacyDrained = true;
+        }
+    }
+
+    /**
+     * Clean up old profiles (keep only the latest N history versions per user)
      */
     @Transactional
     public void cleanupOldProfiles(String userId, int keepCount) {
-        // Implementation would delete old profiles, keeping only the most recent N
-        // For now, this is a placeholder
+        int deleted = jdbcTemplate.update(CLEANUP_SQL, userId, userId, Math.max(0, keepCount));
+        log.debug("Deleted {} history versions of behavioral profile for user: {}", deleted, userId);
+    }
+
+    // A decoded profile, or none when the user has no stored profile
+    private record CachedProfile(BehavioralProfile value) {
+
+        Optional<BehavioralProfile> profile() {
+            return Optional.ofNullable(value);
+        }
+
+        boolean isOlderThan(BehavioralProfile update) {
+            return value == null || value.getTimestamp() == null || update.getTimestamp() == null
+                || !update.getTimestamp().isBefore(value.getTimestamp());
+        }
+    }
+
+    private static int stale(int[] updated) {
+        int stale = 0;
+        for (int count : updated) {
+            if (count == 0) {
+                stale++;
+            }
+        }
+        return stale;
     }
 }
@@ -0,0 +1,70 @@
+package com.gradepath.content.recommendation.profile;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Single-pass decoder for profile-updates messages of the form
+ * {"userId": ..., "profile": {...}, "timestamp": ...}.
+ *
+ * The profile object is bound to {@link BehavioralProfile} directly from the
+ * token stream rather than through an intermediate tree, and unknown
+ * top-level fields are skipped.
+ */
+public final class ProfileUpdateDecoder {
+
+    private final ObjectMapper objectMapper;
+
+    public ProfileUpdateDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Decode a message; profile is null if the message carries none
+     */
+    public ProfileUpdate decode(String message) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+
+            String userId = null;
+            BehavioralProfile profile = null;
+            Instant timestamp = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "userId" -> userId = text(parser, value);
+                    case "profile" -> profile = bind(parser, value, BehavioralProfile.class);
+                    case "timestamp" -> timestamp = bind(parser, value, Instant.class);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new ProfileUpdate(userId, profile, timestamp);
+        }
+    }
+
+    private <T> T bind(JsonParser parser, JsonToken value, Class<T> type) throws IOException {
+        return value == JsonToken.VALUE_NULL ? null : objectMapper.readValue(parser, type);
+    }
+
+    private static String text(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL || !value.isScalarValue()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    /**
+     * A decoded profile-updates message
+     */
+    public record ProfileUpdate(String userId, BehavioralProfile profile, Instant timestamp) {
+    }
+}
@@ -1,49 +1,85 @@
 package com.gradepath.content.recommendation.repository;
 
-import com.gradepath.content.recommendation.model.Recommendation;
+import com.gradepath.content.recommendation.model.RecommendationSlate;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+/**
+ * Recommendation slates; items are addressed by (slate id, position).
+ * Slates are written in JDBC batches by the impression log, not through save().
+ */
 @Repository
-public interface RecommendationRepository extends JpaRepository<Recommendation, UUID> {
+public interface RecommendationRepository extends JpaRepository<RecommendationSlate, UUID> {
 
-    List<Recommendation> findByUserIdOrderByScoreDesc(UUID userId);
+    List<RecommendationSlate> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
-    @Query("""
-        SELECT r FROM Recommendation r
-        WHERE r.user.id = :userId
-        AND r.content.id NOT IN (
-            SELECT ci.contentId FROM ContentInteraction ci
-            WHERE ci.userId = :userId
-            AND ci.interactionType IN ('VIEWED', 'COMPLETED', 'SKIPPED')
-        )
-        ORDER BY r.score DESC
-    """)
-    List<Recommendation> findPendingRecommendations(@Param("userId") UUID userId);
-
-    @Query("""
-        SELECT r FROM Recommendation r
-        WHERE r.user.id = :userId
-        ORDER BY r.score DESC
+    /**
+     * Slates that still have items the feed has not served, newest first
+     */
+    @Query(value = """
+        SELECT * FROM recommendation_slates
+        WHERE user_id = :userId
+        AND shown_count < cardinality(content_ordinals)
+        ORDER BY created_at DESC
+    """, nativeQuery = true)
+    List<RecommendationSlate> findPendingRecommendations(@Param("userId") UUID userId);
+
+    @Query(value = """
+        SELECT * FROM recommendation_slates
+        WHERE user_id = :userId
+        AND shown_count < cardinality(content_ordinals)
+        ORDER BY created_at DESC
         LIMIT 1
-    """)
-    Optional<Recommendation> findTopByUserIdOrderByScoreDesc(@Param("userId") UUID userId);
-
-    @Query("""
-        SELECT COUNT(r) > 0 FROM Recommendation r
-        WHERE r.user.id = :userId
-        AND r.content.id = :contentId
-        AND r.createdAt > :since
-    """)
+    """, nativeQuery = true)
+    Optional<RecommendationSlate> findTopUnshownByUserId(@Param("userId") UUID userId);
+
+    /**
+     * Advance the slate's served cursor past a position; serving is in rank order
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE recommendation_slates SET shown_count = :position + 1
+        WHERE id = :slateId
+        AND shown_count <= :position
+    """, nativeQuery = true)
+    int markShown(@Param("slateId") UUID slateId, @Param("position") int position);
+
+    /**
+     * Record a click on the user's most recent slate containing the content
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE recommendation_slates SET clicked_ordinals = array_append(clicked_ordinals, :ordinal)
+        WHERE id = (
+            SELECT id FROM recommendation_slates
+            WHERE user_id = :userId
+            AND :ordinal = ANY(content_ordinals)
+            ORDER BY created_at DESC
+            LIMIT 1
+        )
+        AND NOT (:ordinal = ANY(clicked_ordinals))
+    """, nativeQuery = true)
+    int markClicked(@Param("userId") UUID userId, @Param("ordinal") int ordinal);
+
+    @Query(value = """
+        SELECT EXISTS (
+            SELECT 1 FROM recommendation_slates
+            WHERE user_id = :userId
+            AND created_at > :since
+            AND :ordinal = ANY(content_ordinals)
+        )
+    """, nativeQuery = true)
     boolean existsRecentRecommendation(@Param("userId") UUID userId,
-                                       @Param("contentId") String contentId,
-                                       @Param("since") java.time.Instant since);
+                                       @Param("ordinal") int ordinal,
+                                       @Param("since") Instant since);
 
     void deleteByUserId(UUID userId);
 }
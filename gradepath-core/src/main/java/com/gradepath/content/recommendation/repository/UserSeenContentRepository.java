@@ -0,0 +1,42 @@
+package com.gradepath.content.recommendation.repository;
+
+import com.gradepath.content.recommendation.model.UserSeenContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UserSeenContentRepository extends JpaRepository<UserSeenContent, UUID> {
+
+    @Query(value = "SELECT * FROM user_seen_content WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<UserSeenContent> findByIdForUpdate(@Param("userId") UUID userId);
+
+    /**
+     * Insert a first bitmap for the user, returning 0 if another writer got there first
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_seen_content (user_id, seen_bitmap, updated_at)
+        VALUES (:userId, :seenBitmap, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id) DO NOTHING
+    """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") UUID userId, @Param("seenBitmap") byte[] seenBitmap);
+
+    @Transactional
+    @Modifying
+    @Query(value = """
+        INSERT INTO user_seen_content (user_id, seen_bitmap, updated_at)
+        VALUES (:userId, :seenBitmap, CURRENT_TIMESTAMP)
+        ON CONFLICT (user_id) DO UPDATE
+        SET seen_bitmap = EXCLUDED.seen_bitmap,
+            updated_at = EXCLUDED.updated_at
+    """, nativeQuery = true)
+    void upsert(@Param("userId") UUID userId, @Param("seenBitmap") byte[] seenBitmap);
+}
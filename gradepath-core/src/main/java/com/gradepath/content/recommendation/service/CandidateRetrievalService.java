@@ -0,0 +1,194 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.content.model.Content;
+import com.gradepath.content.profile.model.UserPreferences;
+import com.gradepath.content.recommendation.algorithm.NextInPathPredictor;
+import com.gradepath.content.recommendation.algorithm.PathTrie;
+import com.gradepath.content.recommendation.algorithm.ShortsStrategyService;
+import com.gradepath.content.recommendation.algorithm.WandTopicRetriever;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import com.gradepath.content.recommendation.catalog.TopicIndex;
+import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Builds the candidate pool that gets scored for a recommendation request.
+ *
+ * A user's strongest behavioral interests and explicit topic preferences form a
+ * weighted topic query, and WAND over the catalog's topic index returns the best
+ * pool-size unseen items. Content that usually comes next after the user's
+ * recent path is placed in the pool ahead of them, and the topics that usually
+ * come next join the query. The pool is topped up with other unseen items so
+ * exploration and type diversity still have material, preferring items that fit
+ * the shorts strategy and sit within one level of the ZPD target; both checks are
+ * bitmap intersections on the catalog's attribute index. Users with no topic
+ * signal, such as new users, skip WAND and get that top-up alone, so the pool
+ * stays bounded; only a catalog with no more than pool-size unseen items is
+ * returned whole.
+ */
+@Service
+@Slf4j
+public class CandidateRetrievalService {
+
+    private final ShortsStrategyService shortsStrategyService;
+    private final NextInPathPredictor pathPredictor;
+    private final int poolSize;
+    private final int maxQueryTopics;
+    private final int pathCandidates;
+
+    public CandidateRetrievalService(
+            ShortsStrategyService shortsStrategyService,
+            NextInPathPredictor pathPredictor,
+            @Value("${recommendation.retrieval.pool-size:500}") int poolSize,
+            @Value("${recommendation.retrieval.max-query-topics:20}") int maxQueryTopics,
+            @Value("${recommendation.path.candidates:20}") int pathCandidates) {
+        this.shortsStrategyService = shortsStrategyService;
+        this.pathPredictor = pathPredictor;
+        this.poolSize = poolSize;
+        this.maxQueryTopics = maxQueryTopics;
+        this.pathCandidates = pathCandidates;
+    }
+
+    /**
+     * Get candidate content for a user, excluding seen ordinals
+     */
+    public List<Content> retrieve(
+            CatalogSnapshot catalog,
+            RoaringBitmap seen,
+            UserPreferences preferences,
+            Optional<BehavioralProfile> behavioralProfile,
+            ShortsStrategyService.ContentStrategy strategy) {
+
+        RoaringBitmap available = catalog.attributes().filter().excluding(seen).toBitmap();
+
+        if (available.getCardinality() <= poolSize) {
+            return catalog.resolve(available);
+        }
+
+        Map<String, Double> query = buildQuery(preferences, behavioralProfile);
+
+        TopicIndex index = catalog.topics();
+        int[] topicIds = new int[query.size()];
+        double[] weights = new double[query.size()];
+        int terms = 0;
+        for (Map.Entry<String, Double> entry : query.entrySet()) {
+            int topicId = index.topicId(entry.getKey());
+            if (topicId >= 0) {
+                topicIds[terms] = topicId;
+                weights[terms] = entry.getValue();
+                terms++;
+            }
+        }
+
+        List<Content> candidates = new ArrayList<>(poolSize);
+        RoaringBitmap chosen = new RoaringBitmap();
+
+        // Likely next steps of the current path first
+        List<String> recentPath = behavioralProfile.map(BehavioralProfile::getRecentPath).orElse(List.of());
+        if (recentPath != null && !recentPath.isEmpty()) {
+            for (PathTrie.Prediction next : pathPredictor.nextContent(recentPath, pathCandidates)) {
+                int ordinal = catalog.ordinalOf(next.symbol());
+                if (ordinal >= 0 && available.contains(ordinal) && chosen.checkedAdd(ordinal)) {
+                    candidates.add(catalog.get(ordinal));
+                }
+            }
+        }
+
+        int byPath = candidates.size();
+        int[] retrieved = terms == 0 ? new int[0] : WandTopicRetriever.topN(
+            index, Arrays.copyOf(topicIds, terms), Arrays.copyOf(weights, terms), poolSize - candidates.size(),
+            ordinal -> !available.contains(ordinal) || chosen.contains(ordinal));
+
+        for (int ordinal : retrieved) {
+            candidates.add(catalog.get(ordinal));
+            chosen.add(ordinal);
+        }
+
+        if (candidates.size() < poolSize) {
+            // Strategy-compatible content within one level of the ZPD target first
+            int optimal = ContentScoringService.optimalDifficulty(preferences);
+            RoaringBitmap preferred = shortsStrategyService
+                .filterByStrategy(catalog.attributes().filter(), strategy)
+                .difficultyBetween(optimal - 1, optimal + 1)
+                .within(available)
+                .excluding(chosen)
+                .toBitmap();
+            fill(catalog, preferred, candidates, chosen);
+            fill(catalog, RoaringBitmap.andNot(available, chosen), candidates, chosen);
+        }
+
+        log.debug("Retrieved {} candidates ({} by topic, {} by path) from {} published items",
+            candidates.size(), retrieved.length, byPath, catalog.size());
+        return candidates;
+    }
+
+    /**
+     * Topic weights from the strongest behavioral interests and explicit preferences
+     */
+    private Map<String, Double> buildQuery(
+            UserPreferences preferences,
+            Optional<BehavioralProfile> behavioralProfile) {
+
+        Map<String, Double> query = new HashMap<>();
+        Instant now = Instant.now();
+
+        // Ranked by log score, where decay is a subtraction; only the chosen topics are exponentiated
+        behavioralProfile
+            .map(BehavioralProfile::getInterests)
+            .ifPresent(interests -> interests.entrySet().stream()
+                .filter(e -> e.getValue() != null && e.getValue().getScore() > 0.0)
+                .sorted(Comparator.comparingDouble(
+                    (Map.Entry<String, BehavioralProfile.InterestScore> e) -> e.getValue().logScoreAt(now)).reversed())
+                .limit(maxQueryTopics)
+                .forEach(e -> query.put(e.getKey(), e.getValue().scoreAt(now))));
+
+        Map<String, Double> topicPrefs = preferences.getTopicPreferences();
+        if (topicPrefs != null) {
+            topicPrefs.forEach((topic, weight) -> {
+                if (weight != null && weight > 0.0) {
+                    query.merge(topic, weight, Math::max);
+                }
+            });
+        }
+
+        // Topics that usually come next, scaled to the strongest topic already asked for
+        behavioralProfile
+            .map(BehavioralProfile::getRecentTopics)
+            .filter(topics -> !topics.isEmpty())
+            .ifPresent(topics -> {
+                double strongest = query.values().stream().mapToDouble(Double::doubleValue).max().orElse(1.0);
+                for (PathTrie.Prediction next : pathPredictor.nextTopics(topics, maxQueryTopics)) {
+                    query.merge(next.symbol(), next.probability() * strongest, Math::max);
+                }
+            });
+
+        return query;
+    }
+
+    /**
+     * Add ordinals in ascending order until the pool is full
+     */
+    private void fill(CatalogSnapshot catalog, RoaringBitmap ordinals, List<Content> candidates, RoaringBitmap chosen) {
+        IntIterator it = ordinals.getIntIterator();
+        while (candidates.size() < poolSize && it.hasNext()) {
+            int ordinal = it.next();
+            Content content = catalog.get(ordinal);
+            if (content != null && chosen.checkedAdd(ordinal)) {
+                candidates.add(content);
+            }
+        }
+    }
+}
@@ -1,43 +1,44 @@
 package com.gradepath.content.recommendation.service;
 
 import com.gradepath.content.content.model.Content;
-import com.gradepath.content.content.repository.ContentRepository;
 import com.gradepath.content.profile.model.UserPreferences;
 import com.gradepath.content.profile.model.SkillLevel;
 import com.gradepath.content.profile.repository.SkillLevelRepository;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
-import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import com.gradepath.content.recommendation.algorithm.ScoringKernel;
 import com.gradepath.content.recommendation.algorithm.SessionContextService;
 import com.gradepath.content.recommendation.algorithm.ShortsStrategyService;
+import com.gradepath.content.recommendation.catalog.TopicIndex;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
 
+/**
+ * Scores recommendation candidates on primitive doubles via {@link ScoringKernel}.
+ * Scores are returned as a double[] aligned with the candidate list; conversion to
+ * BigDecimal happens only where scores leave the service.
+ */
 @Service
 @Slf4j
 public class ContentScoringService {
 
-    private final ContentRepository contentRepository;
+    private static final double NEUTRAL = 0.5;
+
+    // ZPD score by distance from the optimal difficulty: 0, 1, 2, 3+
+    private static final double[] DIFFICULTY_BY_DISTANCE = {1.0, 0.8, 0.5, 0.2};
+
     private final SkillLevelRepository skillLevelRepository;
-    private final BehavioralProfileService behavioralProfileService;
     private final SessionContextService sessionContextService;
     private final ShortsStrategyService shortsStrategyService;
 
     public ContentScoringService(
-            ContentRepository contentRepository,
             SkillLevelRepository skillLevelRepository,
-            BehavioralProfileService behavioralProfileService,
             SessionContextService sessionContextService,
             ShortsStrategyService shortsStrategyService) {
-        this.contentRepository = contentRepository;
         this.skillLevelRepository = skillLevelRepository;
-        this.behavioralProfileService = behavioralProfileService;
         this.sessionContextService = sessionContextService;
         this.shortsStrategyService = shortsStrategyService;
     }
@@ -45,230 +46,181 @@ public class ContentScoringService {
     /**
      * Score candidates using hybrid algorithm (70% content-based, 30% collaborative)
      */
-    public Map<String, BigDecimal> scoreCandidates(
+    public double[] scoreCandidates(
+            TopicIndex topicIndex,
             List<Content> candidates,
             UUID userId,
             UserPreferences preferences,
             List<SkillLevel> skillLevels) {
 
-        // Content-based scoring
-        Map<String, BigDecimal> contentScores = scoreContentBased(candidates, preferences, skillLevels);
-
-        // Collaborative filtering (placeholder - simplified version)
-        Map<String, BigDecimal> collabScores = scoreCollaborative(candidates, userId);
-
-        // Hybrid combination: 70% content-based, 30% collaborative
-        Map<String, BigDecimal> finalScores = new HashMap<>();
-        for (Content content : candidates) {
-            String contentId = content.getId();
-            BigDecimal contentScore = contentScores.getOrDefault(contentId, BigDecimal.ZERO);
-            BigDecimal collabScore = collabScores.getOrDefault(contentId, BigDecimal.ZERO);
-
-            // Weighted combination
-            BigDecimal finalScore = contentScore.multiply(new BigDecimal("0.7"))
-                .add(collabScore.multiply(new BigDecimal("0.3")));
+        int n = candidates.size();
+        ScoringKernel kernel = ScoringKernel.acquire(n);
+        fillContentBased(kernel, topicIndex, candidates, preferences, skillLevels);
+        scoreCollaborative(candidates, userId, kernel.collaborative());
 
-            finalScores.put(contentId, finalScore);
-        }
-
-        return finalScores;
+        double[] scores = new double[n];
+        kernel.hybridScores(n, scores);
+        return scores;
     }
 
     /**
-     * Content-based filtering scoring
+     * Content-based feature columns; per-request inputs are resolved once outside the loop
      */
-    private Map<String, BigDecimal> scoreContentBased(
+    private void fillContentBased(
+            ScoringKernel kernel,
+            TopicIndex topicIndex,
             List<Content> candidates,
             UserPreferences preferences,
             List<SkillLevel> skillLevels) {
 
-        Map<String, BigDecimal> scores = new HashMap<>();
-        Map<String, SkillLevel> skillMap = skillLevels.stream()
-            .collect(Collectors.toMap(SkillLevel::getTopic, sl -> sl));
+        Map<String, Double> topicPrefs = preferences.getTopicPreferences();
+        boolean hasTopicPrefs = topicPrefs != null && !topicPrefs.isEmpty();
+        double[] affinityByTopic = hasTopicPrefs ? topicAffinities(topicIndex, topicPrefs, skillLevels) : null;
+        Map<String, Double> typePrefs = preferences.getContentTypePreferences();
+        boolean hasTypePrefs = typePrefs != null && !typePrefs.isEmpty();
+
+        int optimalDifficulty = optimalDifficulty(preferences);
 
-        for (Content content : candidates) {
-            BigDecimal score = calculateContentAffinity(content, preferences, skillMap);
-            scores.put(content.getId(), score);
-        }
+        int targetMinutes = preferences.getDailyTimeTargetMinutes() != null
+            ? preferences.getDailyTimeTargetMinutes()
+            : 30;
 
-        return scores;
+        // Recency buckets as absolute cutoffs instead of a Duration per candidate
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime weekAgo = now.minusDays(7);
+        LocalDateTime monthAgo = now.minusDays(30);
+        LocalDateTime quarterAgo = now.minusDays(90);
+
+        double[] topic = kernel.topic();
+        double[] type = kernel.type();
+        double[] difficulty = kernel.difficulty();
+        double[] recency = kernel.recency();
+        double[] length = kernel.length();
+
+        for (int i = 0; i < candidates.size(); i++) {
+            Content content = candidates.get(i);
+            topic[i] = hasTopicPrefs ? averageOverTopics(topicIndex.topicsOf(content), affinityByTopic) : NEUTRAL;
+            type[i] = hasTypePrefs ? typePrefs.getOrDefault(content.getType().name(), NEUTRAL) : NEUTRAL;
+            difficulty[i] = difficultyScore(content.getDifficultyLevel(), optimalDifficulty);
+            recency[i] = recencyBoost(content.getCreatedAt(), weekAgo, monthAgo, quarterAgo);
+            length[i] = lengthScore(content.getEstimatedDurationMinutes(), targetMinutes);
+        }
     }
 
     /**
-     * Calculate content affinity score based on multiple factors
+     * Topic affinity per interned topic - how well each topic matches user preferences.
+     * An explicit preference wins over skill confidence; anything else is neutral.
      */
-    private BigDecimal calculateContentAffinity(
-            Content content,
-            UserPreferences preferences,
-            Map<String, SkillLevel> skillLevels) {
-
-        BigDecimal score = BigDecimal.ZERO;
-
-        // Topic affinity (40%)
-        score = score.add(topicAffinity(content, preferences, skillLevels).multiply(new BigDecimal("0.4")));
-
-        // Content type preference (20%)
-        score = score.add(typeAffinity(content.getType(), preferences).multiply(new BigDecimal("0.2")));
+    private double[] topicAffinities(
+            TopicIndex topicIndex,
+            Map<String, Double> topicPrefs,
+            List<SkillLevel> skillLevels) {
 
-        // Difficulty match (20%) - Zone of Proximal Development
-        score = score.add(difficultyScore(content.getDifficultyLevel(), preferences, skillLevels).multiply(new BigDecimal("0.2")));
+        double[] affinity = new double[topicIndex.topicCount()];
+        Arrays.fill(affinity, NEUTRAL);
 
-        // Recency boost (10%) - newer content gets slight boost
-        score = score.add(recencyBoost(content.getCreatedAt()).multiply(new BigDecimal("0.1")));
+        // Check if user has skill level for this topic
+        for (SkillLevel skill : skillLevels) {
+            int topicId = topicIndex.topicId(skill.getTopic());
+            if (topicId >= 0 && skill.getConfidenceScore() != null) {
+                affinity[topicId] = skill.getConfidenceScore().doubleValue();
+            }
+        }
 
-        // Length preference (10%)
-        score = score.add(lengthScore(content.getEstimatedDurationMinutes(), preferences).multiply(new BigDecimal("0.1")));
+        topicPrefs.forEach((topic, userPref) -> {
+            int topicId = topicIndex.topicId(topic);
+            if (topicId >= 0 && userPref != null) {
+                affinity[topicId] = userPref;
+            }
+        });
 
-        return score;
+        return affinity;
     }
 
     /**
-     * Topic affinity - how well content topics match user preferences
+     * Average a per-topic value over an item's topics; unknown topics count as neutral
      */
-    private BigDecimal topicAffinity(
-            Content content,
-            UserPreferences preferences,
-            Map<String, SkillLevel> skillLevels) {
-
-        Map<String, Double> topicPrefs = preferences.getTopicPreferences();
-        if (topicPrefs == null || topicPrefs.isEmpty()) {
-            return new BigDecimal("0.5"); // Neutral score
+    private static double averageOverTopics(int[] topicIds, double[] valueByTopic) {
+        if (topicIds.length == 0) {
+            return NEUTRAL;
         }
-
-        // Extract topics from content
-        @SuppressWarnings("unchecked")
-        List<String> contentTopics = content.getTopics() != null
-            ? (List<String>) content.getTopics().get("topics")
-            : List.of();
-
-        if (contentTopics.isEmpty()) {
-            return new BigDecimal("0.5");
+        double sum = 0.0;
+        for (int topicId : topicIds) {
+            sum += topicId >= 0 ? valueByTopic[topicId] : NEUTRAL;
         }
-
-        // Calculate average affinity for all content topics
-        double avgAffinity = contentTopics.stream()
-            .mapToDouble(topic -> {
-                Double userPref = topicPrefs.get(topic);
-                if (userPref != null) {
-                    return userPref;
-                }
-
-                // Check if user has skill level for this topic
-                SkillLevel skill = skillLevels.get(topic);
-                if (skill != null && skill.getConfidenceScore() != null) {
-                    return skill.getConfidenceScore().doubleValue();
-                }
-
-                return 0.5; // Default affinity
-            })
-            .average()
-            .orElse(0.5);
-
-        return BigDecimal.valueOf(avgAffinity);
+        return sum / topicIds.length;
     }
 
     /**
-     * Content type preference affinity
+     * Zone of Proximal Development target: one level above the user's difficulty preference
      */
-    private BigDecimal typeAffinity(Content.ContentType contentType, UserPreferences preferences) {
-        Map<String, Double> typePrefs = preferences.getContentTypePreferences();
-        if (typePrefs == null || typePrefs.isEmpty()) {
-            return new BigDecimal("0.5");
-        }
-
-        Double affinity = typePrefs.get(contentType.name());
-        return affinity != null
-            ? BigDecimal.valueOf(affinity)
-            : new BigDecimal("0.5");
+    public static int optimalDifficulty(UserPreferences preferences) {
+        // Use user's difficulty preference as baseline
+        int userLevel = preferences.getDifficultyPreference() != null
+            ? preferences.getDifficultyPreference()
+            : 3;
+        return userLevel + 1;
     }
 
     /**
      * Difficulty matching using Zone of Proximal Development (ZPD)
      * Content should be slightly above current skill level
      */
-    private BigDecimal difficultyScore(
-            Integer contentDifficulty,
-            UserPreferences preferences,
-            Map<String, SkillLevel> skillLevels) {
-
+    private static double difficultyScore(Integer contentDifficulty, int optimalDifficulty) {
         if (contentDifficulty == null) {
-            return new BigDecimal("0.5");
+            return NEUTRAL;
         }
-
-        // Use user's difficulty preference as baseline
-        int userLevel = preferences.getDifficultyPreference() != null
-            ? preferences.getDifficultyPreference()
-            : 3;
-
-        // ZPD: optimal difficulty is user level + 1
-        int optimalDifficulty = userLevel + 1;
-
-        // Calculate distance from optimal
         int distance = Math.abs(contentDifficulty - optimalDifficulty);
-
-        // Score decreases as distance increases
-        // Distance 0 = 1.0, Distance 1 = 0.8, Distance 2 = 0.5, Distance 3+ = 0.2
-        return switch (distance) {
-            case 0 -> new BigDecimal("1.0");
-            case 1 -> new BigDecimal("0.8");
-            case 2 -> new BigDecimal("0.5");
-            default -> new BigDecimal("0.2");
-        };
+        return DIFFICULTY_BY_DISTANCE[Math.min(distance, DIFFICULTY_BY_DISTANCE.length - 1)];
     }
 
     /**
-     * Recency boost - newer content gets slight advantage
+     * Recency boost - newer content gets slight advantage, decaying over 90 days
      */
-    private BigDecimal recencyBoost(java.time.LocalDateTime createdAt) {
+    private static double recencyBoost(
+            LocalDateTime createdAt,
+            LocalDateTime weekAgo,
+            LocalDateTime monthAgo,
+            LocalDateTime quarterAgo) {
+
         if (createdAt == null) {
-            return new BigDecimal("0.5");
+            return NEUTRAL;
         }
-
-        long daysSinceCreation = java.time.Duration.between(createdAt, java.time.LocalDateTime.now()).toDays();
-
-        // Decay over 90 days
-        if (daysSinceCreation < 7) {
-            return new BigDecimal("1.0"); // Very new
-        } else if (daysSinceCreation < 30) {
-            return new BigDecimal("0.8"); // Recent
-        } else if (daysSinceCreation < 90) {
-            return new BigDecimal("0.6"); // Somewhat recent
-        } else {
-            return new BigDecimal("0.4"); // Older
+        if (createdAt.isAfter(weekAgo)) {
+            return 1.0; // Very new
+        } else if (createdAt.isAfter(monthAgo)) {
+            return 0.8; // Recent
+        } else if (createdAt.isAfter(quarterAgo)) {
+            return 0.6; // Somewhat recent
         }
+        return 0.4; // Older
     }
 
     /**
      * Length preference scoring
      */
-    private BigDecimal lengthScore(Integer durationMinutes, UserPreferences preferences) {
+    private static double lengthScore(Integer durationMinutes, int targetMinutes) {
         if (durationMinutes == null) {
-            return new BigDecimal("0.5");
+            return NEUTRAL;
         }
 
-        int targetMinutes = preferences.getDailyTimeTargetMinutes() != null
-            ? preferences.getDailyTimeTargetMinutes()
-            : 30;
-
         // Prefer content that takes less than daily target
         // Short content (<= target/2) = 1.0
         // Medium content (<= target) = 0.8
         // Long content (> target) = 0.4
         if (durationMinutes <= targetMinutes / 2) {
-            return new BigDecimal("1.0");
+            return 1.0;
         } else if (durationMinutes <= targetMinutes) {
-            return new BigDecimal("0.8");
-        } else {
-            return new BigDecimal("0.4");
+            return 0.8;
         }
+        return 0.4;
     }
 
     /**
      * Collaborative filtering - placeholder implementation
      * In production, this would use user-user or item-item similarity
      */
-    @Cacheable(value = "collaborativeScores", key = "#userId")
-    private Map<String, BigDecimal> scoreCollaborative(List<Content> candidates, UUID userId) {
+    private void scoreCollaborative(List<Content> candidates, UUID userId, double[] out) {
         // Placeholder: return neutral scores
         // In production, implement:
         // - User-user collaborative filtering
@@ -276,104 +228,86 @@ public class ContentScoringService {
         // - Matrix factorization
         // - Deep learning approaches
 
-        Map<String, BigDecimal> scores = new HashMap<>();
-        for (Content content : candidates) {
-            // For now, return random-like scores for variety
+        for (int i = 0; i < candidates.size(); i++) {
+            // For now, return random-like scores for variety, rounded to 4 places
             double randomScore = 0.3 + (Math.random() * 0.4); // 0.3 to 0.7
-            scores.put(content.getId(), BigDecimal.valueOf(randomScore).setScale(4, RoundingMode.HALF_UP));
+            out[i] = Math.round(randomScore * 10_000) / 10_000.0;
         }
-        return scores;
     }
 
     /**
      * Enhanced scoring with TikTok-style behavioral profiling
      * Integrates: behavioral interests, session context, shorts strategy, explore/exploit
+     *
+     * @return scores aligned with {@code candidates}
      */
-    public Map<String, BigDecimal> scoreCandidatesWithBehavioral(
+    public double[] scoreCandidatesWithBehavioral(
+            TopicIndex topicIndex,
             List<Content> candidates,
-            UUID userId,
-            UserPreferences preferences,
-            List<SkillLevel> skillLevels,
-            List<Content> recentContent) {
-
-        log.debug("Scoring {} candidates with behavioral profiling for user: {}", candidates.size(), userId);
-
-        // Get behavioral profile from NestJS
-        Optional<BehavioralProfile> behavioralProfile = behavioralProfileService.getProfile(userId);
-
-        // Base scores using traditional methods
-        Map<String, BigDecimal> baseScores = scoreCandidates(candidates, userId, preferences, skillLevels);
-
-        // Apply behavioral enhancements
-        Map<String, BigDecimal> enhancedScores = new HashMap<>();
-
-        for (Content content : candidates) {
-            String contentId = content.getId();
-            BigDecimal baseScore = baseScores.getOrDefault(contentId, BigDecimal.valueOf(0.5));
-
-            // Behavioral interest score (30%)
-            BigDecimal behavioralInterestScore = calculateBehavioralInterestScore(content, behavioralProfile);
-
-            // Session context score (20%)
-            double sessionScore = sessionContextService.calculateSessionScore(content, behavioralProfile);
+            UserContext context,
+            ShortsStrategyService.ContentStrategy strategy) {
 
-            // Strategy boost (10%)
-            ShortsStrategyService.ContentStrategy strategy = shortsStrategyService.determineStrategy(
-                behavioralProfile, recentContent
-            );
-            double strategyBoost = shortsStrategyService.calculateStrategyBoost(content, strategy);
+        UUID userId = context.userId();
+        UserPreferences preferences = context.preferences();
+        List<SkillLevel> skillLevels = context.skillLevels();
+        Optional<BehavioralProfile> behavioralProfile = context.behavioralProfile();
 
-            // Combine all scores
-            // Base: 40%, Behavioral Interest: 30%, Session Context: 20%, Strategy: 10%
-            BigDecimal finalScore = baseScore.multiply(new BigDecimal("0.4"))
-                .add(behavioralInterestScore.multiply(new BigDecimal("0.3")))
-                .add(BigDecimal.valueOf(sessionScore).multiply(new BigDecimal("0.2")))
-                .add(BigDecimal.valueOf(strategyBoost));
-
-            // Ensure score is between 0 and 1
-            finalScore = finalScore.min(BigDecimal.ONE).max(BigDecimal.ZERO);
+        log.debug("Scoring {} candidates with behavioral profiling for user: {}", candidates.size(), userId);
 
-            enhancedScores.put(contentId, finalScore);
+        int n = candidates.size();
+        ScoringKernel kernel = ScoringKernel.acquire(n);
+
+        // Base feature columns using traditional methods
+        fillContentBased(kernel, topicIndex, candidates, preferences, skillLevels);
+        scoreCollaborative(candidates, userId, kernel.collaborative());
+
+        // Session context does not depend on the candidate
+        SessionContextService.SessionContext session = sessionContextService.prepare(behavioralProfile);
+        double[] interestByTopic = behavioralInterests(topicIndex, behavioralProfile);
+
+        double[] interest = kernel.interest();
+        double[] sessionScores = kernel.session();
+        double[] strategyBoost = kernel.strategyBoost();
+
+        for (int i = 0; i < n; i++) {
+            Content content = candidates.get(i);
+            // Neutral if no profile
+            interest[i] = interestByTopic != null
+                ? averageOverTopics(topicIndex.topicsOf(content), interestByTopic)
+                : NEUTRAL;
+            sessionScores[i] = session.score(content.getEstimatedDurationMinutes());
+            strategyBoost[i] = shortsStrategyService.calculateStrategyBoost(content, strategy);
         }
 
-        return enhancedScores;
+        // Base: 40%, Behavioral Interest: 30%, Session Context: 20%, plus strategy boost
+        double[] scores = new double[n];
+        kernel.behavioralScores(n, scores);
+        return scores;
     }
 
     /**
-     * Calculate behavioral interest score from NestJS profiler
+     * Behavioral interest per interned topic from NestJS profiler, or null without interests
      */
-    private BigDecimal calculateBehavioralInterestScore(
-            Content content,
+    private double[] behavioralInterests(
+            TopicIndex topicIndex,
             Optional<BehavioralProfile> behavioralProfile) {
 
-        if (behavioralProfile.isEmpty()) {
-            return BigDecimal.valueOf(0.5); // Neutral if no profile
-        }
-
-        BehavioralProfile profile = behavioralProfile.get();
-        if (profile.getInterests() == null || profile.getInterests().isEmpty()) {
-            return BigDecimal.valueOf(0.5);
+        Map<String, BehavioralProfile.InterestScore> interests = behavioralProfile
+            .map(BehavioralProfile::getInterests)
+            .orElse(null);
+        if (interests == null || interests.isEmpty()) {
+            return null;
         }
 
-        // Extract topics from content
-        @SuppressWarnings("unchecked")
-        List<String> contentTopics = content.getTopics() != null
-            ? (List<String>) content.getTopics().get("topics")
-            : List.of();
-
-        if (contentTopics.isEmpty()) {
-            return BigDecimal.valueOf(0.5);
-        }
-
-        // Calculate average interest score for content topics
-        double avgInterest = contentTopics.stream()
-            .mapToDouble(topic -> {
-                BehavioralProfile.InterestScore interest = profile.getInterests().get(topic);
-                return interest != null ? interest.getScore() : 0.5;
-            })
-            .average()
-            .orElse(0.5);
-
-        return BigDecimal.valueOf(avgInterest);
+        Instant now = Instant.now();
+        double[] interestByTopic = new double[topicIndex.topicCount()];
+        Arrays.fill(interestByTopic, NEUTRAL);
+        interests.forEach((topic, interest) -> {
+            int topicId = topicIndex.topicId(topic);
+            if (topicId >= 0 && interest != null) {
+                interestByTopic[topicId] = interest.scoreAt(now);
+            }
+        });
+        return interestByTopic;
     }
 }
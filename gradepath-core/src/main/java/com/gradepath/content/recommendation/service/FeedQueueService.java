@@ -0,0 +1,155 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.recommendation.event.FeedRefillRequestedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Per-user ranked feed buffer kept as a Redis list.
+ *
+ * /recommendations/next pops the head in O(1); scoring happens only in the
+ * background refiller, which is asked for more whenever a pop leaves the buffer
+ * below the low-watermark. A short-lived Redis lock keeps concurrent pops (on
+ * any instance) from queuing more than one refill per user.
+ */
+@Service
+@Slf4j
+public class FeedQueueService {
+
+    // v2: entries address slate items (slateId/position); v1 buffers are left to expire
+    private static final String FEED_KEY_PREFIX = "feed:v2:";
+    private static final String REFILL_LOCK_PREFIX = "feed:refill:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int lowWatermark;
+    private final Duration ttl;
+    private final Duration refillLockTtl;
+
+    public FeedQueueService(
+            StringRedisTemplate redisTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${recommendation.feed.low-watermark:5}") int lowWatermark,
+            @Value("${recommendation.feed.ttl-seconds:3600}") long ttlSeconds,
+            @Value("${recommendation.feed.refill-lock-seconds:30}") long refillLockSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.lowWatermark = lowWatermark;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.refillLockTtl = Duration.ofSeconds(refillLockSeconds);
+    }
+
+    /**
+     * Take the next entry off the user's feed, requesting a refill when it runs low
+     */
+    public Optional<FeedEntry> pop(UUID userId) {
+        String key = feedKey(userId);
+        String head = redisTemplate.opsForList().leftPop(key);
+
+        Long remaining = redisTemplate.opsForList().size(key);
+        if (remaining == null || remaining < lowWatermark) {
+            requestRefill(userId);
+        }
+
+        return Optional.ofNullable(head).map(FeedEntry::decode);
+    }
+
+    /**
+     * Append ranked entries to the user's feed
+     */
+    public void push(UUID userId, List<FeedEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        String key = feedKey(userId);
+        List<String> encoded = new ArrayList<>(entries.size());
+        for (FeedEntry entry : entries) {
+            encoded.add(entry.encode());
+        }
+        redisTemplate.opsForList().rightPushAll(key, encoded);
+        redisTemplate.expire(key, ttl);
+    }
+
+    public int size(UUID userId) {
+        Long size = redisTemplate.opsForList().size(feedKey(userId));
+        return size != null ? size.intValue() : 0;
+    }
+
+    /**
+     * Content ids currently buffered, so a refill does not queue them twice
+     */
+    public List<String> queuedContentIds(UUID userId) {
+        List<String> queued = redisTemplate.opsForList().range(feedKey(userId), 0, -1);
+        if (queued == null) {
+            return List.of();
+        }
+        List<String> contentIds = new ArrayList<>(queued.size());
+        for (String value : queued) {
+            contentIds.add(FeedEntry.decode(value).contentId());
+        }
+        return contentIds;
+    }
+
+    /**
+     * Drop the buffered feed, e.g. when it was ranked on stale preferences
+     */
+    public void clear(UUID userId) {
+        redisTemplate.delete(feedKey(userId));
+    }
+
+    /**
+     * Ask the background refiller to top up the feed unless a refill is already pending
+     */
+    public void requestRefill(UUID userId) {
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(refillLockKey(userId), "1", refillLockTtl);
+        if (Boolean.TRUE.equals(acquired)) {
+            eventPublisher.publishEvent(new FeedRefillRequestedEvent(this, userId));
+        }
+    }
+
+    /**
+     * Release the refill lock once the refiller is done
+     */
+    public void refillFinished(UUID userId) {
+        redisTemplate.delete(refillLockKey(userId));
+    }
+
+    public int lowWatermark() {
+        return lowWatermark;
+    }
+
+    private static String feedKey(UUID userId) {
+        return FEED_KEY_PREFIX + userId;
+    }
+
+    private static String refillLockKey(UUID userId) {
+        return REFILL_LOCK_PREFIX + userId;
+    }
+
+    /**
+     * A ranked, already stored slate item waiting in the feed
+     */
+    public record FeedEntry(UUID slateId, int position, BigDecimal score, String contentId) {
+
+        // slateId|position|score|contentId - content id last since it is free-form
+        String encode() {
+            return slateId + "|" + position + "|" + score.toPlainString() + "|" + contentId;
+        }
+
+        static FeedEntry decode(String value) {
+            String[] parts = value.split("\\|", 4);
+            return new FeedEntry(
+                UUID.fromString(parts[0]), Integer.parseInt(parts[1]), new BigDecimal(parts[2]), parts[3]);
+        }
+    }
+}
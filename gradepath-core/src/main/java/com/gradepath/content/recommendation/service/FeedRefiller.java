@@ -0,0 +1,54 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.recommendation.event.FeedRefillRequestedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Tops up per-user feed buffers off the request path
+ */
+@Component
+@Slf4j
+public class FeedRefiller {
+
+    private final RecommendationService recommendationService;
+    private final FeedQueueService feedQueueService;
+    private final int batchSize;
+
+    public FeedRefiller(
+            RecommendationService recommendationService,
+            FeedQueueService feedQueueService,
+            @Value("${recommendation.feed.batch-size:20}") int batchSize) {
+        this.recommendationService = recommendationService;
+        this.feedQueueService = feedQueueService;
+        this.batchSize = batchSize;
+    }
+
+    @Async
+    @EventListener
+    public void handleRefillRequested(FeedRefillRequestedEvent event) {
+        UUID userId = event.userId();
+        try {
+            int queued = feedQueueService.size(userId);
+            if (queued >= feedQueueService.lowWatermark()) {
+                return;
+            }
+
+            List<FeedQueueService.FeedEntry> batch = recommendationService.buildFeedBatch(
+                userId, batchSize, new HashSet<>(feedQueueService.queuedContentIds(userId)));
+            feedQueueService.push(userId, batch);
+            log.debug("Refilled feed for user {} with {} items ({} were queued)", userId, batch.size(), queued);
+        } catch (Exception e) {
+            log.error("Error refilling feed for user: {}", userId, e);
+        } finally {
+            feedQueueService.refillFinished(userId);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.recommendation.model.RecommendationSlate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Write-behind log of served recommendation slates.
+ *
+ * The request path only appends to a bounded in-memory queue; a scheduled flush
+ * drains it into recommendation_slates with JDBC batch inserts, so serving
+ * recommendations needs no write transaction. Slate ids are assigned up front,
+ * which lets responses reference rows that are written moments later. When the
+ * queue is full, slates are dropped and counted rather than blocking the request.
+ * A batch the database rejects, e.g. for a user deleted since serving, is
+ * written again one slate at a time, so only the offending slates are lost;
+ * every slate that is not stored counts in recommendation.impressions.dropped.
+ */
+@Service
+@Slf4j
+public class ImpressionLog {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO recommendation_slates (id, user_id, content_ordinals, scores, algorithm, reason, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT DO NOTHING
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<RecommendationSlate> pending;
+    private final int batchSize;
+    private final Counter dropped;
+
+    public ImpressionLog(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${recommendation.impressions.capacity:10000}") int capacity,
+            @Value("${recommendation.impressions.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.dropped = meterRegistry.counter("recommendation.impressions.dropped");
+        meterRegistry.gauge("recommendation.impressions.pending", pending, BlockingQueue::size);
+    }
+
+    /**
+     * Queue a slate for the next flush; never blocks
+     */
+    public void append(RecommendationSlate slate) {
+        if (!pending.offer(slate)) {
+            dropped.increment();
+            log.warn("Impression log full, dropping slate {} for user {}", slate.getId(), slate.getUserId());
+        }
+    }
+
+    /**
+     * Insert slates on the calling thread, for background callers that need
+     * the rows to exist before they return (e.g. feed refills)
+     */
+    public void write(List<RecommendationSlate> slates) {
+        if (slates.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, slates, batchSize, (ps, slate) -> {
+            Connection connection = ps.getConnection();
+            ps.setObject(1, slate.getId());
+            ps.setObject(2, slate.getUserId());
+            ps.setArray(3, connection.createArrayOf("integer", boxed(slate.getContentOrdinals())));
+            ps.setArray(4, connection.createArrayOf("real", boxed(slate.getScores())));
+            ps.setString(5, slate.getAlgorithm());
+            ps.setString(6, slate.getReason());
+            ps.setTimestamp(7, Timestamp.from(slate.getCreatedAt()));
+        });
+    }
+
+    /**
+     * Drain queued slates in batches
+     */
+    @Scheduled(
+        initialDelayString = "${recommendation.impressions.flush-interval-ms:1000}",
+        fixedDelayString = "${recommendation.impressions.flush-interval-ms:1000}"
+    )
+    public void flush() {
+        List<RecommendationSlate> batch = new ArrayList<>(batchSize);
+        int flushed = 0;
+        while (pending.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+                flushed += batch.size();
+            } catch (NonTransientDataAccessResourceException e) {
+                drop(batch, e);
+            } catch (NonTransientDataAccessException e) {
+                // Rejected rows, not a lost database: find them. Rows of the batch already
+                // inserted are skipped by ON CONFLICT
+                log.warn("Database rejected a batch of {} slates, writing them one at a time", batch.size(), e);
+                flushed += writeEach(batch);
+            } catch (RuntimeException e) {
+                drop(batch, e);
+            }
+            batch.clear();
+        }
+        if (flushed > 0) {
+            log.debug("Flushed {} recommendation slates", flushed);
+        }
+    }
+
+    // Logged and dropped; retrying would let an unavailable database back up the queue
+    private void drop(List<RecommendationSlate> batch, RuntimeException e) {
+        dropped.increment(batch.size());
+        log.error("Failed to flush {} slates, dropping them", batch.size(), e);
+    }
+
+    private int writeEach(List<RecommendationSlate> batch) {
+        int written = 0;
+        for (RecommendationSlate slate : batch) {
+            try {
+                write(List.of(slate));
+                written++;
+            } catch (RuntimeException e) {
+                dropped.increment();
+                log.error("Dropping slate {} for user {} rejected by the database", slate.getId(), slate.getUserId(), e);
+            }
+        }
+        return written;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    private static Integer[] boxed(int[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    private static Float[] boxed(float[] values) {
+        Float[] boxed = new Float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
@@ -1,150 +1,212 @@
 package com.gradepath.content.recommendation.service;
 
-import com.gradepath.content.analytics.repository.ContentInteractionRepository;
 import com.gradepath.content.content.model.Content;
 import com.gradepath.content.content.repository.ContentRepository;
-import com.gradepath.content.profile.model.User;
-import com.gradepath.content.profile.model.UserPreferences;
-import com.gradepath.content.profile.model.SkillLevel;
-import com.gradepath.content.profile.repository.SkillLevelRepository;
-import com.gradepath.content.profile.repository.UserPreferencesRepository;
-import com.gradepath.content.profile.repository.UserRepository;
-import com.gradepath.content.recommendation.model.Recommendation;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshotService;
+import com.gradepath.content.recommendation.model.RecommendationSlate;
 import com.gradepath.content.recommendation.repository.RecommendationRepository;
-import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import com.gradepath.content.recommendation.algorithm.ScoringKernel;
 import com.gradepath.content.recommendation.algorithm.SessionContextService;
 import com.gradepath.content.recommendation.algorithm.ShortsStrategyService;
+import com.gradepath.content.recommendation.algorithm.TopKSelector;
 import com.gradepath.content.recommendation.algorithm.BanditStrategyService;
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
 @Slf4j
 public class RecommendationService {
 
+    private static final String DEFAULT_REASON = "Personalized based on your preferences and learning history";
+
     private final ContentScoringService scoringService;
+    private final CatalogSnapshotService catalogSnapshotService;
     private final ContentRepository contentRepository;
     private final RecommendationRepository recommendationRepository;
-    private final UserRepository userRepository;
-    private final UserPreferencesRepository preferencesRepository;
-    private final SkillLevelRepository skillLevelRepository;
-    private final ContentInteractionRepository interactionRepository;
-    private final BehavioralProfileService behavioralProfileService;
+    private final ImpressionLog impressionLog;
+    private final UserContextLoader userContextLoader;
+    private final FeedQueueService feedQueueService;
+    private final CandidateRetrievalService candidateRetrievalService;
     private final SessionContextService sessionContextService;
     private final ShortsStrategyService shortsStrategyService;
     private final BanditStrategyService banditStrategyService;
 
+    // Concurrent cache misses for the same request shape share one pipeline run
+    private final SingleFlight<RecommendationsKey, List<RecommendationResponse>> recommendationFlights;
+
     public RecommendationService(
             ContentScoringService scoringService,
+            CatalogSnapshotService catalogSnapshotService,
             ContentRepository contentRepository,
             RecommendationRepository recommendationRepository,
-            UserRepository userRepository,
-            UserPreferencesRepository preferencesRepository,
-            SkillLevelRepository skillLevelRepository,
-            ContentInteractionRepository interactionRepository,
-            BehavioralProfileService behavioralProfileService,
+            ImpressionLog impressionLog,
+            UserContextLoader userContextLoader,
+            FeedQueueService feedQueueService,
+            CandidateRetrievalService candidateRetrievalService,
             SessionContextService sessionContextService,
             ShortsStrategyService shortsStrategyService,
-            BanditStrategyService banditStrategyService) {
+            BanditStrategyService banditStrategyService,
+            MeterRegistry meterRegistry) {
         this.scoringService = scoringService;
+        this.catalogSnapshotService = catalogSnapshotService;
         this.contentRepository = contentRepository;
         this.recommendationRepository = recommendationRepository;
-        this.userRepository = userRepository;
-        this.preferencesRepository = preferencesRepository;
-        this.skillLevelRepository = skillLevelRepository;
-        this.interactionRepository = interactionRepository;
-        this.behavioralProfileService = behavioralProfileService;
+        this.impressionLog = impressionLog;
+        this.userContextLoader = userContextLoader;
+        this.feedQueueService = feedQueueService;
+        this.candidateRetrievalService = candidateRetrievalService;
         this.sessionContextService = sessionContextService;
         this.shortsStrategyService = shortsStrategyService;
         this.banditStrategyService = banditStrategyService;
+        this.recommendationFlights = new SingleFlight<>("recommendations", meterRegistry);
     }
 
     /**
-     * Get recommendations for a user with caching
+     * Get recommendations for a user with caching, keyed by user and limit.
+     * Callers that miss the cache together for the same user and limit share one computation.
+     * Read-only: impressions are written behind by the {@link ImpressionLog}.
      */
-    @Cacheable(value = "recommendations", key = "#userId")
+    @Cacheable(value = "recommendations",
+        key = "new com.gradepath.content.recommendation.cache.RecommendationCacheKey(#userId, #limit)")
+    @Transactional(readOnly = true)
     public List<RecommendationResponse> getRecommendations(UUID userId, int limit) {
-        log.info("Generating TikTok-style recommendations for user: {}, limit: {}", userId, limit);
+        return recommendationFlights.execute(new RecommendationsKey(userId, limit), () -> {
+            log.info("Generating TikTok-style recommendations for user: {}, limit: {}", userId, limit);
+
+            RankedBatch batch = rank(userId, limit, Set.of());
+            if (batch.ranked().isEmpty()) {
+                return List.of();
+            }
+            impressionLog.append(batch.slate());
+
+            List<RecommendationResponse> responses = new ArrayList<>(batch.ranked().size());
+            for (int i = 0; i < batch.ranked().size(); i++) {
+                responses.add(RecommendationResponse.from(batch.slate(), i, batch.ranked().get(i)));
+            }
+            // Shared between coalesced callers
+            return List.copyOf(responses);
+        });
+    }
 
-        // Get user profile and preferences
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+    /**
+     * Rank and store the next batch for a user's feed buffer, skipping content already queued
+     */
+    public List<FeedQueueService.FeedEntry> buildFeedBatch(UUID userId, int size, Set<String> queuedContentIds) {
+        RankedBatch batch = rank(userId, size, queuedContentIds);
+        if (batch.ranked().isEmpty()) {
+            return List.of();
+        }
+        // The slate row must exist before entries are popped and marked shown
+        impressionLog.write(List.of(batch.slate()));
+
+        List<FeedQueueService.FeedEntry> entries = new ArrayList<>(batch.ranked().size());
+        for (int i = 0; i < batch.ranked().size(); i++) {
+            ScoredContent scored = batch.ranked().get(i);
+            entries.add(new FeedQueueService.FeedEntry(
+                batch.slate().getId(), i, ScoringKernel.toDecimal(scored.score()), scored.content().getId()));
+        }
+        return entries;
+    }
 
-        UserPreferences preferences = preferencesRepository.findByUserId(userId)
-            .orElse(createDefaultPreferences(userId));
+    /**
+     * Full pipeline: candidates, scoring, explore/exploit, diversity.
+     * Returns the slate to record without writing it.
+     */
+    private RankedBatch rank(UUID userId, int limit, Set<String> excludedContentIds) {
+        // User, preferences, skills, behavioral profile and seen content, fetched concurrently
+        UserContext context = userContextLoader.load(userId);
 
-        List<SkillLevel> skillLevels = skillLevelRepository.findByUserId(userId);
+        // Get recent content for strategy determination
+        List<Content> recentContent = getRecentContent(userId, 5);
+        ShortsStrategyService.ContentStrategy strategy = shortsStrategyService.determineStrategy(
+            context.behavioralProfile(), recentContent
+        );
 
         // Get candidate content (exclude already viewed/completed)
-        List<Content> candidates = getCandidateContent(userId);
+        CatalogSnapshot catalog = catalogSnapshotService.current();
+        List<Content> candidates = getCandidateContent(catalog, context, excludedContentIds, strategy);
 
         if (candidates.isEmpty()) {
             log.warn("No candidate content found for user: {}", userId);
-            return List.of();
+            return new RankedBatch(List.of(), null);
         }
 
-        // Get recent content for strategy determination
-        List<Content> recentContent = getRecentContent(userId, 5);
-
-        // Score candidates WITH behavioral profiling
-        Map<String, BigDecimal> scores = scoringService.scoreCandidatesWithBehavioral(
-            candidates, userId, preferences, skillLevels, recentContent
+        // Score candidates WITH behavioral profiling (aligned with candidates)
+        double[] scores = scoringService.scoreCandidatesWithBehavioral(
+            catalog.topics(), candidates, context, strategy
         );
 
         // Apply bandit strategy for explore vs exploit
-        List<ScoredContent> rankOrdered = applyBanditOrdering(candidates, scores, userId);
+        double[] rankPriorities = applyBanditOrdering(scores, userId);
 
         // Apply diversity algorithm
-        List<Content> diversified = diversify(rankOrdered, limit);
-
-        // Store recommendations
-        List<Recommendation> stored = storeRecommendations(userId, diversified, scores);
+        List<ScoredContent> diversified = diversify(candidates, scores, rankPriorities, limit);
 
-        return stored.stream()
-            .map(RecommendationResponse::from)
-            .collect(Collectors.toList());
+        return new RankedBatch(diversified, toSlate(userId, diversified));
     }
 
     /**
-     * Get the next recommended content for a user
+     * Get the next recommended content for a user.
+     * Pops the precomputed feed buffer; never runs scoring on the request path.
      */
     public ContentResponse getNextContent(UUID userId) {
         log.info("Getting next content for user: {}", userId);
 
-        // Check for existing pending recommendations
-        Optional<Recommendation> existing = recommendationRepository
-            .findTopByUserIdOrderByScoreDesc(userId);
-
-        if (existing.isPresent()) {
-            Recommendation rec = existing.get();
-            rec.setShownAt(Instant.now());
-            recommendationRepository.save(rec);
+        Optional<FeedQueueService.FeedEntry> next;
+        while ((next = feedQueueService.pop(userId)).isPresent()) {
+            FeedQueueService.FeedEntry entry = next.get();
+            Optional<Content> content = findContent(entry.contentId());
+            if (content.isEmpty()) {
+                // Unpublished since it was queued
+                continue;
+            }
 
-            Content content = rec.getContent();
-            log.info("Returning existing recommendation: {} for user: {}", content.getId(), userId);
-            return ContentResponse.from(content, rec.getScore(), rec.getReason());
+            recommendationRepository.markShown(entry.slateId(), entry.position());
+            log.info("Returning queued recommendation: {} for user: {}", entry.contentId(), userId);
+            return ContentResponse.from(content.get(), entry.score(), DEFAULT_REASON);
         }
 
-        // Generate new recommendations
-        List<RecommendationResponse> recommendations = getRecommendations(userId, 10);
-        if (recommendations.isEmpty()) {
-            throw new NoContentAvailableException(userId);
+        // Buffer empty and a refill is on its way: fall back to the next unshown item of the latest stored slate
+        Optional<RecommendationSlate> pending = recommendationRepository.findTopUnshownByUserId(userId);
+        if (pending.isPresent()) {
+            RecommendationSlate slate = pending.get();
+            for (int position = slate.nextUnshownPosition(); position >= 0 && position < slate.size(); position++) {
+                Optional<Content> content = findContent(slate.getContentOrdinals()[position]);
+                recommendationRepository.markShown(slate.getId(), position);
+                if (content.isEmpty()) {
+                    // Deleted since the slate was stored
+                    continue;
+                }
+
+                log.info("Returning stored recommendation: {} for user: {}", content.get().getId(), userId);
+                return ContentResponse.from(
+                    content.get(), ScoringKernel.toDecimal(slate.getScores()[position]), slate.getReason());
+            }
         }
 
-        // Get the first recommendation and convert to ContentResponse
-        RecommendationResponse top = recommendations.get(0);
-        Content content = contentRepository.findById(top.contentId())
-            .orElseThrow(() -> new NoContentAvailableException(userId));
-        return ContentResponse.from(content, top.score(), top.reason());
+        throw new NoContentAvailableException(userId);
+    }
+
+    private Optional<Content> findContent(String contentId) {
+        return Optional.ofNullable(catalogSnapshotService.current().findById(contentId))
+            .or(() -> contentRepository.findById(contentId));
+    }
+
+    private Optional<Content> findContent(int ordinal) {
+        return Optional.ofNullable(catalogSnapshotService.current().get(ordinal))
+            .or(() -> contentRepository.findByOrdinal(ordinal));
     }
 
     /**
@@ -155,17 +217,16 @@ public class RecommendationService {
         log.info("Recording feedback for user: {}, content: {}, feedback: {}",
             userId, contentId, feedback);
 
-        // Update the recommendation with feedback
-        List<Recommendation> recs = recommendationRepository.findByUserIdOrderByScoreDesc(userId);
-        recs.stream()
-            .filter(r -> r.getContent().getId().equals(contentId))
-            .findFirst()
-            .ifPresent(rec -> {
-                if (feedback == FeedbackType.CLICKED) {
-                    rec.setClickedAt(Instant.now());
-                }
-                recommendationRepository.save(rec);
-            });
+        // Record the click on the latest slate that recommended the content
+        if (feedback == FeedbackType.CLICKED) {
+            int ordinal = catalogSnapshotService.current().ordinalOf(contentId);
+            if (ordinal < 0) {
+                ordinal = contentRepository.findOrdinalById(contentId).orElse(-1);
+            }
+            if (ordinal >= 0) {
+                recommendationRepository.markClicked(userId, ordinal);
+            }
+        }
 
         // In a real implementation, this would update user preferences
         // and trigger re-scoring of content
@@ -174,22 +235,27 @@ public class RecommendationService {
     /**
      * Get candidate content (exclude already viewed)
      */
-    private List<Content> getCandidateContent(UUID userId) {
-        // Get all published content
-        List<Content> allContent = contentRepository.findByStatus(Content.ContentStatus.PUBLISHED);
-
-        // Get viewed content IDs
-        List<String> viewedContentIds = interactionRepository.findViewedContentIds(
-            userId,
-            List.of(com.gradepath.content.analytics.model.InteractionType.VIEWED,
-                    com.gradepath.content.analytics.model.InteractionType.COMPLETED,
-                    com.gradepath.content.analytics.model.InteractionType.SKIPPED)
-        );
+    private List<Content> getCandidateContent(
+            CatalogSnapshot catalog,
+            UserContext context,
+            Set<String> excludedContentIds,
+            ShortsStrategyService.ContentStrategy strategy) {
+        // Ordinals of content the user has viewed, completed or skipped
+        RoaringBitmap seen = context.seen();
+        if (!excludedContentIds.isEmpty()) {
+            // The shared bitmap is read-only
+            seen = seen.clone();
+            for (String contentId : excludedContentIds) {
+                int ordinal = catalog.ordinalOf(contentId);
+                if (ordinal >= 0) {
+                    seen.add(ordinal);
+                }
+            }
+        }
 
-        // Filter out viewed content
-        return allContent.stream()
-            .filter(content -> !viewedContentIds.contains(content.getId()))
-            .collect(Collectors.toList());
+        // Top topic matches from the inverted index rather than the whole catalog
+        return candidateRetrievalService.retrieve(
+            catalog, seen, context.preferences(), context.behavioralProfile(), strategy);
     }
 
     /**
@@ -202,135 +268,109 @@ public class RecommendationService {
     }
 
     /**
-     * Apply bandit ordering for explore vs exploit
+     * Apply bandit ordering for explore vs exploit.
+     * Returns a rank priority per candidate instead of a sorted list; higher ranks first.
      */
-    private List<ScoredContent> applyBanditOrdering(
-            List<Content> candidates,
-            Map<String, BigDecimal> scores,
-            UUID userId) {
-
-        // Convert scores to double for bandit algorithm
-        Map<String, Double> doubleScores = scores.entrySet().stream()
-            .collect(Collectors.toMap(
-                Map.Entry::getKey,
-                e -> e.getValue().doubleValue()
-            ));
-
+    private double[] applyBanditOrdering(double[] scores, UUID userId) {
         // Apply epsilon-greedy: 20% exploration, 80% exploitation
-        // Use a fixed seed for reproducibility during testing
         double epsilon = 0.2;
         boolean explore = Math.random() < epsilon;
 
-        if (explore) {
-            // Shuffle candidates for exploration
-            List<Content> shuffled = new ArrayList<>(candidates);
-            Collections.shuffle(shuffled);
-            return shuffled.stream()
-                .map(c -> new ScoredContent(c, scores.getOrDefault(c.getId(), BigDecimal.ZERO)))
-                .collect(Collectors.toList());
-        } else {
-            // Sort by score for exploitation
-            List<ScoredContent> sorted = new ArrayList<>();
-            for (Content content : candidates) {
-                BigDecimal score = scores.getOrDefault(content.getId(), BigDecimal.valueOf(0.5));
-                sorted.add(new ScoredContent(content, score));
-            }
-            sorted.sort((a, b) -> b.score().compareTo(a.score()));
-            return sorted;
+        if (!explore) {
+            // Rank by score for exploitation
+            return scores;
         }
+
+        // Random ranks for exploration, equivalent to shuffling the candidates
+        Random random = new Random();
+        double[] priorities = new double[scores.length];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = random.nextDouble();
+        }
+        return priorities;
     }
 
     /**
-     * Apply diversity algorithm to recommendations
+     * Apply diversity algorithm to recommendations.
+     *
+     * Round-robin over content types, each type contributing its candidates in rank order.
+     * No type can contribute more than {@code limit} items, so only the top {@code limit}
+     * per type are kept in a bounded heap: O(n log limit) instead of sorting everything.
      */
-    private List<Content> diversify(List<ScoredContent> scoredContent, int limit) {
-        // Simple diversity: ensure mix of content types
-        Map<Content.ContentType, List<Content>> byType = scoredContent.stream()
-            .map(sc -> sc.content())
-            .collect(Collectors.groupingBy(Content::getType));
+    private List<ScoredContent> diversify(
+            List<Content> candidates,
+            double[] scores,
+            double[] rankPriorities,
+            int limit) {
+
+        Content.ContentType[] allTypes = Content.ContentType.values();
+        TopKSelector[] topByType = new TopKSelector[allTypes.length];
+        for (int i = 0; i < candidates.size(); i++) {
+            int type = candidates.get(i).getType().ordinal();
+            if (topByType[type] == null) {
+                topByType[type] = new TopKSelector(limit);
+            }
+            topByType[type].offer(i, rankPriorities[i]);
+        }
 
-        List<Content> diversified = new ArrayList<>();
+        // Simple diversity: ensure mix of content types, in enum order
+        List<Deque<Integer>> byType = new ArrayList<>();
+        for (TopKSelector selector : topByType) {
+            if (selector != null && selector.size() > 0) {
+                Deque<Integer> ranked = new ArrayDeque<>(selector.size());
+                for (int position : selector.drainDescending()) {
+                    ranked.add(position);
+                }
+                byType.add(ranked);
+            }
+        }
+
+        List<ScoredContent> diversified = new ArrayList<>(limit);
 
         // Round-robin through types to ensure diversity
-        List<Content.ContentType> types = new ArrayList<>(byType.keySet());
         int typeIndex = 0;
-
         while (diversified.size() < limit && !byType.isEmpty()) {
-            Content.ContentType currentType = types.get(typeIndex % types.size());
-            List<Content> typeContent = byType.get(currentType);
-
-            if (!typeContent.isEmpty()) {
-                diversified.add(typeContent.remove(0));
-                if (typeContent.isEmpty()) {
-                    byType.remove(currentType);
-                    types.remove(currentType);
-                    typeIndex = 0;
-                    continue;
-                }
+            int current = typeIndex % byType.size();
+            Deque<Integer> typeContent = byType.get(current);
+
+            int position = typeContent.poll();
+            diversified.add(new ScoredContent(candidates.get(position), scores[position]));
+            if (typeContent.isEmpty()) {
+                byType.remove(current);
+                typeIndex = 0;
+                continue;
             }
 
             typeIndex++;
         }
 
-        // If we didn't get enough, add remaining by score
-        if (diversified.size() < limit) {
-            for (ScoredContent sc : scoredContent) {
-                if (!diversified.contains(sc.content())) {
-                    diversified.add(sc.content());
-                    if (diversified.size() >= limit) break;
-                }
-            }
-        }
-
         return diversified;
     }
 
     /**
-     * Store recommendations in database
+     * One slate for the ranked items, with its id assigned up front
      */
-    private List<Recommendation> storeRecommendations(
-            UUID userId,
-            List<Content> contents,
-            Map<String, BigDecimal> scores) {
-
-        User user = userRepository.getReferenceById(userId);
-
-        List<Recommendation> recommendations = new ArrayList<>();
-        for (Content content : contents) {
-            BigDecimal score = scores.get(content.getId());
-
-            Recommendation rec = Recommendation.builder()
-                .user(user)
-                .content(content)
-                .score(score)
-                .algorithm("HYBRID")
-                .reason("Personalized based on your preferences and learning history")
-                .build();
-
-            // Explicitly set createdAt to bypass Builder pattern issues
-            rec.setCreatedAt(Instant.now());
-
-            recommendations.add(recommendationRepository.save(rec));
+    private RecommendationSlate toSlate(UUID userId, List<ScoredContent> contents) {
+        int[] ordinals = new int[contents.size()];
+        float[] scores = new float[contents.size()];
+        for (int i = 0; i < contents.size(); i++) {
+            ordinals[i] = contents.get(i).content().getOrdinal();
+            scores[i] = (float) contents.get(i).score();
         }
-
-        return recommendations;
+        return new RecommendationSlate(
+            UUID.randomUUID(), userId, ordinals, scores, "HYBRID", DEFAULT_REASON, Instant.now());
     }
 
+    // Response DTOs
+
     /**
-     * Create default preferences
+     * One recommended item. The id is unique per item and stable for its
+     * position in the slate; slateId and position locate it in the stored slate.
      */
-    private UserPreferences createDefaultPreferences(UUID userId) {
-        UserPreferences preferences = UserPreferences.builder()
-            .userId(userId)
-            .difficultyPreference(3)
-            .dailyTimeTargetMinutes(30)
-            .build();
-        return preferencesRepository.save(preferences);
-    }
-
-    // Response DTOs
     public record RecommendationResponse(
         UUID id,
+        UUID slateId,
+        Integer position,
         String contentId,
         String title,
         String contentType,
@@ -339,18 +379,26 @@ public class RecommendationService {
         String reason,
         String algorithm
     ) {
-        static RecommendationResponse from(Recommendation rec) {
+        static RecommendationResponse from(RecommendationSlate slate, int position, ScoredContent scored) {
+            Content content = scored.content();
             return new RecommendationResponse(
-                rec.getId(),
-                rec.getContent().getId(),
-                rec.getContent().getTitle(),
-                rec.getContent().getType().name(),
-                rec.getContent().getDifficultyLevel(),
-                rec.getScore(),
-                rec.getReason(),
-                rec.getAlgorithm()
+                itemId(slate.getId(), position),
+                slate.getId(),
+                position,
+                content.getId(),
+                content.getTitle(),
+                content.getType().name(),
+                content.getDifficultyLevel(),
+                ScoringKernel.toDecimal(scored.score()),
+                slate.getReason(),
+                slate.getAlgorithm()
             );
         }
+
+        // Name-based, so the same slate position always gets the same id
+        static UUID itemId(UUID slateId, int position) {
+            return UUID.nameUUIDFromBytes((slateId + ":" + position).getBytes(StandardCharsets.UTF_8));
+        }
     }
 
     public record ContentResponse(
@@ -377,7 +425,11 @@ public class RecommendationService {
         }
     }
 
-    private record ScoredContent(Content content, BigDecimal score) {}
+    private record ScoredContent(Content content, double score) {}
+
+    private record RecommendationsKey(UUID userId, int limit) {}
+
+    private record RankedBatch(List<ScoredContent> ranked, RecommendationSlate slate) {}
 
     public enum FeedbackType {
         CLICKED,
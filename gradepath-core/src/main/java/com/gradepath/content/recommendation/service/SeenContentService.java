@@ -0,0 +1,281 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.analytics.model.InteractionType;
+import com.gradepath.content.analytics.repository.ContentInteractionRepository;
+import com.gradepath.content.content.repository.ContentRepository;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshotService;
+import com.gradepath.content.recommendation.model.UserSeenContent;
+import com.gradepath.content.recommendation.repository.UserSeenContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user set of content the user has already seen (viewed, completed or skipped),
+ * kept as a Roaring bitmap over content ordinals.
+ *
+ * Bitmaps are copy-on-write: an update swaps in a new bitmap for the user, so
+ * readers can hold the returned bitmap without locking. Updates are flushed to
+ * user_seen_content on a schedule; a user without a stored bitmap is bootstrapped
+ * once from content_interactions.
+ *
+ * Several instances mark content for the same user, so a flush merges: it
+ * locks the stored row, ORs the cached bitmap into it and writes the union
+ * back, one transaction per user, and the cache takes the union too. A user
+ * stays dirty until the write of their current bitmap has committed. Clean
+ * entries are reloaded after cache-ttl-ms, which bounds how long marks made by
+ * other instances stay invisible here.
+ */
+@Service
+@Slf4j
+public class SeenContentService {
+
+    public static final List<InteractionType> SEEN_TYPES =
+        List.of(InteractionType.VIEWED, InteractionType.COMPLETED, InteractionType.SKIPPED);
+
+    private final UserSeenContentRepository seenRepository;
+    private final ContentInteractionRepository interactionRepository;
+    private final ContentRepository contentRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final TransactionOperations transactions;
+    private final int maxCachedUsers;
+    private final long cacheTtlMs;
+
+    private final Map<UUID, Seen> cache = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    public SeenContentService(
+            UserSeenContentRepository seenRepository,
+            ContentInteractionRepository interactionRepository,
+            ContentRepository contentRepository,
+            CatalogSnapshotService catalogSnapshotService,
+            TransactionOperations transactions,
+            @Value("${recommendation.seen.max-cached-users:100000}") int maxCachedUsers,
+            @Value("${recommendation.seen.cache-ttl-ms:60000}") long cacheTtlMs) {
+        this.seenRepository = seenRepository;
+        this.interactionRepository = interactionRepository;
+        this.contentRepository = contentRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.transactions = transactions;
+        this.maxCachedUsers = maxCachedUsers;
+        this.cacheTtlMs = cacheTtlMs;
+    }
+
+    /**
+     * Whether an interaction type removes content from the user's candidates
+     */
+    public static boolean isSeenInteraction(InteractionType type) {
+        return SEEN_TYPES.contains(type);
+    }
+
+    /**
+     * Get the ordinals of content the user has seen. The bitmap must not be modified.
+     */
+    public RoaringBitmap getSeenOrdinals(UUID userId) {
+        Seen cached = cache.get(userId);
+        if (cached != null && (!cached.isStale(cacheTtlMs) || dirty.contains(userId))) {
+            return cached.bitmap();
+        }
+
+        Seen loaded = new Seen(load(userId));
+        // Replace only what was read above, so a concurrent markSeen is never overwritten
+        Seen current = cache.compute(userId, (key, existing) ->
+            existing == null || (existing == cached && !dirty.contains(key)) ? loaded : existing);
+        evictIfFull();
+        return current.bitmap();
+    }
+
+    /**
+     * Record that the user has seen a content item
+     */
+    public void markSeen(UUID userId, String contentId) {
+        int ordinal = resolveOrdinal(contentId);
+        if (ordinal < 0) {
+            log.debug("Cannot mark unknown content {} as seen for user {}", contentId, userId);
+            return;
+        }
+
+        RoaringBitmap current = getSeenOrdinals(userId);
+        if (current.contains(ordinal)) {
+            return;
+        }
+
+        cache.compute(userId, (key, existing) -> {
+            RoaringBitmap next = existing != null ? existing.bitmap().clone() : new RoaringBitmap();
+            next.add(ordinal);
+            dirty.add(key);
+            return existing != null ? existing.with(next) : new Seen(next);
+        });
+    }
+
+    /**
+     * Merge bitmaps changed since the last flush into the stored ones. A user
+     * whose write fails stays dirty and is retried on the next flush.
+     */
+    @Scheduled(
+        initialDelayString = "${recommendation.seen.flush-interval-ms:5000}",
+        fixedDelayString = "${recommendation.seen.flush-interval-ms:5000}"
+    )
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<UUID> users = new ArrayList<>(dirty);
+        int flushed = 0;
+        for (UUID userId : users) {
+            Seen written = cache.get(userId);
+            if (written == null) {
+                dirty.remove(userId);
+                continue;
+            }
+            try {
+                RoaringBitmap merged = transactions.execute(status -> merge(userId, written.bitmap()));
+                committed(userId, written, merged);
+                flushed++;
+            } catch (RuntimeException e) {
+                log.error("Failed to flush seen-content bitmap for user {}, retrying next flush", userId, e);
+            }
+        }
+        log.debug("Flushed seen-content bitmaps for {} of {} users", flushed, users.size());
+    }
+
+    /**
+     * OR the bitmap into the stored one under a row lock and write the union
+     */
+    private RoaringBitmap merge(UUID userId, RoaringBitmap bitmap) {
+        while (true) {
+            Optional<UserSeenContent> stored = seenRepository.findByIdForUpdate(userId);
+            if (stored.isPresent()) {
+                RoaringBitmap merged = RoaringBitmap.or(bitmap, deserialize(stored.get().getSeenBitmap()));
+                seenRepository.upsert(userId, serialize(merged));
+                return merged;
+            }
+            if (seenRepository.insertIfAbsent(userId, serialize(bitmap)) > 0) {
+                return bitmap;
+            }
+            // Another instance inserted the row meanwhile; lock and merge with it
+        }
+    }
+
+    /**
+     * Clear the dirty flag once the write has committed, unless the user was
+     * marked again meanwhile; either way the cache takes the stored union
+     */
+    private void committed(UUID userId, Seen written, RoaringBitmap merged) {
+        cache.computeIfPresent(userId, (key, current) -> {
+            if (current == written) {
+                dirty.remove(key);
+                return new Seen(merged);
+            }
+            return current.with(RoaringBitmap.or(current.bitmap(), merged));
+        });
+    }
+
+    private RoaringBitmap load(UUID userId) {
+        return seenRepository.findById(userId)
+            .map(stored -> deserialize(stored.getSeenBitmap()))
+            .orElseGet(() -> bootstrap(userId));
+    }
+
+    /**
+     * Build the bitmap from interaction history for users without a stored one
+     */
+    private RoaringBitmap bootstrap(UUID userId) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (Integer ordinal : interactionRepository.findViewedContentOrdinals(userId, SEEN_TYPES)) {
+            if (ordinal != null) {
+                bitmap.add(ordinal);
+            }
+        }
+        if (!bitmap.isEmpty()) {
+            dirty.add(userId);
+        }
+        return bitmap;
+    }
+
+    private int resolveOrdinal(String contentId) {
+        int ordinal = catalogSnapshotService.current().ordinalOf(contentId);
+        if (ordinal >= 0) {
+            return ordinal;
+        }
+        return contentRepository.findOrdinalById(contentId).orElse(-1);
+    }
+
+    /**
+     * Drop clean entries once the cache grows past its bound; dirty ones wait for the next flush
+     */
+    private void evictIfFull() {
+        int excess = cache.size() - maxCachedUsers;
+        if (excess <= 0) {
+            return;
+        }
+        for (UUID userId : cache.keySet()) {
+            if (excess <= 0) {
+                break;
+            }
+            // Re-check dirtiness under the entry lock so a concurrent markSeen is never dropped
+            boolean[] removed = {false};
+            cache.computeIfPresent(userId, (key, seen) -> {
+                if (dirty.contains(key)) {
+                    return seen;
+                }
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                excess--;
+            }
+        }
+    }
+
+    /**
+     * A cached bitmap and when it was last read from or written to the table
+     */
+    private record Seen(RoaringBitmap bitmap, long syncedAtMillis) {
+
+        Seen(RoaringBitmap bitmap) {
+            this(bitmap, System.currentTimeMillis());
+        }
+
+        Seen with(RoaringBitmap next) {
+            return new Seen(next, syncedAtMillis);
+        }
+
+        boolean isStale(long ttlMs) {
+            return System.currentTimeMillis() - syncedAtMillis >= ttlMs;
+        }
+    }
+
+    static byte[] serialize(RoaringBitmap bitmap) {
+        RoaringBitmap copy = bitmap.clone();
+        copy.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(copy.serializedSizeInBytes());
+        copy.serialize(buffer);
+        return buffer.array();
+    }
+
+    static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt seen-content bitmap", e);
+        }
+        return bitmap;
+    }
+}
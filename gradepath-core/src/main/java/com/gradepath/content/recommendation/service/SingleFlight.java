@@ -0,0 +1,89 @@
+package com.gradepath.content.recommendation.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Per-key in-flight deduplication.
+ *
+ * The first caller for a key runs the computation; callers arriving while it is
+ * running wait for and share the same result (or exception) instead of computing
+ * again. Nothing is cached: once the computation finishes the key is free and the
+ * next caller computes afresh.
+ *
+ * Publishes singleflight.computed, singleflight.coalesced and singleflight.in_flight,
+ * tagged with the flight name.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter computed;
+    private final Counter coalesced;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.computed = Counter.builder("singleflight.computed")
+            .description("Calls that ran the computation")
+            .tag("name", name)
+            .register(meterRegistry);
+        this.coalesced = Counter.builder("singleflight.coalesced")
+            .description("Calls that joined a computation already in flight")
+            .tag("name", name)
+            .register(meterRegistry);
+        Gauge.builder("singleflight.in_flight", inFlight, Map::size)
+            .description("Keys currently being computed")
+            .tag("name", name)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Run the computation for a key, or join the one already running
+     */
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        computed.increment();
+        try {
+            V result = computation.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for in-flight computation");
+        } catch (ExecutionException e) {
+            // Rethrow the leader's exception so every caller sees the same failure
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.profile.model.SkillLevel;
+import com.gradepath.content.profile.model.User;
+import com.gradepath.content.profile.model.UserPreferences;
+import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Everything the ranking pipeline needs to know about a user, loaded once per request
+ * by {@link UserContextLoader}.
+ *
+ * The seen bitmap is shared with {@link SeenContentService} and must not be modified.
+ */
+public record UserContext(
+    UUID userId,
+    User user,
+    UserPreferences preferences,
+    List<SkillLevel> skillLevels,
+    Optional<BehavioralProfile> behavioralProfile,
+    RoaringBitmap seen
+) {
+    public UserContext {
+        skillLevels = List.copyOf(skillLevels);
+    }
+}
@@ -0,0 +1,189 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.profile.model.SkillLevel;
+import com.gradepath.content.profile.model.User;
+import com.gradepath.content.profile.model.UserPreferences;
+import com.gradepath.content.profile.repository.SkillLevelRepository;
+import com.gradepath.content.profile.repository.UserPreferencesRepository;
+import com.gradepath.content.profile.repository.UserRepository;
+import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads a {@link UserContext} by running the independent per-user lookups
+ * (user, preferences, skill levels, behavioral profile, seen content) concurrently
+ * on virtual threads.
+ *
+ * The lookups share one deadline. The first failure or the deadline cancels the
+ * remaining lookups (interrupting them) and is rethrown, so a slow or broken
+ * source never leaves work running behind a failed request.
+ */
+@Service
+@Slf4j
+public class UserContextLoader {
+
+    private final UserRepository userRepository;
+    private final UserPreferencesRepository preferencesRepository;
+    private final SkillLevelRepository skillLevelRepository;
+    private final BehavioralProfileService behavioralProfileService;
+    private final SeenContentService seenContentService;
+    private final Duration timeout;
+    private final ExecutorService executor;
+
+    public UserContextLoader(
+            UserRepository userRepository,
+            UserPreferencesRepository preferencesRepository,
+            SkillLevelRepository skillLevelRepository,
+            BehavioralProfileService behavioralProfileService,
+            SeenContentService seenContentService,
+            @Value("${recommendation.context.timeout-ms:2000}") long timeoutMs) {
+        this.userRepository = userRepository;
+        this.preferencesRepository = preferencesRepository;
+        this.skillLevelRepository = skillLevelRepository;
+        this.behavioralProfileService = behavioralProfileService;
+        this.seenContentService = seenContentService;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("user-context-", 0).factory());
+    }
+
+    /**
+     * Load a user's context, failing with IllegalArgumentException for unknown users
+     */
+    public UserContext load(UUID userId) {
+        Scope scope = new Scope();
+        Future<Optional<User>> user = scope.fork(() -> userRepository.findById(userId));
+        Future<UserPreferences> preferences = scope.fork(() -> preferencesRepository.findByUserId(userId)
+            .orElseGet(() -> defaultPreferences(userId)));
+        Future<List<SkillLevel>> skillLevels = scope.fork(() -> skillLevelRepository.findByUserId(userId));
+        Future<Optional<BehavioralProfile>> behavioralProfile = scope.fork(() -> behavioralProfileService.getProfile(userId));
+        Future<RoaringBitmap> seen = scope.fork(() -> seenContentService.getSeenOrdinals(userId));
+
+        scope.join(userId);
+
+        return new UserContext(
+            userId,
+            result(user).orElseThrow(() -> new IllegalArgumentException("User not found: " + userId)),
+            result(preferences),
+            result(skillLevels),
+            result(behavioralProfile),
+            result(seen)
+        );
+    }
+
+    /**
+     * Default preferences for users who never set any; built in memory, not persisted,
+     * so loading a context never writes
+     */
+    static UserPreferences defaultPreferences(UUID userId) {
+        return UserPreferences.builder()
+            .userId(userId)
+            .difficultyPreference(3)
+            .dailyTimeTargetMinutes(30)
+            .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static <T> T result(Future<T> future) {
+        // Only called once the scope has joined successfully
+        return future.resultNow();
+    }
+
+    /**
+     * Fork/join over the loader's executor with shutdown-on-failure semantics:
+     * join returns once every task succeeded, or cancels the rest on the first
+     * failure or at the deadline.
+     */
+    private final class Scope {
+        private final List<Future<?>> tasks = new ArrayList<>();
+        // One extra party for join(), so tasks finishing during forking cannot complete the scope early
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        <T> Future<T> fork(Callable<T> callable) {
+            pending.incrementAndGet();
+            FutureTask<T> task = new FutureTask<>(callable) {
+                @Override
+                protected void done() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        get();
+                        arrive();
+                    } catch (ExecutionException e) {
+                        outcome.completeExceptionally(e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+            tasks.add(task);
+            executor.execute(task);
+            return task;
+        }
+
+        void join(UUID userId) {
+            arrive();
+            try {
+                outcome.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                cancelAll();
+                if (e.getCause() instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                throw new IllegalStateException("Failed to load context for user: " + userId, e.getCause());
+            } catch (TimeoutException e) {
+                cancelAll();
+                log.warn("Loading context for user {} exceeded {} ms", userId, timeout.toMillis());
+                throw new ContextLoadTimeoutException(userId, timeout);
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted loading context for user: " + userId, e);
+            }
+        }
+
+        private void arrive() {
+            if (pending.decrementAndGet() == 0) {
+                outcome.complete(null);
+            }
+        }
+
+        private void cancelAll() {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    public static class ContextLoadTimeoutException extends RuntimeException {
+        public ContextLoadTimeoutException(UUID userId, Duration timeout) {
+            super("Loading context for user " + userId + " exceeded " + timeout.toMillis() + " ms");
+        }
+    }
+}
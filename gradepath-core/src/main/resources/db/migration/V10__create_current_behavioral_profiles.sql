@@ -0,0 +1,31 @@
+-- One current row per user, replacing the append-only behavioral_profiles log
+-- Writes are upserts guarded by the profile timestamp; reads are a primary-key lookup.
+--
+-- behavioral_profiles is left in place: instances still running the old code keep
+-- appending to it during a rolling deploy, and BehavioralProfileCompactor folds its
+-- rows into behavioral_profiles_current in small batches until it is empty.
+
+CREATE TABLE IF NOT EXISTS behavioral_profiles_current (
+    user_id VARCHAR PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 1,
+    profile_data JSONB NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Optional sampled snapshots of past versions, for analysis
+CREATE TABLE IF NOT EXISTS behavioral_profile_history (
+    user_id VARCHAR NOT NULL,
+    version BIGINT NOT NULL,
+    profile_data JSONB NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, version)
+);
+
+CREATE INDEX IF NOT EXISTS idx_behavioral_profile_history_timestamp ON behavioral_profile_history(timestamp);
+
+COMMENT ON TABLE behavioral_profiles_current IS 'Latest behavioral profile per user';
+COMMENT ON COLUMN behavioral_profiles_current.version IS 'Incremented by every stored update';
+COMMENT ON COLUMN behavioral_profiles_current.timestamp IS 'Profile timestamp; an update older than the stored one is ignored';
+COMMENT ON TABLE behavioral_profile_history IS 'Sampled past versions of behavioral_profiles_current, kept for recommendation.profiles.history-retention-days';
+COMMENT ON TABLE behavioral_profiles IS 'Legacy append-only profile log, drained into behavioral_profiles_current';
@@ -0,0 +1,24 @@
+-- Dedup keys as serialized Roaring bitmaps, one row per stored batch and hour instead of one per event
+-- EventDeduplicator merges the rows of each closed hour into one, so assigning a partition
+-- reads about one row per hour of the window rather than every key in it.
+--
+-- processed_event_keys is left in place: it is still read on assignment and expired with the
+-- window, so it drains within analytics.dedup.window-hours and can be dropped after that.
+
+CREATE TABLE IF NOT EXISTS processed_event_key_sets (
+    id BIGSERIAL PRIMARY KEY,
+    consumer VARCHAR(100) NOT NULL,
+    partition_id INTEGER NOT NULL,
+    bucket BIGINT NOT NULL,
+    event_keys BYTEA NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_event_key_sets_owner
+    ON processed_event_key_sets(consumer, partition_id, bucket);
+CREATE INDEX IF NOT EXISTS idx_processed_event_key_sets_bucket ON processed_event_key_sets(bucket);
+
+COMMENT ON TABLE processed_event_key_sets IS 'Dedup keys of consumed events, kept for analytics.dedup.window-hours';
+COMMENT ON COLUMN processed_event_key_sets.consumer IS 'Kafka consumer group';
+COMMENT ON COLUMN processed_event_key_sets.bucket IS 'Hours since the epoch of the record timestamps';
+COMMENT ON COLUMN processed_event_key_sets.event_keys IS 'Serialized Roaring64Bitmap of 64-bit record hashes';
+COMMENT ON TABLE processed_event_keys IS 'Legacy one-row-per-key dedup table, superseded by processed_event_key_sets';
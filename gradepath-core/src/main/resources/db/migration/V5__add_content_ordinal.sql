@@ -0,0 +1,11 @@
+-- Dense, stable ordinal per content row
+-- Lets in-memory catalog structures (snapshots, bitmaps, indexes) address content by int instead of String id
+
+ALTER TABLE content ADD COLUMN IF NOT EXISTS ordinal INTEGER GENERATED BY DEFAULT AS IDENTITY;
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_content_ordinal ON content(ordinal);
+
+-- Incremental catalog refresh reads rows changed since the last watermark
+CREATE INDEX IF NOT EXISTS idx_content_updated_at ON content(updated_at);
+
+COMMENT ON COLUMN content.ordinal IS 'Dense integer id used by the in-memory catalog snapshot; never reused';
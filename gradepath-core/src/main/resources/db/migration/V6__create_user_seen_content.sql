@@ -0,0 +1,11 @@
+-- Per-user seen-content set stored as a serialized Roaring bitmap over content.ordinal
+-- Replaces the DISTINCT scan over content_interactions on every recommendation request
+
+CREATE TABLE IF NOT EXISTS user_seen_content (
+    user_id UUID PRIMARY KEY REFERENCES users(id) ON DELETE CASCADE,
+    seen_bitmap BYTEA NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE user_seen_content IS 'Content a user has viewed, completed or skipped, as a Roaring bitmap of content ordinals';
+COMMENT ON COLUMN user_seen_content.seen_bitmap IS 'RoaringBitmap portable serialization';
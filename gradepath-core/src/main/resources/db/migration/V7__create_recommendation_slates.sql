@@ -0,0 +1,27 @@
+-- One row per generated recommendation list instead of one row per recommended item
+-- Items are content ordinals in rank order with a parallel array of scores
+
+CREATE TABLE IF NOT EXISTS recommendation_slates (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    content_ordinals INTEGER[] NOT NULL,
+    scores REAL[] NOT NULL,
+    algorithm VARCHAR(100),
+    reason TEXT,
+    shown_count INTEGER NOT NULL DEFAULT 0,
+    clicked_ordinals INTEGER[] NOT NULL DEFAULT '{}',
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT chk_recommendation_slates_aligned
+        CHECK (cardinality(content_ordinals) = cardinality(scores))
+);
+
+CREATE INDEX IF NOT EXISTS idx_recommendation_slates_user_created
+    ON recommendation_slates(user_id, created_at DESC);
+
+COMMENT ON TABLE recommendation_slates IS 'Ranked recommendation lists, one row per generated list';
+COMMENT ON COLUMN recommendation_slates.content_ordinals IS 'content.ordinal of each item, in rank order';
+COMMENT ON COLUMN recommendation_slates.scores IS 'Score of each item, aligned with content_ordinals';
+COMMENT ON COLUMN recommendation_slates.shown_count IS 'Leading items already served from the feed';
+COMMENT ON COLUMN recommendation_slates.clicked_ordinals IS 'Items of this slate the user clicked';
+
+COMMENT ON TABLE recommendations IS 'Superseded by recommendation_slates; no longer written';
@@ -0,0 +1,105 @@
+-- Monthly range partitioning for content_interactions (by timestamp) and
+-- recommendation_slates (by created_at), with BRIN indexes on the partition key.
+--
+-- Rows are not copied: each existing heap is attached as a "legacy" partition
+-- covering everything before the first monthly partition. PartitionManager keeps
+-- upcoming months created and detaches partitions past their retention window.
+-- Month boundaries are UTC, matching the _pYYYYMM partition names.
+--
+-- Everything that scans or rewrites the old heaps ran online in V8; this
+-- transaction only changes the catalog. The new primary keys are the unique
+-- indexes V8 built, the indexes declared on the partitioned tables match the
+-- ones the heaps already have, and the validated bound checks let ATTACH skip
+-- its scan.
+
+-- content_interactions -------------------------------------------------------
+
+ALTER TABLE content_interactions RENAME TO content_interactions_legacy;
+ALTER TABLE content_interactions_legacy RENAME CONSTRAINT content_interactions_pkey TO content_interactions_legacy_pkey;
+ALTER INDEX idx_interactions_user_time RENAME TO content_interactions_legacy_user_time_idx;
+ALTER INDEX idx_interactions_content RENAME TO content_interactions_legacy_content_idx;
+
+-- The partition key must be part of the primary key; V8 made it NOT NULL
+ALTER TABLE content_interactions_legacy
+    DROP CONSTRAINT content_interactions_legacy_pkey,
+    ADD CONSTRAINT content_interactions_legacy_pkey PRIMARY KEY USING INDEX content_interactions_id_timestamp_key;
+
+-- Mapped by ContentInteraction but missing from V1; a non-volatile default adds no rewrite
+ALTER TABLE content_interactions_legacy ADD COLUMN IF NOT EXISTS created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE TABLE content_interactions (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID REFERENCES users(id) ON DELETE CASCADE,
+    content_id VARCHAR(255) REFERENCES content(id) ON DELETE CASCADE,
+    interaction_type VARCHAR(50) NOT NULL,
+    timestamp TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    session_id VARCHAR(255),
+    metadata JSONB,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+-- Defined before attaching so the legacy indexes are reused, not rebuilt
+CREATE INDEX idx_interactions_user_time ON content_interactions(user_id, timestamp DESC);
+CREATE INDEX idx_interactions_content ON content_interactions(content_id);
+CREATE INDEX idx_interactions_timestamp_brin ON content_interactions USING BRIN (timestamp);
+
+-- recommendation_slates ------------------------------------------------------
+
+ALTER TABLE recommendation_slates RENAME TO recommendation_slates_legacy;
+ALTER TABLE recommendation_slates_legacy RENAME CONSTRAINT recommendation_slates_pkey TO recommendation_slates_legacy_pkey;
+ALTER INDEX idx_recommendation_slates_user_created RENAME TO recommendation_slates_legacy_user_created_idx;
+
+ALTER TABLE recommendation_slates_legacy
+    DROP CONSTRAINT recommendation_slates_legacy_pkey,
+    ADD CONSTRAINT recommendation_slates_legacy_pkey PRIMARY KEY USING INDEX recommendation_slates_id_created_at_key;
+
+CREATE TABLE recommendation_slates (
+    id UUID NOT NULL,
+    user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    content_ordinals INTEGER[] NOT NULL,
+    scores REAL[] NOT NULL,
+    algorithm VARCHAR(100),
+    reason TEXT,
+    shown_count INTEGER NOT NULL DEFAULT 0,
+    clicked_ordinals INTEGER[] NOT NULL DEFAULT '{}',
+    created_at TIMESTAMPTZ NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    CONSTRAINT chk_recommendation_slates_aligned
+        CHECK (cardinality(content_ordinals) = cardinality(scores))
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_recommendation_slates_user_created ON recommendation_slates(user_id, created_at DESC);
+CREATE INDEX idx_recommendation_slates_created_brin ON recommendation_slates USING BRIN (created_at);
+
+COMMENT ON TABLE recommendation_slates IS 'Ranked recommendation lists, one row per generated list';
+COMMENT ON COLUMN recommendation_slates.content_ordinals IS 'content.ordinal of each item, in rank order';
+COMMENT ON COLUMN recommendation_slates.scores IS 'Score of each item, aligned with content_ordinals';
+COMMENT ON COLUMN recommendation_slates.shown_count IS 'Leading items already served from the feed';
+COMMENT ON COLUMN recommendation_slates.clicked_ordinals IS 'Items of this slate the user clicked';
+
+-- Attach the legacy heaps and create the first monthly partitions -----------
+
+DO $$
+DECLARE
+    spec RECORD;
+    month_utc TIMESTAMP;
+BEGIN
+    FOR spec IN SELECT parent, boundary FROM partition_migration_bounds LOOP
+        -- The bound check V8 validated on the old table covers exactly the legacy range
+        EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%L)',
+            spec.parent, spec.parent || '_legacy', spec.boundary);
+        EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I',
+            spec.parent || '_legacy', spec.parent || '_legacy_bound');
+
+        -- Month arithmetic in UTC so bounds stay on UTC month starts whatever the session time zone
+        FOR i IN 0..2 LOOP
+            month_utc := (spec.boundary AT TIME ZONE 'UTC') + make_interval(months => i);
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                spec.parent || '_p' || to_char(month_utc, 'YYYYMM'), spec.parent,
+                month_utc AT TIME ZONE 'UTC', (month_utc + INTERVAL '1 month') AT TIME ZONE 'UTC');
+        END LOOP;
+    END LOOP;
+END $$;
+
+DROP TABLE partition_migration_bounds;
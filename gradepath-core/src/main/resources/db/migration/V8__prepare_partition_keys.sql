@@ -0,0 +1,92 @@
+-- Online preparation for V8_1, which turns content_interactions and
+-- recommendation_slates into range-partitioned tables.
+--
+-- Runs outside a transaction (see the .conf file) so nothing here holds an
+-- ACCESS EXCLUSIVE lock for longer than a catalog update: indexes are built
+-- CONCURRENTLY, constraints are added NOT VALID and validated afterwards, and
+-- the timestamp backfill commits in small batches. Every step is idempotent,
+-- so a failed run can be repaired and repeated; drop any index a failed
+-- CONCURRENTLY build left INVALID first.
+
+-- Backfill NULL interaction timestamps in batches, found through a temporary partial index
+CREATE INDEX CONCURRENTLY IF NOT EXISTS content_interactions_null_timestamp_idx
+    ON content_interactions(id) WHERE timestamp IS NULL;
+
+DO $$
+DECLARE
+    updated INTEGER;
+BEGIN
+    LOOP
+        UPDATE content_interactions SET timestamp = CURRENT_TIMESTAMP
+        WHERE id IN (SELECT id FROM content_interactions WHERE timestamp IS NULL LIMIT 10000);
+        GET DIAGNOSTICS updated = ROW_COUNT;
+        EXIT WHEN updated = 0;
+        COMMIT;
+    END LOOP;
+END $$;
+
+DROP INDEX CONCURRENTLY IF EXISTS content_interactions_null_timestamp_idx;
+
+-- A validated NOT NULL check lets SET NOT NULL skip its table scan
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'content_interactions_timestamp_not_null') THEN
+        ALTER TABLE content_interactions
+            ADD CONSTRAINT content_interactions_timestamp_not_null CHECK (timestamp IS NOT NULL) NOT VALID;
+    END IF;
+END $$;
+ALTER TABLE content_interactions VALIDATE CONSTRAINT content_interactions_timestamp_not_null;
+ALTER TABLE content_interactions ALTER COLUMN timestamp SET NOT NULL;
+ALTER TABLE content_interactions DROP CONSTRAINT content_interactions_timestamp_not_null;
+
+-- Future primary keys, which must include the partition key, and the BRIN
+-- indexes of the partitioned tables, so attaching the old heaps builds nothing
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS content_interactions_id_timestamp_key
+    ON content_interactions(id, timestamp);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS content_interactions_legacy_timestamp_brin_idx
+    ON content_interactions USING BRIN (timestamp);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS recommendation_slates_id_created_at_key
+    ON recommendation_slates(id, created_at);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS recommendation_slates_legacy_created_brin_idx
+    ON recommendation_slates USING BRIN (created_at);
+
+-- Upper bound of the legacy partitions: the start of the month after the
+-- newest row, at least next month. Recorded for V8_1, and enforced by a CHECK
+-- added NOT VALID and validated separately, so ATTACH can skip its own scan.
+-- The bound lies in the future, so V8_1 attaches well before it rejects inserts.
+CREATE TABLE IF NOT EXISTS partition_migration_bounds (
+    parent VARCHAR(100) PRIMARY KEY,
+    key_column VARCHAR(100) NOT NULL,
+    boundary TIMESTAMPTZ NOT NULL
+);
+
+DO $$
+DECLARE
+    spec RECORD;
+    boundary TIMESTAMPTZ;
+BEGIN
+    FOR spec IN
+        SELECT * FROM (VALUES
+            ('content_interactions', 'timestamp'),
+            ('recommendation_slates', 'created_at')
+        ) AS t(parent, key_column)
+    LOOP
+        CONTINUE WHEN EXISTS (SELECT 1 FROM partition_migration_bounds b WHERE b.parent = spec.parent);
+
+        EXECUTE format(
+            'SELECT (date_trunc(''month'', GREATEST(COALESCE(MAX(%I), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP) AT TIME ZONE ''UTC'')'
+                || ' + INTERVAL ''1 month'') AT TIME ZONE ''UTC'' FROM %I',
+            spec.key_column, spec.parent)
+        INTO boundary;
+
+        EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (%I < %L) NOT VALID',
+            spec.parent, spec.parent || '_legacy_bound', spec.key_column, boundary);
+        INSERT INTO partition_migration_bounds VALUES (spec.parent, spec.key_column, boundary);
+        -- Release the brief lock of ADD CONSTRAINT before the next table
+        COMMIT;
+    END LOOP;
+END $$;
+
+-- Validation scans under SHARE UPDATE EXCLUSIVE, which does not block reads or writes
+ALTER TABLE content_interactions VALIDATE CONSTRAINT content_interactions_legacy_bound;
+ALTER TABLE recommendation_slates VALIDATE CONSTRAINT recommendation_slates_legacy_bound;
@@ -0,0 +1,17 @@
+-- Keys of Kafka events whose effects are stored, written in the same transaction as those effects
+-- Backs the in-memory dedup window so redeliveries after a rebalance or restart are skipped
+
+CREATE TABLE IF NOT EXISTS processed_event_keys (
+    consumer VARCHAR(100) NOT NULL,
+    partition_id INTEGER NOT NULL,
+    bucket BIGINT NOT NULL,
+    event_key BIGINT NOT NULL,
+    PRIMARY KEY (consumer, partition_id, bucket, event_key)
+);
+
+CREATE INDEX IF NOT EXISTS idx_processed_event_keys_bucket ON processed_event_keys(bucket);
+
+COMMENT ON TABLE processed_event_keys IS 'Dedup keys of consumed events, kept for analytics.dedup.window-hours';
+COMMENT ON COLUMN processed_event_keys.consumer IS 'Kafka consumer group';
+COMMENT ON COLUMN processed_event_keys.bucket IS 'Hours since the epoch of the record timestamp';
+COMMENT ON COLUMN processed_event_keys.event_key IS '64-bit hash of the record key and payload';
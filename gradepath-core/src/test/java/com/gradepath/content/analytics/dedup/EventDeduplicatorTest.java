@@ -0,0 +1,233 @@
+package com.gradepath.content.analytics.dedup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for EventDeduplicator.
+ * Tests claiming within the window, releasing, persisting key sets, reloading
+ * partitions on assignment, expiring old buckets and merging closed hours.
+ */
+@Test(groups = "unit")
+public class EventDeduplicatorTest {
+
+    private static final String CONSUMER = "test-consumer";
+    private static final int WINDOW_HOURS = 48;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private EventDeduplicator deduplicator;
+    private long now;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        deduplicator = new EventDeduplicator(jdbcTemplate, meterRegistry, WINDOW_HOURS);
+        now = System.currentTimeMillis();
+    }
+
+    @Test(description = "an event is claimed once; its redelivery is a duplicate")
+    public void claim_rejectsDuplicate() {
+        // Given
+        EventKey key = key(0, 42L);
+
+        // When / Then
+        assertThat(deduplicator.claim(CONSUMER, key, now)).isTrue();
+        assertThat(deduplicator.claim(CONSUMER, key, now)).isFalse();
+        assertThat(meterRegistry.counter("analytics.dedup.duplicates", "consumer", CONSUMER).count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("analytics.dedup.keys").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test(description = "the same hash on another partition or consumer is a different event")
+    public void claim_scopedByPartitionAndConsumer() {
+        // When / Then
+        assertThat(deduplicator.claim(CONSUMER, key(0, 42L), now)).isTrue();
+        assertThat(deduplicator.claim(CONSUMER, key(1, 42L), now)).isTrue();
+        assertThat(deduplicator.claim("other-consumer", key(0, 42L), now)).isTrue();
+    }
+
+    @Test(description = "events older than the window are not tracked and always pass")
+    public void claim_outsideWindowPasses() {
+        // Given
+        EventKey old = new EventKey(0, deduplicator.oldestBucket(now) - 1, 42L);
+        EventKey untimed = new EventKey(0, -1, 42L);
+
+        // When / Then
+        assertThat(deduplicator.claim(CONSUMER, old, now)).isTrue();
+        assertThat(deduplicator.claim(CONSUMER, old, now)).isTrue();
+        assertThat(deduplicator.claim(CONSUMER, untimed, now)).isTrue();
+        assertThat(meterRegistry.counter("analytics.dedup.untracked", "consumer", CONSUMER).count()).isEqualTo(3.0);
+    }
+
+    @Test(description = "a released event can be claimed again")
+    public void release_allowsReclaim() {
+        // Given
+        EventKey key = key(0, 42L);
+        deduplicator.claim(CONSUMER, key, now);
+
+        // When
+        deduplicator.release(CONSUMER, List.of(key));
+
+        // Then
+        assertThat(deduplicator.claim(CONSUMER, key, now)).isTrue();
+    }
+
+    @Test(description = "persist writes one key set per partition and hour in a single batch")
+    public void persist_batchesKeySets() {
+        // Given
+        EventKey first = key(0, 1L);
+        EventKey second = key(0, 2L);
+        EventKey third = key(3, 3L);
+
+        // When
+        deduplicator.persist(CONSUMER, List.of(first, second, third));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture());
+        assertThat(rows.getValue()).hasSize(2);
+        assertThat(rows.getValue().get(0)).startsWith(CONSUMER, 0, first.bucket());
+        assertThat(hashes(rows.getValue().get(0)[3])).containsExactly(1L, 2L);
+        assertThat(rows.getValue().get(1)).startsWith(CONSUMER, 3, third.bucket());
+        assertThat(hashes(rows.getValue().get(1)[3])).containsExactly(3L);
+    }
+
+    @Test(description = "persisting no keys touches no table")
+    public void persist_emptyIsNoop() {
+        // When
+        deduplicator.persist(CONSUMER, List.of());
+
+        // Then
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test(description = "an assigned partition recognises keys another instance stored")
+    public void assign_loadsStoredKeys() throws Exception {
+        // Given - the table holds one key set for partition 2
+        EventKey stored = key(2, 42L);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getLong("bucket")).thenReturn(stored.bucket());
+        when(row.getBytes("event_keys")).thenReturn(DedupWindow.serialize(Roaring64Bitmap.bitmapOf(42L)));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(contains("processed_event_key_sets"), any(RowCallbackHandler.class),
+            eq(CONSUMER), eq(2), any());
+
+        // When
+        deduplicator.assign(CONSUMER, List.of(2));
+
+        // Then
+        assertThat(deduplicator.claim(CONSUMER, stored, now)).isFalse();
+        assertThat(deduplicator.claim(CONSUMER, key(2, 43L), now)).isTrue();
+    }
+
+    @Test(description = "a revoked partition's window is dropped")
+    public void revoke_dropsWindow() {
+        // Given
+        EventKey key = key(0, 42L);
+        deduplicator.claim(CONSUMER, key, now);
+
+        // When
+        deduplicator.revoke(CONSUMER, List.of(0));
+
+        // Then
+        assertThat(meterRegistry.get("analytics.dedup.keys").gauge().value()).isEqualTo(0.0);
+        assertThat(deduplicator.claim(CONSUMER, key, now)).isTrue();
+    }
+
+    @Test(description = "expire evicts buckets that left the window and deletes their rows")
+    public void expire_evictsOldBuckets() {
+        // Given
+        deduplicator.claim(CONSUMER, key(0, 42L), now);
+        long later = now + TimeUnit.HOURS.toMillis(WINDOW_HOURS + 1);
+
+        // When - the key's hour has left the window
+        deduplicator.expire(later);
+
+        // Then
+        assertThat(meterRegistry.get("analytics.dedup.keys").gauge().value()).isEqualTo(0.0);
+        verify(jdbcTemplate).update(startsWith("DELETE FROM processed_event_key_sets"), eq(deduplicator.oldestBucket(later)));
+        verify(jdbcTemplate).update(startsWith("DELETE FROM processed_event_keys"), eq(deduplicator.oldestBucket(later)));
+    }
+
+    @Test(description = "expire merges the key sets of a closed hour into one row")
+    public void expire_mergesClosedHours() throws Exception {
+        // Given - two stored sets for partition 1 in the previous hour
+        long bucket = EventKey.bucketOf(now) - 1;
+        List<Object[]> fragmented = List.<Object[]>of(new Object[] { CONSUMER, 1, bucket });
+        when(jdbcTemplate.query(contains("HAVING"), any(RowMapper.class), any(), any())).thenReturn(fragmented);
+        ResultSet first = mock(ResultSet.class);
+        when(first.getLong("id")).thenReturn(7L);
+        when(first.getBytes("event_keys")).thenReturn(DedupWindow.serialize(Roaring64Bitmap.bitmapOf(1L)));
+        ResultSet second = mock(ResultSet.class);
+        when(second.getLong("id")).thenReturn(8L);
+        when(second.getBytes("event_keys")).thenReturn(DedupWindow.serialize(Roaring64Bitmap.bitmapOf(2L)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(first);
+            handler.processRow(second);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT id"), any(RowCallbackHandler.class), eq(CONSUMER), eq(1), eq(bucket));
+
+        // When
+        deduplicator.expire(now);
+
+        // Then - the merged set is inserted before its fragments are deleted
+        ArgumentCaptor<Object> merged = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<List<Object[]>> deleted = rowsCaptor();
+        InOrder order = inOrder(jdbcTemplate);
+        order.verify(jdbcTemplate).update(startsWith("INSERT"), eq(CONSUMER), eq(1), eq(bucket), merged.capture());
+        order.verify(jdbcTemplate).batchUpdate(startsWith("DELETE"), deleted.capture());
+        assertThat(hashes(merged.getValue())).containsExactly(1L, 2L);
+        assertThat(deleted.getValue()).containsExactly(new Object[] { 7L }, new Object[] { 8L });
+    }
+
+    // Helper method to build a key in the current hour
+    private EventKey key(int partition, long hash) {
+        return new EventKey(partition, EventKey.bucketOf(now), hash);
+    }
+
+    // Helper method to decode a stored key set
+    private static List<Long> hashes(Object eventKeys) {
+        List<Long> hashes = new ArrayList<>();
+        DedupWindow.deserialize((byte[]) eventKeys).forEach(hashes::add);
+        return hashes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
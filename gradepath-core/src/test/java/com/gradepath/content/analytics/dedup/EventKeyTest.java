@@ -0,0 +1,69 @@
+package com.gradepath.content.analytics.dedup;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for EventKey.
+ * Tests that keys depend on record content and timestamp, not on delivery.
+ */
+@Test(groups = "unit")
+public class EventKeyTest {
+
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+
+    @Test(description = "a redelivery at another offset maps to the same key")
+    public void of_ignoresOffset() {
+        // When
+        EventKey first = EventKey.of(record(0, 10L, TIMESTAMP, "user-1", "{\"a\":1}"));
+        EventKey redelivered = EventKey.of(record(0, 25L, TIMESTAMP, "user-1", "{\"a\":1}"));
+
+        // Then
+        assertThat(redelivered).isEqualTo(first);
+        assertThat(first.partition()).isZero();
+        assertThat(first.bucket()).isEqualTo(TIMESTAMP / EventKey.BUCKET_MS);
+    }
+
+    @Test(description = "a different payload or record key is a different event")
+    public void of_dependsOnContent() {
+        // When
+        EventKey base = EventKey.of(record(0, 0L, TIMESTAMP, "user-1", "{\"a\":1}"));
+        EventKey otherPayload = EventKey.of(record(0, 0L, TIMESTAMP, "user-1", "{\"a\":2}"));
+        EventKey otherKey = EventKey.of(record(0, 0L, TIMESTAMP, "user-2", "{\"a\":1}"));
+        EventKey noKey = EventKey.of(record(0, 0L, TIMESTAMP, null, "{\"a\":1}"));
+
+        // Then
+        assertThat(otherPayload.hash()).isNotEqualTo(base.hash());
+        assertThat(otherKey.hash()).isNotEqualTo(base.hash());
+        assertThat(noKey.hash()).isNotEqualTo(base.hash());
+    }
+
+    @Test(description = "parts are separated, so shifting characters between them changes the hash")
+    public void hash_separatesParts() {
+        // When / Then
+        assertThat(EventKey.hash("ab", "c")).isNotEqualTo(EventKey.hash("a", "bc"));
+        assertThat(EventKey.hash("", "x")).isNotEqualTo(EventKey.hash(null, "x"));
+    }
+
+    @Test(description = "a record without a timestamp falls outside every window")
+    public void of_noTimestamp() {
+        // When
+        EventKey key = EventKey.of(new ConsumerRecord<>("topic", 3, 0L, "k", "v"));
+
+        // Then
+        assertThat(key.bucket()).isEqualTo(-1L);
+        assertThat(key.partition()).isEqualTo(3);
+    }
+
+    // Helper method to build a consumer record
+    private static ConsumerRecord<String, String> record(int partition, long offset, long timestamp, String key, String value) {
+        return new ConsumerRecord<>("topic", partition, offset, timestamp, TimestampType.CREATE_TIME,
+            -1, -1, key, value, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -0,0 +1,340 @@
+package com.gradepath.content.analytics.pipeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.dedup.EventDeduplicator;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.service.EventProcessingService;
+import com.gradepath.content.analytics.service.InteractionBatchWriter;
+import com.gradepath.content.content.model.Content;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.transaction.support.TransactionOperations;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for IngestPipeline.
+ * Tests stage hand-off, acknowledgment after persist, persist retries,
+ * skipping rows the database rejects, halting on a failed batch, skipping redelivered records and pausing
+ * consumption when the buffers fill.
+ */
+@Test(groups = "unit")
+public class IngestPipelineTest {
+
+    private static final long WAIT_MS = 2000;
+
+    @Mock
+    private EventProcessingService eventProcessingService;
+
+    @Mock
+    private InteractionBatchWriter batchWriter;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestPipeline pipeline;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        when(eventProcessingService.resolveContent(anyList()))
+            .thenAnswer(invocation -> Arrays.asList(new Content[((List<?>) invocation.getArgument(0)).size()]));
+    }
+
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test(description = "a batch is parsed, stored, acknowledged and then derived")
+    public void submit_flowsThroughStages() throws Exception {
+        // Given
+        pipeline = pipeline(4);
+
+        // When
+        pipeline.submit(List.of(
+            record(event("content_viewed", "c1")),
+            record("not json"),
+            record(event("content_completed", "c2"))), acknowledgment);
+
+        // Then
+        verify(eventProcessingService, timeout(WAIT_MS).times(2)).applySideEffects(any(ContentInteraction.class), any());
+        ArgumentCaptor<List<ContentInteraction>> stored = captor();
+        InOrder order = inOrder(batchWriter, acknowledgment, eventProcessingService);
+        order.verify(batchWriter).insertAll(stored.capture());
+        order.verify(acknowledgment).acknowledge();
+        order.verify(eventProcessingService, times(2)).applySideEffects(any(ContentInteraction.class), any());
+
+        assertThat(stored.getValue()).extracting(ContentInteraction::getContentId).containsExactly("c1", "c2");
+        assertThat(meterRegistry.counter("analytics.ingest.rows").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.counter("analytics.ingest.rejected").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.timer("analytics.ingest.batch.latency").count()).isEqualTo(1L);
+        assertThat(meterRegistry.find("analytics.ingest.stage.latency").tag("stage", "persist").timer().count())
+            .isEqualTo(1L);
+        assertThat(meterRegistry.find("analytics.ingest.queue.depth").tag("stage", "parse").gauge()).isNotNull();
+    }
+
+    @Test(description = "a failed insert is retried before the batch is acknowledged")
+    public void persist_retriesTransientFailure() throws Exception {
+        // Given
+        pipeline = pipeline(4);
+        when(batchWriter.insertAll(anyList()))
+            .thenThrow(new IllegalStateException("connection reset"))
+            .thenReturn(1);
+
+        // When
+        pipeline.submit(List.of(record(event("content_viewed", "c1"))), acknowledgment);
+
+        // Then
+        verify(eventProcessingService, timeout(WAIT_MS)).applySideEffects(any(ContentInteraction.class), any());
+        verify(batchWriter, times(2)).insertAll(anyList());
+        verify(acknowledgment).acknowledge();
+        assertThat(meterRegistry.counter("analytics.ingest.rows").count()).isEqualTo(1.0);
+    }
+
+    @Test(description = "a batch that keeps failing is retried until stored and only then acknowledged")
+    public void persist_retriesUntilStored() throws Exception {
+        // Given - more failures than the backoff takes to reach its cap
+        pipeline = pipeline(4);
+        when(batchWriter.insertAll(anyList()))
+            .thenThrow(new IllegalStateException("connection refused"))
+            .thenThrow(new IllegalStateException("connection refused"))
+            .thenThrow(new IllegalStateException("connection refused"))
+            .thenThrow(new IllegalStateException("connection refused"))
+            .thenThrow(new IllegalStateException("connection refused"))
+            .thenReturn(1);
+
+        // When
+        pipeline.submit(List.of(record(event("content_viewed", "c1"))), acknowledgment);
+
+        // Then
+        verify(eventProcessingService, timeout(WAIT_MS)).applySideEffects(any(ContentInteraction.class), any());
+        InOrder order = inOrder(batchWriter, acknowledgment);
+        order.verify(batchWriter, times(6)).insertAll(anyList());
+        order.verify(acknowledgment).acknowledge();
+        assertThat(meterRegistry.counter("analytics.ingest.persist.retries").count()).isEqualTo(5.0);
+        assertThat(meterRegistry.counter("analytics.ingest.failed").count()).isZero();
+        assertThat(pipeline.awaitIdle(WAIT_MS)).isTrue();
+    }
+
+    @Test(description = "a row the database rejects is skipped and the rest of its batch stored and acknowledged")
+    public void persist_rejectedRow_storesTheRest() throws Exception {
+        // Given - content c3 violates the content_id foreign key
+        pipeline = pipeline(4);
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<ContentInteraction> rows = invocation.getArgument(0);
+            if (rows.stream().anyMatch(row -> row.getContentId().equals("c3"))) {
+                throw new DataIntegrityViolationException("violates foreign key constraint");
+            }
+            return rows.size();
+        });
+
+        // When
+        pipeline.submit(List.of(
+            record(event("content_viewed", "c1")),
+            record(event("content_viewed", "c2")),
+            record(event("content_viewed", "c3")),
+            record(event("content_viewed", "c4")),
+            record(event("content_viewed", "c5"))), acknowledgment);
+
+        // Then - stored in halves around the bad row, acknowledged, and derived from the stored rows
+        verify(eventProcessingService, timeout(WAIT_MS).times(4)).applySideEffects(any(ContentInteraction.class), any());
+        verify(acknowledgment).acknowledge();
+        ArgumentCaptor<List<ContentInteraction>> written = captor();
+        verify(batchWriter, times(5)).insertAll(written.capture());
+        assertThat(written.getAllValues().subList(1, 5))
+            .extracting(rows -> rows.stream().map(ContentInteraction::getContentId).toList())
+            .containsExactly(List.of("c1", "c2"), List.of("c3", "c4", "c5"), List.of("c3"), List.of("c4", "c5"));
+        assertThat(meterRegistry.counter("analytics.ingest.rows").count()).isEqualTo(4.0);
+        assertThat(meterRegistry.counter("analytics.ingest.failed").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("analytics.ingest.persist.retries").count()).isZero();
+        assertThat(pipeline.isHalted()).isFalse();
+        assertThat(pipeline.awaitIdle(WAIT_MS)).isTrue();
+    }
+
+    @Test(description = "a redelivered record is skipped and its batch still acknowledged")
+    public void parse_skipsRedeliveredRecords() throws Exception {
+        // Given - the first delivery is stored
+        pipeline = pipeline(4);
+        ConsumerRecord<String, String> viewed = record(event("content_viewed", "c1"));
+        pipeline.submit(List.of(viewed), acknowledgment);
+        verify(eventProcessingService, timeout(WAIT_MS)).applySideEffects(any(ContentInteraction.class), any());
+
+        // When - the same record arrives again with a new one
+        pipeline.submit(List.of(viewed, record(event("content_viewed", "c2"))), acknowledgment);
+
+        // Then
+        verify(eventProcessingService, timeout(WAIT_MS).times(2)).applySideEffects(any(ContentInteraction.class), any());
+        assertThat(pipeline.awaitIdle(WAIT_MS)).isTrue();
+        ArgumentCaptor<List<ContentInteraction>> stored = captor();
+        verify(batchWriter, times(2)).insertAll(stored.capture());
+        assertThat(stored.getAllValues().get(1)).extracting(ContentInteraction::getContentId).containsExactly("c2");
+        verify(acknowledgment, times(2)).acknowledge();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        assertThat(meterRegistry.counter("analytics.dedup.duplicates", "consumer", IngestPipeline.CONSUMER_GROUP).count())
+            .isEqualTo(1.0);
+    }
+
+    @Test(description = "a batch that fails before it is stored is left unacknowledged and halts the pipeline until recovered")
+    public void failedBatch_haltsUntilRecovered() throws Exception {
+        // Given - parsing one message blows up
+        InteractionEventParser parser = spy(new InteractionEventParser(new ObjectMapper()));
+        doThrow(new IllegalStateException("parser bug")).when(parser).parse("boom");
+        pipeline = pipeline(4, parser);
+        CountDownLatch halted = new CountDownLatch(1);
+        pipeline.onHalt(halted::countDown);
+        Acknowledgment failedAck = mock(Acknowledgment.class);
+        Acknowledgment ignoredAck = mock(Acknowledgment.class);
+
+        // When
+        pipeline.submit(List.of(record(event("content_viewed", "c1")), record("boom")), failedAck);
+
+        // Then - nothing is acknowledged, the batch is released and the listener asked to restart
+        assertThat(halted.await(WAIT_MS, TimeUnit.MILLISECONDS)).isTrue();
+        assertThat(pipeline.awaitIdle(WAIT_MS)).isTrue();
+        assertThat(pipeline.isHalted()).isTrue();
+        assertThat(meterRegistry.counter("analytics.ingest.halts").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.counter("analytics.ingest.failed").count()).isEqualTo(2.0);
+
+        // When - the old listener submits once more before it stops
+        pipeline.submit(List.of(record(event("content_viewed", "c2"))), ignoredAck);
+
+        // Then - ignored
+        assertThat(pipeline.awaitIdle(WAIT_MS)).isTrue();
+        verify(batchWriter, never()).insertAll(anyList());
+
+        // When - the restarted listener delivers the first record again
+        pipeline.recover();
+        pipeline.submit(List.of(record(event("content_viewed", "c1"))), acknowledgment);
+
+        // Then - its key was released, so it is stored and acknowledged
+        verify(eventProcessingService, timeout(WAIT_MS)).applySideEffects(any(ContentInteraction.class), any());
+        verify(acknowledgment).acknowledge();
+        verify(batchWriter).insertAll(anyList());
+        verify(failedAck, never()).acknowledge();
+        verify(ignoredAck, never()).acknowledge();
+    }
+
+    @Test(description = "a stalled database fills the buffers, pauses consumption, and resumes once drained")
+    public void submit_pausesWhileDatabaseIsSlow() throws Exception {
+        // Given - inserts block until released
+        pipeline = pipeline(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(batchWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            release.await();
+            return 1;
+        });
+        AtomicBoolean listenerPaused = new AtomicBoolean();
+        pipeline.onBackpressure(() -> listenerPaused.set(true), () -> listenerPaused.set(false));
+
+        // When - feed batches like a listener would, until every buffer is full
+        int submitted = 0;
+        long deadline = System.currentTimeMillis() + WAIT_MS;
+        while (!saturated() && System.currentTimeMillis() < deadline) {
+            if (listenerPaused.get()) {
+                Thread.sleep(5);
+                continue;
+            }
+            pipeline.submit(List.of(record(event("content_viewed", "c" + submitted))), mock(Acknowledgment.class));
+            submitted++;
+        }
+
+        // Then - consumption stays paused with at most two batches per stage in flight
+        assertThat(saturated()).isTrue();
+        assertThat(listenerPaused).isTrue();
+        assertThat(submitted).isLessThanOrEqualTo(6);
+        assertThat(meterRegistry.counter("analytics.ingest.pauses").count()).isGreaterThanOrEqualTo(1.0);
+
+        // When - the database catches up
+        release.countDown();
+
+        // Then
+        verify(batchWriter, timeout(WAIT_MS).times(submitted)).insertAll(anyList());
+        deadline = System.currentTimeMillis() + WAIT_MS;
+        while (listenerPaused.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(listenerPaused).isFalse();
+        assertThat(pipeline.isPaused()).isFalse();
+    }
+
+    // Helper method to check for the steady saturated state: paused, with the
+    // parse, enrich and persist buffers full behind a blocked insert
+    private boolean saturated() throws InterruptedException {
+        if (!pipeline.isPaused() || pipeline.pendingBatches() < 3) {
+            return false;
+        }
+        Thread.sleep(20);
+        return pipeline.isPaused() && pipeline.pendingBatches() == 3;
+    }
+
+    // Helper method to build a pipeline around the mocks
+    private IngestPipeline pipeline(int stageCapacity) {
+        return pipeline(stageCapacity, new InteractionEventParser(new ObjectMapper()));
+    }
+
+    private IngestPipeline pipeline(int stageCapacity, InteractionEventParser parser) {
+        return new IngestPipeline(
+            parser, eventProcessingService, batchWriter,
+            new EventDeduplicator(jdbcTemplate, meterRegistry, 48), TransactionOperations.withoutTransaction(),
+            meterRegistry, stageCapacity, 1, 4);
+    }
+
+    // Helper method to build an event message
+    private String event(String eventType, String contentId) {
+        return "{\"eventType\": \"" + eventType + "\", \"userId\": \"" + userId
+            + "\", \"contentId\": \"" + contentId + "\", \"timestamp\": 1700000000000, \"score\": 70}";
+    }
+
+    // Helper method to wrap a message in a consumer record produced just now
+    private static ConsumerRecord<String, String> record(String value) {
+        return new ConsumerRecord<>("content-interactions", 0, 0L, System.currentTimeMillis(),
+            TimestampType.CREATE_TIME, -1, -1, null, value, new RecordHeaders(), Optional.empty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<ContentInteraction>> captor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+}
@@ -0,0 +1,94 @@
+package com.gradepath.content.analytics.pipeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.model.InteractionType;
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for InteractionEventParser.
+ * Tests mapping of content-interactions messages to interaction rows.
+ */
+@Test(groups = "unit")
+public class InteractionEventParserTest {
+
+    private final InteractionEventParser parser = new InteractionEventParser(new ObjectMapper());
+    private final UUID userId = UUID.randomUUID();
+
+    @Test(description = "views map to VIEWED rows with the event timestamp")
+    public void parse_viewed() {
+        // When
+        ContentInteraction interaction = parser.parse(event("content_viewed", "c1", ", \"sessionId\": \"s1\""));
+
+        // Then
+        assertThat(interaction.getUserId()).isEqualTo(userId);
+        assertThat(interaction.getContentId()).isEqualTo("c1");
+        assertThat(interaction.getInteractionType()).isEqualTo(InteractionType.VIEWED);
+        assertThat(interaction.getSessionId()).isEqualTo("s1");
+        assertThat(interaction.getTimestamp()).isEqualTo(Instant.ofEpochMilli(1700000000000L));
+        assertThat(interaction.getMetadata()).isNull();
+    }
+
+    @Test(description = "completions and assessments carry score metadata")
+    public void parse_completed() {
+        // When
+        ContentInteraction completed = parser.parse(event("content_completed", "c2", ", \"score\": 80, \"passed\": true"));
+        ContentInteraction assessment = parser.parse(event("assessment_completed", "c3", ", \"score\": 40"));
+
+        // Then
+        assertThat(completed.getInteractionType()).isEqualTo(InteractionType.COMPLETED);
+        assertThat(completed.getMetadata()).containsEntry("score", 80).containsEntry("passed", true);
+        assertThat(assessment.getInteractionType()).isEqualTo(InteractionType.COMPLETED);
+        assertThat(assessment.getMetadata()).containsEntry("score", 40);
+    }
+
+    @Test(description = "reactions map through metadata.reaction, defaulting to liked")
+    public void parse_reactions() {
+        // When
+        ContentInteraction bookmarked =
+            parser.parse(event("content_reaction", "c1", ", \"metadata\": {\"reaction\": \"bookmarked\"}"));
+        ContentInteraction unspecified = parser.parse(event("content_reaction", "c1", ""));
+        ContentInteraction unknown =
+            parser.parse(event("content_reaction", "c1", ", \"metadata\": {\"reaction\": \"confused\"}"));
+
+        // Then
+        assertThat(bookmarked.getInteractionType()).isEqualTo(InteractionType.BOOKMARKED);
+        assertThat(unspecified.getInteractionType()).isEqualTo(InteractionType.LIKED);
+        assertThat(unknown.getInteractionType()).isEqualTo(InteractionType.VIEWED);
+    }
+
+    @Test(description = "field order does not matter and unknown nested fields are skipped")
+    public void parse_anyFieldOrder() {
+        // Given - eventType last, after nested objects the parser does not use
+        String message = "{\"device\": {\"os\": \"ios\", \"flags\": [1, {\"a\": 2}]}, \"userId\": \"" + userId
+            + "\", \"contentId\": \"c9\", \"metadata\": {\"extra\": [1], \"reaction\": \"shared\"},"
+            + " \"eventType\": \"content_reaction\"}";
+
+        // When
+        ContentInteraction interaction = parser.parse(message);
+
+        // Then
+        assertThat(interaction.getContentId()).isEqualTo("c9");
+        assertThat(interaction.getInteractionType()).isEqualTo(InteractionType.SHARED);
+    }
+
+    @Test(description = "malformed JSON, bad user ids and unknown event types yield null")
+    public void parse_rejectsMalformed() {
+        assertThat(parser.parse("not json")).isNull();
+        assertThat(parser.parse("[\"content_viewed\"]")).isNull();
+        assertThat(parser.parse("{\"eventType\": \"content_viewed\", \"userId\": ")).isNull();
+        assertThat(parser.parse(event("content_viewed", "c1", "").replace(userId.toString(), "not-a-uuid"))).isNull();
+        assertThat(parser.parse(event("something_else", "c1", ""))).isNull();
+    }
+
+    // Helper method to build an event message
+    private String event(String eventType, String contentId, String extra) {
+        return "{\"eventType\": \"" + eventType + "\", \"userId\": \"" + userId
+            + "\", \"contentId\": \"" + contentId + "\", \"timestamp\": 1700000000000" + extra + "}";
+    }
+}
@@ -0,0 +1,116 @@
+package com.gradepath.content.analytics.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.model.InteractionType;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for InteractionBatchWriter.
+ * Tests statement chunking and the parameter limit.
+ */
+@Test(groups = "unit")
+public class InteractionBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+            .thenAnswer(invocation -> countRows(invocation.getArgument(0)));
+    }
+
+    @Test(description = "a batch is split into full statements plus one for the remainder")
+    public void insertAll_chunksByRowsPerStatement() {
+        // Given
+        InteractionBatchWriter writer = new InteractionBatchWriter(jdbcTemplate, new ObjectMapper(), 4);
+
+        // When
+        int written = writer.insertAll(interactions(10));
+
+        // Then
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(3)).update(sql.capture(), any(PreparedStatementSetter.class));
+        assertThat(sql.getAllValues()).extracting(InteractionBatchWriterTest::countRows).containsExactly(4, 4, 2);
+        assertThat(written).isEqualTo(10);
+    }
+
+    @Test(description = "an empty batch issues no statements")
+    public void insertAll_empty() {
+        // Given
+        InteractionBatchWriter writer = new InteractionBatchWriter(jdbcTemplate, new ObjectMapper(), 4);
+
+        // When
+        int written = writer.insertAll(List.of());
+
+        // Then
+        verify(jdbcTemplate, times(0)).update(anyString(), any(PreparedStatementSetter.class));
+        assertThat(written).isZero();
+    }
+
+    @Test(description = "rows per statement is capped so bind parameters stay under the Postgres limit")
+    public void rowsPerStatement_cappedByParameterLimit() {
+        // When
+        InteractionBatchWriter writer = new InteractionBatchWriter(jdbcTemplate, new ObjectMapper(), 100_000);
+
+        // Then
+        assertThat(writer.rowsPerStatement() * InteractionBatchWriter.COLUMNS)
+            .isLessThanOrEqualTo(InteractionBatchWriter.MAX_PARAMETERS);
+    }
+
+    @Test(description = "rows per statement must be positive")
+    public void rowsPerStatement_rejectsZero() {
+        assertThatThrownBy(() -> new InteractionBatchWriter(jdbcTemplate, new ObjectMapper(), 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test(description = "generated SQL has one placeholder group per row")
+    public void insertSql_placeholdersPerRow() {
+        // When
+        String sql = InteractionBatchWriter.insertSql(3);
+
+        // Then
+        assertThat(sql).startsWith("INSERT INTO content_interactions");
+        assertThat(sql.chars().filter(c -> c == '?').count()).isEqualTo(3L * InteractionBatchWriter.COLUMNS);
+    }
+
+    // Helper method to count the row groups in a generated statement
+    private static int countRows(String sql) {
+        return sql.split("CAST\\(", -1).length - 1;
+    }
+
+    // Helper method to build interactions
+    private static List<ContentInteraction> interactions(int count) {
+        List<ContentInteraction> interactions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            interactions.add(ContentInteraction.builder()
+                .userId(UUID.randomUUID())
+                .contentId("content-" + i)
+                .interactionType(InteractionType.VIEWED)
+                .timestamp(Instant.now())
+                .build());
+        }
+        return interactions;
+    }
+}
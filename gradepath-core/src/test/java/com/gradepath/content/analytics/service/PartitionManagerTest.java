@@ -0,0 +1,70 @@
+package com.gradepath.content.analytics.service;
+
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PartitionManager.
+ * Tests which monthly partitions get created and which count as expired.
+ */
+@Test(groups = "unit")
+public class PartitionManagerTest {
+
+    private final YearMonth current = YearMonth.of(2026, 10);
+
+    @Test(description = "creates the months after the newest bound through months-ahead")
+    public void monthsToCreate_continuesFromCoverage() {
+        // Given - partitions exist up to 2026-12-01
+        Instant coveredUntil = Instant.parse("2026-12-01T00:00:00Z");
+
+        // When
+        List<YearMonth> months = PartitionManager.monthsToCreate(coveredUntil, current, 3);
+
+        // Then
+        assertThat(months).containsExactly(YearMonth.of(2026, 12), YearMonth.of(2027, 1));
+    }
+
+    @Test(description = "nothing to create once coverage reaches months-ahead")
+    public void monthsToCreate_fullyCovered() {
+        // When
+        List<YearMonth> months = PartitionManager.monthsToCreate(Instant.parse("2027-02-01T00:00:00Z"), current, 3);
+
+        // Then
+        assertThat(months).isEmpty();
+    }
+
+    @Test(description = "stale coverage never creates partitions for past months")
+    public void monthsToCreate_skipsPastMonths() {
+        // When
+        List<YearMonth> months = PartitionManager.monthsToCreate(Instant.parse("2026-03-01T00:00:00Z"), current, 1);
+
+        // Then
+        assertThat(months).containsExactly(YearMonth.of(2026, 10), YearMonth.of(2026, 11));
+    }
+
+    @Test(description = "only partitions entirely before the cutoff, or stuck mid-detach, expire")
+    public void expiredPartitions_byUpperBound() {
+        // Given
+        Instant cutoff = Instant.parse("2026-07-01T00:00:00Z");
+        PartitionManager.Partition legacy =
+            new PartitionManager.Partition("content_interactions_legacy", Instant.parse("2026-06-01T00:00:00Z"), false);
+        PartitionManager.Partition june =
+            new PartitionManager.Partition("content_interactions_p202606", Instant.parse("2026-07-01T00:00:00Z"), false);
+        PartitionManager.Partition july =
+            new PartitionManager.Partition("content_interactions_p202607", Instant.parse("2026-08-01T00:00:00Z"), false);
+        PartitionManager.Partition pending =
+            new PartitionManager.Partition("content_interactions_p202608", Instant.parse("2026-09-01T00:00:00Z"), true);
+
+        // When
+        List<PartitionManager.Partition> expired =
+            PartitionManager.expiredPartitions(List.of(legacy, june, july, pending), cutoff);
+
+        // Then
+        assertThat(expired).containsExactly(legacy, june, pending);
+    }
+}
@@ -0,0 +1,185 @@
+package com.gradepath.content.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gradepath.content.analytics.dto.ContentEventDto;
+import com.gradepath.content.analytics.model.ContentInteraction;
+import com.gradepath.content.analytics.pipeline.InteractionEventParser;
+import com.gradepath.content.profiling.RawBehavioralEvent;
+import com.gradepath.content.profiling.RawBehavioralEventDecoder;
+import com.gradepath.content.profiling.algorithm.InterestScorer;
+import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import com.gradepath.content.recommendation.profile.ProfileUpdateDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka message decoding: the streaming decoders against the tree-based path
+ * they replaced (readTree, then treeToValue or has()/get() lookups).
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.gradepath.content.benchmark.EventDecodingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventDecodingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private InteractionEventParser interactionParser;
+    private RawBehavioralEventDecoder rawEventDecoder;
+    private ProfileUpdateDecoder profileUpdateDecoder;
+
+    private String interactionMessage;
+    private String journeyMessage;
+    private String profileUpdateMessage;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        interactionParser = new InteractionEventParser(objectMapper);
+        rawEventDecoder = new RawBehavioralEventDecoder(objectMapper.getFactory());
+        profileUpdateDecoder = new ProfileUpdateDecoder(objectMapper);
+
+        String userId = UUID.randomUUID().toString();
+        interactionMessage = """
+            {"eventType": "content_completed", "userId": "%s", "sessionId": "session-42",
+             "contentId": "content-1234", "contentType": "VIDEO", "timeSpentSeconds": 312,
+             "score": 85, "passed": true, "platform": "ios", "appVersion": "3.14.0",
+             "metadata": {"reaction": "liked", "device": {"model": "iPhone15,2", "os": "17.4"}},
+             "timestamp": 1760000000000}
+            """.formatted(userId);
+        journeyMessage = """
+            {"topic": "content_journey", "journeyId": "journey-7", "userId": "%s",
+             "sessionId": "session-42", "contentId": "content-1234", "contentType": "VIDEO",
+             "action": "completed", "sequencePosition": 4, "timeInContentSeconds": 312,
+             "topicTags": ["algebra", "equations", "linear-functions"], "difficultyLevel": "3",
+             "previousContentId": "content-1233", "timestamp": 1760000000000,
+             "client": {"platform": "ios", "appVersion": "3.14.0"}}
+            """.formatted(userId);
+        profileUpdateMessage = objectMapper.writeValueAsString(Map.of(
+            "userId", userId,
+            "profile", profile(userId),
+            "timestamp", Instant.ofEpochMilli(1760000000000L)));
+    }
+
+    @Benchmark
+    public ContentInteraction interactionStreaming() {
+        return interactionParser.parse(interactionMessage);
+    }
+
+    @Benchmark
+    public ContentEventDto interactionTree() throws Exception {
+        JsonNode json = objectMapper.readTree(interactionMessage);
+        if (!json.has("eventType")) {
+            return null;
+        }
+        return objectMapper.treeToValue(json, ContentEventDto.class);
+    }
+
+    @Benchmark
+    public RawBehavioralEvent journeyStreaming() throws Exception {
+        return rawEventDecoder.decode(journeyMessage);
+    }
+
+    @Benchmark
+    public InterestScorer.RawJourneyEvent journeyTree() throws Exception {
+        JsonNode event = objectMapper.readTree(journeyMessage);
+        List<String> topicTags = new ArrayList<>();
+        for (JsonNode tag : event.get("topicTags")) {
+            topicTags.add(tag.asText());
+        }
+        return new InterestScorer.RawJourneyEvent(
+            text(event, "journeyId"),
+            text(event, "userId"),
+            text(event, "sessionId"),
+            text(event, "contentId"),
+            text(event, "contentType"),
+            text(event, "action"),
+            event.has("sequencePosition") ? event.get("sequencePosition").asInt() : null,
+            event.has("timeInContentSeconds") ? event.get("timeInContentSeconds").asInt() : null,
+            topicTags,
+            text(event, "difficultyLevel"),
+            text(event, "previousContentId"),
+            event.has("timestamp") ? event.get("timestamp").asLong() : null
+        );
+    }
+
+    @Benchmark
+    public ProfileUpdateDecoder.ProfileUpdate profileUpdateStreaming() throws Exception {
+        return profileUpdateDecoder.decode(profileUpdateMessage);
+    }
+
+    @Benchmark
+    public BehavioralProfile profileUpdateTree() throws Exception {
+        JsonNode json = objectMapper.readTree(profileUpdateMessage);
+        BehavioralProfile profile = objectMapper.treeToValue(json.get("profile"), BehavioralProfile.class);
+        if (profile.getTimestamp() == null && json.has("timestamp")) {
+            profile.setTimestamp(objectMapper.treeToValue(json.get("timestamp"), Instant.class));
+        }
+        return profile;
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.has(field) && !node.get(field).isNull() ? node.get(field).asText() : null;
+    }
+
+    // Helper method to build a profile with a realistic number of interests and paths
+    private static BehavioralProfile profile(String userId) {
+        Map<String, BehavioralProfile.InterestScore> interests = new HashMap<>();
+        for (int i = 0; i < 25; i++) {
+            interests.put("topic-" + i, BehavioralProfile.InterestScore.builder()
+                .score(1.0 / (i + 1))
+                .build());
+        }
+        return BehavioralProfile.builder()
+            .userId(userId)
+            .interests(interests)
+            .engagement(BehavioralProfile.EngagementPattern.builder()
+                .classification("deep_learner")
+                .confidence(0.8)
+                .avgSessionDuration(900.0)
+                .avgContentPerSession(6.0)
+                .timePerContentRatio(150.0)
+                .uniqueTopicRatio(0.4)
+                .build())
+            .peakWindows(List.of())
+            .commonPaths(List.of())
+            .totalSessions(40)
+            .totalContentConsumed(260)
+            .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(EventDecodingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
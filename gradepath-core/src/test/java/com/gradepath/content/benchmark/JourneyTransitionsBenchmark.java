@@ -0,0 +1,125 @@
+package com.gradepath.content.benchmark;
+
+import com.gradepath.content.profiling.algorithm.InterestScorer;
+import com.gradepath.content.profiling.algorithm.JourneyAnalyzer;
+import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import com.gradepath.content.recommendation.profile.BehavioralProfile.ContentTransition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-event cost of JourneyAnalyzer common paths as the global transition
+ * graph grows: the maintained leaderboard against the full scan and sort it
+ * replaced. analyzeJourney should stay flat across graph sizes while
+ * fullScan grows linearly.
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.gradepath.content.benchmark.JourneyTransitionsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JourneyTransitionsBenchmark {
+
+    private static final int OUT_DEGREE = 10;
+    private static final int EVENTS = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    private int transitions;
+
+    private JourneyAnalyzer analyzer;
+    private BehavioralProfile profile;
+    private InterestScorer.RawJourneyEvent[] events;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        analyzer = new JourneyAnalyzer();
+        profile = BehavioralProfile.builder()
+            .userId("user-1")
+            .interests(new HashMap<>())
+            .engagement(BehavioralProfile.EngagementPattern.builder().classification("unknown").build())
+            .totalContentConsumed(1)
+            .build();
+
+        // Each source content leads to OUT_DEGREE others, twice each
+        int sources = transitions / OUT_DEGREE;
+        for (int from = 0; from < sources; from++) {
+            for (int to = 0; to < OUT_DEGREE; to++) {
+                analyzer.analyzeJourney(profile, event("c" + from, "c" + (from + to + 1)));
+                analyzer.analyzeJourney(profile, event("c" + from, "c" + (from + to + 1)));
+            }
+        }
+
+        events = new InterestScorer.RawJourneyEvent[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            int from = (i * 7919) % sources;
+            events[i] = event("c" + from, "c" + (from + 1 + i % OUT_DEGREE));
+        }
+    }
+
+    @Benchmark
+    public List<ContentTransition> analyzeJourney() {
+        analyzer.analyzeJourney(profile, events[next++ & (EVENTS - 1)]);
+        return profile.getCommonPaths();
+    }
+
+    @Benchmark
+    public List<ContentTransition> fullScan() {
+        List<ContentTransition> result = new ArrayList<>();
+        analyzer.getTransitionMatrix().forEach((fromContent, toMap) -> {
+            int totalFrom = toMap.values().stream().mapToInt(Integer::intValue).sum();
+            toMap.forEach((toContent, frequency) -> {
+                if (frequency >= 2) {
+                    result.add(ContentTransition.builder()
+                        .fromContent(fromContent)
+                        .toContent(toContent)
+                        .frequency(frequency)
+                        .probability((double) frequency / totalFrom)
+                        .build());
+                }
+            });
+        });
+        return result.stream()
+            .sorted((a, b) -> Integer.compare(b.getFrequency(), a.getFrequency()))
+            .limit(20)
+            .collect(Collectors.toList());
+    }
+
+    private static InterestScorer.RawJourneyEvent event(String from, String to) {
+        return new InterestScorer.RawJourneyEvent(
+            "journey-1", "user-1", "session-1", to, "VIDEO", "completed",
+            1, 60, List.of("algebra"), "3", from, 1760000000000L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JourneyTransitionsBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
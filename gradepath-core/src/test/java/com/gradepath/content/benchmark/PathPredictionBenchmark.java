@@ -0,0 +1,96 @@
+package com.gradepath.content.benchmark;
+
+import com.gradepath.content.recommendation.algorithm.NextInPathPredictor;
+import com.gradepath.content.recommendation.algorithm.PathTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of next-in-path candidates and of learning one journey step, after the
+ * predictor has seen a given number of steps. Both should stay within a few
+ * microseconds as the trie fills up to its node bound.
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)" \
+ *     com.gradepath.content.benchmark.PathPredictionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathPredictionBenchmark {
+
+    private static final int CONTENTS = 10_000;
+    private static final int PATHS = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    private int steps;
+
+    private NextInPathPredictor predictor;
+    private List<List<String>> paths;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        predictor = NextInPathPredictor.inMemory();
+        Random random = new Random(7);
+
+        // Journeys mostly move to one of a few neighbours, sometimes jump
+        List<String> path = new ArrayList<>();
+        int current = 0;
+        for (int i = 0; i < steps; i++) {
+            int following = random.nextInt(10) == 0 ? random.nextInt(CONTENTS) : (current + 1 + random.nextInt(4)) % CONTENTS;
+            predictor.observeContent(path, "c" + following);
+            path.add("c" + following);
+            if (path.size() > predictor.maxOrder()) {
+                path.remove(0);
+            }
+            current = following;
+        }
+
+        paths = new ArrayList<>(PATHS);
+        for (int i = 0; i < PATHS; i++) {
+            int start = random.nextInt(CONTENTS);
+            paths.add(List.of("c" + start, "c" + (start + 1) % CONTENTS, "c" + (start + 2) % CONTENTS));
+        }
+    }
+
+    @Benchmark
+    public List<PathTrie.Prediction> nextContent() {
+        return predictor.nextContent(paths.get(next++ & (PATHS - 1)), 20);
+    }
+
+    @Benchmark
+    public void observeContent() {
+        List<String> path = paths.get(next++ & (PATHS - 1));
+        predictor.observeContent(path.subList(0, 2), path.get(2));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PathPredictionBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
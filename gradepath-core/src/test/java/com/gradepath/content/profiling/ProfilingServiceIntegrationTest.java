@@ -135,6 +135,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When: process the raw event
         profilingService.processRawBehavioralEvent(message);
+        profilingService.flush();
 
         // Then: profile is persisted to database
         Optional<BehavioralProfile> profile = profileService.findByUserId("integration-user-1");
@@ -164,10 +165,11 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When
         profilingService.processRawBehavioralEvent(message);
+        profilingService.flush();
 
         // Then: Kafka message is sent
         verify(kafkaTemplate, timeout(5).times(1))
-            .send(eq("profile-updates"), anyString());
+            .send(eq("profile-updates"), anyString(), anyString());
     }
 
     @Test(description = "Process multiple journey events and accumulate profile data")
@@ -210,6 +212,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
         profilingService.processRawBehavioralEvent(event1);
         profilingService.processRawBehavioralEvent(event2);
         profilingService.processRawBehavioralEvent(event3);
+        profilingService.flush();
 
         // Then: profile shows accumulated data
         Optional<BehavioralProfile> profile = profileService.findByUserId("multi-event-user");
@@ -241,6 +244,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When
         profilingService.processRawBehavioralEvent(message);
+        profilingService.flush();
 
         // Then: profile is created and session count is updated
         // Note: Engagement metrics require multiple sessions (MIN_SESSIONS_FOR_CLASSIFICATION)
@@ -278,6 +282,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
         // When
         profilingService.processRawBehavioralEvent(journeyEvent);
         profilingService.processRawBehavioralEvent(sessionEvent);
+        profilingService.flush();
 
         // Then: profile has both interest and session data
         Optional<BehavioralProfile> profile = profileService.findByUserId("combined-user");
@@ -311,6 +316,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When: process event
         profilingService.processRawBehavioralEvent(message);
+        profilingService.flush();
 
         // Then: profile persists across retrievals
         Optional<BehavioralProfile> profile1 = profileService.findByUserId("persistence-user");
@@ -334,6 +340,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When: should not throw exception
         profilingService.processRawBehavioralEvent(invalidMessage);
+        profilingService.flush();
 
         // Then: no profile created
         Optional<BehavioralProfile> profile = profileService.findByUserId("any-user");
@@ -352,6 +359,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
 
         // When: should not throw
         profilingService.processRawBehavioralEvent(message);
+        profilingService.flush();
 
         // Then: no profile created
         Optional<BehavioralProfile> profile = profileService.findByUserId("no-topic-user");
@@ -377,6 +385,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
             """;
 
         profilingService.processRawBehavioralEvent(event1);
+        profilingService.flush();
 
         Optional<BehavioralProfile> initialProfile = profileService.findByUserId("decay-user");
         double initialScore = initialProfile.get().getInterests().get("history").getScore();
@@ -396,6 +405,7 @@ public class ProfilingServiceIntegrationTest extends AbstractTestNGSpringContext
             """;
 
         profilingService.processRawBehavioralEvent(event2);
+        profilingService.flush();
 
         // Then: old interest should still exist but might have decayed
         Optional<BehavioralProfile> updatedProfile = profileService.findByUserId("decay-user");
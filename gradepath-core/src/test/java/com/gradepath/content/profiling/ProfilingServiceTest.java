@@ -1,26 +1,37 @@
 package com.gradepath.content.profiling;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.gradepath.content.analytics.dedup.EventDeduplicator;
 import com.gradepath.content.profiling.algorithm.EngagementClassifier;
 import com.gradepath.content.profiling.algorithm.InterestScorer;
 import com.gradepath.content.profiling.algorithm.JourneyAnalyzer;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
 import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
@@ -33,6 +44,8 @@ import static org.mockito.Mockito.*;
 @Test(groups = "unit")
 public class ProfilingServiceTest {
 
+    private static final long WAIT_MS = 2000;
+
     @Mock
     private InterestScorer interestScorer;
 
@@ -48,24 +61,48 @@ public class ProfilingServiceTest {
     @Mock
     private KafkaTemplate<String, Object> kafkaTemplate;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
     private ProfilingService profilingService;
+    private ProfilingWorkers workers;
+    private SimpleMeterRegistry meterRegistry;
     private ObjectMapper objectMapper;
+    private RawBehavioralEventDecoder decoder;
 
     @BeforeMethod
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
+        decoder = new RawBehavioralEventDecoder(objectMapper.getFactory());
+        meterRegistry = new SimpleMeterRegistry();
+        workers = new ProfilingWorkers(meterRegistry, 2, 100, WAIT_MS);
         profilingService = new ProfilingService(
             objectMapper,
             interestScorer,
             engagementClassifier,
             journeyAnalyzer,
             profileService,
-            kafkaTemplate
+            kafkaTemplate,
+            new EventDeduplicator(jdbcTemplate, new SimpleMeterRegistry(), 48),
+            TransactionOperations.withoutTransaction(),
+            workers,
+            meterRegistry,
+            3,
+            1,
+            FLUSH_MAX_EVENTS
         );
     }
 
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        workers.shutdown();
+    }
+
     // Helper method to create a fresh profile
     private BehavioralProfile createFreshProfile(String userId) {
         return BehavioralProfile.builder()
@@ -113,8 +150,11 @@ public class ProfilingServiceTest {
         // Then
         verify(interestScorer).updateInterests(any(), any());
         verify(journeyAnalyzer).analyzeJourney(any(), any());
-        verify(profileService).saveProfile(any());
-        verify(kafkaTemplate).send(eq("profile-updates"), anyString());
+        verify(profileService, never()).saveProfiles(anyCollection());
+
+        profilingService.flush();
+        verify(profileService).saveProfiles(anyCollection());
+        verify(kafkaTemplate).send(eq("profile-updates"), anyString(), anyString());
     }
 
     @Test
@@ -137,8 +177,10 @@ public class ProfilingServiceTest {
 
         // Then
         verify(engagementClassifier).updateEngagement(any(), any());
-        verify(profileService).saveProfile(any());
-        verify(kafkaTemplate).send(eq("profile-updates"), anyString());
+
+        profilingService.flush();
+        verify(profileService).saveProfiles(anyCollection());
+        verify(kafkaTemplate).send(eq("profile-updates"), anyString(), anyString());
     }
 
     @Test
@@ -189,6 +231,257 @@ public class ProfilingServiceTest {
         verify(interestScorer, never()).updateInterests(any(), any());
     }
 
+    // ========================================
+    // Consume Tests
+    // ========================================
+
+    @Test
+    public void consumeRawBehavioralEvent_redelivery_appliedOnce() throws Exception {
+        // Given
+        ConsumerRecord<String, String> record = record(JOURNEY_MESSAGE, "user-123", 0);
+        when(profileService.findByUserId("user-123")).thenReturn(Optional.empty());
+
+        // When: the same record is delivered twice
+        profilingService.consumeRawBehavioralEvent(record, acknowledgment);
+        profilingService.consumeRawBehavioralEvent(record, acknowledgment);
+        verify(acknowledgment, timeout(WAIT_MS).times(2)).acknowledge();
+        profilingService.flush();
+
+        // Then: scored and stored once, with its dedup key
+        verify(interestScorer, times(1)).updateInterests(any(), any());
+        assertThat(flushedProfiles()).hasSize(1);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+        assertThat(getProfileFromCache("user-123").getTotalContentConsumed()).isEqualTo(1);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_appliedOnOwningWorker() throws Exception {
+        // Given: record the thread each event is scored on
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> threads.add(Thread.currentThread().getName()))
+            .when(interestScorer).updateInterests(any(), any());
+        when(profileService.findByUserId(anyString())).thenReturn(Optional.empty());
+
+        // When: events for the same user arrive on different partitions
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-123", "c1"), "user-123", 0), acknowledgment);
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-123", "c2"), "user-123", 1), acknowledgment);
+
+        // Then: both ran on the user's worker
+        verify(acknowledgment, timeout(WAIT_MS).times(2)).acknowledge();
+        assertThat(threads).containsOnly("profiling-" + workers.ownerOf("user-123"));
+        assertThat(getProfileFromCache("user-123").getTotalContentConsumed()).isEqualTo(2);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_loadFails_retriesOnFreshProfile() throws Exception {
+        // Given
+        ConsumerRecord<String, String> record = record(JOURNEY_MESSAGE, "user-123", 0);
+        when(profileService.findByUserId("user-123"))
+            .thenThrow(new IllegalStateException("connection reset"))
+            .thenReturn(Optional.empty());
+
+        // When
+        profilingService.consumeRawBehavioralEvent(record, acknowledgment);
+
+        // Then: retried against a reloaded profile, applied exactly once
+        verify(acknowledgment, timeout(WAIT_MS)).acknowledge();
+        verify(profileService, times(2)).findByUserId("user-123");
+        assertThat(getProfileFromCache("user-123").getTotalContentConsumed()).isEqualTo(1);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_loadKeepsFailing_skipsEvent() throws Exception {
+        // Given
+        ConsumerRecord<String, String> record = record(JOURNEY_MESSAGE, "user-123", 0);
+        when(profileService.findByUserId("user-123")).thenThrow(new IllegalStateException("connection reset"));
+
+        // When
+        profilingService.consumeRawBehavioralEvent(record, acknowledgment);
+
+        // Then: acknowledged after the last attempt, nothing left cached
+        verify(acknowledgment, timeout(WAIT_MS)).acknowledge();
+        verify(profileService, times(3)).findByUserId("user-123");
+        assertThat(getProfileFromCache("user-123")).isNull();
+        assertThat(meterRegistry.counter("profiling.events.failed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_notKeyedByUser_countedAndApplied() throws Exception {
+        // Given
+        when(profileService.findByUserId("user-123")).thenReturn(Optional.empty());
+
+        // When: one record keyed by its user, one from a producer that sets no key
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-123", "c1"), "user-123", 0), acknowledgment);
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-123", "c2"), null, 1), acknowledgment);
+
+        // Then: both applied, only the unkeyed one counted
+        verify(acknowledgment, timeout(WAIT_MS).times(2)).acknowledge();
+        assertThat(getProfileFromCache("user-123").getTotalContentConsumed()).isEqualTo(2);
+        assertThat(meterRegistry.counter("profiling.events.unkeyed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_journeyWithoutAction_rejectedUpFront() throws Exception {
+        // Given
+        String message = """
+            {"topic": "content_journey", "userId": "user-123", "contentId": "content-abc", "topicTags": ["math"]}
+            """;
+
+        // When
+        profilingService.consumeRawBehavioralEvent(record(message, "user-123", 0), acknowledgment);
+
+        // Then: acknowledged without touching the profile or any worker state
+        verify(acknowledgment).acknowledge();
+        verify(profileService, never()).findByUserId(anyString());
+        verify(interestScorer, never()).updateInterests(any(), any());
+        assertThat(meterRegistry.counter("profiling.events.rejected").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_applyFails_skipsWithoutRetryOrEviction() throws Exception {
+        // Given
+        when(profileService.findByUserId("user-123")).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("scoring bug")).when(interestScorer).updateInterests(any(), any());
+
+        // When
+        profilingService.consumeRawBehavioralEvent(record(JOURNEY_MESSAGE, "user-123", 0), acknowledgment);
+
+        // Then: applied once, the user's in-memory state is kept
+        verify(acknowledgment, timeout(WAIT_MS)).acknowledge();
+        verify(interestScorer, times(1)).updateInterests(any(), any());
+        verify(profileService, times(1)).findByUserId("user-123");
+        verify(journeyAnalyzer, never()).forgetUser(anyString());
+        verify(engagementClassifier, never()).forgetUser(anyString());
+        assertThat(meterRegistry.counter("profiling.events.failed").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_maxEventsPending_flushesUser() throws Exception {
+        // Given
+        when(profileService.findByUserId("user-123")).thenReturn(Optional.empty());
+
+        // When: the user reaches the pending event limit before any scheduled flush
+        for (int i = 0; i < FLUSH_MAX_EVENTS; i++) {
+            profilingService.consumeRawBehavioralEvent(
+                record(journeyMessage("user-123", "content-" + i), "user-123", 0), acknowledgment);
+        }
+
+        // Then: stored once, carrying every event
+        verify(acknowledgment, timeout(WAIT_MS).times(FLUSH_MAX_EVENTS)).acknowledge();
+        verify(profileService).saveProfiles(anyCollection());
+        assertThat(meterRegistry.counter("profiling.flush.events").count()).isEqualTo(FLUSH_MAX_EVENTS);
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isZero();
+    }
+
+    @Test
+    public void partitionsRevoked_storesAndEvictsUsersSeenOnThem() throws Exception {
+        // Given: one user seen on partition 0, another on partition 1
+        when(profileService.findByUserId(anyString())).thenReturn(Optional.empty());
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-a", "c1"), "user-a", 0), acknowledgment);
+        profilingService.consumeRawBehavioralEvent(record(journeyMessage("user-b", "c1"), "user-b", 1), acknowledgment);
+        verify(acknowledgment, timeout(WAIT_MS).times(2)).acknowledge();
+
+        // When
+        workers.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("raw-behavioral-events", 0)));
+
+        // Then: user-a is stored before being dropped, user-b is still pending
+        ArgumentCaptor<Collection<BehavioralProfile>> stored = profilesCaptor();
+        verify(profileService).saveProfiles(stored.capture());
+        assertThat(stored.getValue()).extracting(BehavioralProfile::getUserId).containsExactly("user-a");
+        assertThat(getProfileFromCache("user-a")).isNull();
+        assertThat(getProfileFromCache("user-b")).isNotNull();
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void consumeRawBehavioralEvent_malformedJson_acknowledgesAndSkips() throws Exception {
+        // When
+        profilingService.consumeRawBehavioralEvent(record("invalid json {", null, 0), acknowledgment);
+
+        // Then
+        verify(acknowledgment).acknowledge();
+        verify(interestScorer, never()).updateInterests(any(), any());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    // ========================================
+    // Flush Tests
+    // ========================================
+
+    @Test
+    public void flush_coalescesEventsPerUser() {
+        // Given: three events for one user, one for another
+        when(profileService.findByUserId(anyString())).thenReturn(Optional.empty());
+        profilingService.processRawBehavioralEvent(journeyMessage("user-123", "c1"));
+        profilingService.processRawBehavioralEvent(journeyMessage("user-123", "c2"));
+        profilingService.processRawBehavioralEvent(journeyMessage("user-123", "c3"));
+        profilingService.processRawBehavioralEvent(journeyMessage("user-456", "c1"));
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isEqualTo(2.0);
+
+        // When
+        profilingService.flush();
+
+        // Then: one row and one update per user
+        assertThat(flushedProfiles()).extracting(BehavioralProfile::getUserId)
+            .containsExactlyInAnyOrder("user-123", "user-456");
+        verify(kafkaTemplate, times(2)).send(eq("profile-updates"), anyString(), anyString());
+        assertThat(meterRegistry.counter("profiling.flush.events").count()).isEqualTo(4.0);
+        assertThat(meterRegistry.counter("profiling.flush.profiles").count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isZero();
+        assertThat(meterRegistry.get("profiling.flush.latency").timer().count()).isPositive();
+    }
+
+    @Test
+    public void pruneInterests_prunesEveryCachedProfile() {
+        // Given: cached profiles on both workers
+        when(profileService.findByUserId(anyString())).thenReturn(Optional.empty());
+        profilingService.processRawBehavioralEvent(journeyMessage("user-123", "c1"));
+        profilingService.processRawBehavioralEvent(journeyMessage("user-456", "c1"));
+
+        // When
+        profilingService.pruneInterests();
+
+        // Then: pruned on the owning workers, without writing anything
+        verify(interestScorer).pruneInterests(eq(getProfileFromCache("user-123")), any(Instant.class));
+        verify(interestScorer).pruneInterests(eq(getProfileFromCache("user-456")), any(Instant.class));
+        verify(profileService, never()).saveProfiles(anyCollection());
+    }
+
+    @Test
+    public void flush_nothingDirty_writesNothing() {
+        // When
+        profilingService.flush();
+
+        // Then
+        verify(profileService, never()).saveProfiles(anyCollection());
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void flush_saveFails_keepsProfileDirtyThenDrops() {
+        // Given
+        when(profileService.findByUserId("user-123")).thenReturn(Optional.empty());
+        doThrow(new IllegalStateException("connection reset")).when(profileService).saveProfiles(anyCollection());
+        profilingService.processRawBehavioralEvent(JOURNEY_MESSAGE);
+
+        // When: the first flush fails
+        profilingService.flush();
+
+        // Then: still pending for the next one
+        assertThat(getProfileFromCache("user-123")).isNotNull();
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isEqualTo(1.0);
+
+        // When: flushes keep failing
+        profilingService.flush();
+        profilingService.flush();
+
+        // Then: dropped after persist-attempts, nothing emitted
+        assertThat(getProfileFromCache("user-123")).isNull();
+        assertThat(meterRegistry.get("profiling.dirty.profiles").gauge().value()).isZero();
+        assertThat(meterRegistry.counter("profiling.events.failed").count()).isEqualTo(1.0);
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
     // ========================================
     // Process Journey Event Tests
     // ========================================
@@ -196,7 +489,7 @@ public class ProfilingServiceTest {
     @Test
     public void processJourneyEvent_createsNewProfile() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        InterestScorer.RawJourneyEvent event = journey("""
             {
                 "topic": "content_journey",
                 "userId": "new-user",
@@ -213,10 +506,7 @@ public class ProfilingServiceTest {
         ReflectionTestUtils.invokeMethod(profilingService, "processJourneyEvent", event);
 
         // Then: profile is created with defaults
-        ArgumentCaptor<BehavioralProfile> captor = ArgumentCaptor.forClass(BehavioralProfile.class);
-        verify(profileService).saveProfile(captor.capture());
-
-        BehavioralProfile savedProfile = captor.getValue();
+        BehavioralProfile savedProfile = flushedProfiles().get(0);
         assertThat(savedProfile.getUserId()).isEqualTo("new-user");
         assertThat(savedProfile.getTotalContentConsumed()).isEqualTo(1);
     }
@@ -227,7 +517,7 @@ public class ProfilingServiceTest {
         BehavioralProfile existingProfile = createFreshProfile("existing-user");
         existingProfile.setTotalContentConsumed(5);
 
-        JsonNode event = objectMapper.readTree("""
+        InterestScorer.RawJourneyEvent event = journey("""
             {
                 "topic": "content_journey",
                 "userId": "existing-user",
@@ -244,17 +534,14 @@ public class ProfilingServiceTest {
         ReflectionTestUtils.invokeMethod(profilingService, "processJourneyEvent", event);
 
         // Then: existing profile is used and updated
-        ArgumentCaptor<BehavioralProfile> captor = ArgumentCaptor.forClass(BehavioralProfile.class);
-        verify(profileService).saveProfile(captor.capture());
-
-        BehavioralProfile savedProfile = captor.getValue();
+        BehavioralProfile savedProfile = flushedProfiles().get(0);
         assertThat(savedProfile.getTotalContentConsumed()).isEqualTo(6); // 5 + 1
     }
 
     @Test
     public void processJourneyEvent_savesProfile() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        InterestScorer.RawJourneyEvent event = journey("""
             {
                 "topic": "content_journey",
                 "userId": "user-123",
@@ -270,14 +557,16 @@ public class ProfilingServiceTest {
         // When
         ReflectionTestUtils.invokeMethod(profilingService, "processJourneyEvent", event);
 
-        // Then
-        verify(profileService).saveProfile(any());
+        // Then: stored on the next flush
+        verify(profileService, never()).saveProfiles(anyCollection());
+        profilingService.flush();
+        verify(profileService).saveProfiles(anyCollection());
     }
 
     @Test
     public void processJourneyEvent_emitsProfileUpdate() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        InterestScorer.RawJourneyEvent event = journey("""
             {
                 "topic": "content_journey",
                 "userId": "user-123",
@@ -292,9 +581,10 @@ public class ProfilingServiceTest {
 
         // When
         ReflectionTestUtils.invokeMethod(profilingService, "processJourneyEvent", event);
+        profilingService.flush();
 
         // Then
-        verify(kafkaTemplate).send(eq("profile-updates"), anyString());
+        verify(kafkaTemplate).send(eq("profile-updates"), anyString(), anyString());
     }
 
     // ========================================
@@ -304,7 +594,7 @@ public class ProfilingServiceTest {
     @Test
     public void processSessionEvent_sessionEnd_processes() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        RawBehavioralEvent.SessionLifecycle event = session("""
             {
                 "topic": "session_lifecycle",
                 "userId": "user-123",
@@ -328,7 +618,7 @@ public class ProfilingServiceTest {
     @Test
     public void processSessionEvent_sessionStart_ignored() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        RawBehavioralEvent.SessionLifecycle event = session("""
             {
                 "topic": "session_lifecycle",
                 "userId": "user-123",
@@ -348,7 +638,7 @@ public class ProfilingServiceTest {
     @Test
     public void processSessionEvent_missingDuration_defaultsTo0() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        RawBehavioralEvent.SessionLifecycle event = session("""
             {
                 "topic": "session_lifecycle",
                 "userId": "user-123",
@@ -369,7 +659,7 @@ public class ProfilingServiceTest {
     @Test
     public void processSessionEvent_missingContentCount_defaultsTo0() throws Exception {
         // Given
-        JsonNode event = objectMapper.readTree("""
+        RawBehavioralEvent.SessionLifecycle event = session("""
             {
                 "topic": "session_lifecycle",
                 "userId": "user-123",
@@ -450,7 +740,7 @@ public class ProfilingServiceTest {
         BehavioralProfile profile = createFreshProfile("kafka-fail-user");
         setProfileInCache("kafka-fail-user", profile);
 
-        doThrow(new RuntimeException("Kafka down")).when(kafkaTemplate).send(anyString(), anyString());
+        doThrow(new RuntimeException("Kafka down")).when(kafkaTemplate).send(anyString(), anyString(), anyString());
 
         // When: should not throw
         ReflectionTestUtils.invokeMethod(profilingService, "emitProfileUpdate", profile);
@@ -460,159 +750,57 @@ public class ProfilingServiceTest {
     }
 
     // ========================================
-    // Parse Journey Event Tests
+    // Helper Methods
     // ========================================
 
-    @Test
-    public void parseJourneyEvent_allFieldsPresent() throws Exception {
-        // Given
-        JsonNode event = objectMapper.readTree("""
-            {
-                "journeyId": "j-123",
-                "userId": "user-abc",
-                "sessionId": "s-456",
-                "contentId": "content-789",
-                "contentType": "video",
-                "action": "completed",
-                "sequencePosition": 1,
-                "timeInContentSeconds": 120,
-                "topicTags": ["math", "algebra"],
-                "difficultyLevel": "intermediate",
-                "previousContentId": "content-old",
-                "timestamp": 1234567890
-            }
-            """);
+    private static final int FLUSH_MAX_EVENTS = 3;
 
-        // When
-        InterestScorer.RawJourneyEvent result = (InterestScorer.RawJourneyEvent)
-            ReflectionTestUtils.invokeMethod(profilingService, "parseJourneyEvent", event);
-
-        // Then: all fields parsed correctly
-        assertThat(result.journeyId()).isEqualTo("j-123");
-        assertThat(result.userId()).isEqualTo("user-abc");
-        assertThat(result.contentId()).isEqualTo("content-789");
-        assertThat(result.action()).isEqualTo("completed");
-        assertThat(result.topicTags()).containsExactly("math", "algebra");
+    // Helper method to flush and collect every profile stored so far
+    private List<BehavioralProfile> flushedProfiles() {
+        profilingService.flush();
+        ArgumentCaptor<Collection<BehavioralProfile>> captor = profilesCaptor();
+        verify(profileService, atLeastOnce()).saveProfiles(captor.capture());
+        return captor.getAllValues().stream().flatMap(Collection::stream).toList();
     }
 
-    @Test
-    public void parseJourneyEvent_missingOptionalFields() throws Exception {
-        // Given
-        JsonNode event = objectMapper.readTree("""
-            {
-                "userId": "user-xyz",
-                "contentId": "content-simple",
-                "action": "started"
-            }
-            """);
-
-        // When
-        InterestScorer.RawJourneyEvent result = (InterestScorer.RawJourneyEvent)
-            ReflectionTestUtils.invokeMethod(profilingService, "parseJourneyEvent", event);
-
-        // Then: optional fields are null
-        assertThat(result.userId()).isEqualTo("user-xyz");
-        assertThat(result.timeInContentSeconds()).isNull();
-        assertThat(result.topicTags()).isEmpty();
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<BehavioralProfile>> profilesCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
     }
 
-    // ========================================
-    // Helper Method Tests
-    // ========================================
+    private static final String JOURNEY_MESSAGE = journeyMessage("user-123", "content-abc");
 
-    @Test
-    public void getValue_nullField_returnsNull() throws Exception {
-        // Given
-        JsonNode node = objectMapper.readTree("""
+    private static String journeyMessage(String userId, String contentId) {
+        return """
             {
-                "field1": "value1",
-                "field2": null
+                "topic": "content_journey",
+                "userId": "%s",
+                "contentId": "%s",
+                "action": "completed",
+                "topicTags": ["math"],
+                "timeInContentSeconds": 120
             }
-            """);
-
-        // When
-        String result = (String) ReflectionTestUtils.invokeMethod(
-            profilingService, "getValue", node, "field2"
-        );
-
-        // Then: returns null
-        assertThat(result).isNull();
-    }
-
-    @Test
-    public void getValue_missingField_returnsNull() throws Exception {
-        // Given
-        JsonNode node = objectMapper.readTree("{\"field1\": \"value1\"}");
-
-        // When
-        String result = (String) ReflectionTestUtils.invokeMethod(
-            profilingService, "getValue", node, "missingField"
-        );
-
-        // Then: returns null
-        assertThat(result).isNull();
+            """.formatted(userId, contentId);
     }
 
-    @Test
-    public void getListValue_arrayField_returnsList() throws Exception {
-        // Given
-        JsonNode node = objectMapper.readTree("{\"tags\": [\"a\", \"b\", \"c\"]}");
-
-        // When
-        @SuppressWarnings("unchecked")
-        List<String> result = (List<String>) ReflectionTestUtils.invokeMethod(
-            profilingService, "getListValue", node, "tags"
-        );
-
-        // Then: returns list
-        assertThat(result).containsExactly("a", "b", "c");
+    private static ConsumerRecord<String, String> record(String message, String key, int partition) {
+        return new ConsumerRecord<>("raw-behavioral-events", partition, 0L, System.currentTimeMillis(),
+            TimestampType.CREATE_TIME, -1, -1, key, message, new RecordHeaders(), Optional.empty());
     }
 
-    @Test
-    public void getListValue_missingField_returnsEmptyList() throws Exception {
-        // Given
-        JsonNode node = objectMapper.readTree("{\"otherField\": \"value\"}");
-
-        // When
-        @SuppressWarnings("unchecked")
-        List<String> result = (List<String>) ReflectionTestUtils.invokeMethod(
-            profilingService, "getListValue", node, "tags"
-        );
-
-        // Then: returns empty list
-        assertThat(result).isEmpty();
+    private InterestScorer.RawJourneyEvent journey(String message) throws Exception {
+        return ((RawBehavioralEvent.ContentJourney) decoder.decode(message)).journey();
     }
 
-    @Test
-    public void getListValue_nonArrayField_returnsEmptyList() throws Exception {
-        // Given
-        JsonNode node = objectMapper.readTree("{\"tags\": \"not-an-array\"}");
-
-        // When
-        @SuppressWarnings("unchecked")
-        List<String> result = (List<String>) ReflectionTestUtils.invokeMethod(
-            profilingService, "getListValue", node, "tags"
-        );
-
-        // Then: returns empty list
-        assertThat(result).isEmpty();
+    private RawBehavioralEvent.SessionLifecycle session(String message) throws Exception {
+        return (RawBehavioralEvent.SessionLifecycle) decoder.decode(message);
     }
 
-    // ========================================
-    // Helper Methods
-    // ========================================
-
     private BehavioralProfile getProfileFromCache(String userId) {
-        @SuppressWarnings("unchecked")
-        Map<String, BehavioralProfile> cache = (Map<String, BehavioralProfile>)
-            ReflectionTestUtils.getField(profilingService, "profileCache");
-        return cache.get(userId);
+        return profilingService.cachedProfiles(userId).get(userId);
     }
 
     private void setProfileInCache(String userId, BehavioralProfile profile) {
-        @SuppressWarnings("unchecked")
-        Map<String, BehavioralProfile> cache = (Map<String, BehavioralProfile>)
-            ReflectionTestUtils.getField(profilingService, "profileCache");
-        cache.put(userId, profile);
+        profilingService.cachedProfiles(userId).put(userId, profile);
     }
 }
@@ -0,0 +1,98 @@
+package com.gradepath.content.profiling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.utils.Utils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ProfilingWorkers.
+ * Tests user ownership, per-user ordering, draining and revocation.
+ */
+@Test(groups = "unit")
+public class ProfilingWorkersTest {
+
+    private static final int WORKERS = 4;
+    private static final long WAIT_MS = 2000;
+
+    private ProfilingWorkers workers;
+
+    @BeforeMethod
+    public void setUp() {
+        workers = new ProfilingWorkers(new SimpleMeterRegistry(), WORKERS, 100, WAIT_MS);
+    }
+
+    @AfterMethod
+    public void tearDown() throws InterruptedException {
+        workers.shutdown();
+    }
+
+    @Test(description = "a user is owned by the worker matching Kafka's default partition for their key")
+    public void ownerOf_matchesKafkaPartitioner() {
+        for (String userId : List.of("user-1", "user-2", "user-3", "a", "")) {
+            int partition = Utils.toPositive(Utils.murmur2(userId.getBytes(StandardCharsets.UTF_8))) % WORKERS;
+            assertThat(workers.ownerOf(userId)).isEqualTo(partition);
+        }
+    }
+
+    @Test(description = "work for one user runs on its owner's thread in submission order")
+    public void execute_runsInOrderOnOwner() throws Exception {
+        // Given
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            workers.execute("user-1", () -> {
+                order.add(n);
+                threads.add(Thread.currentThread().getName());
+            });
+        }
+
+        // Then
+        assertThat(workers.awaitIdle(WAIT_MS)).isTrue();
+        assertThat(order).hasSize(50).isSorted();
+        assertThat(threads).containsOnly("profiling-" + workers.ownerOf("user-1"));
+    }
+
+    @Test(description = "a failed task completes its future exceptionally and the worker keeps running")
+    public void submit_propagatesFailure() throws Exception {
+        // When
+        CompletableFuture<Void> failed = workers.submit("user-1", () -> { throw new IllegalStateException("boom"); });
+        CompletableFuture<Void> next = workers.submit("user-1", () -> { });
+
+        // Then
+        assertThat(failed).failsWithin(Duration.ofMillis(WAIT_MS));
+        assertThat(next).succeedsWithin(Duration.ofMillis(WAIT_MS));
+    }
+
+    @Test(description = "revocation runs the handler once on every worker's own thread")
+    public void revoke_runsHandlerOnEveryWorker() {
+        // Given
+        Map<Integer, String> calls = new ConcurrentHashMap<>();
+        workers.onRevoked((worker, partitions) -> {
+            assertThat(partitions).containsExactly(3);
+            calls.put(worker, Thread.currentThread().getName());
+        });
+
+        // When
+        workers.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("raw-behavioral-events", 3)));
+
+        // Then
+        assertThat(calls).hasSize(WORKERS);
+        calls.forEach((worker, thread) -> assertThat(thread).isEqualTo("profiling-" + worker));
+    }
+}
@@ -0,0 +1,116 @@
+package com.gradepath.content.profiling;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.gradepath.content.profiling.algorithm.InterestScorer;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for RawBehavioralEventDecoder.
+ * Tests topic routing, field binding and skipping of unknown fields.
+ */
+@Test(groups = "unit")
+public class RawBehavioralEventDecoderTest {
+
+    private final RawBehavioralEventDecoder decoder = new RawBehavioralEventDecoder(new JsonFactory());
+
+    @Test(description = "content_journey binds every journey field, whatever the field order")
+    public void decode_contentJourney() throws IOException {
+        // Given - topic last, with an unknown nested object in between
+        String message = """
+            {"userId": "user-1", "journeyId": "j-1", "sessionId": "s-1", "contentId": "c-2",
+             "contentType": "VIDEO", "action": "completed", "sequencePosition": 3,
+             "timeInContentSeconds": "45", "client": {"os": "ios", "tags": [1, 2]},
+             "topicTags": ["math", "algebra"], "difficultyLevel": 2, "previousContentId": null,
+             "timestamp": 1700000000000, "topic": "content_journey"}
+            """;
+
+        // When
+        RawBehavioralEvent event = decoder.decode(message);
+
+        // Then
+        assertThat(event).isInstanceOf(RawBehavioralEvent.ContentJourney.class);
+        InterestScorer.RawJourneyEvent journey = ((RawBehavioralEvent.ContentJourney) event).journey();
+        assertThat(journey).isEqualTo(new InterestScorer.RawJourneyEvent(
+            "j-1", "user-1", "s-1", "c-2", "VIDEO", "completed", 3, 45,
+            List.of("math", "algebra"), "2", null, 1700000000000L));
+    }
+
+    @Test(description = "session_lifecycle binds metrics, defaulting missing counts to zero")
+    public void decode_sessionLifecycle() throws IOException {
+        // When
+        RawBehavioralEvent event = decoder.decode("""
+            {"topic": "session_lifecycle", "userId": "user-1", "eventType": "session_end", "durationSeconds": 600}
+            """);
+
+        // Then
+        assertThat(event).isEqualTo(new RawBehavioralEvent.SessionLifecycle("user-1", "session_end", 600, 0));
+    }
+
+    @Test(description = "missing and unknown topics decode as unhandled")
+    public void decode_unhandledTopics() throws IOException {
+        assertThat(decoder.decode("{\"userId\": \"user-1\"}"))
+            .isEqualTo(new RawBehavioralEvent.Unhandled("user-1", null));
+        assertThat(decoder.decode("{\"topic\": \"page_scroll\", \"userId\": \"user-1\"}"))
+            .isEqualTo(new RawBehavioralEvent.Unhandled("user-1", "page_scroll"));
+    }
+
+    @Test(description = "a journey without topic tags gets an empty list")
+    public void decode_missingTopicTags() throws IOException {
+        // When
+        RawBehavioralEvent event = decoder.decode("{\"topic\": \"content_journey\", \"userId\": \"user-1\"}");
+
+        // Then
+        assertThat(((RawBehavioralEvent.ContentJourney) event).journey().topicTags()).isEmpty();
+    }
+
+    @Test(description = "a journey with only the required fields leaves optional fields null")
+    public void decode_missingOptionalFields() throws IOException {
+        // When
+        InterestScorer.RawJourneyEvent journey = ((RawBehavioralEvent.ContentJourney) decoder.decode("""
+            {"topic": "content_journey", "userId": "user-xyz", "contentId": "content-simple", "action": "started"}
+            """)).journey();
+
+        // Then
+        assertThat(journey.userId()).isEqualTo("user-xyz");
+        assertThat(journey.timeInContentSeconds()).isNull();
+        assertThat(journey.sequencePosition()).isNull();
+        assertThat(journey.timestamp()).isNull();
+        assertThat(journey.difficultyLevel()).isNull();
+    }
+
+    @Test(description = "null text fields and non-array topic tags decode as null and empty")
+    public void decode_nullAndMistypedFields() throws IOException {
+        // When
+        InterestScorer.RawJourneyEvent journey = ((RawBehavioralEvent.ContentJourney) decoder.decode("""
+            {"topic": "content_journey", "userId": "user-1", "contentId": null, "topicTags": "not-an-array"}
+            """)).journey();
+
+        // Then
+        assertThat(journey.contentId()).isNull();
+        assertThat(journey.topicTags()).isEmpty();
+    }
+
+    @Test(description = "null, object and array topic tags are skipped")
+    public void decode_skipsNonScalarTopicTags() throws IOException {
+        // When
+        InterestScorer.RawJourneyEvent journey = ((RawBehavioralEvent.ContentJourney) decoder.decode("""
+            {"topic": "content_journey", "userId": "user-1",
+             "topicTags": ["math", null, {"name": "x"}, ["y"], 7, "algebra"]}
+            """)).journey();
+
+        // Then
+        assertThat(journey.topicTags()).containsExactly("math", "7", "algebra");
+    }
+
+    @Test(description = "malformed JSON and non-object messages are rejected")
+    public void decode_rejectsMalformed() {
+        assertThatThrownBy(() -> decoder.decode("{\"topic\": ")).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decoder.decode("[1, 2]")).isInstanceOf(IOException.class);
+    }
+}
@@ -9,6 +9,7 @@ import java.time.Instant;
 import java.util.HashMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * Unit tests for InterestScorer algorithm.
@@ -32,6 +33,15 @@ public class InterestScorerTest {
             .build();
     }
 
+    // Helper method to create an interest last updated at a given time
+    private BehavioralProfile.InterestScore interest(String topic, double score, Instant lastUpdated) {
+        return BehavioralProfile.InterestScore.builder()
+            .topic(topic)
+            .score(score)
+            .lastUpdated(lastUpdated)
+            .build();
+    }
+
     // ========================================
     // Update Interests Tests
     // ========================================
@@ -250,95 +260,114 @@ public class InterestScorerTest {
     // ========================================
 
     @Test(description = "interest decays to half after 7 days")
-    public void applyDecay_7DaysHalfLife() {
+    public void scoreAt_7DaysHalfLife() {
+        // Given: interest updated 7 days ago with score 20
+        Instant now = Instant.now();
+        BehavioralProfile.InterestScore interest = interest("math", 20.0, now.minus(Duration.ofDays(7)));
+
+        // Then: 20 * 0.5^(7/7) = 20 * 0.5 = 10
+        assertThat(interest.scoreAt(now)).isCloseTo(10.0, within(1e-9));
+        assertThat(interest.logScoreAt(now)).isCloseTo(Math.log(10.0), within(1e-9));
+    }
+
+    @Test(description = "interest decays to quarter after 14 days")
+    public void scoreAt_14Days_quarterRemaining() {
+        // Given: interest updated 14 days ago with score 40
+        Instant now = Instant.now();
+        BehavioralProfile.InterestScore interest = interest("math", 40.0, now.minus(Duration.ofDays(14)));
+
+        // Then: 40 * 0.5^(14/7) = 40 * 0.25 = 10
+        assertThat(interest.scoreAt(now)).isCloseTo(10.0, within(1e-9));
+    }
+
+    @Test(description = "decaying in steps gives the same score as decaying once")
+    public void scoreAt_stepwise_matchesSingleDecay() {
+        // Given
+        Instant updated = Instant.now().minus(Duration.ofDays(10));
+        BehavioralProfile.InterestScore interest = interest("math", 40.0, updated);
+
+        // When: decayed to day 3, stored, then decayed to day 10
+        Instant dayThree = updated.plus(Duration.ofDays(3));
+        BehavioralProfile.InterestScore stored = interest("math", interest.scoreAt(dayThree), dayThree);
+
+        // Then
+        Instant now = updated.plus(Duration.ofDays(10));
+        assertThat(stored.scoreAt(now)).isCloseTo(interest.scoreAt(now), within(1e-9));
+    }
+
+    @Test(description = "updateInterests leaves other topics' stored scores untouched")
+    public void updateInterests_otherTopics_notDecayedOnWrite() {
         // Given: interest from 7 days ago with score 20
         BehavioralProfile profile = createFreshProfile();
         Instant sevenDaysAgo = Instant.now().minus(Duration.ofDays(7));
-        profile.getInterests().put("math", BehavioralProfile.InterestScore.builder()
-            .topic("math")
-            .score(20.0)
-            .lastUpdated(sevenDaysAgo)
-            .build());
+        profile.getInterests().put("math", interest("math", 20.0, sevenDaysAgo));
 
-        // When: trigger decay by adding a fresh event
+        // When: an event for another topic
         InterestScorer.RawJourneyEvent event = new InterestScorer.RawJourneyEvent(
             "j1", "user-1", "s1", "c1", "video", "completed",
             1, 60, java.util.List.of("physics"), "intermediate", null, 123456789L
         );
         scorer.updateInterests(profile, event);
 
-        // Then: 20 * 0.5^(7/7) = 20 * 0.5 = 10
-        // Note: physics gets added with score 20, math decays to 10
-        assertThat(profile.getInterests().get("math").getScore()).isEqualTo(10.0);
+        // Then: math keeps its stored score and time, and reads as 10
+        BehavioralProfile.InterestScore math = profile.getInterests().get("math");
+        assertThat(math.getScore()).isEqualTo(20.0);
+        assertThat(math.getLastUpdated()).isEqualTo(sevenDaysAgo);
+        assertThat(math.scoreAt(Instant.now())).isCloseTo(10.0, within(1e-3));
         assertThat(profile.getInterests().get("physics").getScore()).isEqualTo(20.0);
     }
 
-    @Test(description = "interest decays to quarter after 14 days")
-    public void applyDecay_14Days_quarterRemaining() {
-        // Given: interest from 14 days ago with score 40
+    @Test(description = "updateInterests decays the existing score before applying EMA")
+    public void updateInterests_staleTopic_decaysThenAppliesEMA() {
+        // Given: math score of 50, 7 days old
         BehavioralProfile profile = createFreshProfile();
-        Instant fourteenDaysAgo = Instant.now().minus(Duration.ofDays(14));
-        profile.getInterests().put("math", BehavioralProfile.InterestScore.builder()
-            .topic("math")
-            .score(40.0)
-            .lastUpdated(fourteenDaysAgo)
-            .build());
+        profile.getInterests().put("math", interest("math", 50.0, Instant.now().minus(Duration.ofDays(7))));
 
-        // When: trigger decay by adding a fresh event
+        // and: a new event with addedScore = 10 * 2.0 * 1.0 = 20
         InterestScorer.RawJourneyEvent event = new InterestScorer.RawJourneyEvent(
-            "j1", "user-1", "s1", "c1", "video", "completed",
-            1, 60, java.util.List.of("physics"), "intermediate", null, 123456789L
+            "j2", "user-1", "s1", "c2", "video", "completed",
+            2, 60, java.util.List.of("math"), "intermediate", null, 123456790L
         );
+
+        // When
         scorer.updateInterests(profile, event);
 
-        // Then: 40 * 0.5^(14/7) = 40 * 0.25 = 10
-        assertThat(profile.getInterests().get("math").getScore()).isEqualTo(10.0);
+        // Then: 25 * (1 - 0.3) + 20 * 0.3 = 17.5 + 6 = 23.5, stored as of now
+        BehavioralProfile.InterestScore math = profile.getInterests().get("math");
+        assertThat(math.getScore()).isCloseTo(23.5, within(1e-3));
+        assertThat(math.getLastUpdated()).isAfter(Instant.now().minus(Duration.ofMinutes(1)));
     }
 
-    @Test(description = "interest below threshold is removed")
-    public void applyDecay_removesBelowThreshold() {
-        // Given: interest from 21 days ago with low score (3 half-lives)
+    @Test(description = "pruneInterests removes interests decayed below 1.0")
+    public void pruneInterests_lowScore_isRemoved() {
+        // Given: 3 * 0.25 = 0.75 < 1.0 after 14 days, 8 * 0.5 = 4 after 7 days
         BehavioralProfile profile = createFreshProfile();
-        Instant twentyOneDaysAgo = Instant.now().minus(Duration.ofDays(21));
-        profile.getInterests().put("math", BehavioralProfile.InterestScore.builder()
-            .topic("math")
-            .score(8.0)  // 8 * 0.5^3 = 1.0, just at threshold, let's use lower
-            .lastUpdated(twentyOneDaysAgo)
-            .build());
+        Instant now = Instant.now();
+        profile.getInterests().put("math", interest("math", 3.0, now.minus(Duration.ofDays(14))));
+        profile.getInterests().put("physics", interest("physics", 8.0, now.minus(Duration.ofDays(7))));
 
-        // When: trigger decay by adding a fresh event
-        InterestScorer.RawJourneyEvent event = new InterestScorer.RawJourneyEvent(
-            "j1", "user-1", "s1", "c1", "video", "completed",
-            1, 60, java.util.List.of("physics"), "intermediate", null, 123456789L
-        );
-        scorer.updateInterests(profile, event);
+        // When
+        boolean pruned = scorer.pruneInterests(profile, now);
 
-        // Then: 8 * 0.5^(21/7) = 8 * 0.125 = 1.0, at threshold, so it stays
-        // Let's use a lower score to guarantee removal
-        // 1.5 * 0.125 = 0.1875 < 1.0 threshold, removed
+        // Then
+        assertThat(pruned).isTrue();
+        assertThat(profile.getInterests()).doesNotContainKey("math");
+        assertThat(profile.getInterests()).containsKey("physics");
     }
 
-    @Test(description = "interest below 1.0 threshold is removed after decay")
-    public void applyDecay_lowScore_isRemoved() {
-        // Given: interest from 14 days ago with low score (2 half-lives)
+    @Test(description = "pruneInterests keeps interests above the threshold")
+    public void pruneInterests_freshScores_keepsAll() {
+        // Given
         BehavioralProfile profile = createFreshProfile();
-        Instant fourteenDaysAgo = Instant.now().minus(Duration.ofDays(14));
-        profile.getInterests().put("math", BehavioralProfile.InterestScore.builder()
-            .topic("math")
-            .score(3.0)  // 3 * 0.25 = 0.75 < 1.0
-            .lastUpdated(fourteenDaysAgo)
-            .build());
+        Instant now = Instant.now();
+        profile.getInterests().put("math", interest("math", 20.0, now));
 
-        // When: trigger decay by adding a fresh event
-        InterestScorer.RawJourneyEvent event = new InterestScorer.RawJourneyEvent(
-            "j1", "user-1", "s1", "c1", "video", "completed",
-            1, 60, java.util.List.of("physics"), "intermediate", null, 123456789L
-        );
-        scorer.updateInterests(profile, event);
+        // When
+        boolean pruned = scorer.pruneInterests(profile, now);
 
-        // Then: 3 * 0.25 = 0.75 < 1.0, removed
-        assertThat(profile.getInterests()).doesNotContainKey("math");
-        assertThat(profile.getInterests()).containsKey("physics");
+        // Then
+        assertThat(pruned).isFalse();
+        assertThat(profile.getInterests()).containsKey("math");
     }
 
     // ========================================
@@ -375,12 +404,12 @@ public class InterestScorerTest {
         scorer.updateInterests(profile, event);
 
         // Then: timeWeight = min(0/60, 1.5) = 0, score = 10 * 2 * 0 = 0
-        // Since score (0) is below MIN_SCORE_THRESHOLD (1.0), the interest is removed by decay
+        // Since score (0) is below MIN_SCORE_THRESHOLD (1.0), the interest is not kept
         assertThat(profile.getInterests()).doesNotContainKey("math");
     }
 
     @Test(description = "fresh event has no decay applied")
-    public void applyDecay_freshEvent_noDecayApplied() {
+    public void updateInterests_freshInterest_noDecayApplied() {
         // Given: interest just created
         BehavioralProfile profile = createFreshProfile();
         profile.getInterests().put("math", BehavioralProfile.InterestScore.builder()
@@ -1,6 +1,9 @@
 package com.gradepath.content.profiling.algorithm;
 
+import com.gradepath.content.recommendation.algorithm.NextInPathPredictor;
+import com.gradepath.content.recommendation.algorithm.PathTrie;
 import com.gradepath.content.recommendation.profile.BehavioralProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -9,6 +12,7 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
 
 /**
  * Unit tests for JourneyAnalyzer algorithm.
@@ -209,6 +213,36 @@ public class JourneyAnalyzerTest {
         assertThat(paths).hasSize(20);
     }
 
+    @Test(description = "updateCommonPaths admits a transition once it outgrows the top 20")
+    public void updateCommonPaths_lateTransition_replacesLeastFrequent() {
+        // Given: 20 transitions with frequency 2 fill the common paths
+        BehavioralProfile profile = createFreshProfile("user-late");
+        for (int i = 1; i <= 20; i++) {
+            for (int j = 0; j < 2; j++) {
+                analyzer.analyzeJourney(profile, new InterestScorer.RawJourneyEvent(
+                    "j" + i, "user-late", "s1", "c" + i, "video", "completed",
+                    i, 60, List.of("math"), "intermediate", "c0", 123456789L + i
+                ));
+            }
+        }
+
+        // When: a new transition from another content reaches frequency 3
+        for (int j = 0; j < 3; j++) {
+            analyzer.analyzeJourney(profile, new InterestScorer.RawJourneyEvent(
+                "late", "user-late", "s1", "c99", "video", "completed",
+                21, 60, List.of("math"), "intermediate", "c50", 123456900L + j
+            ));
+        }
+
+        // Then: it leads, with its own source's probability
+        List<BehavioralProfile.ContentTransition> paths = profile.getCommonPaths();
+        assertThat(paths).hasSize(20);
+        assertThat(paths.get(0).getFromContent()).isEqualTo("c50");
+        assertThat(paths.get(0).getFrequency()).isEqualTo(3);
+        assertThat(paths.get(0).getProbability()).isEqualTo(1.0);
+        assertThat(paths.get(1).getProbability()).isEqualTo(2.0 / 40);
+    }
+
     @Test(description = "updateCommonPaths filters by minimum threshold")
     public void updateCommonPaths_filtersByThreshold() {
         // Given
@@ -422,6 +456,149 @@ public class JourneyAnalyzerTest {
         assertThat(analyzer.getUserTopics("user-clear-topics")).isEmpty();
     }
 
+    // ========================================
+    // Persistence Tests
+    // ========================================
+
+    @Test(description = "a restarted analyzer predicts and ranks from stored transitions")
+    public void restart_fileBackedStore_keepsTransitions() throws Exception {
+        // Given: A→B×3 counted before a restart
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("transitions");
+        TransitionStore store = new TransitionStore(dir.toString(), 64, 16, new SimpleMeterRegistry());
+        JourneyAnalyzer before = new JourneyAnalyzer(1, store, NextInPathPredictor.inMemory());
+        BehavioralProfile profile = createFreshProfile("user-restart");
+        for (int i = 0; i < 3; i++) {
+            before.analyzeJourney(profile, new InterestScorer.RawJourneyEvent(
+                "j" + i, "user-restart", "s1", "B", "video", "completed",
+                1, 60, List.of("math"), "intermediate", "A", 123456789L + i
+            ));
+        }
+        store.close();
+
+        // When: a new analyzer over the same files sees one more A→C
+        JourneyAnalyzer after = new JourneyAnalyzer(
+            1, new TransitionStore(dir.toString(), 64, 16, new SimpleMeterRegistry()), NextInPathPredictor.inMemory());
+        BehavioralProfile restarted = createFreshProfile("user-restart");
+        after.analyzeJourney(restarted, new InterestScorer.RawJourneyEvent(
+            "j4", "user-restart", "s1", "C", "video", "completed",
+            1, 60, List.of("math"), "intermediate", "A", 123456800L
+        ));
+
+        // Then
+        assertThat(after.predictNext("A")).containsExactly("B");
+        assertThat(after.getTransitionMatrix().get("A")).containsOnly(entry("B", 3), entry("C", 1));
+        assertThat(restarted.getCommonPaths()).hasSize(1);
+        assertThat(restarted.getCommonPaths().get(0).getToContent()).isEqualTo("B");
+        assertThat(restarted.getCommonPaths().get(0).getProbability()).isEqualTo(0.75);
+    }
+
+    @Test(description = "decayTransitions halves counts and re-ranks common paths")
+    public void decayTransitions_halvesCounts() {
+        // Given: A→B×4, A→C×1
+        BehavioralProfile profile = createFreshProfile("user-decay");
+        for (int i = 0; i < 5; i++) {
+            analyzer.analyzeJourney(profile, new InterestScorer.RawJourneyEvent(
+                "j" + i, "user-decay", "s1", i < 4 ? "B" : "C", "video", "completed",
+                1, 60, List.of("math"), "intermediate", "A", 123456789L + i
+            ));
+        }
+
+        // When
+        analyzer.decayTransitions();
+        analyzer.analyzeJourney(profile, new InterestScorer.RawJourneyEvent(
+            "j5", "user-decay", "s1", "D", "video", "completed",
+            1, 60, List.of("math"), "intermediate", "A", 123456800L
+        ));
+
+        // Then: B halved to 2, C dropped, D new
+        assertThat(analyzer.getTransitionMatrix().get("A")).containsOnly(entry("B", 2), entry("D", 1));
+        assertThat(profile.getCommonPaths()).hasSize(1);
+        assertThat(profile.getCommonPaths().get(0).getFrequency()).isEqualTo(2);
+        assertThat(profile.getCommonPaths().get(0).getProbability()).isEqualTo(2.0 / 3);
+    }
+
+    // ========================================
+    // Recent Path Tests
+    // ========================================
+
+    @Test(description = "recentPath follows the journey, keeping the last max-order steps")
+    public void analyzeJourney_extendsRecentPath() {
+        // Given
+        BehavioralProfile profile = createFreshProfile("user-path");
+
+        // When: A → B → C → D → E
+        String[] steps = {"A", "B", "C", "D", "E"};
+        for (int i = 1; i < steps.length; i++) {
+            analyzer.analyzeJourney(profile, step("user-path", steps[i - 1], steps[i], "topic-" + steps[i]));
+        }
+
+        // Then
+        assertThat(profile.getRecentPath()).containsExactly("C", "D", "E");
+        assertThat(profile.getRecentTopics()).containsExactly("topic-C", "topic-D", "topic-E");
+    }
+
+    @Test(description = "a step that does not follow the last one starts a new path")
+    public void analyzeJourney_discontinuity_restartsPath() {
+        // Given
+        BehavioralProfile profile = createFreshProfile("user-jump");
+        analyzer.analyzeJourney(profile, step("user-jump", "A", "B", "math"));
+        analyzer.analyzeJourney(profile, step("user-jump", "B", "C", "physics"));
+
+        // When: the next event came from X, not C
+        analyzer.analyzeJourney(profile, step("user-jump", "X", "Y", "art"));
+
+        // Then
+        assertThat(profile.getRecentPath()).containsExactly("X", "Y");
+        assertThat(profile.getRecentTopics()).containsExactly("art");
+    }
+
+    @Test(description = "repeated topics are recorded once in recentTopics")
+    public void analyzeJourney_sameTopic_notRepeated() {
+        // Given
+        BehavioralProfile profile = createFreshProfile("user-topic");
+
+        // When
+        analyzer.analyzeJourney(profile, step("user-topic", "A", "B", "math"));
+        analyzer.analyzeJourney(profile, step("user-topic", "B", "C", "math"));
+        analyzer.analyzeJourney(profile, step("user-topic", "C", "D", "physics"));
+
+        // Then
+        assertThat(profile.getRecentPath()).containsExactly("B", "C", "D");
+        assertThat(profile.getRecentTopics()).containsExactly("math", "physics");
+    }
+
+    @Test(description = "journeys train the next-in-path predictor on the longer context")
+    public void analyzeJourney_trainsPathPredictor() {
+        // Given: A → B → C twice, X → B → D twice
+        NextInPathPredictor predictor = NextInPathPredictor.inMemory();
+        JourneyAnalyzer trained = new JourneyAnalyzer(1, TransitionStore.inMemory(), predictor);
+        for (int i = 0; i < 2; i++) {
+            BehavioralProfile first = createFreshProfile("user-a" + i);
+            trained.analyzeJourney(first, step("user-a" + i, "A", "B", "math"));
+            trained.analyzeJourney(first, step("user-a" + i, "B", "C", "math"));
+            BehavioralProfile second = createFreshProfile("user-x" + i);
+            trained.analyzeJourney(second, step("user-x" + i, "X", "B", "math"));
+            trained.analyzeJourney(second, step("user-x" + i, "B", "D", "math"));
+        }
+
+        // When
+        List<PathTrie.Prediction> afterA = predictor.nextContent(List.of("A", "B"), 1);
+        List<PathTrie.Prediction> afterX = predictor.nextContent(List.of("X", "B"), 1);
+
+        // Then: B alone is a coin flip, the path before it decides
+        assertThat(afterA).extracting(PathTrie.Prediction::symbol).containsExactly("C");
+        assertThat(afterX).extracting(PathTrie.Prediction::symbol).containsExactly("D");
+        assertThat(afterA.get(0).order()).isEqualTo(2);
+    }
+
+    // Helper method to create a step from one content to another
+    private InterestScorer.RawJourneyEvent step(String userId, String from, String to, String topic) {
+        return new InterestScorer.RawJourneyEvent(
+            "j-" + to, userId, "s1", to, "video", "completed",
+            1, 60, List.of(topic), "intermediate", from, 123456789L
+        );
+    }
+
     // ========================================
     // Probability Tests
     // ========================================
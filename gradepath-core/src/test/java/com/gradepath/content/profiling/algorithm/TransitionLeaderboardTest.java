@@ -0,0 +1,100 @@
+package com.gradepath.content.profiling.algorithm;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TransitionLeaderboard.
+ * Tests ranking, replacement of the least frequent transition, and exactness against a full count.
+ */
+@Test(groups = "unit")
+public class TransitionLeaderboardTest {
+
+    private TransitionLeaderboard leaderboard;
+
+    @BeforeMethod
+    public void setUp() {
+        leaderboard = new TransitionLeaderboard(3);
+    }
+
+    @Test(description = "top ranks transitions by frequency, ties by content")
+    public void top_ranksByFrequency() {
+        // Given
+        leaderboard.offer("a", "b", 2);
+        leaderboard.offer("a", "c", 5);
+        leaderboard.offer("a", "a", 2);
+
+        // Then
+        assertThat(leaderboard.top()).containsExactly(
+            new TransitionLeaderboard.Entry("a", "c", 5),
+            new TransitionLeaderboard.Entry("a", "a", 2),
+            new TransitionLeaderboard.Entry("a", "b", 2));
+    }
+
+    @Test(description = "a transition passing the least frequent one replaces it")
+    public void offer_full_replacesLeastFrequent() {
+        // Given: a full board with minimum 2
+        leaderboard.offer("a", "b", 4);
+        leaderboard.offer("a", "c", 3);
+        leaderboard.offer("a", "d", 2);
+
+        // When: one ties the minimum, another passes it
+        leaderboard.offer("x", "y", 2);
+        leaderboard.offer("x", "z", 3);
+
+        // Then
+        assertThat(leaderboard.top()).extracting(TransitionLeaderboard.Entry::to)
+            .containsExactly("b", "c", "z");
+    }
+
+    @Test(description = "a stale count never lowers a transition")
+    public void offer_staleCount_isIgnored() {
+        // Given
+        leaderboard.offer("a", "b", 6);
+
+        // When: an earlier count arrives late
+        leaderboard.offer("a", "b", 5);
+
+        // Then
+        assertThat(leaderboard.top()).containsExactly(new TransitionLeaderboard.Entry("a", "b", 6));
+    }
+
+    @Test(description = "the board matches the exact top transitions of a random stream")
+    public void offer_randomStream_matchesFullCount() {
+        // Given
+        TransitionLeaderboard board = new TransitionLeaderboard(10);
+        Map<String, Integer> counts = new HashMap<>();
+        Random random = new Random(42);
+
+        // When: a skewed stream over 200 transitions
+        for (int i = 0; i < 20_000; i++) {
+            int target = (int) Math.abs(random.nextGaussian() * 40) % 200;
+            String to = "c" + target;
+            board.offer("a", to, counts.merge(to, 1, Integer::sum));
+        }
+
+        // Then: the 10th highest count bounds everything left off the board
+        int[] frequencies = board.top().stream().mapToInt(TransitionLeaderboard.Entry::frequency).toArray();
+        int[] expected = counts.values().stream().sorted((x, y) -> y - x).limit(10).mapToInt(Integer::intValue).toArray();
+        assertThat(frequencies).containsExactly(expected);
+        board.top().forEach(entry -> assertThat(counts.get(entry.to())).isEqualTo(entry.frequency()));
+    }
+
+    @Test(description = "clear empties the board")
+    public void clear_emptiesBoard() {
+        // Given
+        leaderboard.offer("a", "b", 2);
+
+        // When
+        leaderboard.clear();
+
+        // Then
+        assertThat(leaderboard.top()).isEmpty();
+    }
+}
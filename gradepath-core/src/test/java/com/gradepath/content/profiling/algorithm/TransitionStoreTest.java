@@ -0,0 +1,311 @@
+package com.gradepath.content.profiling.algorithm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Unit tests for TransitionStore.
+ * Tests counting, bounds, decay, and reloading a file-backed store.
+ */
+@Test(groups = "unit")
+public class TransitionStoreTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private Path dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        dir = Files.createTempDirectory("transitions");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // Helper method to overwrite an int in one of the store's files
+    private void writeInt(String file, long position, int value) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(dir.resolve(file).toFile(), "rw")) {
+            raf.seek(position);
+            raf.writeInt(value);
+        }
+    }
+
+    // Helper method to create a store in the test directory, or on the heap for null
+    private TransitionStore store(Path directory, int capacity, int maxContents) {
+        return new TransitionStore(directory != null ? directory.toString() : null, capacity, maxContents, meterRegistry);
+    }
+
+    @Test(description = "increment counts each transition and its source total")
+    public void increment_countsTransitionsAndTotals() {
+        // Given
+        TransitionStore store = store(null, 64, 16);
+
+        // When
+        assertThat(store.increment("a", "b")).isEqualTo(1);
+        assertThat(store.increment("a", "b")).isEqualTo(2);
+        assertThat(store.increment("a", "c")).isEqualTo(1);
+        store.increment("b", "a");
+
+        // Then
+        assertThat(store.row("a")).containsOnly(entry("b", 2), entry("c", 1));
+        assertThat(store.total("a")).isEqualTo(3);
+        assertThat(store.total("b")).isEqualTo(1);
+        assertThat(store.row("unknown")).isEmpty();
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test(description = "a full table keeps counting known transitions and drops new ones")
+    public void increment_fullTable_dropsNewTransitions() {
+        // Given: 8 slots, up to 6 used
+        TransitionStore store = store(null, 8, 16);
+        for (int i = 0; i < 6; i++) {
+            store.increment("a", "c" + i);
+        }
+
+        // When
+        int dropped = store.increment("a", "c6");
+        int known = store.increment("a", "c0");
+
+        // Then
+        assertThat(dropped).isZero();
+        assertThat(known).isEqualTo(2);
+        assertThat(store.total("a")).isEqualTo(7);
+        assertThat(meterRegistry.counter("profiling.transitions.dropped").count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("profiling.transitions.size").gauge().value()).isEqualTo(6.0);
+    }
+
+    @Test(description = "content beyond max-contents is not tracked")
+    public void increment_fullDictionary_dropsTransition() {
+        // Given
+        TransitionStore store = store(null, 64, 2);
+        store.increment("a", "b");
+
+        // When
+        int count = store.increment("a", "c");
+
+        // Then
+        assertThat(count).isZero();
+        assertThat(store.row("a")).containsOnly(entry("b", 1));
+    }
+
+    @Test(description = "decay halves counts and frees transitions that reach zero")
+    public void decay_halvesCountsAndFreesSlots() {
+        // Given
+        TransitionStore store = store(null, 8, 16);
+        for (int i = 0; i < 5; i++) {
+            store.increment("a", "b");
+        }
+        store.increment("a", "c");
+        store.increment("x", "y");
+
+        // When
+        store.decay();
+
+        // Then
+        assertThat(store.row("a")).containsOnly(entry("b", 2));
+        assertThat(store.total("a")).isEqualTo(2);
+        assertThat(store.row("x")).isEmpty();
+        assertThat(store.total("x")).isZero();
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.increment("a", "c")).isEqualTo(1);
+    }
+
+    @Test(description = "decay frees the dictionary entries of content no transition references")
+    public void decay_fullDictionary_freesUnreferencedContent() {
+        // Given: a full dictionary
+        TransitionStore store = store(null, 64, 4);
+        store.increment("a", "b");
+        store.increment("a", "b");
+        store.increment("c", "d");
+        assertThat(store.increment("a", "e")).isZero();
+
+        // When
+        store.decay();
+
+        // Then
+        assertThat(store.row("a")).containsOnly(entry("b", 1));
+        assertThat(store.increment("a", "e")).isEqualTo(1);
+        assertThat(store.increment("e", "f")).isEqualTo(1);
+        assertThat(store.increment("a", "g")).isZero();
+    }
+
+    @Test(description = "a decayed file-backed store is what reloads after a restart")
+    public void decay_fileBacked_reloadsDecayedCounts() {
+        // Given
+        TransitionStore before = store(dir, 64, 16);
+        for (int i = 0; i < 4; i++) {
+            before.increment("a", "b");
+        }
+        before.increment("c", "d");
+
+        // When
+        before.decay();
+        before.increment("a", "e");
+        before.close();
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.row("a")).containsOnly(entry("b", 2), entry("e", 1));
+        assertThat(after.total("a")).isEqualTo(3);
+        assertThat(after.row("c")).isEmpty();
+        assertThat(dir.resolve("transitions.dat.tmp")).doesNotExist();
+        assertThat(dir.resolve("contents.dat.tmp")).doesNotExist();
+    }
+
+    @Test(description = "a decay interrupted between its renames is finished on restart")
+    public void open_decayInterruptedBetweenRenames_finishesDecay() throws IOException {
+        // Given: the dictionary renamed, the table still pending
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("a", "b");
+        before.increment("a", "b");
+        before.increment("c", "d");
+        before.close();
+        Path table = dir.resolve("transitions.dat");
+        Path saved = dir.resolve("transitions.saved");
+        Files.copy(table, saved);
+        before.decay();
+        Files.move(table, dir.resolve("transitions.dat.tmp"));
+        Files.move(saved, table);
+
+        // When
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.row("a")).containsOnly(entry("b", 1));
+        assertThat(after.row("c")).isEmpty();
+        assertThat(dir.resolve("transitions.dat.tmp")).doesNotExist();
+    }
+
+    @Test(description = "a decay interrupted before its renames leaves the previous store")
+    public void open_decayInterruptedBeforeRenames_keepsPreviousStore() throws IOException {
+        // Given: half-built pending files next to the current ones
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("a", "b");
+        before.increment("a", "b");
+        before.close();
+        Files.write(dir.resolve("transitions.dat.tmp"), new byte[64]);
+        Files.write(dir.resolve("contents.dat.tmp"), new byte[64]);
+
+        // When
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.row("a")).containsOnly(entry("b", 2));
+        assertThat(dir.resolve("transitions.dat.tmp")).doesNotExist();
+        assertThat(dir.resolve("contents.dat.tmp")).doesNotExist();
+    }
+
+    @Test(description = "a file-backed store reloads its counts after a restart")
+    public void open_existingFiles_reloadsCounts() {
+        // Given
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("content-1", "content-2");
+        before.increment("content-1", "content-2");
+        before.increment("content-1", "content-3");
+        before.close();
+
+        // When
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.row("content-1")).containsOnly(entry("content-2", 2), entry("content-3", 1));
+        assertThat(after.total("content-1")).isEqualTo(3);
+        assertThat(after.size()).isEqualTo(2);
+        assertThat(after.increment("content-1", "content-2")).isEqualTo(3);
+        Map<String, Integer> visited = new HashMap<>();
+        after.forEach((from, to, count) -> visited.put(from + ">" + to, count));
+        assertThat(visited).containsOnly(entry("content-1>content-2", 3), entry("content-1>content-3", 1));
+    }
+
+    @Test(description = "a table ahead of its dictionary after a crash is rebuilt from its valid transitions")
+    public void open_tableAheadOfDictionary_rebuildsValidTransitions() throws IOException {
+        // Given: the dictionary count lost its last two contents, c and d
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("a", "b");
+        before.increment("a", "b");
+        before.increment("c", "d");
+        before.increment("a", "c");
+        before.close();
+        writeInt("contents.dat", 4, 2);
+
+        // When
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.row("a")).containsOnly(entry("b", 2));
+        assertThat(after.total("a")).isEqualTo(2);
+        assertThat(after.row("c")).isEmpty();
+        assertThat(after.size()).isEqualTo(1);
+        Map<String, Integer> visited = new HashMap<>();
+        after.forEach((from, to, count) -> visited.put(from + ">" + to, count));
+        assertThat(visited).containsOnly(entry("a>b", 2));
+        assertThat(after.increment("c", "d")).isEqualTo(1);
+        assertThat(store(dir, 64, 16).row("c")).containsOnly(entry("d", 1));
+    }
+
+    @Test(description = "an unreadable dictionary is replaced with an empty store")
+    public void open_corruptDictionary_startsEmpty() throws IOException {
+        // Given: the first entry's length torn
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("a", "b");
+        before.close();
+        writeInt("contents.dat", 16, -1);
+
+        // When
+        TransitionStore after = store(dir, 64, 16);
+
+        // Then
+        assertThat(after.size()).isZero();
+        assertThat(after.row("a")).isEmpty();
+        assertThat(after.increment("a", "b")).isEqualTo(1);
+    }
+
+    @Test(description = "files of another layout are replaced with an empty store")
+    public void open_otherLayout_startsEmpty() {
+        // Given
+        TransitionStore before = store(dir, 64, 16);
+        before.increment("a", "b");
+        before.close();
+
+        // When
+        TransitionStore after = store(dir, 128, 16);
+
+        // Then
+        assertThat(after.size()).isZero();
+        assertThat(after.row("a")).isEmpty();
+        assertThat(after.increment("a", "b")).isEqualTo(1);
+    }
+
+    @Test(description = "clear removes every transition")
+    public void clear_removesEverything() {
+        // Given
+        TransitionStore store = store(dir, 64, 16);
+        store.increment("a", "b");
+
+        // When
+        store.clear();
+
+        // Then
+        assertThat(store.size()).isZero();
+        assertThat(store.row("a")).isEmpty();
+        assertThat(store(dir, 64, 16).size()).isZero();
+    }
+}
@@ -0,0 +1,122 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit tests for PathTrie.
+ * Tests prediction from the longest context, back-off, support, and the node bound.
+ */
+@Test(groups = "unit")
+public class PathTrieTest {
+
+    // Helper method to observe every step of a sequence
+    private void observeSequence(PathTrie trie, String... sequence) {
+        for (int i = 1; i < sequence.length; i++) {
+            trie.observe(List.of(sequence).subList(0, i), sequence[i]);
+        }
+    }
+
+    @Test(description = "the longest context decides between successors a shorter one cannot")
+    public void predict_longestContextFirst() {
+        // Given: after B comes C or D equally, depending on what came before B
+        PathTrie trie = new PathTrie(3, 1024, 2);
+        for (int i = 0; i < 2; i++) {
+            observeSequence(trie, "A", "B", "C");
+            observeSequence(trie, "X", "B", "D");
+        }
+
+        // When
+        List<PathTrie.Prediction> predictions = trie.predict(List.of("A", "B"), 2);
+
+        // Then: C from the order-2 context, then D backed off from B alone
+        assertThat(predictions)
+            .extracting(PathTrie.Prediction::symbol, PathTrie.Prediction::probability, PathTrie.Prediction::order)
+            .containsExactly(tuple("C", 1.0, 2), tuple("D", 0.5, 1));
+    }
+
+    @Test(description = "an unseen long context backs off to the shorter ones")
+    public void predict_unseenContext_backsOff() {
+        // Given
+        PathTrie trie = new PathTrie(3, 1024, 1);
+        observeSequence(trie, "A", "B", "C");
+
+        // When
+        List<PathTrie.Prediction> predictions = trie.predict(List.of("Z", "B"), 5);
+
+        // Then
+        assertThat(predictions).extracting(PathTrie.Prediction::symbol).containsExactly("C");
+        assertThat(predictions.get(0).order()).isEqualTo(1);
+    }
+
+    @Test(description = "contexts followed fewer than min-support times predict nothing")
+    public void predict_belowMinSupport_skipsContext() {
+        // Given
+        PathTrie trie = new PathTrie(2, 1024, 2);
+        trie.observe(List.of("A"), "B");
+
+        // When
+        List<PathTrie.Prediction> once = trie.predict(List.of("A"), 5);
+        trie.observe(List.of("A"), "C");
+        List<PathTrie.Prediction> twice = trie.predict(List.of("A"), 5);
+
+        // Then
+        assertThat(once).isEmpty();
+        assertThat(twice).extracting(PathTrie.Prediction::symbol).containsExactlyInAnyOrder("B", "C");
+    }
+
+    @Test(description = "history beyond max-order is ignored")
+    public void predict_usesAtMostMaxOrder() {
+        // Given
+        PathTrie trie = new PathTrie(1, 1024, 1);
+        observeSequence(trie, "A", "B", "C");
+
+        // When
+        List<PathTrie.Prediction> predictions = trie.predict(List.of("Q", "B"), 5);
+
+        // Then
+        assertThat(predictions).extracting(PathTrie.Prediction::symbol).containsExactly("C");
+    }
+
+    @Test(description = "a full trie keeps counting known paths and learns no new ones")
+    public void observe_full_countsOnlyKnownPaths() {
+        // Given
+        PathTrie trie = new PathTrie(1, 4, 1);
+        trie.observe(List.of("A"), "B");
+        trie.observe(List.of("A"), "B");
+        int full = trie.nodeCount();
+
+        // When
+        trie.observe(List.of("A"), "C");
+        trie.observe(List.of("X"), "Y");
+        trie.observe(List.of("A"), "B");
+
+        // Then
+        assertThat(trie.nodeCount()).isEqualTo(full).isLessThanOrEqualTo(4);
+        assertThat(trie.predict(List.of("A"), 5))
+            .extracting(PathTrie.Prediction::symbol, PathTrie.Prediction::probability)
+            .containsExactly(tuple("B", 1.0));
+        assertThat(trie.predict(List.of("X"), 5)).isEmpty();
+    }
+
+    @Test(description = "the trie grows past its initial arrays")
+    public void observe_manyPaths_grows() {
+        // Given
+        PathTrie trie = new PathTrie(2, 1 << 16, 1);
+
+        // When
+        for (int i = 0; i < 5_000; i++) {
+            observeSequence(trie, "s" + i, "m" + (i % 50), "e" + (i % 7));
+        }
+
+        // Then
+        assertThat(trie.nodeCount()).isGreaterThan(1024);
+        assertThat(trie.predict(List.of("s42", "m42"), 1))
+            .extracting(PathTrie.Prediction::symbol, PathTrie.Prediction::order)
+            .containsExactly(tuple("e0", 2));
+    }
+}
@@ -0,0 +1,143 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unit tests for ScoringKernel.
+ * Checks the double kernel against the original BigDecimal formulas.
+ */
+@Test(groups = "unit")
+public class ScoringKernelTest {
+
+    private static final double[] BUCKETS = {0.2, 0.4, 0.5, 0.6, 0.8, 1.0};
+    private static final double[] BOOSTS = {0.0, 0.1, 0.2, 0.3, 0.4};
+
+    // Helper method: hybrid score exactly as the BigDecimal implementation computed it
+    private BigDecimal referenceHybrid(ScoringKernel k, int i) {
+        BigDecimal affinity = BigDecimal.ZERO
+            .add(BigDecimal.valueOf(k.topic()[i]).multiply(new BigDecimal("0.4")))
+            .add(BigDecimal.valueOf(k.type()[i]).multiply(new BigDecimal("0.2")))
+            .add(BigDecimal.valueOf(k.difficulty()[i]).multiply(new BigDecimal("0.2")))
+            .add(BigDecimal.valueOf(k.recency()[i]).multiply(new BigDecimal("0.1")))
+            .add(BigDecimal.valueOf(k.length()[i]).multiply(new BigDecimal("0.1")));
+        return affinity.multiply(new BigDecimal("0.7"))
+            .add(BigDecimal.valueOf(k.collaborative()[i]).multiply(new BigDecimal("0.3")));
+    }
+
+    // Helper method: behavioral score exactly as the BigDecimal implementation computed it
+    private BigDecimal referenceBehavioral(ScoringKernel k, int i) {
+        return referenceHybrid(k, i).multiply(new BigDecimal("0.4"))
+            .add(BigDecimal.valueOf(k.interest()[i]).multiply(new BigDecimal("0.3")))
+            .add(BigDecimal.valueOf(k.session()[i]).multiply(new BigDecimal("0.2")))
+            .add(BigDecimal.valueOf(k.strategyBoost()[i]))
+            .min(BigDecimal.ONE).max(BigDecimal.ZERO);
+    }
+
+    // Helper method to fill every feature column with realistic values
+    private ScoringKernel randomKernel(int n, long seed) {
+        Random random = new Random(seed);
+        ScoringKernel k = ScoringKernel.acquire(n);
+        for (int i = 0; i < n; i++) {
+            k.topic()[i] = random.nextDouble();
+            k.type()[i] = random.nextDouble();
+            k.difficulty()[i] = BUCKETS[random.nextInt(BUCKETS.length)];
+            k.recency()[i] = BUCKETS[random.nextInt(BUCKETS.length)];
+            k.length()[i] = BUCKETS[random.nextInt(BUCKETS.length)];
+            k.collaborative()[i] = Math.round((0.3 + random.nextDouble() * 0.4) * 10_000) / 10_000.0;
+            k.interest()[i] = random.nextDouble();
+            k.session()[i] = random.nextDouble();
+            k.strategyBoost()[i] = BOOSTS[random.nextInt(BOOSTS.length)];
+        }
+        return k;
+    }
+
+    @Test(description = "hybrid scores match the BigDecimal formula")
+    public void hybridScores_matchBigDecimalReference() {
+        // Given
+        int n = 2_000;
+        ScoringKernel kernel = randomKernel(n, 42);
+
+        // When
+        double[] scores = new double[n];
+        kernel.hybridScores(n, scores);
+
+        // Then
+        for (int i = 0; i < n; i++) {
+            BigDecimal expected = referenceHybrid(kernel, i);
+            assertThat(scores[i]).isCloseTo(expected.doubleValue(), within(1e-12));
+            assertThat(ScoringKernel.toDecimal(scores[i])).isEqualByComparingTo(ScoringKernel.toDecimal(expected.doubleValue()));
+        }
+    }
+
+    @Test(description = "behavioral scores match the BigDecimal formula, including clamping")
+    public void behavioralScores_matchBigDecimalReference() {
+        // Given
+        int n = 2_000;
+        ScoringKernel kernel = randomKernel(n, 7);
+
+        // When
+        double[] scores = new double[n];
+        kernel.behavioralScores(n, scores);
+
+        // Then
+        for (int i = 0; i < n; i++) {
+            BigDecimal expected = referenceBehavioral(kernel, i);
+            assertThat(scores[i]).isBetween(0.0, 1.0);
+            assertThat(scores[i]).isCloseTo(expected.doubleValue(), within(1e-12));
+        }
+    }
+
+    @Test(description = "neutral inputs produce the documented neutral score")
+    public void behavioralScores_neutralInputs() {
+        // Given
+        ScoringKernel kernel = ScoringKernel.acquire(1);
+        kernel.topic()[0] = 0.5;
+        kernel.type()[0] = 0.5;
+        kernel.difficulty()[0] = 0.5;
+        kernel.recency()[0] = 0.5;
+        kernel.length()[0] = 0.5;
+        kernel.collaborative()[0] = 0.5;
+        kernel.interest()[0] = 0.5;
+        kernel.session()[0] = 0.5;
+        kernel.strategyBoost()[0] = 0.0;
+
+        // When
+        double[] scores = new double[1];
+        kernel.behavioralScores(1, scores);
+
+        // Then: 0.4 * 0.5 + 0.3 * 0.5 + 0.2 * 0.5
+        assertThat(ScoringKernel.toDecimal(scores[0])).isEqualByComparingTo("0.4500");
+    }
+
+    @Test(description = "acquire grows the columns and keeps them per thread")
+    public void acquire_growsColumns() {
+        // When
+        ScoringKernel small = ScoringKernel.acquire(4);
+        ScoringKernel large = ScoringKernel.acquire(1_000);
+
+        // Then
+        assertThat(large).isSameAs(small);
+        assertThat(large.topic().length).isGreaterThanOrEqualTo(1_000);
+    }
+
+    @Test(description = "an oversized request gets its own kernel and the thread keeps a bounded one")
+    public void acquire_oversized_notRetained() {
+        // Given
+        ScoringKernel retained = ScoringKernel.acquire(ScoringKernel.MAX_RETAINED_CAPACITY);
+
+        // When
+        ScoringKernel oversized = ScoringKernel.acquire(ScoringKernel.MAX_RETAINED_CAPACITY + 1);
+
+        // Then
+        assertThat(oversized).isNotSameAs(retained);
+        assertThat(oversized.topic().length).isGreaterThan(ScoringKernel.MAX_RETAINED_CAPACITY);
+        assertThat(ScoringKernel.acquire(4)).isSameAs(retained);
+        assertThat(retained.topic().length).isEqualTo(ScoringKernel.MAX_RETAINED_CAPACITY);
+    }
+}
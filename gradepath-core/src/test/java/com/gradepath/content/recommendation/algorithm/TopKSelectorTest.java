@@ -0,0 +1,74 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import org.testng.annotations.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TopKSelector.
+ * Compares bounded selection against a stable full sort.
+ */
+@Test(groups = "unit")
+public class TopKSelectorTest {
+
+    // Helper method: top k positions by a stable descending sort
+    private int[] sortedTopK(double[] priorities, int k) {
+        return IntStream.range(0, priorities.length)
+            .boxed()
+            .sorted(Comparator.comparingDouble((Integer i) -> priorities[i]).reversed())
+            .limit(k)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    @Test(description = "selection matches the first k of a stable descending sort")
+    public void drainDescending_matchesFullSort() {
+        // Given: coarse priorities so ties are common
+        Random random = new Random(11);
+        double[] priorities = new double[50_000];
+        for (int i = 0; i < priorities.length; i++) {
+            priorities[i] = random.nextInt(1_000) / 1_000.0;
+        }
+
+        // When
+        TopKSelector selector = new TopKSelector(25);
+        for (int i = 0; i < priorities.length; i++) {
+            selector.offer(i, priorities[i]);
+        }
+
+        // Then
+        assertThat(selector.drainDescending()).containsExactly(sortedTopK(priorities, 25));
+        assertThat(selector.size()).isZero();
+    }
+
+    @Test(description = "fewer candidates than k are all returned in rank order")
+    public void drainDescending_fewerThanK() {
+        // Given
+        TopKSelector selector = new TopKSelector(10);
+
+        // When
+        selector.offer(0, 0.2);
+        selector.offer(1, 0.9);
+        selector.offer(2, 0.5);
+
+        // Then
+        assertThat(selector.drainDescending()).containsExactly(1, 2, 0);
+    }
+
+    @Test(description = "k of zero keeps nothing")
+    public void offer_zeroCapacity() {
+        // Given
+        TopKSelector selector = new TopKSelector(0);
+
+        // When
+        selector.offer(0, 1.0);
+
+        // Then
+        assertThat(selector.size()).isZero();
+        assertThat(selector.drainDescending()).isEmpty();
+    }
+}
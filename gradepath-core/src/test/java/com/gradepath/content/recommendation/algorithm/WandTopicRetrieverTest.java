@@ -0,0 +1,123 @@
+package com.gradepath.content.recommendation.algorithm;
+
+import com.gradepath.content.content.model.Content;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import com.gradepath.content.recommendation.catalog.TopicIndex;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for WandTopicRetriever.
+ * Compares WAND retrieval with exhaustive scoring of every item.
+ */
+@Test(groups = "unit")
+public class WandTopicRetrieverTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // Helper method to build a catalog with 1-4 random topics per item
+    private CatalogSnapshot catalog(int items, int topics, long seed) {
+        Random random = new Random(seed);
+        List<Content> published = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            List<String> itemTopics = new ArrayList<>();
+            int count = 1 + random.nextInt(4);
+            for (int t = 0; t < count; t++) {
+                itemTopics.add("topic-" + random.nextInt(topics));
+            }
+            Content content = new Content();
+            content.setId("c" + i);
+            content.setOrdinal(i);
+            content.setType(Content.ContentType.VIDEO);
+            content.setTitle("c" + i);
+            content.setStatus(Content.ContentStatus.PUBLISHED);
+            content.setUpdatedAt(T0);
+            content.setTopics(Map.of("topics", itemTopics));
+            published.add(content);
+        }
+        return CatalogSnapshot.of(1, published, T0);
+    }
+
+    // Helper method: score every item and keep the best n
+    private int[] exhaustiveTopN(TopicIndex index, int capacity, int[] topicIds, double[] weights, int n) {
+        TopKSelector top = new TopKSelector(n);
+        for (int ordinal = 0; ordinal < capacity; ordinal++) {
+            if (ordinal % 3 == 0) {
+                continue;
+            }
+            int[] itemTopics = index.topicsOf(ordinal);
+            double sum = 0.0;
+            boolean matched = false;
+            for (int q = 0; q < topicIds.length; q++) {
+                for (int topic : itemTopics) {
+                    if (topic == topicIds[q]) {
+                        sum += weights[q];
+                        matched = true;
+                    }
+                }
+            }
+            if (matched) {
+                top.offer(ordinal, sum / itemTopics.length);
+            }
+        }
+        return top.drainDescending();
+    }
+
+    @Test(description = "WAND returns the same top-N as exhaustive scoring")
+    public void topN_matchesExhaustiveScoring() {
+        // Given
+        CatalogSnapshot snapshot = catalog(20_000, 200, 3);
+        TopicIndex index = snapshot.topics();
+        int[] topicIds = new int[12];
+        double[] weights = new double[12];
+        Random random = new Random(5);
+        for (int q = 0; q < topicIds.length; q++) {
+            topicIds[q] = index.topicId("topic-" + (q * 13));
+            weights[q] = 0.05 + random.nextInt(95) / 100.0;
+        }
+
+        // When
+        int[] wand = WandTopicRetriever.topN(index, topicIds, weights, 100, ordinal -> ordinal % 3 == 0);
+
+        // Then
+        assertThat(wand).containsExactly(exhaustiveTopN(index, snapshot.capacity(), topicIds, weights, 100));
+    }
+
+    @Test(description = "excluded ordinals are never returned")
+    public void topN_skipsExcluded() {
+        // Given
+        CatalogSnapshot snapshot = catalog(2_000, 10, 9);
+        TopicIndex index = snapshot.topics();
+
+        // When
+        int[] result = WandTopicRetriever.topN(
+            index, new int[] {index.topicId("topic-1")}, new double[] {1.0}, 50, ordinal -> ordinal % 2 == 0);
+
+        // Then
+        assertThat(result).hasSize(50);
+        assertThat(Arrays.stream(result)).allMatch(ordinal -> ordinal % 2 == 1);
+    }
+
+    @Test(description = "unknown topics, empty queries and n of zero return nothing")
+    public void topN_emptyQuery() {
+        // Given
+        TopicIndex index = catalog(100, 5, 1).topics();
+
+        // When
+        int[] result = WandTopicRetriever.topN(index, new int[] {-1}, new double[] {1.0}, 10, ordinal -> false);
+        int[] none = WandTopicRetriever.topN(
+            index, new int[] {index.topicId("topic-1")}, new double[] {1.0}, 0, ordinal -> false);
+
+        // Then
+        assertThat(result).isEmpty();
+        assertThat(none).isEmpty();
+    }
+}
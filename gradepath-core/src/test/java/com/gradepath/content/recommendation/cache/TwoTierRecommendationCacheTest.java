@@ -0,0 +1,123 @@
+package com.gradepath.content.recommendation.cache;
+
+import com.gradepath.content.recommendation.service.RecommendationService.RecommendationResponse;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TwoTierRecommendationCache and its wire codec.
+ * Tests limit-aware keys, local-then-Redis reads, user-wide eviction and Redis outages.
+ */
+@Test(groups = "unit")
+public class TwoTierRecommendationCacheTest {
+
+    @Mock
+    private RedisRecommendationStore remote;
+
+    private TwoTierRecommendationCache cache;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        cache = new TwoTierRecommendationCache(remote, 100, Duration.ofMinutes(1));
+    }
+
+    @Test(description = "codec round-trips responses including nulls and decimal scale")
+    public void codec_roundTrip() {
+        // Given
+        List<RecommendationResponse> responses = List.of(
+            response("c-1", new BigDecimal("0.8125")),
+            new RecommendationResponse(null, null, null, "c-2", null, null, null, null, null, null));
+
+        // When
+        List<RecommendationResponse> decoded = RecommendationResponseCodec.decode(
+            RecommendationResponseCodec.encode(responses));
+
+        // Then
+        assertThat(decoded).isEqualTo(responses);
+        assertThat(decoded.get(0).score().scale()).isEqualTo(4);
+    }
+
+    @Test(description = "different limits for the same user are cached separately")
+    public void get_keysByLimit() {
+        // Given
+        List<RecommendationResponse> five = List.of(response("c-1", BigDecimal.ONE));
+        List<RecommendationResponse> ten = List.of(response("c-1", BigDecimal.ONE), response("c-2", BigDecimal.ONE));
+
+        // When
+        cache.put(new RecommendationCacheKey(userId, 5), five);
+        cache.put(new RecommendationCacheKey(userId, 10), ten);
+
+        // Then
+        assertThat(cache.get(new RecommendationCacheKey(userId, 5)).get()).isEqualTo(five);
+        assertThat(cache.get(new RecommendationCacheKey(userId, 10)).get()).isEqualTo(ten);
+        verify(remote, never()).get(any());
+    }
+
+    @Test(description = "a local miss is filled from Redis and served locally afterwards")
+    public void get_fallsBackToRedis() {
+        // Given
+        RecommendationCacheKey key = new RecommendationCacheKey(userId, 5);
+        List<RecommendationResponse> responses = List.of(response("c-1", new BigDecimal("0.5000")));
+        when(remote.get(key)).thenReturn(RecommendationResponseCodec.encode(responses));
+
+        // When
+        Cache.ValueWrapper first = cache.get(key);
+        Cache.ValueWrapper second = cache.get(key);
+
+        // Then
+        assertThat(first.get()).isEqualTo(responses);
+        assertThat(second.get()).isEqualTo(responses);
+        verify(remote, times(1)).get(key);
+    }
+
+    @Test(description = "evicting by user id drops every limit locally and in Redis")
+    public void evict_isUserWide() {
+        // Given
+        cache.put(new RecommendationCacheKey(userId, 5), List.of(response("c-1", BigDecimal.ONE)));
+        cache.put(new RecommendationCacheKey(userId, 10), List.of(response("c-2", BigDecimal.ONE)));
+
+        // When
+        cache.evict(userId);
+
+        // Then
+        assertThat(cache.get(new RecommendationCacheKey(userId, 5))).isNull();
+        assertThat(cache.get(new RecommendationCacheKey(userId, 10))).isNull();
+        verify(remote).evict(userId);
+    }
+
+    @Test(description = "Redis failures degrade to a miss and still compute the value")
+    public void get_redisDownComputesValue() {
+        // Given
+        RecommendationCacheKey key = new RecommendationCacheKey(userId, 5);
+        List<RecommendationResponse> responses = List.of(response("c-1", BigDecimal.ONE));
+        when(remote.get(key)).thenThrow(new IllegalStateException("connection refused"));
+        doThrow(new IllegalStateException("connection refused")).when(remote).put(any(), any());
+
+        // When
+        List<RecommendationResponse> value = cache.get(key, () -> responses);
+
+        // Then
+        assertThat(value).isEqualTo(responses);
+        assertThat(cache.get(key).get()).isEqualTo(responses);
+    }
+
+    // Helper method to build a response
+    private RecommendationResponse response(String contentId, BigDecimal score) {
+        return new RecommendationResponse(
+            UUID.randomUUID(), UUID.randomUUID(), 0, contentId, "Title " + contentId, "VIDEO", 3, score, "Recommended for you", "hybrid");
+    }
+}
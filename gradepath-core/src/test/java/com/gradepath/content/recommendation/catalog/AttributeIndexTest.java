@@ -0,0 +1,109 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.roaringbitmap.RoaringBitmap;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AttributeIndex and CatalogFilter.
+ * Tests attribute bitmaps and filter composition.
+ */
+@Test(groups = "unit")
+public class AttributeIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // Helper method to create published content with attributes
+    private Content content(int ordinal, Content.ContentType type, Integer difficulty, Integer minutes) {
+        Content content = new Content();
+        content.setId("c" + ordinal);
+        content.setOrdinal(ordinal);
+        content.setType(type);
+        content.setTitle("c" + ordinal);
+        content.setStatus(Content.ContentStatus.PUBLISHED);
+        content.setUpdatedAt(T0);
+        content.setDifficultyLevel(difficulty);
+        content.setEstimatedDurationMinutes(minutes);
+        return content;
+    }
+
+    // Helper method: catalog covering every attribute
+    private CatalogSnapshot catalog() {
+        return CatalogSnapshot.of(1, List.of(
+            content(0, Content.ContentType.VIDEO, 1, 1),
+            content(1, Content.ContentType.VIDEO, 3, 12),
+            content(2, Content.ContentType.QUIZ, 4, null),
+            content(3, Content.ContentType.ARTICLE, 5, 45),
+            content(4, Content.ContentType.LESSON, null, 20),
+            content(5, Content.ContentType.EXERCISE, 2, 1)
+        ), T0);
+    }
+
+    @Test(description = "bitmaps group ordinals by each attribute")
+    public void build_indexesAttributes() {
+        // When
+        AttributeIndex index = catalog().attributes();
+
+        // Then
+        assertThat(index.published().toArray()).containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(index.type(Content.ContentType.VIDEO).toArray()).containsExactly(0, 1);
+        assertThat(index.difficulty(4).toArray()).containsExactly(2);
+        assertThat(index.difficulty(9).isEmpty()).isTrue();
+        assertThat(index.duration(AttributeIndex.DurationBucket.LONG).toArray()).containsExactly(3);
+        assertThat(index.duration(AttributeIndex.DurationBucket.UNKNOWN).toArray()).containsExactly(2);
+        assertThat(index.shorts().toArray()).containsExactly(0, 2, 5);
+    }
+
+    @Test(description = "filter conditions intersect and exclusions are removed")
+    public void filter_composesConditions() {
+        // Given
+        AttributeIndex index = catalog().attributes();
+        RoaringBitmap seen = RoaringBitmap.bitmapOf(5);
+
+        // When
+        RoaringBitmap shortsInZpd = index.filter()
+            .shortsOnly()
+            .difficultyBetween(1, 3)
+            .excluding(seen)
+            .toBitmap();
+        RoaringBitmap longVideosOrArticles = index.filter()
+            .longFormOnly()
+            .types(Content.ContentType.VIDEO, Content.ContentType.ARTICLE)
+            .toBitmap();
+
+        // Then
+        assertThat(shortsInZpd.toArray()).containsExactly(0);
+        assertThat(longVideosOrArticles.toArray()).containsExactly(1, 3);
+    }
+
+    @Test(description = "filters never modify the shared index bitmaps")
+    public void filter_doesNotMutateIndex() {
+        // Given
+        AttributeIndex index = catalog().attributes();
+
+        // When
+        index.filter().durations(EnumSet.of(AttributeIndex.DurationBucket.UNDER_5_MIN)).toBitmap().add(42);
+
+        // Then
+        assertThat(index.published().getCardinality()).isEqualTo(6);
+        assertThat(index.filter().count()).isEqualTo(6);
+    }
+
+    @Test(description = "resolve maps ordinals back to snapshot content")
+    public void resolve_returnsContentInOrdinalOrder() {
+        // Given
+        CatalogSnapshot snapshot = catalog();
+
+        // When
+        List<Content> contents = snapshot.resolve(snapshot.attributes().filter().shortsOnly().toBitmap());
+
+        // Then
+        assertThat(contents).extracting(Content::getId).containsExactly("c0", "c2", "c5");
+    }
+}
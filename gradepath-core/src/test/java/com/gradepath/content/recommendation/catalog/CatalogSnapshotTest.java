@@ -0,0 +1,111 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CatalogSnapshot.
+ * Tests ordinal addressing and copy-on-write versioning.
+ */
+@Test(groups = "unit")
+public class CatalogSnapshotTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // Helper method to create content with an ordinal
+    private Content content(String id, int ordinal, Content.ContentStatus status) {
+        Content content = new Content();
+        content.setId(id);
+        content.setOrdinal(ordinal);
+        content.setType(Content.ContentType.VIDEO);
+        content.setTitle(id);
+        content.setStatus(status);
+        content.setUpdatedAt(T0);
+        return content;
+    }
+
+    @Test(description = "of indexes published content by ordinal")
+    public void of_indexesContentByOrdinal() {
+        // Given
+        Content a = content("a", 3, Content.ContentStatus.PUBLISHED);
+        Content b = content("b", 7, Content.ContentStatus.PUBLISHED);
+
+        // When
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(a, b), T0);
+
+        // Then
+        assertThat(snapshot.size()).isEqualTo(2);
+        assertThat(snapshot.capacity()).isEqualTo(8);
+        assertThat(snapshot.get(3)).isSameAs(a);
+        assertThat(snapshot.ordinalOf("b")).isEqualTo(7);
+        assertThat(snapshot.ordinalOf("missing")).isEqualTo(-1);
+        assertThat(snapshot.get(4)).isNull();
+        assertThat(snapshot.published()).containsExactly(a, b);
+    }
+
+    @Test(description = "apply produces a new version and leaves the old one untouched")
+    public void apply_isCopyOnWrite() {
+        // Given
+        CatalogSnapshot v1 = CatalogSnapshot.of(1, List.of(content("a", 0, Content.ContentStatus.PUBLISHED)), T0);
+        Content added = content("b", 1, Content.ContentStatus.PUBLISHED);
+
+        // When
+        CatalogSnapshot v2 = v1.apply(2, List.of(added), List.of(), T0.plusMinutes(1));
+
+        // Then
+        assertThat(v2.version()).isEqualTo(2);
+        assertThat(v2.size()).isEqualTo(2);
+        assertThat(v2.watermark()).isEqualTo(T0.plusMinutes(1));
+        assertThat(v1.size()).isEqualTo(1);
+        assertThat(v1.contains("b")).isFalse();
+    }
+
+    @Test(description = "apply removes content that is no longer published")
+    public void apply_unpublishedContent_isRemoved() {
+        // Given
+        CatalogSnapshot v1 = CatalogSnapshot.of(1, List.of(
+            content("a", 0, Content.ContentStatus.PUBLISHED),
+            content("b", 1, Content.ContentStatus.PUBLISHED)), T0);
+
+        // When
+        CatalogSnapshot v2 = v1.apply(2, List.of(content("a", 0, Content.ContentStatus.ARCHIVED)), List.of("b"), T0);
+
+        // Then
+        assertThat(v2.isEmpty()).isTrue();
+        assertThat(v2.get(0)).isNull();
+        assertThat(v2.get(1)).isNull();
+    }
+
+    @Test(description = "apply replaces an updated item in place")
+    public void apply_updatedContent_replacesItem() {
+        // Given
+        CatalogSnapshot v1 = CatalogSnapshot.of(1, List.of(content("a", 0, Content.ContentStatus.PUBLISHED)), T0);
+        Content updated = content("a", 0, Content.ContentStatus.PUBLISHED);
+        updated.setTitle("renamed");
+
+        // When
+        CatalogSnapshot v2 = v1.apply(2, List.of(updated), List.of(), T0);
+
+        // Then
+        assertThat(v2.size()).isEqualTo(1);
+        assertThat(v2.findById("a").getTitle()).isEqualTo("renamed");
+    }
+
+    @Test(description = "content without an ordinal is skipped")
+    public void of_contentWithoutOrdinal_isSkipped() {
+        // Given
+        Content content = content("a", 0, Content.ContentStatus.PUBLISHED);
+        content.setOrdinal(null);
+
+        // When
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(content), T0);
+
+        // Then
+        assertThat(snapshot.isEmpty()).isTrue();
+    }
+}
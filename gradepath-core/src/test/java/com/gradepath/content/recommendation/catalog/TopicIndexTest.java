@@ -0,0 +1,113 @@
+package com.gradepath.content.recommendation.catalog;
+
+import com.gradepath.content.content.model.Content;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TopicIndex.
+ * Tests topic interning, posting lists, pre-extracted item topics and malformed tags.
+ */
+@Test(groups = "unit")
+public class TopicIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // Helper method to create published content with topics
+    private Content content(String id, int ordinal, String... topics) {
+        Content content = new Content();
+        content.setId(id);
+        content.setOrdinal(ordinal);
+        content.setType(Content.ContentType.VIDEO);
+        content.setTitle(id);
+        content.setStatus(Content.ContentStatus.PUBLISHED);
+        content.setUpdatedAt(T0);
+        content.setTopics(Map.of("topics", List.of(topics)));
+        return content;
+    }
+
+    @Test(description = "posting lists hold ascending ordinals per topic")
+    public void build_postingsAreSortedByOrdinal() {
+        // Given
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(
+            content("c", 9, "algebra", "geometry"),
+            content("a", 2, "algebra"),
+            content("b", 5, "geometry", "algebra", "calculus")
+        ), T0);
+
+        // When
+        TopicIndex index = snapshot.topics();
+
+        // Then
+        int algebra = index.topicId("algebra");
+        assertThat(index.topicCount()).isEqualTo(3);
+        assertThat(index.postings(algebra)).containsExactly(2, 5, 9);
+        assertThat(index.postings(index.topicId("calculus"))).containsExactly(5);
+        assertThat(index.minTopicCount(algebra)).isEqualTo(1);
+        assertThat(index.topicId("unknown")).isEqualTo(-1);
+    }
+
+    @Test(description = "item topics are pre-extracted and deduplicated")
+    public void topicsOf_returnsInternedTopics() {
+        // Given
+        Content item = content("a", 0, "algebra", "algebra", "geometry");
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(item), T0);
+
+        // When
+        TopicIndex index = snapshot.topics();
+
+        // Then
+        assertThat(index.topicsOf(item))
+            .containsExactly(index.topicId("algebra"), index.topicId("geometry"));
+        assertThat(index.topicsOf(7)).isEmpty();
+    }
+
+    @Test(description = "null and non-string topic tags are skipped")
+    public void build_skipsMalformedTopics() {
+        // Given
+        Content item = content("a", 0);
+        item.setTopics(Map.of("topics", Arrays.asList("algebra", null, 7, Map.of("name", "x"), "geometry")));
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(item), T0);
+
+        // When
+        TopicIndex index = snapshot.topics();
+
+        // Then
+        assertThat(index.topicCount()).isEqualTo(2);
+        assertThat(index.topicsOf(item))
+            .containsExactly(index.topicId("algebra"), index.topicId("geometry"));
+    }
+
+    @Test(description = "content outside the snapshot is extracted on the fly")
+    public void topicsOf_foreignContent() {
+        // Given
+        CatalogSnapshot snapshot = CatalogSnapshot.of(1, List.of(content("a", 0, "algebra")), T0);
+        Content foreign = content("x", 0, "algebra", "history");
+
+        // When
+        int[] topics = snapshot.topics().topicsOf(foreign);
+
+        // Then
+        assertThat(topics).containsExactly(snapshot.topics().topicId("algebra"), -1);
+    }
+
+    @Test(description = "each snapshot version gets its own index")
+    public void topics_rebuiltPerVersion() {
+        // Given
+        CatalogSnapshot v1 = CatalogSnapshot.of(1, List.of(content("a", 0, "algebra")), T0);
+
+        // When
+        CatalogSnapshot v2 = v1.apply(2, List.of(content("b", 1, "history")), List.of(), T0);
+
+        // Then
+        assertThat(v1.topics().topicId("history")).isEqualTo(-1);
+        assertThat(v2.topics().postings(v2.topics().topicId("history"))).containsExactly(1);
+        assertThat(v2.topics()).isSameAs(v2.topics());
+    }
+}
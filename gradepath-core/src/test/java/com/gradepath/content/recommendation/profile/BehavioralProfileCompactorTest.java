@@ -0,0 +1,78 @@
+package com.gradepath.content.recommendation.profile;
+
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.support.TransactionOperations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BehavioralProfileCompactor.
+ * Tests batching of the legacy drain and when reads stop falling back to it.
+ */
+@Test(groups = "unit")
+public class BehavioralProfileCompactorTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private BehavioralProfileService profileService;
+
+    private BehavioralProfileCompactor compactor;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        compactor = new BehavioralProfileCompactor(
+            jdbcTemplate, TransactionOperations.withoutTransaction(), profileService, BATCH_SIZE, 30);
+    }
+
+    @Test(description = "full batches are moved until the legacy log is empty, then reads skip it")
+    public void drainLegacy_movesBatchesUntilEmpty() {
+        // Given - three legacy users, two per batch
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(BATCH_SIZE)))
+            .thenReturn(List.of("user-1", "user-2"), List.of("user-3"), List.of());
+
+        // When
+        int moved = compactor.drainLegacy();
+
+        // Then - a short batch ends the run; the next run finds nothing left
+        assertThat(moved).isEqualTo(3);
+        verify(jdbcTemplate, times(2)).update(contains("DELETE FROM behavioral_profiles"), any(PreparedStatementSetter.class));
+        verify(profileService, never()).legacyDrained();
+
+        assertThat(compactor.drainLegacy()).isZero();
+        verify(profileService).legacyDrained();
+    }
+
+    @Test(description = "a failed run is logged and retried on the next one")
+    public void compact_failureIsContained() {
+        // Given
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(BATCH_SIZE)))
+            .thenThrow(new QueryTimeoutException("timeout"));
+
+        // When - does not throw
+        compactor.compact();
+
+        // Then
+        verify(profileService, never()).legacyDrained();
+    }
+}
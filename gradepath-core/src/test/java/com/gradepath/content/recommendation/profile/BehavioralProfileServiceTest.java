@@ -1,13 +1,21 @@
 package com.gradepath.content.recommendation.profile;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -15,8 +23,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -29,7 +37,11 @@ public class BehavioralProfileServiceTest {
     @Mock
     private BehavioralProfileRepository repository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     private BehavioralProfileService service;
+    private SimpleMeterRegistry meterRegistry;
     private ObjectMapper objectMapper;
 
     @BeforeMethod
@@ -37,7 +49,18 @@ public class BehavioralProfileServiceTest {
         MockitoAnnotations.openMocks(this);
         objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
-        service = new BehavioralProfileService(repository, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        service = service(objectMapper, 0.0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            int[] updated = new int[invocation.<List<?>>getArgument(1).size()];
+            Arrays.fill(updated, 1);
+            return updated;
+        });
+    }
+
+    // Helper method to build the service under test
+    private BehavioralProfileService service(ObjectMapper mapper, double historySampleRate) {
+        return new BehavioralProfileService(repository, jdbcTemplate, mapper, meterRegistry, historySampleRate, 1000, 60000);
     }
 
     // Helper method to create a test profile
@@ -72,21 +95,18 @@ public class BehavioralProfileServiceTest {
     // ========================================
 
     @Test
-    public void saveProfile_validProfile_savesEntity() {
+    public void saveProfile_validProfile_upsertsCurrentRow() {
         // Given
         BehavioralProfile profile = createTestProfile("user-123");
 
-        when(repository.save(any(BehavioralProfileEntity.class))).thenAnswer(invocation -> {
-            BehavioralProfileEntity entity = invocation.getArgument(0);
-            entity.setId(1L);
-            return entity;
-        });
-
         // When
         service.saveProfile(profile);
 
         // Then
-        verify(repository).save(any(BehavioralProfileEntity.class));
+        List<Object[]> rows = upsertedRows();
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0)[0]).isEqualTo("user-123");
+        assertThat(rows.get(0)[2]).isEqualTo(Timestamp.from(profile.getTimestamp()));
     }
 
     @Test
@@ -94,11 +114,9 @@ public class BehavioralProfileServiceTest {
         // Given: ObjectMapper that throws on serialization
         ObjectMapper failingMapper = mock(ObjectMapper.class);
         when(failingMapper.writeValueAsString(any()))
-            .thenThrow(new RuntimeException("Serialization failed"));
+            .thenThrow(new JsonProcessingException("Serialization failed") { });
 
-        BehavioralProfileService serviceWithFailingMapper = new BehavioralProfileService(
-            repository, failingMapper
-        );
+        BehavioralProfileService serviceWithFailingMapper = service(failingMapper, 0.0);
 
         BehavioralProfile profile = createTestProfile("user-error");
 
@@ -106,7 +124,7 @@ public class BehavioralProfileServiceTest {
         serviceWithFailingMapper.saveProfile(profile);
 
         // Then: should not throw, but logs error
-        verify(repository, never()).save(any());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
     }
 
     @Test
@@ -115,17 +133,77 @@ public class BehavioralProfileServiceTest {
         BehavioralProfile profile = createTestProfile("user-null-timestamp");
         profile.setTimestamp(null);
 
-        when(repository.save(any(BehavioralProfileEntity.class))).thenAnswer(invocation -> {
-            BehavioralProfileEntity entity = invocation.getArgument(0);
-            entity.setId(1L);
-            return entity;
-        });
-
         // When
         service.saveProfile(profile);
 
-        // Then: entity should have a timestamp
-        verify(repository).save(any(BehavioralProfileEntity.class));
+        // Then: row should have a timestamp
+        assertThat(upsertedRows().get(0)[2]).isNotNull();
+    }
+
+    @Test
+    public void saveProfiles_batch_upsertsAllRowsAtOnce() {
+        // Given
+        List<BehavioralProfile> profiles = List.of(createTestProfile("user-1"), createTestProfile("user-2"));
+
+        // When
+        service.saveProfiles(profiles);
+
+        // Then: one batch carrying both profiles, no history by default
+        assertThat(upsertedRows()).extracting(row -> row[0]).containsExactly("user-1", "user-2");
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    public void saveProfiles_unserializableProfile_skipsIt() throws Exception {
+        // Given: ObjectMapper that fails for one user
+        ObjectMapper failingMapper = mock(ObjectMapper.class);
+        BehavioralProfile bad = createTestProfile("user-bad");
+        when(failingMapper.writeValueAsString(any())).thenReturn("{}");
+        when(failingMapper.writeValueAsString(bad)).thenThrow(new JsonProcessingException("Serialization failed") { });
+
+        BehavioralProfileService serviceWithFailingMapper = service(failingMapper, 0.0);
+
+        // When
+        serviceWithFailingMapper.saveProfiles(List.of(createTestProfile("user-ok"), bad));
+
+        // Then: the other profile is still stored
+        assertThat(upsertedRows()).extracting(row -> row[0]).containsExactly("user-ok");
+    }
+
+    @Test
+    public void saveProfiles_historySampled_copiesNewVersions() {
+        // Given: every write sampled
+        BehavioralProfileService sampling = service(objectMapper, 1.0);
+
+        // When
+        sampling.saveProfiles(List.of(createTestProfile("user-1"), createTestProfile("user-2")));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> captor = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("behavioral_profile_history"), captor.capture());
+        assertThat(captor.getValue()).extracting(row -> row[0]).containsExactly("user-1", "user-2");
+    }
+
+    @Test
+    public void saveProfiles_databaseFailure_propagates() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+        // When / Then: left to the caller to retry
+        assertThatThrownBy(() -> service.saveProfiles(List.of(createTestProfile("user-1"))))
+            .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    // Helper method to capture the rows of the current-profile upsert
+    private List<Object[]> upsertedRows() {
+        ArgumentCaptor<List<Object[]>> captor = rowsCaptor();
+        verify(jdbcTemplate).batchUpdate(contains("behavioral_profiles_current"), captor.capture());
+        return captor.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Object[]>> rowsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
     }
 
     // ========================================
@@ -144,7 +222,7 @@ public class BehavioralProfileServiceTest {
             .timestamp(Instant.now())
             .build();
 
-        when(repository.findFirstByUserIdOrderByTimestampDesc("user-456"))
+        when(repository.findById("user-456"))
             .thenReturn(Optional.of(entity));
 
         // When
@@ -159,7 +237,7 @@ public class BehavioralProfileServiceTest {
     @Test
     public void getProfile_nonExistingUser_returnsEmpty() {
         // Given
-        when(repository.findFirstByUserIdOrderByTimestampDesc("non-existent"))
+        when(repository.findById("non-existent"))
             .thenReturn(Optional.empty());
 
         // When
@@ -169,6 +247,36 @@ public class BehavioralProfileServiceTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    public void getProfile_notCompactedYet_readsLegacyLog() throws Exception {
+        // Given: only a legacy row exists
+        String profileJson = objectMapper.writeValueAsString(createTestProfile("legacy-user"));
+        when(repository.findById("legacy-user")).thenReturn(Optional.empty());
+        when(jdbcTemplate.query(contains("FROM behavioral_profiles "), any(RowMapper.class), eq("legacy-user")))
+            .thenReturn(List.of(profileJson));
+
+        // When
+        Optional<BehavioralProfile> result = service.getProfile("legacy-user");
+
+        // Then
+        assertThat(result).isPresent();
+        assertThat(result.get().getUserId()).isEqualTo("legacy-user");
+    }
+
+    @Test
+    public void getProfile_legacyDrained_skipsLegacyLog() {
+        // Given
+        when(repository.findById("new-user")).thenReturn(Optional.empty());
+        service.legacyDrained();
+
+        // When
+        Optional<BehavioralProfile> result = service.getProfile("new-user");
+
+        // Then: a single primary-key lookup
+        assertThat(result).isEmpty();
+        verifyNoInteractions(jdbcTemplate);
+    }
+
     @Test
     public void getProfile_uuidOverload_works() throws Exception {
         // Given
@@ -183,7 +291,7 @@ public class BehavioralProfileServiceTest {
             .timestamp(Instant.now())
             .build();
 
-        when(repository.findFirstByUserIdOrderByTimestampDesc(userIdStr))
+        when(repository.findById(userIdStr))
             .thenReturn(Optional.of(entity));
 
         // When
@@ -206,7 +314,7 @@ public class BehavioralProfileServiceTest {
             .timestamp(Instant.now())
             .build();
 
-        when(repository.findFirstByUserIdOrderByTimestampDesc("user-alias"))
+        when(repository.findById("user-alias"))
             .thenReturn(Optional.of(entity));
 
         // When
@@ -233,7 +341,7 @@ public class BehavioralProfileServiceTest {
             .timestamp(Instant.now())
             .build();
 
-        when(repository.findFirstByUserIdOrderByTimestampDesc("user-deser"))
+        when(repository.findById("user-deser"))
             .thenReturn(Optional.of(entity));
 
         // When
@@ -255,7 +363,7 @@ public class BehavioralProfileServiceTest {
             .timestamp(Instant.now())
             .build();
 
-        when(repository.findFirstByUserIdOrderByTimestampDesc("user-invalid"))
+        when(repository.findById("user-invalid"))
             .thenReturn(Optional.of(entity));
 
         // When
@@ -266,30 +374,133 @@ public class BehavioralProfileServiceTest {
     }
 
     // ========================================
-    // Cleanup Tests
+    // Cache Tests
     // ========================================
 
     @Test
-    public void cleanupOldProfiles_placeholder() {
+    public void getProfile_cached_decodesOnce() throws Exception {
         // Given
-        BehavioralProfile profile = createTestProfile("user-cleanup");
+        when(repository.findById("user-1")).thenReturn(Optional.of(entity(createTestProfile("user-1"))));
 
-        // When: placeholder method
-        service.cleanupOldProfiles("user-cleanup", 5);
+        // When
+        BehavioralProfile first = service.getProfile("user-1").orElseThrow();
+        BehavioralProfile second = service.getProfile("user-1").orElseThrow();
+
+        // Then: one load, then hits on the same decoded profile
+        assertThat(second).isSameAs(first);
+        verify(repository, times(1)).findById("user-1");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    public void getProfile_missingUser_cachesAbsence() {
+        // Given
+        when(repository.findById("new-user")).thenReturn(Optional.empty());
+        service.legacyDrained();
 
-        // Then: should not throw
-        // This is a placeholder as noted in the code
+        // When
+        service.getProfile("new-user");
+        Optional<BehavioralProfile> result = service.getProfile("new-user");
+
+        // Then
+        assertThat(result).isEmpty();
+        verify(repository, times(1)).findById("new-user");
     }
 
     @Test
-    public void cleanupOldProfiles_withNegativeKeepCount() {
+    public void findByUserId_bypassesCache() throws Exception {
+        // Given
+        when(repository.findById("user-1")).thenReturn(Optional.of(entity(createTestProfile("user-1"))));
+        BehavioralProfile cached = service.getProfile("user-1").orElseThrow();
+
+        // When
+        BehavioralProfile owned = service.findByUserId("user-1").orElseThrow();
+
+        // Then: a private copy for the caller to modify
+        assertThat(owned).isNotSameAs(cached);
+        verify(repository, times(2)).findById("user-1");
+    }
+
+    @Test
+    public void refresh_newerSnapshot_replacesCachedProfile() throws Exception {
+        // Given
+        BehavioralProfile stored = createTestProfile("user-1");
+        when(repository.findById("user-1")).thenReturn(Optional.of(entity(stored)));
+        service.getProfile("user-1");
+
+        BehavioralProfile update = createTestProfile("user-1");
+        update.setTimestamp(stored.getTimestamp().plusSeconds(10));
+
+        // When
+        service.refresh(update);
+
+        // Then
+        assertThat(service.getProfile("user-1")).containsSame(update);
+        verify(repository, times(1)).findById("user-1");
+    }
+
+    @Test
+    public void refresh_olderSnapshot_isIgnored() throws Exception {
         // Given
-        BehavioralProfile profile = createTestProfile("user-cleanup-neg");
+        BehavioralProfile stored = createTestProfile("user-1");
+        when(repository.findById("user-1")).thenReturn(Optional.of(entity(stored)));
+        BehavioralProfile cached = service.getProfile("user-1").orElseThrow();
 
+        BehavioralProfile update = createTestProfile("user-1");
+        update.setTimestamp(stored.getTimestamp().minusSeconds(10));
+
+        // When: a reordered, older update arrives
+        service.refresh(update);
+
+        // Then
+        assertThat(service.getProfile("user-1")).containsSame(cached);
+    }
+
+    @Test
+    public void saveProfiles_invalidatesCachedProfile() throws Exception {
+        // Given
+        when(repository.findById("user-1")).thenReturn(Optional.of(entity(createTestProfile("user-1"))));
+        service.getProfile("user-1");
+
+        // When
+        service.saveProfiles(List.of(createTestProfile("user-1")));
+        service.getProfile("user-1");
+
+        // Then: reloaded after the write
+        verify(repository, times(2)).findById("user-1");
+    }
+
+    // Helper method to store a profile as a current row
+    private BehavioralProfileEntity entity(BehavioralProfile profile) throws Exception {
+        return BehavioralProfileEntity.builder()
+            .userId(profile.getUserId())
+            .profileData(objectMapper.writeValueAsString(profile))
+            .timestamp(profile.getTimestamp())
+            .version(1)
+            .build();
+    }
+
+    // ========================================
+    // Cleanup Tests
+    // ========================================
+
+    @Test
+    public void cleanupOldProfiles_keepsNewestHistoryVersions() {
+        // When
+        service.cleanupOldProfiles("user-cleanup", 5);
+
+        // Then
+        verify(jdbcTemplate).update(contains("DELETE FROM behavioral_profile_history"),
+            eq("user-cleanup"), eq("user-cleanup"), eq(5));
+    }
+
+    @Test
+    public void cleanupOldProfiles_withNegativeKeepCount() {
         // When
         service.cleanupOldProfiles("user-cleanup-neg", -1);
 
-        // Then: should not throw
-        // This is a placeholder method
+        // Then: treated as keeping none
+        verify(jdbcTemplate).update(anyString(), eq("user-cleanup-neg"), eq("user-cleanup-neg"), eq(0));
     }
 }
@@ -0,0 +1,63 @@
+package com.gradepath.content.recommendation.profile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ProfileUpdateDecoder.
+ * Tests binding of profile-updates messages in one pass.
+ */
+@Test(groups = "unit")
+public class ProfileUpdateDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final ProfileUpdateDecoder decoder = new ProfileUpdateDecoder(objectMapper);
+
+    @Test(description = "decodes messages as ProfilingService emits them")
+    public void decode_roundTripsEmittedUpdate() throws IOException {
+        // Given
+        Instant timestamp = Instant.parse("2026-10-01T12:00:00Z");
+        BehavioralProfile profile = BehavioralProfile.builder()
+            .userId("user-1")
+            .interests(Map.of("math", BehavioralProfile.InterestScore.builder().topic("math").score(12.5).build()))
+            .peakWindows(List.of())
+            .commonPaths(List.of())
+            .totalSessions(3)
+            .totalContentConsumed(9)
+            .build();
+        String message = objectMapper.writeValueAsString(Map.of(
+            "userId", "user-1", "profile", profile, "timestamp", timestamp));
+
+        // When
+        ProfileUpdateDecoder.ProfileUpdate update = decoder.decode(message);
+
+        // Then
+        assertThat(update.userId()).isEqualTo("user-1");
+        assertThat(update.timestamp()).isEqualTo(timestamp);
+        assertThat(update.profile().getTotalContentConsumed()).isEqualTo(9);
+        assertThat(update.profile().getInterests().get("math").getScore()).isEqualTo(12.5);
+    }
+
+    @Test(description = "unknown top-level fields are skipped and a missing profile decodes as null")
+    public void decode_withoutProfile() throws IOException {
+        // When
+        ProfileUpdateDecoder.ProfileUpdate update =
+            decoder.decode("{\"source\": {\"service\": \"nest\"}, \"userId\": \"user-2\"}");
+
+        // Then
+        assertThat(update.userId()).isEqualTo("user-2");
+        assertThat(update.profile()).isNull();
+        assertThat(update.timestamp()).isNull();
+    }
+}
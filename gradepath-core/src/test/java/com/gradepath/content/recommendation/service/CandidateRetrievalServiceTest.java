@@ -0,0 +1,80 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.content.model.Content;
+import com.gradepath.content.profile.model.UserPreferences;
+import com.gradepath.content.recommendation.algorithm.NextInPathPredictor;
+import com.gradepath.content.recommendation.algorithm.ShortsStrategyService;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import org.roaringbitmap.RoaringBitmap;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CandidateRetrievalService.
+ * Tests the bounded pool for users without a topic signal.
+ */
+@Test(groups = "unit")
+public class CandidateRetrievalServiceTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final int POOL_SIZE = 5;
+
+    private final CandidateRetrievalService service = new CandidateRetrievalService(
+        new ShortsStrategyService(), NextInPathPredictor.inMemory(), POOL_SIZE, 20, 20);
+
+    // Helper method to create published content at an ordinal
+    private Content content(int ordinal, int difficulty) {
+        Content content = new Content();
+        content.setId("c" + ordinal);
+        content.setOrdinal(ordinal);
+        content.setType(Content.ContentType.VIDEO);
+        content.setTitle("c" + ordinal);
+        content.setStatus(Content.ContentStatus.PUBLISHED);
+        content.setDifficultyLevel(difficulty);
+        content.setUpdatedAt(T0);
+        content.setTopics(Map.of("topics", List.of("algebra")));
+        return content;
+    }
+
+    // Helper method to build a catalog whose even ordinals sit at the default ZPD target
+    private CatalogSnapshot catalog(int size) {
+        List<Content> items = new ArrayList<>();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            items.add(content(ordinal, ordinal % 2 == 0 ? 4 : 9));
+        }
+        return CatalogSnapshot.of(1, items, T0);
+    }
+
+    @Test(description = "a user without a topic signal gets a pool-size pool, ZPD-fitting content first")
+    public void retrieve_noTopicSignal_boundedPool() {
+        // Given
+        CatalogSnapshot catalog = catalog(40);
+
+        // When
+        List<Content> candidates = service.retrieve(catalog, RoaringBitmap.bitmapOf(0), new UserPreferences(),
+            Optional.empty(), ShortsStrategyService.ContentStrategy.BALANCED);
+
+        // Then
+        assertThat(candidates).extracting(Content::getOrdinal).containsExactly(2, 4, 6, 8, 10);
+    }
+
+    @Test(description = "a catalog with no more than pool-size unseen items is returned whole")
+    public void retrieve_smallCatalog_returnsEverythingUnseen() {
+        // Given
+        CatalogSnapshot catalog = catalog(6);
+
+        // When
+        List<Content> candidates = service.retrieve(catalog, RoaringBitmap.bitmapOf(3), new UserPreferences(),
+            Optional.empty(), ShortsStrategyService.ContentStrategy.BALANCED);
+
+        // Then
+        assertThat(candidates).extracting(Content::getOrdinal).containsExactlyInAnyOrder(0, 1, 2, 4, 5);
+    }
+}
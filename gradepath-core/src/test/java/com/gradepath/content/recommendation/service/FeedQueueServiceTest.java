@@ -0,0 +1,105 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.recommendation.event.FeedRefillRequestedEvent;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for FeedQueueService.
+ * Tests O(1) pops, entry encoding and low-watermark refill requests.
+ */
+@Test(groups = "unit")
+public class FeedQueueServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ListOperations<String, String> listOperations;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private FeedQueueService service;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForList()).thenReturn(listOperations);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        service = new FeedQueueService(redisTemplate, eventPublisher, 5, 3600, 30);
+    }
+
+    @Test(description = "pop decodes the head entry and leaves a full buffer alone")
+    public void pop_returnsHeadWithoutRefill() {
+        // Given
+        UUID slateId = UUID.randomUUID();
+        when(listOperations.leftPop("feed:v2:" + userId)).thenReturn(slateId + "|3|0.8125|content|with|pipes");
+        when(listOperations.size("feed:v2:" + userId)).thenReturn(12L);
+
+        // When
+        Optional<FeedQueueService.FeedEntry> entry = service.pop(userId);
+
+        // Then
+        assertThat(entry).contains(new FeedQueueService.FeedEntry(
+            slateId, 3, new BigDecimal("0.8125"), "content|with|pipes"));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test(description = "dropping below the low-watermark requests one refill")
+    public void pop_belowWatermarkRequestsRefill() {
+        // Given
+        when(listOperations.leftPop(anyString())).thenReturn(null);
+        when(listOperations.size(anyString())).thenReturn(0L);
+        when(valueOperations.setIfAbsent(eq("feed:refill:" + userId), eq("1"), any(Duration.class)))
+            .thenReturn(true, false);
+
+        // When
+        Optional<FeedQueueService.FeedEntry> first = service.pop(userId);
+        service.pop(userId);
+
+        // Then
+        assertThat(first).isEmpty();
+        ArgumentCaptor<FeedRefillRequestedEvent> event = ArgumentCaptor.forClass(FeedRefillRequestedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertThat(event.getValue().userId()).isEqualTo(userId);
+    }
+
+    @Test(description = "push appends encoded entries and refreshes the TTL")
+    public void push_appendsEntries() {
+        // Given
+        UUID slateId = UUID.randomUUID();
+        FeedQueueService.FeedEntry entry =
+            new FeedQueueService.FeedEntry(slateId, 0, new BigDecimal("0.5000"), "c1");
+
+        // When
+        service.push(userId, List.of(entry));
+
+        // Then
+        verify(listOperations).rightPushAll("feed:v2:" + userId, List.of(slateId + "|0|0.5000|c1"));
+        verify(redisTemplate).expire("feed:v2:" + userId, Duration.ofSeconds(3600));
+    }
+}
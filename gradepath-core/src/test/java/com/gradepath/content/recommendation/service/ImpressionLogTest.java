@@ -0,0 +1,143 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.recommendation.model.RecommendationSlate;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for ImpressionLog.
+ * Tests non-blocking appends, batched slate flushes, isolating rejected slates
+ * and drop accounting.
+ */
+@Test(groups = "unit")
+public class ImpressionLogTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ImpressionLog impressionLog;
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        impressionLog = new ImpressionLog(jdbcTemplate, meterRegistry, 5, 2);
+    }
+
+    @Test(description = "append does not touch the database until flush")
+    public void append_defersWrites() {
+        // When
+        slates(3).forEach(impressionLog::append);
+
+        // Then
+        assertThat(impressionLog.pendingCount()).isEqualTo(3);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test(description = "flush drains the queue in batch-size chunks")
+    @SuppressWarnings("unchecked")
+    public void flush_writesInBatches() {
+        // Given
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(inv -> {
+                batchSizes.add(((Collection<?>) inv.getArgument(1)).size());
+                return new int[0][];
+            });
+        slates(5).forEach(impressionLog::append);
+
+        // When
+        impressionLog.flush();
+
+        // Then
+        assertThat(batchSizes).containsExactly(2, 2, 1);
+        assertThat(impressionLog.pendingCount()).isZero();
+    }
+
+    @Test(description = "a full queue drops and counts slates instead of blocking")
+    public void append_dropsWhenFull() {
+        // When
+        slates(7).forEach(impressionLog::append);
+
+        // Then
+        assertThat(impressionLog.pendingCount()).isEqualTo(5);
+        assertThat(meterRegistry.counter("recommendation.impressions.dropped").count()).isEqualTo(2.0);
+    }
+
+    @Test(description = "a failed batch is dropped and the rest still flush")
+    @SuppressWarnings("unchecked")
+    public void flush_continuesAfterFailure() {
+        // Given
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new IllegalStateException("db down"))
+            .thenReturn(new int[0][]);
+        slates(4).forEach(impressionLog::append);
+
+        // When
+        impressionLog.flush();
+
+        // Then
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(impressionLog.pendingCount()).isZero();
+        assertThat(meterRegistry.counter("recommendation.impressions.dropped").count()).isEqualTo(2.0);
+    }
+
+    @Test(description = "a batch the database rejects is written slate by slate, dropping only the bad one")
+    @SuppressWarnings("unchecked")
+    public void flush_rejectedBatch_writesSlatesOneByOne() {
+        // Given - one slate references a deleted user
+        List<RecommendationSlate> slates = slates(2);
+        RecommendationSlate orphan = slates.get(1);
+        List<Collection<?>> written = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenAnswer(inv -> {
+                Collection<?> batch = inv.getArgument(1);
+                if (batch.contains(orphan)) {
+                    throw new DataIntegrityViolationException("violates foreign key constraint");
+                }
+                written.add(List.copyOf(batch));
+                return new int[0][];
+            });
+        slates.forEach(impressionLog::append);
+
+        // When
+        impressionLog.flush();
+
+        // Then
+        assertThat(written).containsExactly(List.of(slates.get(0)));
+        assertThat(impressionLog.pendingCount()).isZero();
+        assertThat(meterRegistry.counter("recommendation.impressions.dropped").count()).isEqualTo(1.0);
+    }
+
+    // Helper method to build slates for one user
+    private List<RecommendationSlate> slates(int count) {
+        UUID userId = UUID.randomUUID();
+        List<RecommendationSlate> slates = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            slates.add(new RecommendationSlate(
+                UUID.randomUUID(), userId, new int[] {i, i + 1}, new float[] {0.9f, 0.5f}, "HYBRID", "reason", Instant.now()));
+        }
+        return slates;
+    }
+}
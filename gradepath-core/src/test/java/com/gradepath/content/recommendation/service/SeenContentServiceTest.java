@@ -0,0 +1,222 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.analytics.model.InteractionType;
+import com.gradepath.content.analytics.repository.ContentInteractionRepository;
+import com.gradepath.content.content.model.Content;
+import com.gradepath.content.content.repository.ContentRepository;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshot;
+import com.gradepath.content.recommendation.catalog.CatalogSnapshotService;
+import com.gradepath.content.recommendation.model.UserSeenContent;
+import com.gradepath.content.recommendation.repository.UserSeenContentRepository;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.transaction.support.TransactionOperations;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SeenContentService.
+ * Tests bitmap bootstrap, copy-on-write updates, merging write-back and refresh.
+ */
+@Test(groups = "unit")
+public class SeenContentServiceTest {
+
+    @Mock
+    private UserSeenContentRepository seenRepository;
+
+    @Mock
+    private ContentInteractionRepository interactionRepository;
+
+    @Mock
+    private ContentRepository contentRepository;
+
+    @Mock
+    private CatalogSnapshotService catalogSnapshotService;
+
+    private SeenContentService service;
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Content content = new Content();
+        content.setId("c5");
+        content.setOrdinal(5);
+        content.setType(Content.ContentType.VIDEO);
+        content.setStatus(Content.ContentStatus.PUBLISHED);
+        when(catalogSnapshotService.current()).thenReturn(CatalogSnapshot.of(1, List.of(content), null));
+        service = service(60000);
+    }
+
+    @Test(description = "getSeenOrdinals bootstraps from interaction history when nothing is stored")
+    public void getSeenOrdinals_noStoredBitmap_bootstrapsFromHistory() {
+        // Given
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of(1, 3));
+
+        // When
+        RoaringBitmap seen = service.getSeenOrdinals(userId);
+        service.getSeenOrdinals(userId);
+
+        // Then
+        assertThat(seen.toArray()).containsExactly(1, 3);
+        verify(interactionRepository, times(1)).findViewedContentOrdinals(userId, SeenContentService.SEEN_TYPES);
+    }
+
+    @Test(description = "getSeenOrdinals reads the stored bitmap")
+    public void getSeenOrdinals_storedBitmap_isDeserialized() {
+        // Given
+        byte[] stored = SeenContentService.serialize(RoaringBitmap.bitmapOf(2, 70000));
+        when(seenRepository.findById(userId)).thenReturn(Optional.of(new UserSeenContent(userId, stored, Instant.now())));
+
+        // When
+        RoaringBitmap seen = service.getSeenOrdinals(userId);
+
+        // Then
+        assertThat(seen.toArray()).containsExactly(2, 70000);
+        verifyNoInteractions(interactionRepository);
+    }
+
+    @Test(description = "markSeen swaps in a new bitmap and leaves the previous one untouched")
+    public void markSeen_isCopyOnWrite() {
+        // Given
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of());
+        RoaringBitmap before = service.getSeenOrdinals(userId);
+
+        // When
+        service.markSeen(userId, "c5");
+
+        // Then
+        assertThat(before.isEmpty()).isTrue();
+        assertThat(service.getSeenOrdinals(userId).contains(5)).isTrue();
+    }
+
+    @Test(description = "flush persists only changed bitmaps")
+    public void flush_persistsDirtyBitmaps() {
+        // Given
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of());
+        when(seenRepository.findByIdForUpdate(userId)).thenReturn(Optional.empty());
+        when(seenRepository.insertIfAbsent(eq(userId), any())).thenReturn(1);
+        service.markSeen(userId, "c5");
+
+        // When
+        service.flush();
+        service.flush();
+
+        // Then
+        verify(seenRepository, times(1)).insertIfAbsent(eq(userId), any());
+        verify(seenRepository, never()).upsert(any(), any());
+    }
+
+    @Test(description = "flush ORs the cached bitmap into the stored one and caches the union")
+    public void flush_mergesWithStoredBitmap() {
+        // Given - another instance stored ordinal 2 after this one loaded the user
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of());
+        service.markSeen(userId, "c5");
+        byte[] stored = SeenContentService.serialize(RoaringBitmap.bitmapOf(2));
+        when(seenRepository.findByIdForUpdate(userId))
+            .thenReturn(Optional.of(new UserSeenContent(userId, stored, Instant.now())));
+
+        // When
+        service.flush();
+
+        // Then
+        ArgumentCaptor<byte[]> written = ArgumentCaptor.forClass(byte[].class);
+        verify(seenRepository).upsert(eq(userId), written.capture());
+        assertThat(SeenContentService.deserialize(written.getValue()).toArray()).containsExactly(2, 5);
+        assertThat(service.getSeenOrdinals(userId).toArray()).containsExactly(2, 5);
+    }
+
+    @Test(description = "a failed flush keeps the user dirty, so the next flush writes the marks")
+    public void flush_failure_retriesNextFlush() {
+        // Given
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of());
+        when(seenRepository.findByIdForUpdate(userId)).thenReturn(Optional.empty());
+        when(seenRepository.insertIfAbsent(eq(userId), any()))
+            .thenThrow(new IllegalStateException("connection reset"))
+            .thenReturn(1);
+        service.markSeen(userId, "c5");
+
+        // When
+        service.flush();
+        service.flush();
+        service.flush();
+
+        // Then
+        verify(seenRepository, times(2)).insertIfAbsent(eq(userId), any());
+    }
+
+    @Test(description = "a clean bitmap older than the cache TTL is reloaded")
+    public void getSeenOrdinals_staleEntry_isReloaded() {
+        // Given
+        service = service(0);
+        when(seenRepository.findById(userId))
+            .thenReturn(Optional.of(new UserSeenContent(userId, SeenContentService.serialize(RoaringBitmap.bitmapOf(1)), Instant.now())))
+            .thenReturn(Optional.of(new UserSeenContent(userId, SeenContentService.serialize(RoaringBitmap.bitmapOf(1, 4)), Instant.now())));
+
+        // When
+        service.getSeenOrdinals(userId);
+        RoaringBitmap seen = service.getSeenOrdinals(userId);
+
+        // Then
+        assertThat(seen.toArray()).containsExactly(1, 4);
+    }
+
+    @Test(description = "a dirty bitmap is not replaced by a reload before it is flushed")
+    public void getSeenOrdinals_dirtyEntry_isKept() {
+        // Given
+        service = service(0);
+        when(seenRepository.findById(userId)).thenReturn(Optional.empty());
+        when(interactionRepository.findViewedContentOrdinals(eq(userId), any())).thenReturn(List.of());
+        service.markSeen(userId, "c5");
+
+        // When
+        RoaringBitmap seen = service.getSeenOrdinals(userId);
+
+        // Then
+        assertThat(seen.contains(5)).isTrue();
+        verify(seenRepository, times(1)).findById(userId);
+    }
+
+    @Test(description = "markSeen ignores content without an ordinal")
+    public void markSeen_unknownContent_isIgnored() {
+        // Given
+        when(contentRepository.findOrdinalById("missing")).thenReturn(Optional.empty());
+
+        // When
+        service.markSeen(userId, "missing");
+        service.flush();
+
+        // Then
+        verify(seenRepository, never()).upsert(any(), any());
+        verify(seenRepository, never()).insertIfAbsent(any(), any());
+    }
+
+    @Test(description = "isSeenInteraction covers viewed, completed and skipped")
+    public void isSeenInteraction_matchesSeenTypes() {
+        assertThat(SeenContentService.isSeenInteraction(InteractionType.SKIPPED)).isTrue();
+        assertThat(SeenContentService.isSeenInteraction(InteractionType.LIKED)).isFalse();
+    }
+
+    // Helper method to build the service around the mocks
+    private SeenContentService service(long cacheTtlMs) {
+        return new SeenContentService(seenRepository, interactionRepository, contentRepository,
+            catalogSnapshotService, TransactionOperations.withoutTransaction(), 100, cacheTtlMs);
+    }
+}
@@ -0,0 +1,108 @@
+package com.gradepath.content.recommendation.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for SingleFlight.
+ * Tests coalescing of concurrent calls, error sharing and metrics.
+ */
+@Test(groups = "unit")
+public class SingleFlightTest {
+
+    private MeterRegistry meterRegistry;
+    private SingleFlight<String, Integer> flight;
+
+    @BeforeMethod
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flight = new SingleFlight<>("test", meterRegistry);
+    }
+
+    // Helper method to read a counter tagged with the flight name
+    private double count(String name) {
+        return meterRegistry.get(name).tag("name", "test").counter().count();
+    }
+
+    @Test(description = "concurrent callers for one key share a single computation")
+    public void execute_coalescesConcurrentCallers() throws Exception {
+        // Given
+        int callers = 8;
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // When
+        List<Future<Integer>> results = new ArrayList<>();
+        results.add(executor.submit(() -> flight.execute("user", () -> {
+            runs.incrementAndGet();
+            started.countDown();
+            await(release);
+            return 42;
+        })));
+        started.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < callers; i++) {
+            results.add(executor.submit(() -> flight.execute("user", () -> runs.incrementAndGet() * 1000)));
+        }
+        // Followers are parked on the leader's future before it completes
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("singleflight.coalesced") < callers - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        // Then
+        for (Future<Integer> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(count("singleflight.computed")).isEqualTo(1);
+        assertThat(count("singleflight.coalesced")).isEqualTo(callers - 1);
+        executor.shutdownNow();
+    }
+
+    @Test(description = "a finished flight frees the key for the next caller")
+    public void execute_sequentialCallsComputeAgain() {
+        // When
+        int first = flight.execute("user", () -> 1);
+        int second = flight.execute("user", () -> 2);
+
+        // Then
+        assertThat(first).isEqualTo(1);
+        assertThat(second).isEqualTo(2);
+        assertThat(count("singleflight.computed")).isEqualTo(2);
+    }
+
+    @Test(description = "the leader's exception reaches the caller and does not poison the key")
+    public void execute_propagatesFailure() {
+        // When / Then
+        assertThatThrownBy(() -> flight.execute("user", () -> {
+            throw new IllegalArgumentException("User not found");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(flight.execute("user", () -> 7)).isEqualTo(7);
+    }
+
+    // Helper method to wait on a latch inside a supplier
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.gradepath.content.recommendation.service;
+
+import com.gradepath.content.profile.model.User;
+import com.gradepath.content.profile.model.UserPreferences;
+import com.gradepath.content.profile.repository.SkillLevelRepository;
+import com.gradepath.content.profile.repository.UserPreferencesRepository;
+import com.gradepath.content.profile.repository.UserRepository;
+import com.gradepath.content.recommendation.profile.BehavioralProfileService;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.roaringbitmap.RoaringBitmap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for UserContextLoader.
+ * Tests concurrent fan-out, default preferences, failure propagation and the deadline.
+ */
+@Test(groups = "unit")
+public class UserContextLoaderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserPreferencesRepository preferencesRepository;
+
+    @Mock
+    private SkillLevelRepository skillLevelRepository;
+
+    @Mock
+    private BehavioralProfileService behavioralProfileService;
+
+    @Mock
+    private SeenContentService seenContentService;
+
+    private UserContextLoader loader;
+    private final UUID userId = UUID.randomUUID();
+    private final RoaringBitmap seen = RoaringBitmap.bitmapOf(1, 2, 3);
+
+    @BeforeMethod
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        loader = new UserContextLoader(
+            userRepository, preferencesRepository, skillLevelRepository,
+            behavioralProfileService, seenContentService, 500);
+
+        when(userRepository.findById(userId)).thenReturn(Optional.of(new User()));
+        when(preferencesRepository.findByUserId(userId)).thenReturn(Optional.of(new UserPreferences()));
+        when(skillLevelRepository.findByUserId(userId)).thenReturn(List.of());
+        when(behavioralProfileService.getProfile(userId)).thenReturn(Optional.empty());
+        when(seenContentService.getSeenOrdinals(userId)).thenReturn(seen);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        loader.shutdown();
+    }
+
+    @Test(description = "all lookups are in flight at the same time")
+    public void load_runsLookupsConcurrently() {
+        // Given - every lookup waits until all five have started
+        CountDownLatch started = new CountDownLatch(5);
+        when(userRepository.findById(userId)).thenAnswer(inv -> arrive(started, Optional.of(new User())));
+        when(preferencesRepository.findByUserId(userId)).thenAnswer(inv -> arrive(started, Optional.of(new UserPreferences())));
+        when(skillLevelRepository.findByUserId(userId)).thenAnswer(inv -> arrive(started, List.of()));
+        when(behavioralProfileService.getProfile(userId)).thenAnswer(inv -> arrive(started, Optional.empty()));
+        when(seenContentService.getSeenOrdinals(userId)).thenAnswer(inv -> arrive(started, seen));
+
+        // When
+        UserContext context = loader.load(userId);
+
+        // Then
+        assertThat(context.userId()).isEqualTo(userId);
+        assertThat(context.seen()).isSameAs(seen);
+        assertThat(context.behavioralProfile()).isEmpty();
+    }
+
+    @Test(description = "missing preferences are replaced by in-memory defaults without a write")
+    public void load_defaultPreferencesInMemory() {
+        // Given
+        when(preferencesRepository.findByUserId(userId)).thenReturn(Optional.empty());
+
+        // When
+        UserContext context = loader.load(userId);
+
+        // Then
+        assertThat(context.preferences().getUserId()).isEqualTo(userId);
+        assertThat(context.preferences().getDifficultyPreference()).isEqualTo(3);
+        verify(preferencesRepository, never()).save(any());
+    }
+
+    @Test(description = "an unknown user fails like the sequential lookup did")
+    public void load_unknownUser() {
+        // Given
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        // When / Then
+        assertThatThrownBy(() -> loader.load(userId))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining(userId.toString());
+    }
+
+    @Test(description = "a failing lookup is rethrown and interrupts the slow ones")
+    public void load_failureCancelsSiblings() throws InterruptedException {
+        // Given - the failure only happens once the slow lookup is running
+        CountDownLatch sleeping = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(skillLevelRepository.findByUserId(userId)).thenAnswer(inv -> {
+            sleeping.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("db down");
+        });
+        when(behavioralProfileService.getProfile(userId)).thenAnswer(inv -> {
+            sleeping.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Optional.empty();
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> loader.load(userId))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("db down");
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test(description = "lookups that miss the deadline fail the load")
+    public void load_deadline() {
+        // Given
+        when(behavioralProfileService.getProfile(userId)).thenAnswer(inv -> {
+            Thread.sleep(10_000);
+            return Optional.empty();
+        });
+
+        // When / Then
+        assertThatThrownBy(() -> loader.load(userId))
+            .isInstanceOf(UserContextLoader.ContextLoadTimeoutException.class);
+    }
+
+    // Helper method to block until every lookup has started
+    private static <T> T arrive(CountDownLatch started, T result) throws InterruptedException {
+        started.countDown();
+        if (!started.await(5, TimeUnit.SECONDS)) {
+            throw new AssertionError("lookups did not run concurrently");
+        }
+        return result;
+    }
+}